@@ -0,0 +1,53 @@
+package com.saqib.school.common.dto;
+
+import com.saqib.school.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a {@link SlicePage}: its sort key and id. The
+ * next page seeks past this pair instead of skipping rows with OFFSET.
+ */
+public record SeekCursor(String sortKey, long id) {
+
+  public String encode() {
+    String raw = id + ":" + sortKey;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Parses a cursor from a previous page; null or blank means the first page.
+   */
+  public static SeekCursor decode(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(':');
+      return new SeekCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+
+  public LocalDate dateKey() {
+    try {
+      return LocalDate.parse(sortKey);
+    } catch (DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+
+  public LocalDateTime dateTimeKey() {
+    try {
+      return LocalDateTime.parse(sortKey);
+    } catch (DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.saqib.school.common.dto;
+
+import com.saqib.school.common.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset-paged alternative to {@link PageResponse}. Pages are addressed by
+ * {@code nextCursor} rather than a page number, so deep pages cost the same
+ * as the first, and no count query runs unless a total is asked for.
+ * {@code totalElements} is null when not requested and may be an estimate,
+ * as flagged by {@code totalEstimated}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlicePage<T> {
+  public static final int MAX_SIZE = 500;
+
+  private List<T> content;
+  private int size;
+  private boolean hasNext;
+  private String nextCursor;
+  private Long totalElements;
+  private boolean totalEstimated;
+
+  /**
+   * Builds a page from up to {@code size + 1} rows; the extra row only
+   * signals that another page exists.
+   */
+  public static <T> SlicePage<T> from(List<T> rows, int size, Function<T, SeekCursor> cursorOf) {
+    boolean hasNext = rows.size() > size;
+    List<T> content = hasNext ? rows.subList(0, size) : rows;
+    return SlicePage.<T>builder()
+      .content(content)
+      .size(content.size())
+      .hasNext(hasNext)
+      .nextCursor(hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null)
+      .build();
+  }
+
+  public static void checkSize(int size) {
+    if (size < 1 || size > MAX_SIZE) {
+      throw new BadRequestException("Page size must be between 1 and " + MAX_SIZE);
+    }
+  }
+
+  public <R> SlicePage<R> map(Function<T, R> mapper) {
+    return SlicePage.<R>builder()
+      .content(content.stream().map(mapper).toList())
+      .size(size)
+      .hasNext(hasNext)
+      .nextCursor(nextCursor)
+      .totalElements(totalElements)
+      .totalEstimated(totalEstimated)
+      .build();
+  }
+
+  public SlicePage<T> withTotal(RowCount total) {
+    if (total != null) {
+      this.totalElements = total.value();
+      this.totalEstimated = total.estimated();
+    }
+    return this;
+  }
+
+  public record RowCount(long value, boolean estimated) {
+  }
+}
@@ -0,0 +1,150 @@
+package com.saqib.school.common.money;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount in rupees held as a whole number of paisa. Arithmetic is
+ * exact long arithmetic; bulk totals can stay in a primitive {@code long}
+ * with {@link #toPaisa} and {@link #ofPaisa} and only become a value at the
+ * end. Converting from {@link BigDecimal} rounds half up to the paisa, the
+ * same way the {@code numeric(_, 2)} amount columns store values. Serialised
+ * to JSON as a plain decimal number.
+ */
+public final class Money implements Comparable<Money> {
+
+  public static final Money ZERO = new Money(0);
+
+  private static final long[] POWERS_OF_TEN = {
+    1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+  };
+
+  private final long paisa;
+
+  private Money(long paisa) {
+    this.paisa = paisa;
+  }
+
+  public static Money ofPaisa(long paisa) {
+    return paisa == 0 ? ZERO : new Money(paisa);
+  }
+
+  /**
+   * The amount rounded half up to the paisa; null is zero, as for the
+   * nullable fine and paid columns.
+   */
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  public static Money of(BigDecimal amount) {
+    return ofPaisa(toPaisa(amount));
+  }
+
+  /**
+   * Paisa in the amount, rounded half up; null is zero. For primitive
+   * accumulators that should not create a value per row.
+   */
+  public static long toPaisa(BigDecimal amount) {
+    if (amount == null) {
+      return 0L;
+    }
+    return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+  }
+
+  public long paisa() {
+    return paisa;
+  }
+
+  @JsonValue
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(paisa, 2);
+  }
+
+  public Money plus(Money other) {
+    return ofPaisa(Math.addExact(paisa, other.paisa));
+  }
+
+  public Money minus(Money other) {
+    return ofPaisa(Math.subtractExact(paisa, other.paisa));
+  }
+
+  public Money negate() {
+    return ofPaisa(Math.negateExact(paisa));
+  }
+
+  public Money min(Money other) {
+    return paisa <= other.paisa ? this : other;
+  }
+
+  public Money max(Money other) {
+    return paisa >= other.paisa ? this : other;
+  }
+
+  public int signum() {
+    return Long.signum(paisa);
+  }
+
+  public boolean isZero() {
+    return paisa == 0;
+  }
+
+  /**
+   * {@code percent}% of this amount, computed exactly and rounded half up to
+   * the paisa. This is the discount rule: {@code StudentDiscount} takes the
+   * exact percentage and the column rounds it on write.
+   */
+  public Money percentage(BigDecimal percent) {
+    int scale = percent.scale();
+    if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+      return of(toBigDecimal().multiply(percent).divide(BigDecimal.valueOf(100)));
+    }
+    long product = Math.multiplyExact(paisa, percent.unscaledValue().longValueExact());
+    return ofPaisa(divideHalfUp(product, 100 * POWERS_OF_TEN[scale]));
+  }
+
+  /**
+   * {@code percent}% of this amount for fines: rounded up at the working
+   * scale of the multiplication (two places more than the percentage has),
+   * then half up to the paisa, which is what {@code FineStructure} produced
+   * with {@code RoundingMode.CEILING} before the column rounded it.
+   */
+  public Money percentageRoundedUp(BigDecimal percent) {
+    int scale = percent.scale();
+    if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+      return of(toBigDecimal().multiply(percent).divide(BigDecimal.valueOf(100), RoundingMode.CEILING));
+    }
+    long product = Math.multiplyExact(paisa, percent.unscaledValue().longValueExact());
+    long working = -Math.floorDiv(-product, 100);
+    return ofPaisa(divideHalfUp(working, POWERS_OF_TEN[scale]));
+  }
+
+  private static long divideHalfUp(long dividend, long divisor) {
+    long quotient = dividend / divisor;
+    long remainder = Math.abs(dividend % divisor);
+    if (remainder * 2 >= divisor) {
+      quotient += Long.signum(dividend);
+    }
+    return quotient;
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(paisa, other.paisa);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof Money other && paisa == other.paisa;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(paisa);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+}
@@ -0,0 +1,24 @@
+package com.saqib.school.common.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores {@link Money} attributes in the existing {@code numeric(_, 2)}
+ * amount columns.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+  @Override
+  public BigDecimal convertToDatabaseColumn(Money money) {
+    return money != null ? money.toBigDecimal() : null;
+  }
+
+  @Override
+  public Money convertToEntityAttribute(BigDecimal amount) {
+    return amount != null ? Money.of(amount) : null;
+  }
+}
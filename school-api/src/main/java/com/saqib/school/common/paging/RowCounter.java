@@ -0,0 +1,68 @@
+package com.saqib.school.common.paging;
+
+import com.saqib.school.common.dto.SlicePage.RowCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals for keyset listings without a COUNT(*) per request. Unfiltered
+ * listings use the planner's row estimate for the table; filtered ones run
+ * the exact count at most once per key within the cache TTL.
+ */
+@Component
+public class RowCounter {
+
+  private static final String ESTIMATE_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+  private static final int MAX_CACHED_KEYS = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long ttlMillis;
+  private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+  public RowCounter(JdbcTemplate jdbcTemplate,
+                    @Value("${app.paging.count-cache-seconds:60}") long ttlSeconds) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ttlMillis = ttlSeconds * 1000;
+  }
+
+  /**
+   * Row estimate from table statistics. Falls back to the cached exact count
+   * when the table has not been analyzed yet.
+   */
+  public RowCount estimate(String table, LongSupplier exactCount) {
+    Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class, table);
+    if (estimate == null || estimate < 0) {
+      return cached(table, exactCount);
+    }
+    return new RowCount(estimate, true);
+  }
+
+  /**
+   * Exact count, reused for the TTL. {@code key} must identify the listing
+   * and its filter values.
+   */
+  public RowCount cached(String key, LongSupplier exactCount) {
+    long now = System.currentTimeMillis();
+    CachedCount cached = cache.get(key);
+    if (cached == null || cached.expiresAt() < now) {
+      if (cache.size() >= MAX_CACHED_KEYS) {
+        cache.values().removeIf(entry -> entry.expiresAt() < now);
+        // Still full of live keys: start over rather than grow without bound
+        if (cache.size() >= MAX_CACHED_KEYS) {
+          cache.clear();
+        }
+      }
+      cached = new CachedCount(exactCount.getAsLong(), now + ttlMillis);
+      cache.put(key, cached);
+    }
+    return new RowCount(cached.value(), false);
+  }
+
+  private record CachedCount(long value, long expiresAt) {
+  }
+}
@@ -0,0 +1,120 @@
+package com.saqib.school.common.sequence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out unique, gap-tolerant numbers per series. Blocks of numbers are
+ * reserved from the {@code number_sequences} counter row in their own
+ * transaction and then served from memory without locking. A reserved block is
+ * never returned, so numbers are not reused after a restart and several nodes
+ * sharing the database each draw from disjoint blocks.
+ */
+@Component
+@Slf4j
+public class NumberAllocator {
+
+  private static final String ADVANCE_SQL =
+    "UPDATE number_sequences SET last_value = last_value + ?, updated_at = now() " +
+      "WHERE sequence_key = ? RETURNING last_value";
+
+  private static final String INSERT_SQL =
+    "INSERT INTO number_sequences (sequence_key, last_value, updated_at) VALUES (?, ?, now()) " +
+      "ON CONFLICT (sequence_key) DO NOTHING";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate requiresNew;
+  private final int blockSize;
+
+  private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+  private final Map<String, Object> refillLocks = new ConcurrentHashMap<>();
+
+  public NumberAllocator(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.sequence.block-size:20}") int blockSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.requiresNew = new TransactionTemplate(transactionManager);
+    this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Returns the next number in the series. {@code seed} is only consulted the
+   * first time the series is created and should return the highest number
+   * already in use (0 if none).
+   */
+  public long next(String sequenceKey, LongSupplier seed) {
+    while (true) {
+      Block block = blocks.get(sequenceKey);
+      if (block != null) {
+        long value = block.next.getAndIncrement();
+        if (value <= block.last) {
+          return value;
+        }
+      }
+
+      synchronized (refillLocks.computeIfAbsent(sequenceKey, key -> new Object())) {
+        if (blocks.get(sequenceKey) == block) {
+          long last = advance(sequenceKey, blockSize, seed);
+          blocks.put(sequenceKey, new Block(last - blockSize + 1, last));
+        }
+      }
+    }
+  }
+
+  /**
+   * Reserves {@code count} consecutive numbers directly from the counter row
+   * and returns the first one. Intended for bulk operations that need a whole
+   * range at once.
+   */
+  public long reserve(String sequenceKey, int count, LongSupplier seed) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("Reservation count must be positive");
+    }
+    return advance(sequenceKey, count, seed) - count + 1;
+  }
+
+  private long advance(String sequenceKey, int count, LongSupplier seed) {
+    Long last = requiresNew.execute(status -> {
+      Long value = advanceRow(sequenceKey, count);
+      if (value == null) {
+        long seedValue = seed.getAsLong();
+        jdbcTemplate.update(INSERT_SQL, sequenceKey, seedValue);
+        log.info("Initialized number sequence {} at {}", sequenceKey, seedValue);
+        value = advanceRow(sequenceKey, count);
+      }
+      return value;
+    });
+
+    if (last == null) {
+      throw new IllegalStateException("Could not reserve numbers for sequence " + sequenceKey);
+    }
+    return last;
+  }
+
+  private Long advanceRow(String sequenceKey, int count) {
+    List<Long> values = jdbcTemplate.queryForList(ADVANCE_SQL, Long.class, count, sequenceKey);
+    return values.isEmpty() ? null : values.getFirst();
+  }
+
+  private static final class Block {
+    private final AtomicLong next;
+    private final long last;
+
+    private Block(long first, long last) {
+      this.next = new AtomicLong(first);
+      this.last = last;
+    }
+  }
+}
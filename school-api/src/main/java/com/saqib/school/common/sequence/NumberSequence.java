@@ -0,0 +1,30 @@
+package com.saqib.school.common.sequence;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Counter row per number series (e.g. {@code MON-2610}, {@code STD-26}).
+ * {@code lastValue} is the highest number handed out to any node.
+ */
+@Entity
+@Table(name = "number_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NumberSequence {
+
+  @Id
+  @Column(name = "sequence_key", length = 30)
+  private String sequenceKey;
+
+  @Column(name = "last_value", nullable = false)
+  private Long lastValue;
+
+  @Column(name = "updated_at")
+  private LocalDateTime updatedAt;
+}
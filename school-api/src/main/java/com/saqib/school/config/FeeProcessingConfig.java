@@ -0,0 +1,92 @@
+package com.saqib.school.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class FeeProcessingConfig {
+
+    /**
+     * Worker pool for per-class voucher generation. Each worker holds one DB
+     * connection while writing, so keep this below the connection pool size.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeGenerationExecutor(
+            @Value("${app.fee.generation.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("fee-generation-");
+        return executor;
+    }
+
+    /**
+     * Runs submitted generation jobs. Job threads only coordinate; the class
+     * work itself is fanned out to {@code feeGenerationExecutor}.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeJobExecutor(
+            @Value("${app.fee.generation.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setThreadNamePrefix("fee-job-");
+        return executor;
+    }
+
+    /**
+     * Runs the independent parts of a report concurrently. Report parts are
+     * short read-only queries, each on its own connection.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeReportExecutor(
+            @Value("${app.fee.reports.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("fee-report-");
+        return executor;
+    }
+
+    /**
+     * Renders voucher pages for printing. Rendering is CPU-bound and touches
+     * no connections, so this defaults to one thread per core.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feePrintExecutor(
+            @Value("${app.fee.printing.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("fee-print-");
+        return executor;
+    }
+
+    /**
+     * Applies committed fee changes to the in-memory analytics cube off the
+     * committing request's thread. One thread: deltas serialise on the cube anyway.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeAnalyticsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("fee-analytics-");
+        return executor;
+    }
+
+    /**
+     * Fork-join pool for fee what-if simulations, which split the classes
+     * recursively and touch no connections. Defaults to one thread per core.
+     */
+    @Bean
+    public ForkJoinPool feeSimulationPool(
+            @Value("${app.fee.simulation.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -1,19 +1,18 @@
 package com.saqib.school.fee.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
+import com.saqib.school.fee.model.DefaulterPageResponse;
 import com.saqib.school.fee.model.DefaulterReportRequest;
 import com.saqib.school.fee.model.DefaulterReportResponse;
 import com.saqib.school.fee.service.DefaulterReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.time.LocalDate;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/defaulter-reports")
@@ -30,4 +29,27 @@ public class DefaulterReportController {
         DefaulterReportResponse response = defaulterReportService.generateDefaulterReport(request);
         return ResponseEntity.ok(ApiResponse.success("Defaulter report generated successfully", response));
     }
+
+    @PostMapping("/page")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get defaulter page", description = "Retrieve defaulters ordered by days overdue, one keyset page at a time")
+    public ResponseEntity<ApiResponse<DefaulterPageResponse>> getDefaulterPage(
+        @RequestBody DefaulterReportRequest request,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int size) {
+
+        DefaulterPageResponse response = defaulterReportService.getDefaulterPage(request, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    // Runs as an async request bounded by spring.mvc.async.request-timeout
+    @PostMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Stream defaulters", description = "Stream the full defaulter list as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamDefaulters(@RequestBody DefaulterReportRequest request) {
+        StreamingResponseBody body = out -> defaulterReportService.streamDefaulters(request, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
 }
@@ -0,0 +1,105 @@
+package com.saqib.school.fee.controller;
+
+import com.saqib.school.fee.entity.FeePayment;
+import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.model.ExportFormat;
+import com.saqib.school.fee.model.PaymentExportFilter;
+import com.saqib.school.fee.model.VoucherExportFilter;
+import com.saqib.school.fee.service.FeeExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams exports from a {@link StreamingResponseBody}, which runs as an
+ * async request: {@code spring.mvc.async.request-timeout} bounds how long one
+ * export may take, not the container's 30-second default.
+ */
+@RestController
+@RequestMapping("/api/fee-exports")
+@RequiredArgsConstructor
+@Tag(name = "Fee Exports", description = "Streaming voucher and payment exports")
+public class FeeExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final FeeExportService feeExportService;
+
+    @GetMapping("/vouchers")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Export vouchers", description = "Stream matching vouchers as CSV or newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportVouchers(
+        @RequestParam(required = false) Long studentId,
+        @RequestParam(required = false) FeeVoucher.VoucherStatus status,
+        @RequestParam(required = false) FeeVoucher.VoucherType voucherType,
+        @RequestParam(required = false) String monthYear,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+        @RequestParam(defaultValue = "CSV") ExportFormat format,
+        @RequestParam(defaultValue = "false") boolean gzip) {
+
+        VoucherExportFilter filter = VoucherExportFilter.builder()
+            .studentId(studentId)
+            .status(status)
+            .voucherType(voucherType)
+            .monthYear(monthYear)
+            .startDate(startDate)
+            .endDate(endDate)
+            .build();
+        return export("vouchers", format, gzip, out -> feeExportService.exportVouchers(filter, format, out));
+    }
+
+    @GetMapping("/payments")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Export payments", description = "Stream matching payments as CSV or newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+        @RequestParam(required = false) FeePayment.PaymentMethod paymentMethod,
+        @RequestParam(required = false) Long receivedBy,
+        @RequestParam(required = false) Long voucherId,
+        @RequestParam(defaultValue = "CSV") ExportFormat format,
+        @RequestParam(defaultValue = "false") boolean gzip) {
+
+        PaymentExportFilter filter = PaymentExportFilter.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .paymentMethod(paymentMethod)
+            .receivedBy(receivedBy)
+            .voucherId(voucherId)
+            .build();
+        return export("payments", format, gzip, out -> feeExportService.exportPayments(filter, format, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, ExportFormat format, boolean gzip,
+                                                         Consumer<OutputStream> writer) {
+        String fileName = name + "-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                writer.accept(out);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            writer.accept(compressed);
+            compressed.finish();
+        };
+
+        return ResponseEntity.ok()
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(format.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .body(body);
+    }
+}
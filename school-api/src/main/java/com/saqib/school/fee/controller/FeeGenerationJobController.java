@@ -0,0 +1,67 @@
+package com.saqib.school.fee.controller;
+
+import com.saqib.school.common.dto.ApiResponse;
+import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.fee.model.FeeGenerationJobResponse;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.service.FeeGenerationJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/fee-generation-jobs")
+@RequiredArgsConstructor
+@Tag(name = "Fee Generation Jobs", description = "Background monthly voucher generation")
+public class FeeGenerationJobController {
+
+    private final FeeGenerationJobService feeGenerationJobService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Submit generation job", description = "Queue monthly voucher generation as a background job")
+    public ResponseEntity<ApiResponse<FeeGenerationJobResponse>> submitJob(
+        @Valid @RequestBody MonthlyVoucherGenerationRequest request) {
+
+        FeeGenerationJobResponse response = feeGenerationJobService.submit(request);
+        return ResponseEntity.accepted()
+            .body(ApiResponse.success("Fee generation job queued", response));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get job progress", description = "Retrieve progress and per-class checkpoints of a generation job")
+    public ResponseEntity<ApiResponse<FeeGenerationJobResponse>> getJob(@PathVariable Long id) {
+        FeeGenerationJobResponse response = feeGenerationJobService.getJob(id);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "List generation jobs", description = "Retrieve generation jobs, optionally for one month")
+    public ResponseEntity<ApiResponse<PageResponse<FeeGenerationJobResponse>>> getJobs(
+        @RequestParam(required = false) String monthYear,
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        PageResponse<FeeGenerationJobResponse> response = feeGenerationJobService.getJobs(monthYear, pageable);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/{id}/resume")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Resume generation job", description = "Re-run the unfinished classes of a failed or interrupted job")
+    public ResponseEntity<ApiResponse<FeeGenerationJobResponse>> resumeJob(@PathVariable Long id) {
+        FeeGenerationJobResponse response = feeGenerationJobService.resume(id);
+        return ResponseEntity.accepted()
+            .body(ApiResponse.success("Fee generation job resumed", response));
+    }
+}
@@ -26,10 +26,11 @@ public class FeeManagementController {
 
     @PostMapping("/admission-fee")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
-    @Operation(summary = "Process admission fee", description = "Process admission fee for student")
+    @Operation(summary = "Process admission fee",
+               description = "Process admission fee for student; without a body the class's one-time fee heads are charged")
     public ResponseEntity<ApiResponse<FeeVoucherResponse>> processAdmissionFee(
         @RequestParam Long studentId,
-        @RequestBody List<FeeVoucherRequest.VoucherDetailRequest> feeDetails,
+        @RequestBody(required = false) List<FeeVoucherRequest.VoucherDetailRequest> feeDetails,
         @RequestParam LocalDate dueDate) {
 
         FeeVoucherResponse response = feeManagementFacadeService.processAdmissionFee(studentId, feeDetails, dueDate);
@@ -38,12 +39,14 @@ public class FeeManagementController {
 
     @PostMapping("/monthly-collection")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
-    @Operation(summary = "Process monthly fee collection", description = "Generate monthly vouchers and process fines")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> processMonthlyFeeCollection(
+    @Operation(summary = "Process monthly fee collection",
+               description = "Queue monthly voucher generation and fines as a job; poll /api/fee-generation-jobs/{id} for progress")
+    public ResponseEntity<ApiResponse<FeeGenerationJobResponse>> processMonthlyFeeCollection(
         @Valid @RequestBody MonthlyVoucherGenerationRequest request) {
 
-        Map<String, Object> result = feeManagementFacadeService.processMonthlyFeeCollection(request);
-        return ResponseEntity.ok(ApiResponse.success("Monthly fee collection processed successfully", result));
+        FeeGenerationJobResponse job = feeManagementFacadeService.processMonthlyFeeCollection(request);
+        return ResponseEntity.accepted()
+            .body(ApiResponse.success("Monthly fee collection queued", job));
     }
 
     @PostMapping("/payment-with-fine-check")
@@ -69,32 +72,32 @@ public class FeeManagementController {
     @GetMapping("/monthly-financial-summary/{year}/{month}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Generate monthly financial summary", description = "Generate complete monthly financial summary")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> generateMonthlyFinancialSummary(
+    public ResponseEntity<ApiResponse<MonthlyFinancialSummaryResponse>> generateMonthlyFinancialSummary(
         @PathVariable int year,
         @PathVariable int month) {
 
         YearMonth yearMonth = YearMonth.of(year, month);
-        Map<String, Object> summary = feeManagementFacadeService.generateMonthlyFinancialSummary(yearMonth);
+        MonthlyFinancialSummaryResponse summary = feeManagementFacadeService.generateMonthlyFinancialSummary(yearMonth);
         return ResponseEntity.ok(ApiResponse.success("Monthly financial summary generated successfully", summary));
     }
 
     @PostMapping("/bulk-discount")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Apply bulk discount", description = "Apply discount to multiple students")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> applyBulkDiscount(
+    public ResponseEntity<ApiResponse<BulkDiscountResponse>> applyBulkDiscount(
         @RequestParam List<Long> studentIds,
         @RequestParam Long categoryId,
         @Valid @RequestBody StudentDiscountRequest discountTemplate) {
 
-        Map<String, Object> result = feeManagementFacadeService.applyBulkDiscount(studentIds, categoryId, discountTemplate);
+        BulkDiscountResponse result = feeManagementFacadeService.applyBulkDiscount(studentIds, categoryId, discountTemplate);
         return ResponseEntity.ok(ApiResponse.success("Bulk discount applied successfully", result));
     }
 
     @PostMapping("/daily-maintenance")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Process daily fee maintenance", description = "Run daily fee maintenance tasks")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> processDailyFeeMaintenance() {
-        Map<String, Object> result = feeManagementFacadeService.processDailyFeeMaintenance();
+    public ResponseEntity<ApiResponse<DailyMaintenanceResponse>> processDailyFeeMaintenance() {
+        DailyMaintenanceResponse result = feeManagementFacadeService.processDailyFeeMaintenance();
         return ResponseEntity.ok(ApiResponse.success("Daily fee maintenance completed successfully", result));
     }
 }
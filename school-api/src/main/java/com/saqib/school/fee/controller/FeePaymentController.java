@@ -2,9 +2,16 @@ package com.saqib.school.fee.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SlicePage;
+import com.saqib.school.fee.entity.BankStatementException;
 import com.saqib.school.fee.entity.FeePayment;
+import com.saqib.school.fee.model.BankStatementExceptionResponse;
+import com.saqib.school.fee.model.BankStatementImportResponse;
+import com.saqib.school.fee.model.FamilyPaymentRequest;
+import com.saqib.school.fee.model.FamilyPaymentResponse;
 import com.saqib.school.fee.model.FeePaymentRequest;
 import com.saqib.school.fee.model.FeePaymentResponse;
+import com.saqib.school.fee.service.BankStatementImportService;
 import com.saqib.school.fee.service.FeePaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,9 +22,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -30,6 +39,7 @@ import java.util.List;
 public class FeePaymentController {
 
     private final FeePaymentService feePaymentService;
+    private final BankStatementImportService bankStatementImportService;
 
     @PostMapping
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
@@ -40,6 +50,15 @@ public class FeePaymentController {
             .body(ApiResponse.success("Fee payment processed successfully", response));
     }
 
+    @PostMapping("/family")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Process family payment", description = "Split one payment over a family's pending vouchers, oldest due first")
+    public ResponseEntity<ApiResponse<FamilyPaymentResponse>> processFamilyPayment(@Valid @RequestBody FamilyPaymentRequest request) {
+        FamilyPaymentResponse response = feePaymentService.processFamilyPayment(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Family payment processed successfully", response));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Get fee payment by ID", description = "Retrieve fee payment details by ID")
@@ -56,6 +75,22 @@ public class FeePaymentController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/seek")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get payments by cursor", description = "Retrieve payments newest first, one keyset page at a time")
+    public ResponseEntity<ApiResponse<SlicePage<FeePaymentResponse>>> getPaymentSlice(
+        @RequestParam(required = false) FeePayment.PaymentMethod method,
+        @RequestParam(required = false) Long userId,
+        @RequestParam(required = false) Long voucherId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int size,
+        @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        SlicePage<FeePaymentResponse> response =
+            feePaymentService.getPaymentSlice(method, userId, voucherId, cursor, size, withTotal);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/date-range")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Get payments by date range", description = "Retrieve payments within date range")
@@ -114,4 +149,50 @@ public class FeePaymentController {
         BigDecimal total = feePaymentService.getTotalCollectionForPeriod(startDate, endDate);
         return ResponseEntity.ok(ApiResponse.success(total));
     }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Import bank statement", description = "Post deposits from a bank statement CSV and report rows that need review")
+    public ResponseEntity<ApiResponse<BankStatementImportResponse>> importBankStatement(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam(required = false) String bankName) {
+
+        BankStatementImportResponse response = bankStatementImportService.importStatement(file, bankName);
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Bank statement imported", response));
+    }
+
+    @GetMapping("/imports")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get bank statement imports", description = "Retrieve past bank statement imports")
+    public ResponseEntity<ApiResponse<PageResponse<BankStatementImportResponse>>> getBankStatementImports(
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        PageResponse<BankStatementImportResponse> response = bankStatementImportService.getImports(pageable);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/imports/{id}")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get bank statement import", description = "Retrieve the totals of a bank statement import")
+    public ResponseEntity<ApiResponse<BankStatementImportResponse>> getBankStatementImport(@PathVariable Long id) {
+        BankStatementImportResponse response = bankStatementImportService.getImport(id);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/imports/{id}/exceptions")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get import exceptions", description = "Retrieve unmatched, duplicate and partial rows of a bank statement import")
+    public ResponseEntity<ApiResponse<PageResponse<BankStatementExceptionResponse>>> getBankStatementExceptions(
+        @PathVariable Long id,
+        @RequestParam(required = false) BankStatementException.Reason reason,
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "50") int size) {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("lineNumber"));
+        PageResponse<BankStatementExceptionResponse> response = bankStatementImportService.getExceptions(id, reason, pageable);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
 }
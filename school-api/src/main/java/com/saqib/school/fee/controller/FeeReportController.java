@@ -1,7 +1,18 @@
 package com.saqib.school.fee.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
+import com.saqib.school.fee.model.AnnualCollectionSummaryResponse;
+import com.saqib.school.fee.model.CollectionSummaryResponse;
+import com.saqib.school.fee.model.FeeCubeDimension;
+import com.saqib.school.fee.model.FeeCubePivotResponse;
+import com.saqib.school.fee.model.FeeCubeStats;
+import com.saqib.school.fee.model.FeeRollupRebuildResponse;
+import com.saqib.school.fee.model.MonthlyCollectionReportResponse;
+import com.saqib.school.fee.model.ReceivablesAgingResponse;
+import com.saqib.school.fee.service.FeeAnalyticsService;
 import com.saqib.school.fee.service.FeeReportService;
+import com.saqib.school.fee.service.FeeRollupService;
+import com.saqib.school.fee.service.ReceivablesAgingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -12,7 +23,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/fee-reports")
@@ -21,35 +31,92 @@ import java.util.Map;
 public class FeeReportController {
 
     private final FeeReportService feeReportService;
+    private final FeeRollupService feeRollupService;
+    private final FeeAnalyticsService feeAnalyticsService;
+    private final ReceivablesAgingService receivablesAgingService;
 
     @GetMapping("/monthly/{year}/{month}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Generate monthly collection report", description = "Generate monthly fee collection report")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> generateMonthlyCollectionReport(
+    public ResponseEntity<ApiResponse<MonthlyCollectionReportResponse>> generateMonthlyCollectionReport(
         @PathVariable int year,
         @PathVariable int month) {
 
         YearMonth yearMonth = YearMonth.of(year, month);
-        Map<String, Object> report = feeReportService.generateMonthlyCollectionReport(yearMonth);
+        MonthlyCollectionReportResponse report = feeReportService.generateMonthlyCollectionReport(yearMonth);
         return ResponseEntity.ok(ApiResponse.success("Monthly collection report generated successfully", report));
     }
 
     @GetMapping("/annual/{year}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Generate annual collection summary", description = "Generate annual fee collection summary")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> generateAnnualCollectionSummary(@PathVariable int year) {
-        Map<String, Object> summary = feeReportService.generateAnnualCollectionSummary(year);
+    public ResponseEntity<ApiResponse<AnnualCollectionSummaryResponse>> generateAnnualCollectionSummary(@PathVariable int year) {
+        AnnualCollectionSummaryResponse summary = feeReportService.generateAnnualCollectionSummary(year);
         return ResponseEntity.ok(ApiResponse.success("Annual collection summary generated successfully", summary));
     }
 
     @GetMapping("/collection-summary")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
     @Operation(summary = "Generate collection summary", description = "Generate collection summary for date range")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> generateCollectionSummary(
+    public ResponseEntity<ApiResponse<CollectionSummaryResponse>> generateCollectionSummary(
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        Map<String, Object> summary = feeReportService.generateCollectionSummary(startDate, endDate);
+        CollectionSummaryResponse summary = feeReportService.generateCollectionSummary(startDate, endDate);
         return ResponseEntity.ok(ApiResponse.success("Collection summary generated successfully", summary));
     }
+
+    @GetMapping("/aging")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Receivables aging", description = "Outstanding balances in 0-30, 31-60, 61-90 and 90+ days past due buckets per class, optionally split by fee category; cached until balances change")
+    public ResponseEntity<ApiResponse<ReceivablesAgingResponse>> getReceivablesAging(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate,
+        @RequestParam(required = false) Long classId,
+        @RequestParam(defaultValue = "false") boolean byCategory) {
+
+        ReceivablesAgingResponse response = receivablesAgingService.getAgingReport(asOfDate, classId, byCategory);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('PRINCIPAL')")
+    @Operation(summary = "Rebuild report rollups", description = "Recompute collection and issue rollups from payments and vouchers, grouped by each student's current class; omit dates to rebuild everything")
+    public ResponseEntity<ApiResponse<FeeRollupRebuildResponse>> rebuildRollups(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        FeeRollupRebuildResponse response = feeRollupService.rebuild(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Report rollups rebuilt successfully", response));
+    }
+
+    @GetMapping("/cube/pivot")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Pivot fee analytics", description = "Issued, discounted, collected and outstanding amounts by class, fee category or month from the in-memory cube; filter by class, category or months to drill down")
+    public ResponseEntity<ApiResponse<FeeCubePivotResponse>> pivotFeeAnalytics(
+        @RequestParam(defaultValue = "CLASS") FeeCubeDimension rows,
+        @RequestParam(required = false) FeeCubeDimension columns,
+        @RequestParam(required = false) Long classId,
+        @RequestParam(required = false) Long categoryId,
+        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth fromMonth,
+        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth toMonth) {
+
+        FeeCubePivotResponse response = feeAnalyticsService.pivot(rows, columns, classId, categoryId, fromMonth, toMonth);
+        return ResponseEntity.ok(ApiResponse.success("Fee analytics pivot generated successfully", response));
+    }
+
+    @GetMapping("/cube/stats")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Fee analytics cube statistics", description = "Cube dimensions, memory footprint and update counters")
+    public ResponseEntity<ApiResponse<FeeCubeStats>> getFeeAnalyticsStats() {
+        FeeCubeStats stats = feeAnalyticsService.stats();
+        return ResponseEntity.ok(ApiResponse.success("Fee analytics cube statistics retrieved successfully", stats));
+    }
+
+    @PostMapping("/cube/rebuild")
+    @PreAuthorize("hasRole('PRINCIPAL')")
+    @Operation(summary = "Rebuild fee analytics cube", description = "Reload the in-memory cube from vouchers and payments")
+    public ResponseEntity<ApiResponse<FeeCubeStats>> rebuildFeeAnalytics() {
+        FeeCubeStats stats = feeAnalyticsService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Fee analytics cube rebuilt successfully", stats));
+    }
 }
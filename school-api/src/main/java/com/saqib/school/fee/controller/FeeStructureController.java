@@ -3,6 +3,7 @@ package com.saqib.school.fee.controller;
 import com.saqib.school.common.dto.ApiResponse;
 import com.saqib.school.common.dto.PageResponse;
 import com.saqib.school.fee.model.*;
+import com.saqib.school.fee.service.FeeSimulationService;
 import com.saqib.school.fee.service.FeeStructureService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,6 +26,7 @@ import java.util.List;
 public class FeeStructureController {
 
     private final FeeStructureService feeStructureService;
+    private final FeeSimulationService feeSimulationService;
 
     @PostMapping
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
@@ -80,6 +82,22 @@ public class FeeStructureController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @PostMapping("/simulate")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Simulate fee changes", description = "Project monthly issued and discounted totals per class and category under proposed fee changes, without saving anything")
+    public ResponseEntity<ApiResponse<FeeSimulationResponse>> simulateFeeChanges(@Valid @RequestBody FeeSimulationRequest request) {
+        FeeSimulationResponse response = feeSimulationService.simulate(request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/pricing-cache/stats")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Get pricing cache statistics", description = "Snapshot version, size and hit/miss counters of the fee pricing cache")
+    public ResponseEntity<ApiResponse<FeePricingCacheStats>> getPricingCacheStats() {
+        FeePricingCacheStats response = feeStructureService.getPricingCacheStats();
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Update fee structure", description = "Update fee structure details")
@@ -2,11 +2,20 @@ package com.saqib.school.fee.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SlicePage;
 import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.model.FeeLinePackingResponse;
+import com.saqib.school.fee.model.FeeLineStorageStats;
 import com.saqib.school.fee.model.FeeVoucherRequest;
 import com.saqib.school.fee.model.FeeVoucherResponse;
 import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse;
+import com.saqib.school.fee.model.VoucherExpand;
+import com.saqib.school.fee.model.VoucherPrintFormat;
+import com.saqib.school.fee.repository.VoucherPrintRepository.PrintableVoucher;
+import com.saqib.school.fee.service.FeeLinePackingService;
 import com.saqib.school.fee.service.FeeVoucherService;
+import com.saqib.school.fee.service.VoucherPrintService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -15,10 +24,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -31,6 +44,8 @@ import java.util.List;
 public class FeeVoucherController {
 
     private final FeeVoucherService feeVoucherService;
+    private final VoucherPrintService voucherPrintService;
+    private final FeeLinePackingService feeLinePackingService;
 
     @PostMapping
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
@@ -44,10 +59,10 @@ public class FeeVoucherController {
     @PostMapping("/generate-monthly")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Generate monthly vouchers", description = "Generate monthly fee vouchers for students")
-    public ResponseEntity<ApiResponse<List<FeeVoucherResponse>>> generateMonthlyVouchers(
+    public ResponseEntity<ApiResponse<MonthlyVoucherGenerationResponse>> generateMonthlyVouchers(
         @Valid @RequestBody MonthlyVoucherGenerationRequest request) {
 
-        List<FeeVoucherResponse> response = feeVoucherService.generateMonthlyVouchers(request);
+        MonthlyVoucherGenerationResponse response = feeVoucherService.generateMonthlyVouchers(request);
         return ResponseEntity.ok(ApiResponse.success("Monthly vouchers generated successfully", response));
     }
 
@@ -72,11 +87,12 @@ public class FeeVoucherController {
     @Operation(summary = "Get student vouchers", description = "Retrieve all vouchers for a specific student")
     public ResponseEntity<ApiResponse<PageResponse<FeeVoucherResponse>>> getStudentVouchers(
         @PathVariable Long studentId,
+        @RequestParam(required = false) List<String> expand,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-        PageResponse<FeeVoucherResponse> response = feeVoucherService.getStudentVouchers(studentId, pageable);
+        PageResponse<FeeVoucherResponse> response = feeVoucherService.getStudentVouchers(studentId, VoucherExpand.parse(expand), pageable);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -85,11 +101,12 @@ public class FeeVoucherController {
     @Operation(summary = "Get vouchers by status", description = "Retrieve vouchers filtered by status")
     public ResponseEntity<ApiResponse<PageResponse<FeeVoucherResponse>>> getVouchersByStatus(
         @PathVariable FeeVoucher.VoucherStatus status,
+        @RequestParam(required = false) List<String> expand,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByStatus(status, pageable);
+        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByStatus(status, VoucherExpand.parse(expand), pageable);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -98,11 +115,12 @@ public class FeeVoucherController {
     @Operation(summary = "Get vouchers by type", description = "Retrieve vouchers filtered by type")
     public ResponseEntity<ApiResponse<PageResponse<FeeVoucherResponse>>> getVouchersByType(
         @PathVariable FeeVoucher.VoucherType type,
+        @RequestParam(required = false) List<String> expand,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByType(type, pageable);
+        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByType(type, VoucherExpand.parse(expand), pageable);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -111,11 +129,30 @@ public class FeeVoucherController {
     @Operation(summary = "Get vouchers by month", description = "Retrieve vouchers for specific month-year")
     public ResponseEntity<ApiResponse<PageResponse<FeeVoucherResponse>>> getVouchersByMonthYear(
         @PathVariable String monthYear,
+        @RequestParam(required = false) List<String> expand,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByMonthYear(monthYear, pageable);
+        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByMonthYear(monthYear, VoucherExpand.parse(expand), pageable);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/seek")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get vouchers by cursor", description = "Retrieve vouchers newest first, one keyset page at a time")
+    public ResponseEntity<ApiResponse<SlicePage<FeeVoucherResponse>>> getVoucherSlice(
+        @RequestParam(required = false) Long studentId,
+        @RequestParam(required = false) FeeVoucher.VoucherStatus status,
+        @RequestParam(required = false) FeeVoucher.VoucherType type,
+        @RequestParam(required = false) String monthYear,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "50") int size,
+        @RequestParam(defaultValue = "false") boolean withTotal,
+        @RequestParam(required = false) List<String> expand) {
+
+        SlicePage<FeeVoucherResponse> response = feeVoucherService.getVoucherSlice(
+            studentId, status, type, monthYear, cursor, size, withTotal, VoucherExpand.parse(expand));
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -125,14 +162,35 @@ public class FeeVoucherController {
     public ResponseEntity<ApiResponse<PageResponse<FeeVoucherResponse>>> getVouchersByDateRange(
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+        @RequestParam(required = false) List<String> expand,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByDateRange(startDate, endDate, pageable);
+        PageResponse<FeeVoucherResponse> response = feeVoucherService.getVouchersByDateRange(startDate, endDate, VoucherExpand.parse(expand), pageable);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // Runs as an async request bounded by spring.mvc.async.request-timeout
+    @GetMapping("/print")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Print vouchers", description = "Render vouchers of a month and/or class as one PDF, or a ZIP with one PDF per class")
+    public ResponseEntity<StreamingResponseBody> printVouchers(
+        @RequestParam(required = false) String monthYear,
+        @RequestParam(required = false) Long classId,
+        @RequestParam(defaultValue = "PDF") VoucherPrintFormat format) {
+
+        List<PrintableVoucher> vouchers = voucherPrintService.findVouchersToPrint(monthYear, classId);
+        String fileName = "vouchers" + (monthYear != null ? "-" + monthYear : "") + (classId != null ? "-class-" + classId : "")
+            + (format == VoucherPrintFormat.ZIP ? ".zip" : ".pdf");
+        StreamingResponseBody body = out -> voucherPrintService.render(vouchers, format, out);
+
+        return ResponseEntity.ok()
+            .contentType(format == VoucherPrintFormat.ZIP ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .body(body);
+    }
+
     @PatchMapping("/{id}/cancel")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Cancel fee voucher", description = "Cancel a fee voucher with reason")
@@ -148,8 +206,23 @@ public class FeeVoucherController {
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Process overdue vouchers", description = "Mark overdue vouchers as overdue status")
     public ResponseEntity<ApiResponse<String>> processOverdueVouchers() {
-        feeVoucherService.processOverdueVouchers();
-        return ResponseEntity.ok(ApiResponse.success("Overdue vouchers processed successfully"));
+        long marked = feeVoucherService.processOverdueVouchers();
+        return ResponseEntity.ok(ApiResponse.success("Overdue vouchers processed successfully: " + marked + " marked overdue"));
+    }
+
+    @PostMapping("/packed-details/migrate")
+    @PreAuthorize("hasRole('PRINCIPAL')")
+    @Operation(summary = "Pack existing fee details", description = "Copy detail rows of unpacked vouchers into the packed fee lines column")
+    public ResponseEntity<ApiResponse<FeeLinePackingResponse>> packExistingVouchers() {
+        FeeLinePackingResponse response = feeLinePackingService.packExistingVouchers();
+        return ResponseEntity.ok(ApiResponse.success("Fee details packed successfully", response));
+    }
+
+    @GetMapping("/packed-details/storage")
+    @PreAuthorize("hasRole('PRINCIPAL')")
+    @Operation(summary = "Fee detail storage sizes", description = "Compare the detail table size with the packed fee lines column")
+    public ResponseEntity<ApiResponse<FeeLineStorageStats>> getFeeLineStorageStats() {
+        return ResponseEntity.ok(ApiResponse.success(feeLinePackingService.storageStats()));
     }
 
     @GetMapping("/statistics/pending-count")
@@ -1,12 +1,18 @@
 package com.saqib.school.fee.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
+import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.fee.model.FineAccrualRunResponse;
 import com.saqib.school.fee.model.FineCalculationRequest;
+import com.saqib.school.fee.service.FineAccrualService;
 import com.saqib.school.fee.service.FineCalculationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +27,7 @@ import java.util.Map;
 public class FineCalculationController {
 
     private final FineCalculationService fineCalculationService;
+    private final FineAccrualService fineAccrualService;
 
     @PostMapping("/calculate")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
@@ -38,6 +45,28 @@ public class FineCalculationController {
         return ResponseEntity.ok(ApiResponse.success("Fines applied successfully"));
     }
 
+    @PostMapping("/accrual/run")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
+    @Operation(summary = "Run fine accrual", description = "Re-price vouchers that crossed a fine threshold since the last run")
+    public ResponseEntity<ApiResponse<FineAccrualRunResponse>> runFineAccrual(
+        @RequestParam(defaultValue = "false") boolean fullScan) {
+
+        FineAccrualRunResponse response = fineAccrualService.runNow(fullScan);
+        return ResponseEntity.ok(ApiResponse.success("Fine accrual completed", response));
+    }
+
+    @GetMapping("/accrual/runs")
+    @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get fine accrual runs", description = "Retrieve statistics of past fine accrual runs")
+    public ResponseEntity<ApiResponse<PageResponse<FineAccrualRunResponse>>> getFineAccrualRuns(
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        PageResponse<FineAccrualRunResponse> response = fineAccrualService.getRuns(pageable);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @PatchMapping("/waive/{voucherId}")
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Waive fine", description = "Waive fine for specific voucher")
@@ -127,7 +127,7 @@ public class StudentDiscountController {
     @PreAuthorize("hasRole('PRINCIPAL') or hasRole('ADMIN_OFFICER')")
     @Operation(summary = "Expire old discounts", description = "Mark expired discounts as inactive")
     public ResponseEntity<ApiResponse<String>> expireOldDiscounts() {
-        studentDiscountService.expireOldDiscounts();
-        return ResponseEntity.ok(ApiResponse.success("Old discounts expired successfully"));
+        long expired = studentDiscountService.expireOldDiscounts();
+        return ResponseEntity.ok(ApiResponse.success("Old discounts expired successfully: " + expired + " deactivated"));
     }
 }
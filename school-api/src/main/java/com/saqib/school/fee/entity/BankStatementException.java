@@ -0,0 +1,61 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A statement row that needs a human: it was not posted, or was posted but
+ * left the voucher partly paid ({@code posted = true}).
+ */
+@Entity
+@Table(name = "bank_statement_exceptions", indexes = {
+    @Index(name = "idx_bank_statement_exceptions_import", columnList = "import_id, line_number")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class BankStatementException extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "import_id", nullable = false)
+    private BankStatementImport statementImport;
+
+    @Column(name = "line_number", nullable = false)
+    private Long lineNumber;
+
+    @Column(name = "voucher_number", length = 50)
+    private String voucherNumber;
+
+    @Column(name = "reference_number", length = 100)
+    private String referenceNumber;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "payment_date")
+    private LocalDate paymentDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Reason reason;
+
+    @Column(nullable = false)
+    private Boolean posted;
+
+    @Column(columnDefinition = "TEXT")
+    private String detail;
+
+    @Column(name = "raw_line", columnDefinition = "TEXT")
+    private String rawLine;
+
+    public enum Reason {
+        INVALID_ROW, DUPLICATE_REFERENCE, UNMATCHED_VOUCHER, VOUCHER_NOT_PAYABLE, EXCEEDS_BALANCE, PARTIAL_PAYMENT
+    }
+}
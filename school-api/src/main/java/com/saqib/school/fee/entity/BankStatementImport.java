@@ -0,0 +1,62 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import com.saqib.school.user.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+
+/**
+ * One uploaded bank statement. Counters are written when the import finishes;
+ * rows that could not be posted cleanly are kept as {@link BankStatementException}s.
+ */
+@Entity
+@Table(name = "bank_statement_imports")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class BankStatementImport extends BaseEntity {
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Column(name = "bank_name", length = 100)
+    private String bankName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportStatus status;
+
+    @Column(name = "total_rows", nullable = false)
+    private Integer totalRows;
+
+    @Column(name = "posted_rows", nullable = false)
+    private Integer postedRows;
+
+    @Column(name = "posted_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal postedAmount;
+
+    @Column(name = "duplicate_rows", nullable = false)
+    private Integer duplicateRows;
+
+    @Column(name = "exception_rows", nullable = false)
+    private Integer exceptionRows;
+
+    @Column(name = "elapsed_millis")
+    private Long elapsedMillis;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "imported_by", nullable = false)
+    private User importedBy;
+
+    public enum ImportStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+}
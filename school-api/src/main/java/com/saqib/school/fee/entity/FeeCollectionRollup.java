@@ -0,0 +1,46 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Payments pre-aggregated by day, method, cashier and class. {@code classId}
+ * is the student's active class when the payment was recorded, or 0 when the
+ * student had none. Maintained by {@code FeeRollupService}.
+ */
+@Entity
+@Table(name = "fee_collection_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_fee_collection_rollups_key",
+                      columnNames = {"rollup_date", "payment_method", "received_by", "class_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class FeeCollectionRollup extends BaseEntity {
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private FeePayment.PaymentMethod paymentMethod;
+
+    @Column(name = "received_by", nullable = false)
+    private Long receivedById;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+}
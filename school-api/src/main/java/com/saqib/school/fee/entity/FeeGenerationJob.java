@@ -0,0 +1,84 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import com.saqib.school.user.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "fee_generation_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class FeeGenerationJob extends BaseEntity {
+
+    @Column(name = "month_year", nullable = false, length = 7)
+    private String monthYear;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "class_ids", columnDefinition = "TEXT")
+    private String classIds; // comma separated, empty for all classes
+
+    @Column(name = "student_ids", columnDefinition = "TEXT")
+    private String studentIds; // comma separated, empty for all students
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "total_classes", nullable = false)
+    @Builder.Default
+    private Integer totalClasses = 0;
+
+    @Column(name = "completed_classes", nullable = false)
+    @Builder.Default
+    private Integer completedClasses = 0;
+
+    @Column(name = "failed_classes", nullable = false)
+    @Builder.Default
+    private Integer failedClasses = 0;
+
+    @Column(name = "total_students", nullable = false)
+    @Builder.Default
+    private Integer totalStudents = 0;
+
+    @Column(name = "vouchers_written", nullable = false)
+    @Builder.Default
+    private Integer vouchersWritten = 0;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(length = 100)
+    private String owner; // node running the job, see FeeGenerationJobRunner
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by", nullable = false)
+    private User createdBy;
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public boolean isFinished() {
+        return JobStatus.COMPLETED.equals(status) || JobStatus.FAILED.equals(status);
+    }
+}
@@ -0,0 +1,76 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import com.saqib.school.common.money.Money;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-class checkpoint of a {@link FeeGenerationJob}. A job resumes by
+ * re-running only the classes that are not yet finished.
+ */
+@Entity
+@Table(name = "fee_generation_job_classes",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"job_id", "class_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class FeeGenerationJobClass extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    private FeeGenerationJob job;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "class_name", length = 100)
+    private String className;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private ClassStatus status = ClassStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer students = 0;
+
+    @Column(name = "vouchers_written", nullable = false)
+    @Builder.Default
+    private Integer vouchersWritten = 0;
+
+    @Column(name = "skipped_students", nullable = false)
+    @Builder.Default
+    private Integer skippedStudents = 0;
+
+    @Column(name = "failed_students")
+    @Builder.Default
+    private Integer failedStudents = 0;
+
+    @Column(name = "total_amount", precision = 14, scale = 2)
+    @Builder.Default
+    private Money totalAmount = Money.ZERO;
+
+    @Column(name = "elapsed_millis")
+    private Long elapsedMillis;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    public enum ClassStatus {
+        PENDING, COMPLETED, NO_FEE_STRUCTURE, FAILED
+    }
+
+    public boolean isDone() {
+        return ClassStatus.COMPLETED.equals(status) || ClassStatus.NO_FEE_STRUCTURE.equals(status);
+    }
+}
@@ -0,0 +1,48 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Vouchers pre-aggregated by issue date, class and type. Cancellations are
+ * counted against the voucher's issue date, so net issued is
+ * {@code issuedAmount - cancelledAmount}. Maintained by {@code FeeRollupService}.
+ */
+@Entity
+@Table(name = "fee_issue_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_fee_issue_rollups_key", columnNames = {"rollup_date", "class_id", "voucher_type"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class FeeIssueRollup extends BaseEntity {
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "voucher_type", nullable = false, length = 20)
+    private FeeVoucher.VoucherType voucherType;
+
+    @Column(name = "voucher_count", nullable = false)
+    private Long voucherCount;
+
+    @Column(name = "issued_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal issuedAmount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private Long cancelledCount;
+
+    @Column(name = "cancelled_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cancelledAmount;
+}
@@ -0,0 +1,14 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.money.Money;
+
+/**
+ * One fee head of a voucher as stored in the packed {@code fee_lines} column.
+ * The category name is the one at issue time, as printed on the voucher.
+ */
+public record FeeLine(long feeCategoryId,
+                      String feeCategoryName,
+                      Money originalAmount,
+                      Money discountAmount,
+                      Money finalAmount) {
+}
@@ -0,0 +1,84 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.money.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs a voucher's fee heads into one text value: a line per head of
+ * tab-separated category id, original, discount and final amounts in paisa,
+ * then the category name. An empty string is a voucher with no heads; null
+ * means the voucher has not been packed and its detail rows must be read.
+ */
+@Converter
+public class FeeLinesConverter implements AttributeConverter<List<FeeLine>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<FeeLine> lines) {
+        return pack(lines);
+    }
+
+    @Override
+    public List<FeeLine> convertToEntityAttribute(String packed) {
+        return unpack(packed);
+    }
+
+    public static String pack(List<FeeLine> lines) {
+        if (lines == null) {
+            return null;
+        }
+        StringBuilder packed = new StringBuilder(lines.size() * 48);
+        for (FeeLine line : lines) {
+            if (!packed.isEmpty()) {
+                packed.append('\n');
+            }
+            packed.append(line.feeCategoryId()).append('\t')
+                .append(line.originalAmount().paisa()).append('\t')
+                .append(line.discountAmount().paisa()).append('\t')
+                .append(line.finalAmount().paisa()).append('\t');
+            String name = line.feeCategoryName();
+            if (name != null) {
+                packed.append(name.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+            }
+        }
+        return packed.toString();
+    }
+
+    public static List<FeeLine> unpack(String packed) {
+        if (packed == null) {
+            return null;
+        }
+        List<FeeLine> lines = new ArrayList<>();
+        int start = 0;
+        while (start < packed.length()) {
+            int end = packed.indexOf('\n', start);
+            if (end < 0) {
+                end = packed.length();
+            }
+            lines.add(parseLine(packed, start, end));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    private static FeeLine parseLine(String packed, int start, int end) {
+        int[] tabs = new int[4];
+        int from = start;
+        for (int i = 0; i < tabs.length; i++) {
+            tabs[i] = packed.indexOf('\t', from);
+            if (tabs[i] < 0 || tabs[i] > end) {
+                throw new IllegalArgumentException("Malformed packed fee line: " + packed.substring(start, end));
+            }
+            from = tabs[i] + 1;
+        }
+        return new FeeLine(
+            Long.parseLong(packed, start, tabs[0], 10),
+            tabs[3] + 1 < end ? packed.substring(tabs[3] + 1, end) : null,
+            Money.ofPaisa(Long.parseLong(packed, tabs[0] + 1, tabs[1], 10)),
+            Money.ofPaisa(Long.parseLong(packed, tabs[1] + 1, tabs[2], 10)),
+            Money.ofPaisa(Long.parseLong(packed, tabs[2] + 1, tabs[3], 10)));
+    }
+}
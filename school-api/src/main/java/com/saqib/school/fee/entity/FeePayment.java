@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "fee_payments")
+@Table(name = "fee_payments", indexes = {
+    @Index(name = "idx_fee_payments_reference_number", columnList = "reference_number"),
+    @Index(name = "idx_fee_payments_payment_date_id", columnList = "payment_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -9,10 +9,15 @@ import lombok.experimental.SuperBuilder;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "fee_vouchers")
+@Table(name = "fee_vouchers", indexes = {
+    @Index(name = "idx_fee_vouchers_status_due_date", columnList = "status, due_date"),
+    @Index(name = "idx_fee_vouchers_issue_date_id", columnList = "issue_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,6 +56,10 @@ public class FeeVoucher extends BaseEntity {
     @Builder.Default
     private BigDecimal fineAmount = BigDecimal.ZERO;
 
+    // Set when the fine is waived; fine calculation leaves the voucher alone from then on
+    @Column(name = "fine_waived_at")
+    private LocalDateTime fineWaivedAt;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -69,6 +78,11 @@ public class FeeVoucher extends BaseEntity {
     @OneToMany(mappedBy = "voucher", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<FeeVoucherDetail> voucherDetails;
 
+    // Copy of the detail rows for reads that need the fee heads; null until packed
+    @Convert(converter = FeeLinesConverter.class)
+    @Column(name = "fee_lines", columnDefinition = "TEXT")
+    private List<FeeLine> feeLines;
+
     @OneToMany(mappedBy = "voucher", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<FeePayment> payments;
 
@@ -0,0 +1,66 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * One execution of the fine accrual job. {@code windowStart} is the run date
+ * of the previous completed run; only vouchers crossing a fine threshold
+ * between it and {@code runDate} are evaluated.
+ */
+@Entity
+@Table(name = "fine_accrual_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class FineAccrualRun extends BaseEntity {
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "window_start")
+    private LocalDate windowStart; // null for a full scan
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RunStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "run_trigger", nullable = false, length = 20)
+    private RunTrigger trigger;
+
+    @Column(name = "full_scan", nullable = false)
+    private Boolean fullScan;
+
+    @Column(name = "classes_scanned")
+    private Integer classesScanned;
+
+    @Column(name = "cohorts_scanned")
+    private Integer cohortsScanned;
+
+    @Column(name = "vouchers_evaluated")
+    private Integer vouchersEvaluated;
+
+    @Column(name = "vouchers_updated")
+    private Integer vouchersUpdated;
+
+    @Column(name = "elapsed_millis")
+    private Long elapsedMillis;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    public enum RunStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public enum RunTrigger {
+        SCHEDULED, MANUAL
+    }
+}
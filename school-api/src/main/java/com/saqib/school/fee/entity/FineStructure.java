@@ -2,12 +2,12 @@ package com.saqib.school.fee.entity;
 
 import com.saqib.school.academic.entity.SchoolClass;
 import com.saqib.school.common.entity.BaseEntity;
+import com.saqib.school.common.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 @Entity
 @Table(name = "fine_structures", uniqueConstraints = {
@@ -44,9 +44,13 @@ public class FineStructure extends BaseEntity {
 
     // Helper methods
     public BigDecimal calculateFine(BigDecimal voucherAmount) {
+        return calculateFine(Money.of(voucherAmount)).toBigDecimal();
+    }
+
+    public Money calculateFine(Money voucherAmount) {
         return switch (fineType) {
-            case PERCENTAGE -> voucherAmount.multiply(fineValue).divide(BigDecimal.valueOf(100), RoundingMode.CEILING);
-            case FIXED_AMOUNT -> fineValue;
+            case PERCENTAGE -> voucherAmount.percentageRoundedUp(fineValue);
+            case FIXED_AMOUNT -> Money.of(fineValue);
         };
     }
 }
@@ -0,0 +1,36 @@
+package com.saqib.school.fee.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker of a recurring maintenance step. {@code boundaryDate} is the
+ * date the last successful run processed up to (exclusive) and
+ * {@code lastRunAt} when it started; the next run only revisits rows that
+ * crossed the boundary since, or were written after that instant.
+ */
+@Entity
+@Table(name = "maintenance_watermarks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaintenanceWatermark {
+
+    @Id
+    @Column(name = "step_key", length = 50)
+    private String stepKey;
+
+    @Column(name = "boundary_date", nullable = false)
+    private LocalDate boundaryDate;
+
+    @Column(name = "last_run_at", nullable = false)
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "rows_updated")
+    private Long rowsUpdated;
+}
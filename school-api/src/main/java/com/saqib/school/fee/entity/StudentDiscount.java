@@ -1,6 +1,7 @@
 package com.saqib.school.fee.entity;
 
 import com.saqib.school.common.entity.BaseEntity;
+import com.saqib.school.common.money.Money;
 import com.saqib.school.student.entity.Student;
 import com.saqib.school.user.entity.User;
 import jakarta.persistence.*;
@@ -11,7 +12,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "student_discounts")
+@Table(name = "student_discounts", indexes = {
+    @Index(name = "idx_student_discounts_active_valid_to", columnList = "is_active, valid_to")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -63,11 +66,15 @@ public class StudentDiscount extends BaseEntity {
     }
 
     public BigDecimal calculateDiscount(BigDecimal originalAmount) {
-        if (!isActive) return BigDecimal.ZERO;
+        return calculateDiscount(Money.of(originalAmount)).toBigDecimal();
+    }
+
+    public Money calculateDiscount(Money originalAmount) {
+        if (!isActive) return Money.ZERO;
 
         return switch (discountType) {
-            case PERCENTAGE -> originalAmount.multiply(discountValue).divide(BigDecimal.valueOf(100));
-            case FIXED_AMOUNT -> discountValue.min(originalAmount);
+            case PERCENTAGE -> originalAmount.percentage(discountValue);
+            case FIXED_AMOUNT -> Money.of(discountValue).min(originalAmount);
         };
     }
 }
@@ -0,0 +1,25 @@
+package com.saqib.school.fee.event;
+
+import com.saqib.school.fee.entity.FeePayment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published inside the posting transaction once payments have been applied
+ * to their vouchers.
+ */
+public record FeePaymentsPostedEvent(List<PostedPayment> payments) {
+
+    public static FeePaymentsPostedEvent of(PostedPayment payment) {
+        return new FeePaymentsPostedEvent(List.of(payment));
+    }
+
+    public record PostedPayment(Long voucherId,
+                                LocalDate paymentDate,
+                                FeePayment.PaymentMethod paymentMethod,
+                                Long receivedById,
+                                BigDecimal amount) {
+    }
+}
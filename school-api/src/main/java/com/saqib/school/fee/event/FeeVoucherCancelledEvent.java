@@ -0,0 +1,7 @@
+package com.saqib.school.fee.event;
+
+/**
+ * Published inside the cancelling transaction when a voucher moves to CANCELLED.
+ */
+public record FeeVoucherCancelledEvent(Long voucherId) {
+}
@@ -0,0 +1,9 @@
+package com.saqib.school.fee.event;
+
+import java.util.List;
+
+/**
+ * Published inside the issuing transaction once the vouchers have been inserted.
+ */
+public record FeeVouchersIssuedEvent(List<Long> voucherIds) {
+}
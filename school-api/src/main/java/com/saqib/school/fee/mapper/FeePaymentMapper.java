@@ -3,6 +3,7 @@ package com.saqib.school.fee.mapper;
 import com.saqib.school.fee.entity.FeePayment;
 import com.saqib.school.fee.model.FeePaymentRequest;
 import com.saqib.school.fee.model.FeePaymentResponse;
+import com.saqib.school.fee.repository.FeePaymentRepository.PaymentListView;
 import org.mapstruct.*;
 
 @Mapper(componentModel = "spring")
@@ -22,6 +23,8 @@ public interface FeePaymentMapper {
     @Mapping(target = "receivedByName", expression = "java(getReceivedByName(payment))")
     FeePaymentResponse toResponse(FeePayment payment);
 
+    FeePaymentResponse toListResponse(PaymentListView view);
+
     default String getReceivedByName(FeePayment payment) {
         if (payment.getReceivedBy() != null) {
             return payment.getReceivedBy().getFirstName() + " " +
@@ -1,12 +1,18 @@
 package com.saqib.school.fee.mapper;
 
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeLine;
 import com.saqib.school.fee.entity.FeeVoucher;
 import com.saqib.school.fee.entity.FeeVoucherDetail;
 import com.saqib.school.fee.entity.FeePayment;
 import com.saqib.school.fee.model.FeeVoucherRequest;
 import com.saqib.school.fee.model.FeeVoucherResponse;
+import com.saqib.school.fee.repository.FeeVoucherRepository.VoucherDetailLineView;
+import com.saqib.school.fee.repository.FeeVoucherRepository.VoucherListView;
+import com.saqib.school.fee.repository.FeeVoucherRepository.VoucherPaymentLineView;
 import org.mapstruct.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Mapper(componentModel = "spring", uses = {FeeVoucherDetailMapper.class, FeePaymentMapper.class})
@@ -23,6 +29,7 @@ public interface FeeVoucherMapper {
     @Mapping(target = "paymentDate", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "voucherDetails", ignore = true)
+    @Mapping(target = "feeLines", ignore = true)
     @Mapping(target = "payments", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
@@ -33,7 +40,7 @@ public interface FeeVoucherMapper {
     @Mapping(target = "studentRegistrationNumber", source = "student.registrationNumber")
     @Mapping(target = "remainingAmount", expression = "java(feeVoucher.getRemainingAmount())")
     @Mapping(target = "createdByName", expression = "java(getCreatedByName(feeVoucher))")
-    @Mapping(target = "voucherDetails", source = "voucherDetails")
+    @Mapping(target = "voucherDetails", expression = "java(toDetailResponses(feeVoucher))")
     @Mapping(target = "payments", source = "payments")
     FeeVoucherResponse toResponse(FeeVoucher feeVoucher);
 
@@ -46,6 +53,32 @@ public interface FeeVoucherMapper {
 
     List<FeeVoucherResponse> toResponseList(List<FeeVoucher> vouchers);
 
+    @Mapping(target = "voucherDetails", ignore = true)
+    @Mapping(target = "payments", ignore = true)
+    FeeVoucherResponse toListResponse(VoucherListView view);
+
+    FeeVoucherResponse.VoucherDetailResponse toVoucherDetailLine(VoucherDetailLineView line);
+
+    @Mapping(target = "id", ignore = true)
+    FeeVoucherResponse.VoucherDetailResponse toVoucherDetailLine(FeeLine line);
+
+    FeeVoucherResponse.PaymentResponse toPaymentLine(VoucherPaymentLineView line);
+
+    // Packed vouchers answer from their own row instead of loading the detail rows
+    default List<FeeVoucherResponse.VoucherDetailResponse> toDetailResponses(FeeVoucher feeVoucher) {
+        if (feeVoucher.getFeeLines() != null) {
+            return feeVoucher.getFeeLines().stream().map(this::toVoucherDetailLine).toList();
+        }
+        if (feeVoucher.getVoucherDetails() == null) {
+            return null;
+        }
+        return feeVoucher.getVoucherDetails().stream().map(this::toVoucherDetailResponse).toList();
+    }
+
+    default BigDecimal toAmount(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
     default String getCreatedByName(FeeVoucher feeVoucher) {
         if (feeVoucher.getCreatedBy() != null) {
             return feeVoucher.getCreatedBy().getFirstName() + " " +
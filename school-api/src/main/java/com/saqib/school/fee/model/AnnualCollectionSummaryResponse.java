@@ -0,0 +1,22 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnualCollectionSummaryResponse {
+    private Integer year;
+    private BigDecimal totalCollection;
+    private BigDecimal totalIssued;
+    private BigDecimal collectionPercentage;
+    private Long pendingVouchers;
+    private List<MonthlyCollectionReportResponse> months;
+}
@@ -0,0 +1,27 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.BankStatementException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankStatementExceptionResponse {
+    private Long id;
+    private Long lineNumber;
+    private String voucherNumber;
+    private String referenceNumber;
+    private BigDecimal amount;
+    private LocalDate paymentDate;
+    private BankStatementException.Reason reason;
+    private Boolean posted;
+    private String detail;
+    private String rawLine;
+}
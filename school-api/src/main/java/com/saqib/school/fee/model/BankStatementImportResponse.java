@@ -0,0 +1,30 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.BankStatementImport;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankStatementImportResponse {
+    private Long id;
+    private String fileName;
+    private String bankName;
+    private BankStatementImport.ImportStatus status;
+    private Integer totalRows;
+    private Integer postedRows;
+    private BigDecimal postedAmount;
+    private Integer duplicateRows;
+    private Integer exceptionRows;
+    private Long elapsedMillis;
+    private String errorMessage;
+    private String importedBy;
+    private LocalDateTime importedAt;
+}
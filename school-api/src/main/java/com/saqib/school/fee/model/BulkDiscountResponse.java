@@ -0,0 +1,33 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.StudentDiscount;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDiscountResponse {
+    private Long feeCategoryId;
+    private StudentDiscount.DiscountType discountType;
+    private BigDecimal discountValue;
+    private Integer totalProcessed;
+    private Integer successful;
+    private Integer failed;
+    private List<Failure> failures;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private Long studentId;
+        private String reason;
+    }
+}
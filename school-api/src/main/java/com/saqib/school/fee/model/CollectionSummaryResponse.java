@@ -0,0 +1,44 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FeeVoucher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionSummaryResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal totalCollection;
+    private Long totalVouchers;
+    private Long pendingVouchers;
+    private Long paidVouchers;
+    private BigDecimal totalIssued;
+    private BigDecimal totalOutstanding;
+    private Map<FeeVoucher.VoucherStatus, Long> vouchersByStatus;
+    private Map<FeeVoucher.VoucherType, Long> vouchersByType;
+    private List<VoucherGroup> breakdown;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VoucherGroup {
+        private String month;
+        private FeeVoucher.VoucherStatus status;
+        private FeeVoucher.VoucherType voucherType;
+        private Long vouchers;
+        private BigDecimal totalAmount;
+        private BigDecimal paidAmount;
+        private BigDecimal fineAmount;
+    }
+}
@@ -0,0 +1,34 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyMaintenanceResponse {
+    private LocalDate processedDate;
+    private List<MaintenanceStepResult> steps;
+    private Long currentPendingVouchers;
+    private Long elapsedMillis;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MaintenanceStepResult {
+        private String step;
+        private Long rowsUpdated;
+        private Integer chunks;
+        private Boolean fullScan;
+        private LocalDate windowStart; // first boundary date covered, null on a full scan
+        private LocalDate windowEnd; // exclusive
+        private Long elapsedMillis;
+    }
+}
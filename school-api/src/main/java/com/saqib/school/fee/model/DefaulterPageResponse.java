@@ -0,0 +1,21 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DefaulterPageResponse {
+    private LocalDate reportDate;
+    private List<DefaulterReportResponse.DefaulterInfo> defaulters;
+    private Integer size;
+    private Boolean hasNext;
+    private String nextCursor;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -21,4 +22,8 @@ public class DefaulterReportRequest {
     private Integer minimumDaysOverdue; // Filter by minimum days overdue
 
     private Boolean includePaidVouchers; // Include vouchers that are now paid but were overdue
+
+    private Sort.Direction sortDirection; // By days overdue; DESC (most overdue first) if null
+
+    private Boolean includeVouchers; // Paged and streamed reports list each defaulter's vouchers only when set
 }
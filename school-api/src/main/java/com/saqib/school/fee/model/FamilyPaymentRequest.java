@@ -0,0 +1,47 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FeePayment;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FamilyPaymentRequest {
+
+    // Either the students or a guardian CNIC identifies the family
+    private Set<Long> studentIds;
+
+    @Pattern(regexp = "^[0-9]{5}-[0-9]{7}-[0-9]$", message = "CNIC format should be XXXXX-XXXXXXX-X")
+    private String guardianCnic;
+
+    @NotNull(message = "Payment method is required")
+    private FeePayment.PaymentMethod paymentMethod;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    private BigDecimal amount;
+
+    @NotNull(message = "Payment date is required")
+    private LocalDate paymentDate;
+
+    @Size(max = 100, message = "Reference number must not exceed 100 characters")
+    private String referenceNumber;
+
+    @Size(max = 100, message = "Bank name must not exceed 100 characters")
+    private String bankName;
+
+    @Size(max = 1000, message = "Notes must not exceed 1000 characters")
+    private String notes;
+}
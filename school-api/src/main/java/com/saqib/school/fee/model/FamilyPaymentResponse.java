@@ -0,0 +1,36 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FamilyPaymentResponse {
+    private BigDecimal amount;
+    private Integer vouchersPaid;
+    private Integer vouchersPartiallyPaid;
+    private BigDecimal outstandingBefore;
+    private BigDecimal outstandingAfter;
+    private List<Allocation> allocations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Allocation {
+        private Long voucherId;
+        private String voucherNumber;
+        private Long studentId;
+        private LocalDate dueDate;
+        private BigDecimal amount;
+        private BigDecimal remainingAmount;
+    }
+}
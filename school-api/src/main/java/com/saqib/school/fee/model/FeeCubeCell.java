@@ -0,0 +1,24 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeCubeCell {
+    private String rowKey;
+    private String rowLabel;
+    private String columnKey;
+    private String columnLabel;
+    private BigDecimal issued;
+    private BigDecimal discounted;
+    private BigDecimal net;
+    private BigDecimal collected;
+    private BigDecimal outstanding;
+}
@@ -0,0 +1,7 @@
+package com.saqib.school.fee.model;
+
+public enum FeeCubeDimension {
+    CLASS,
+    CATEGORY,
+    MONTH
+}
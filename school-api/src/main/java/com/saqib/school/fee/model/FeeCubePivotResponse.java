@@ -0,0 +1,28 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeCubePivotResponse {
+    private FeeCubeDimension rows;
+    private FeeCubeDimension columns;
+    private Long classId;
+    private Long categoryId;
+    private YearMonth fromMonth;
+    private YearMonth toMonth;
+    private List<FeeCubeCell> cells;
+    private FeeCubeCell totals;
+    private LocalDateTime builtAt;
+    private Long elapsedMicros;
+    private String freshness;
+}
@@ -0,0 +1,28 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeCubeStats {
+    private LocalDateTime builtAt;
+    private Integer classes;
+    private Integer categories;
+    private Integer months;
+    private Integer allocatedCells;
+    private Integer populatedCells;
+    private Long measureBytes;
+    private Long dictionaryBytes;
+    private Long vouchersLoaded;
+    private Long deltasApplied;
+    private Long rebuilds;
+    private Long lastRebuildMillis;
+    private String freshness;
+}
@@ -0,0 +1,58 @@
+package com.saqib.school.fee.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.saqib.school.fee.entity.FeeGenerationJob;
+import com.saqib.school.fee.entity.FeeGenerationJobClass;
+import com.saqib.school.common.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeeGenerationJobResponse {
+    private Long id;
+    private String monthYear;
+    private LocalDate dueDate;
+    private FeeGenerationJob.JobStatus status;
+    private Integer totalClasses;
+    private Integer completedClasses;
+    private Integer failedClasses;
+    private Integer totalStudents;
+    private Integer vouchersWritten;
+    private Double percentComplete;
+    private Double vouchersPerSecond;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String lastError;
+    private String submittedBy;
+    private String resultUrl;
+    private List<ClassProgress> classes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassProgress {
+        private Long classId;
+        private String className;
+        private FeeGenerationJobClass.ClassStatus status;
+        private Integer students;
+        private Integer vouchersWritten;
+        private Integer skippedStudents;
+        private Integer failedStudents;
+        private Money totalAmount;
+        private Long elapsedMillis;
+        private LocalDateTime completedAt;
+        private String errorMessage;
+    }
+}
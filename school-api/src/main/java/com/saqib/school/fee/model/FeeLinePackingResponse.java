@@ -0,0 +1,17 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeLinePackingResponse {
+    private Long vouchersPacked;
+    private Integer batches;
+    private Long remainingUnpacked;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,22 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeLineStorageStats {
+    private Long packedVouchers;
+    private Long unpackedVouchers;
+    private Long detailRows;
+    // Table, indexes and TOAST of fee_voucher_details
+    private Long detailTableBytes;
+    // Stored size of the packed column across all vouchers
+    private Long packedColumnBytes;
+    private Long averageDetailBytesPerVoucher;
+    private Long averagePackedBytesPerVoucher;
+}
@@ -0,0 +1,25 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeePricingCacheStats {
+    private Long version;
+    private Long dataVersion;
+    private LocalDateTime builtAt;
+    private Integer classes;
+    private Integer feeHeads;
+    private Long hits;
+    private Long misses;
+    private Double hitRatio;
+    private Long rebuilds;
+    private Long lastRebuildMillis;
+}
@@ -0,0 +1,20 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeRollupRebuildResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer collectionRows;
+    private Integer issueRows;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,47 @@
+package com.saqib.school.fee.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeSimulationRequest {
+
+    @NotEmpty(message = "At least one fee change is required")
+    @Valid
+    private List<FeeChange> changes;
+
+    private LocalDate asOf; // Date discounts must be valid on; defaults to today
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FeeChange {
+
+        @NotNull(message = "Fee category ID is required")
+        private Long feeCategoryId;
+
+        private Set<Long> classIds; // If empty, every class charging the category
+
+        // Exactly one of the two below
+        @DecimalMin(value = "-100", message = "Percent change cannot be below -100")
+        private BigDecimal percentChange;
+
+        @DecimalMin(value = "0.00", message = "New amount cannot be negative")
+        private BigDecimal newAmount;
+    }
+}
@@ -0,0 +1,52 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeSimulationResponse {
+    private LocalDate asOf;
+    private Long pricingVersion;
+    private Integer classes;
+    private Integer students;
+    private Totals current;
+    private Totals projected;
+    private BigDecimal netChange;
+    private Long elapsedMillis;
+    private List<Line> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Totals {
+        private BigDecimal issued;
+        private BigDecimal discounted;
+        private BigDecimal net;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long classId;
+        private String className;
+        private Long feeCategoryId;
+        private String feeCategoryName;
+        private Integer students;
+        private BigDecimal currentAmount;
+        private BigDecimal proposedAmount;
+        private Totals current;
+        private Totals projected;
+    }
+}
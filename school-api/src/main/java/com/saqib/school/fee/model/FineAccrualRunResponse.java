@@ -0,0 +1,30 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FineAccrualRun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineAccrualRunResponse {
+    private Long id;
+    private LocalDate runDate;
+    private LocalDate windowStart;
+    private FineAccrualRun.RunStatus status;
+    private FineAccrualRun.RunTrigger trigger;
+    private Boolean fullScan;
+    private Integer classesScanned;
+    private Integer cohortsScanned;
+    private Integer vouchersEvaluated;
+    private Integer vouchersUpdated;
+    private Long elapsedMillis;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+}
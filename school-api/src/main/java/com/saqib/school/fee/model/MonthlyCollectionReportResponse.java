@@ -0,0 +1,23 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FeePayment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyCollectionReportResponse {
+    private String month;
+    private BigDecimal totalCollection;
+    private BigDecimal totalIssued;
+    private Long pendingVouchers;
+    private BigDecimal collectionPercentage;
+    private Map<FeePayment.PaymentMethod, BigDecimal> byPaymentMethod;
+}
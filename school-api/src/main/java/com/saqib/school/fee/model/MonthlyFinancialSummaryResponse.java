@@ -0,0 +1,31 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyFinancialSummaryResponse {
+    private String month;
+    private MonthlyCollectionReportResponse collection;
+    private DefaulterSummary defaulterSummary;
+    private LocalDate generatedOn;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DefaulterSummary {
+        private LocalDate asOfDate;
+        private Long totalDefaulters;
+        private BigDecimal totalOutstanding;
+        private BigDecimal totalFines;
+    }
+}
@@ -0,0 +1,50 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.common.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyVoucherGenerationResponse {
+    private String monthYear;
+    private LocalDate dueDate;
+    private Integer totalStudents;
+    private Integer generatedVouchers;
+    private Integer skippedStudents;
+    private Integer failedStudents;
+    private Integer failedClasses;
+    private Money totalAmount;
+    private Long elapsedMillis;
+    private Double vouchersPerSecond;
+    private List<ClassGenerationResult> classResults;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassGenerationResult {
+        private Long classId;
+        private String className;
+        private GenerationStatus status;
+        private Integer students;
+        private Integer generatedVouchers;
+        private Integer skippedStudents;
+    private Integer failedStudents;
+        private Money totalAmount;
+        private Long elapsedMillis;
+        private Double vouchersPerSecond;
+        private String errorMessage;
+    }
+
+    public enum GenerationStatus {
+        COMPLETED, NO_FEE_STRUCTURE, FAILED
+    }
+}
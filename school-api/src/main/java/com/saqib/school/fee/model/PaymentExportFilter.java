@@ -0,0 +1,21 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FeePayment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExportFilter {
+    private LocalDate startDate; // payment date, inclusive
+    private LocalDate endDate;
+    private FeePayment.PaymentMethod paymentMethod;
+    private Long receivedBy;
+    private Long voucherId;
+}
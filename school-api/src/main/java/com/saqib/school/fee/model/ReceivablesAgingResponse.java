@@ -0,0 +1,52 @@
+package com.saqib.school.fee.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceivablesAgingResponse {
+    private LocalDate asOfDate;
+    private Long classId;
+    private Boolean byCategory;
+    private LocalDateTime generatedAt;
+    private Buckets totals;
+    private List<AgingRow> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AgingRow {
+        private Long classId;
+        private String className;
+        private Long feeCategoryId;
+        private String feeCategoryName;
+        private Long vouchers;
+        private Long students;
+        private Buckets buckets;
+    }
+
+    // Days past due as of the report date; not yet due is kept apart
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Buckets {
+        private BigDecimal notDue;
+        private BigDecimal days0To30;
+        private BigDecimal days31To60;
+        private BigDecimal days61To90;
+        private BigDecimal daysOver90;
+        private BigDecimal total;
+    }
+}
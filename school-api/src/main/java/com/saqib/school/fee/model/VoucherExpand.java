@@ -0,0 +1,31 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.common.exception.BadRequestException;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Related data a voucher list can include, requested as {@code expand=details,payments}.
+ */
+public enum VoucherExpand {
+    DETAILS,
+    PAYMENTS;
+
+    public static Set<VoucherExpand> parse(Collection<String> values) {
+        Set<VoucherExpand> expand = EnumSet.noneOf(VoucherExpand.class);
+        if (values == null) {
+            return expand;
+        }
+        for (String value : values) {
+            try {
+                expand.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown expand value: " + value);
+            }
+        }
+        return expand;
+    }
+}
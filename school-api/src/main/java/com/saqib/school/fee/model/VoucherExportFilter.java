@@ -0,0 +1,22 @@
+package com.saqib.school.fee.model;
+
+import com.saqib.school.fee.entity.FeeVoucher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherExportFilter {
+    private Long studentId;
+    private FeeVoucher.VoucherStatus status;
+    private FeeVoucher.VoucherType voucherType;
+    private String monthYear;
+    private LocalDate startDate; // issue date, inclusive
+    private LocalDate endDate;
+}
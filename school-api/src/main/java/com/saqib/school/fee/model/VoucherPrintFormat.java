@@ -0,0 +1,6 @@
+package com.saqib.school.fee.model;
+
+public enum VoucherPrintFormat {
+    PDF, // one document with every class
+    ZIP  // one document per class
+}
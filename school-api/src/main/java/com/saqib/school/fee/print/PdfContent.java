@@ -0,0 +1,53 @@
+package com.saqib.school.fee.print;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builder for an uncompressed PDF page content stream.
+ */
+final class PdfContent {
+
+    private final StringBuilder operators;
+
+    PdfContent(int capacity) {
+        this.operators = new StringBuilder(capacity);
+    }
+
+    PdfContent text(String font, int size, int x, int y, String value) {
+        operators.append("BT /").append(font).append(' ').append(size).append(" Tf ")
+            .append(x).append(' ').append(y).append(" Td (");
+        escape(value != null ? value : "");
+        operators.append(") Tj ET\n");
+        return this;
+    }
+
+    PdfContent line(int x1, int y1, int x2, int y2) {
+        operators.append(x1).append(' ').append(y1).append(" m ")
+            .append(x2).append(' ').append(y2).append(" l S\n");
+        return this;
+    }
+
+    PdfContent rectangle(int x, int y, int width, int height) {
+        operators.append(x).append(' ').append(y).append(' ')
+            .append(width).append(' ').append(height).append(" re S\n");
+        return this;
+    }
+
+    byte[] toBytes() {
+        return operators.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                operators.append('\\').append(c);
+            } else if (c < 0x20 || c > 0xFF) {
+                // Outside the standard font encoding
+                operators.append('?');
+            } else {
+                operators.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.saqib.school.fee.print;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal streaming PDF 1.4 writer for text-only A4 pages using the standard
+ * Helvetica fonts. Pages are written as they are added; only the byte offset
+ * of each object is kept, so memory does not grow with page content. The page
+ * tree and cross-reference table are written by {@link #finish()}.
+ */
+public class PdfDocumentWriter {
+
+    public static final int PAGE_WIDTH = 595;
+    public static final int PAGE_HEIGHT = 842;
+
+    static final String REGULAR_FONT = "F1";
+    static final String BOLD_FONT = "F2";
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FIRST_FREE_OBJECT = 5;
+
+    private static final String PAGE_DICTIONARY =
+        "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "] " +
+        "/Resources << /Font << /F1 3 0 R /F2 4 0 R >> >> /Contents %d 0 R >>";
+
+    private final OutputStream out;
+    private long position;
+    private long[] offsets = new long[64];
+    private int nextObject = FIRST_FREE_OBJECT;
+    private int[] pageObjects = new int[32];
+    private int pageCount;
+
+    /**
+     * The target stream is not closed by this writer, so several documents can
+     * be written one after another into the entries of a ZIP.
+     */
+    public PdfDocumentWriter(OutputStream target) throws IOException {
+        this.out = new BufferedOutputStream(target, 64 * 1024);
+        // Binary comment marks the file as binary for transfer tools
+        write("%PDF-1.4\n%\u00E2\u00E3\u00CF\u00D3\n");
+        writeObject(3, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        writeObject(4, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+    }
+
+    /**
+     * Appends a page whose content stream was produced by {@link #deflate}.
+     */
+    public void addPage(byte[] deflatedContent) throws IOException {
+        int contentObject = nextObject++;
+        beginObject(contentObject);
+        write("<< /Length " + deflatedContent.length + " /Filter /FlateDecode >>\nstream\n");
+        writeBytes(deflatedContent);
+        write("\nendstream\nendobj\n");
+
+        int pageObject = nextObject++;
+        writeObject(pageObject, PAGE_DICTIONARY.formatted(contentObject));
+
+        if (pageCount == pageObjects.length) {
+            pageObjects = Arrays.copyOf(pageObjects, pageCount * 2);
+        }
+        pageObjects[pageCount++] = pageObject;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Writes the page tree, catalog and trailer, then flushes without closing
+     * the target stream.
+     */
+    public void finish() throws IOException {
+        beginObject(PAGES);
+        write("<< /Type /Pages /Count " + pageCount + " /Kids [");
+        for (int i = 0; i < pageCount; i++) {
+            write(pageObjects[i] + " 0 R ");
+        }
+        write("] >>\nendobj\n");
+        writeObject(CATALOG, "<< /Type /Catalog /Pages 2 0 R >>");
+
+        long xref = position;
+        write("xref\n0 " + nextObject + "\n0000000000 65535 f \n");
+        for (int object = 1; object < nextObject; object++) {
+            write("%010d 00000 n \n".formatted(offsets[object]));
+        }
+        write("trailer\n<< /Size " + nextObject + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        out.flush();
+    }
+
+    /**
+     * Compresses a page content stream. Safe to call from worker threads.
+     */
+    public static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeObject(int object, String dictionary) throws IOException {
+        beginObject(object);
+        write(dictionary + "\nendobj\n");
+    }
+
+    private void beginObject(int object) throws IOException {
+        if (object >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(object + 1, offsets.length * 2));
+        }
+        offsets[object] = position;
+        write(object + " 0 obj\n");
+    }
+
+    private void write(String text) throws IOException {
+        writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+}
@@ -0,0 +1,151 @@
+package com.saqib.school.fee.print;
+
+import com.saqib.school.fee.repository.VoucherPrintRepository.PrintLine;
+import com.saqib.school.fee.repository.VoucherPrintRepository.PrintableVoucher;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.saqib.school.fee.print.PdfDocumentWriter.BOLD_FONT;
+import static com.saqib.school.fee.print.PdfDocumentWriter.REGULAR_FONT;
+
+/**
+ * Page layout for one class's vouchers. Everything that is the same on every
+ * page of the class (titles, labels, rules and the class's fee-head rows) is
+ * compiled into a content stream once; {@link #render} only appends the
+ * voucher's own values. Instances are immutable and shared across render
+ * threads.
+ */
+public final class VoucherPageTemplate {
+
+    private static final int LEFT = 50;
+    private static final int RIGHT = PdfDocumentWriter.PAGE_WIDTH - 50;
+    private static final int VALUE_X = 170;
+    private static final int AMOUNT_X = 300;
+    private static final int DISCOUNT_X = 390;
+    private static final int NET_X = 480;
+
+    private static final int FIRST_ROW_Y = 588;
+    private static final int ROW_HEIGHT = 18;
+    private static final int TOTALS_Y = 190;
+    // The last row is kept free for the folded "Other charges" line
+    private static final int MAX_ROWS = (FIRST_ROW_Y - TOTALS_Y) / ROW_HEIGHT - 1;
+
+    private static final String[] HEADER_LABELS = {
+        "Voucher No:", "Student:", "Registration No:", "Voucher Type:", "Month:", "Issue Date:", "Due Date:"
+    };
+    private static final int HEADER_Y = 750;
+
+    private static final String[] TOTAL_LABELS = {"Total", "Fine", "Paid", "Payable"};
+
+    private final byte[] staticContent;
+    private final Map<String, Integer> rowByFeeHead;
+    private final int templateRows;
+
+    private VoucherPageTemplate(byte[] staticContent, Map<String, Integer> rowByFeeHead, int templateRows) {
+        this.staticContent = staticContent;
+        this.rowByFeeHead = rowByFeeHead;
+        this.templateRows = templateRows;
+    }
+
+    /**
+     * Lays out the fixed part of the page for a class and its fee heads.
+     * Heads beyond the page's row capacity are printed per voucher instead.
+     */
+    public static VoucherPageTemplate compile(String classLabel, List<String> feeHeads) {
+        PdfContent content = new PdfContent(2048)
+            .text(BOLD_FONT, 18, LEFT, 790, "FEE VOUCHER")
+            .text(REGULAR_FONT, 11, 350, 790, "Class: " + (classLabel != null ? classLabel : "N/A"))
+            .line(LEFT, 780, RIGHT, 780);
+
+        for (int i = 0; i < HEADER_LABELS.length; i++) {
+            content.text(BOLD_FONT, 10, LEFT, HEADER_Y - i * ROW_HEIGHT, HEADER_LABELS[i]);
+        }
+
+        content.text(BOLD_FONT, 10, LEFT, 610, "Fee Head")
+            .text(BOLD_FONT, 10, AMOUNT_X, 610, "Amount")
+            .text(BOLD_FONT, 10, DISCOUNT_X, 610, "Discount")
+            .text(BOLD_FONT, 10, NET_X, 610, "Net")
+            .line(LEFT, 604, RIGHT, 604);
+
+        Map<String, Integer> rowByFeeHead = new HashMap<>();
+        int rows = Math.min(feeHeads.size(), MAX_ROWS - 1);
+        for (int row = 0; row < rows; row++) {
+            String feeHead = feeHeads.get(row);
+            rowByFeeHead.put(feeHead, row);
+            content.text(REGULAR_FONT, 10, LEFT, rowY(row), feeHead);
+        }
+
+        content.line(LEFT, TOTALS_Y + ROW_HEIGHT, RIGHT, TOTALS_Y + ROW_HEIGHT);
+        for (int i = 0; i < TOTAL_LABELS.length; i++) {
+            content.text(BOLD_FONT, 10, DISCOUNT_X, TOTALS_Y - i * ROW_HEIGHT, TOTAL_LABELS[i]);
+        }
+        content.rectangle(LEFT - 10, 60, RIGHT - LEFT + 20, 750)
+            .text(REGULAR_FONT, 9, LEFT, 80, "Please pay by the due date. Late payments are charged a fine.");
+
+        return new VoucherPageTemplate(content.toBytes(), rowByFeeHead, rows);
+    }
+
+    /**
+     * Renders one voucher onto a copy of the compiled page and returns the
+     * compressed content stream.
+     */
+    public byte[] render(PrintableVoucher voucher, List<PrintLine> lines) {
+        PdfContent values = new PdfContent(1024);
+        String[] headerValues = {
+            voucher.voucherNumber(), voucher.studentName(), voucher.registrationNumber(), voucher.voucherType(),
+            voucher.monthYear() != null ? voucher.monthYear() : "-",
+            String.valueOf(voucher.issueDate()), String.valueOf(voucher.dueDate())
+        };
+        for (int i = 0; i < headerValues.length; i++) {
+            values.text(REGULAR_FONT, 10, VALUE_X, HEADER_Y - i * ROW_HEIGHT, headerValues[i]);
+        }
+
+        // Heads outside the class template take the free rows below it; any
+        // that still do not fit are folded into a single line
+        int nextExtraRow = templateRows;
+        BigDecimal overflow = BigDecimal.ZERO;
+        for (PrintLine line : lines) {
+            Integer row = rowByFeeHead.get(line.feeHead());
+            if (row == null && nextExtraRow < MAX_ROWS - 1) {
+                row = nextExtraRow++;
+                values.text(REGULAR_FONT, 10, LEFT, rowY(row), line.feeHead());
+            } else if (row == null) {
+                overflow = overflow.add(line.finalAmount());
+                continue;
+            }
+            values.text(REGULAR_FONT, 10, AMOUNT_X, rowY(row), money(line.originalAmount()))
+                .text(REGULAR_FONT, 10, DISCOUNT_X, rowY(row), money(line.discountAmount()))
+                .text(REGULAR_FONT, 10, NET_X, rowY(row), money(line.finalAmount()));
+        }
+        if (overflow.signum() != 0) {
+            values.text(REGULAR_FONT, 10, LEFT, rowY(nextExtraRow), "Other charges")
+                .text(REGULAR_FONT, 10, NET_X, rowY(nextExtraRow), money(overflow));
+        }
+
+        BigDecimal payable = voucher.totalAmount().add(voucher.fineAmount()).subtract(voucher.paidAmount());
+        BigDecimal[] totals = {voucher.totalAmount(), voucher.fineAmount(), voucher.paidAmount(), payable};
+        for (int i = 0; i < totals.length; i++) {
+            values.text(i == totals.length - 1 ? BOLD_FONT : REGULAR_FONT, 10, NET_X, TOTALS_Y - i * ROW_HEIGHT,
+                        money(totals[i]));
+        }
+
+        byte[] dynamicContent = values.toBytes();
+        ByteArrayOutputStream page = new ByteArrayOutputStream(staticContent.length + dynamicContent.length);
+        page.writeBytes(staticContent);
+        page.writeBytes(dynamicContent);
+        return PdfDocumentWriter.deflate(page.toByteArray());
+    }
+
+    private static int rowY(int row) {
+        return FIRST_ROW_Y - row * ROW_HEIGHT;
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).toPlainString() : "-";
+    }
+}
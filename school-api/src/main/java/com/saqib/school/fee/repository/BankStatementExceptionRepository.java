@@ -0,0 +1,21 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.BankStatementException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BankStatementExceptionRepository extends JpaRepository<BankStatementException, Long> {
+
+    @Query("SELECT e FROM BankStatementException e WHERE e.statementImport.id = :importId")
+    Page<BankStatementException> findByImportId(@Param("importId") Long importId, Pageable pageable);
+
+    @Query("SELECT e FROM BankStatementException e WHERE e.statementImport.id = :importId AND e.reason = :reason")
+    Page<BankStatementException> findByImportIdAndReason(@Param("importId") Long importId,
+                                                        @Param("reason") BankStatementException.Reason reason,
+                                                        Pageable pageable);
+}
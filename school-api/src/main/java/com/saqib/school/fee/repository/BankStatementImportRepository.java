@@ -0,0 +1,9 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.BankStatementImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BankStatementImportRepository extends JpaRepository<BankStatementImport, Long> {
+}
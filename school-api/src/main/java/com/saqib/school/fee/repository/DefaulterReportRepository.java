@@ -0,0 +1,194 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.model.DefaulterReportResponse.DefaulterInfo;
+import com.saqib.school.fee.model.DefaulterReportResponse.OverdueVoucherInfo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * SQL-side defaulter aggregation. Overdue vouchers are grouped per student in
+ * the database and joined to the student's current class and primary guardian
+ * in the same statement, so no entities or lazy collections are touched.
+ * Results are ordered by oldest due date, which is days overdue, with the
+ * student id as tie-breaker for keyset paging.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DefaulterReportRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String DEFAULTERS_SQL =
+        "WITH defaulters AS (" +
+        "SELECT fv.student_id, COUNT(*) AS overdue_vouchers, " +
+        "SUM(fv.total_amount + COALESCE(fv.fine_amount, 0) - COALESCE(fv.paid_amount, 0)) AS outstanding, " +
+        "SUM(COALESCE(fv.fine_amount, 0)) AS fines, MIN(fv.due_date) AS oldest_due_date " +
+        "FROM fee_vouchers fv " +
+        "WHERE fv.status IN ('PENDING', 'OVERDUE') AND fv.due_date < ? AND fv.due_date <= ? %s " +
+        "GROUP BY fv.student_id) " +
+        "SELECT d.student_id, d.overdue_vouchers, d.outstanding, d.fines, d.oldest_due_date, " +
+        "s.first_name, s.last_name, s.registration_number, c.class_name, c.section, g.name AS guardian_name, " +
+        "g.phone AS guardian_phone " +
+        "FROM defaulters d JOIN students s ON s.id = d.student_id " +
+        "LEFT JOIN LATERAL (SELECT se.class_id FROM student_enrollments se " +
+        "WHERE se.student_id = d.student_id AND se.status = 'ACTIVE' ORDER BY se.id DESC LIMIT 1) e ON true " +
+        "LEFT JOIN classes c ON c.id = e.class_id " +
+        "LEFT JOIN LATERAL (SELECT sg.name, sg.phone FROM student_guardians sg WHERE sg.student_id = d.student_id " +
+        "ORDER BY sg.is_primary_contact DESC NULLS LAST, sg.id LIMIT 1) g ON true " +
+        "%s ORDER BY d.oldest_due_date %s, d.student_id %s %s";
+
+    private static final String CLASS_FILTER_SQL =
+        "AND fv.student_id IN (SELECT se.student_id FROM student_enrollments se " +
+        "WHERE se.status = 'ACTIVE' AND se.class_id IN (%s))";
+
+    private static final String OVERDUE_VOUCHERS_SQL =
+        "SELECT fv.student_id, fv.id, fv.voucher_number, fv.voucher_type, fv.month_year, fv.due_date, " +
+        "fv.total_amount, COALESCE(fv.fine_amount, 0) AS fine_amount, " +
+        "fv.total_amount + COALESCE(fv.fine_amount, 0) - COALESCE(fv.paid_amount, 0) AS remaining_amount " +
+        "FROM fee_vouchers fv " +
+        "WHERE fv.status IN ('PENDING', 'OVERDUE') AND fv.due_date < ? AND fv.due_date <= ? " +
+        "AND fv.student_id IN (%s) ORDER BY fv.student_id, fv.due_date, fv.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One page of defaulters after the query's cursor; {@code limit} null reads all.
+     */
+    public List<DefaulterInfo> findDefaulters(DefaulterQuery query, Integer limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(query, limit, args);
+        return jdbcTemplate.query(sql, defaulterMapper(query.asOfDate()), args.toArray());
+    }
+
+    /**
+     * Hands every matching defaulter to {@code consumer} as rows arrive. Must run
+     * inside a transaction so the driver can use a cursor instead of buffering
+     * the whole result.
+     */
+    public void streamDefaulters(DefaulterQuery query, Consumer<DefaulterInfo> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(query, null, args);
+        RowMapper<DefaulterInfo> mapper = defaulterMapper(query.asOfDate());
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, 0)));
+    }
+
+    /**
+     * Overdue vouchers of the given students, ordered by student then due date.
+     */
+    public List<VoucherLine> findOverdueVouchers(Collection<Long> studentIds, LocalDate asOfDate, LocalDate dueOnOrBefore) {
+        if (studentIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> args = new ArrayList<>(studentIds.size() + 2);
+        args.add(asOfDate);
+        args.add(dueOnOrBefore);
+        args.addAll(studentIds);
+        String sql = OVERDUE_VOUCHERS_SQL.formatted(placeholders(studentIds.size()));
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            LocalDate dueDate = rs.getObject("due_date", LocalDate.class);
+            return new VoucherLine(rs.getLong("student_id"), OverdueVoucherInfo.builder()
+                .voucherId(rs.getLong("id"))
+                .voucherNumber(rs.getString("voucher_number"))
+                .voucherType(rs.getString("voucher_type"))
+                .monthYear(rs.getString("month_year"))
+                .dueDate(dueDate)
+                .daysOverdue((int) ChronoUnit.DAYS.between(dueDate, asOfDate))
+                .totalAmount(rs.getBigDecimal("total_amount"))
+                .fineAmount(rs.getBigDecimal("fine_amount"))
+                .remainingAmount(rs.getBigDecimal("remaining_amount"))
+                .build());
+        }, args.toArray());
+    }
+
+    private String buildSql(DefaulterQuery query, Integer limit, List<Object> args) {
+        args.add(query.asOfDate());
+        args.add(query.dueOnOrBefore());
+
+        String classFilter = "";
+        if (query.classIds() != null && !query.classIds().isEmpty()) {
+            classFilter = CLASS_FILTER_SQL.formatted(placeholders(query.classIds().size()));
+            args.addAll(query.classIds());
+        }
+
+        // Most overdue first means oldest due date first
+        String direction = query.mostOverdueFirst() ? "ASC" : "DESC";
+        String keyset = "";
+        if (query.afterDueDate() != null && query.afterStudentId() != null) {
+            keyset = "WHERE (d.oldest_due_date, d.student_id) " + (query.mostOverdueFirst() ? ">" : "<") + " (?, ?)";
+            args.add(query.afterDueDate());
+            args.add(query.afterStudentId());
+        }
+
+        String limitClause = "";
+        if (limit != null) {
+            limitClause = "LIMIT ?";
+            args.add(limit);
+        }
+
+        return DEFAULTERS_SQL.formatted(classFilter, keyset, direction, direction, limitClause);
+    }
+
+    private static RowMapper<DefaulterInfo> defaulterMapper(LocalDate asOfDate) {
+        return (rs, rowNum) -> {
+            LocalDate oldestDueDate = rs.getObject("oldest_due_date", LocalDate.class);
+            String className = rs.getString("class_name");
+            String guardianName = rs.getString("guardian_name");
+            String guardianPhone = rs.getString("guardian_phone");
+            return DefaulterInfo.builder()
+                .studentId(rs.getLong("student_id"))
+                .studentName(rs.getString("first_name") + " " + rs.getString("last_name"))
+                .registrationNumber(rs.getString("registration_number"))
+                .className(className != null ? className + " - " + rs.getString("section") : "N/A")
+                .guardianName(guardianName != null ? guardianName : "N/A")
+                .guardianPhone(guardianPhone != null ? guardianPhone : "N/A")
+                .totalOverdueVouchers(rs.getInt("overdue_vouchers"))
+                .totalOutstandingAmount(rs.getBigDecimal("outstanding"))
+                .totalFineAmount(rs.getBigDecimal("fines"))
+                .oldestDueDate(oldestDueDate)
+                .daysSinceOldestDue((int) ChronoUnit.DAYS.between(oldestDueDate, asOfDate))
+                .build();
+        };
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Defaulter filter. Vouchers count when due before {@code asOfDate} and on
+     * or before {@code dueOnOrBefore} (the minimum-days-overdue cut-off). The
+     * {@code after*} pair is the keyset cursor of the previous page.
+     */
+    public record DefaulterQuery(LocalDate asOfDate,
+                                 LocalDate dueOnOrBefore,
+                                 List<Long> classIds,
+                                 boolean mostOverdueFirst,
+                                 LocalDate afterDueDate,
+                                 Long afterStudentId) {
+    }
+
+    public record VoucherLine(Long studentId, OverdueVoucherInfo voucher) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.saqib.school.fee.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Voucher fee lines for the analytics cube, with the student's current class
+ * and the voucher's paid amount on every line. Lines come back grouped by
+ * voucher so callers can spread voucher-level amounts over each group.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeeAnalyticsRepository {
+
+    private static final int STREAM_FETCH_SIZE = 2000;
+
+    private static final String LINES_SQL =
+        "SELECT fv.id AS voucher_id, fv.issue_date, COALESCE(fv.paid_amount, 0) AS paid_amount, " +
+        "COALESCE(e.class_id, 0) AS class_id, c.class_name, c.section, d.fee_category_id, fc.category_name, " +
+        "d.original_amount, COALESCE(d.discount_amount, 0) AS discount_amount, d.final_amount " +
+        "FROM fee_vouchers fv JOIN fee_voucher_details d ON d.voucher_id = fv.id " +
+        "JOIN fee_categories fc ON fc.id = d.fee_category_id " +
+        "LEFT JOIN LATERAL (SELECT se.class_id FROM student_enrollments se " +
+        "WHERE se.student_id = fv.student_id AND se.status = 'ACTIVE' ORDER BY se.id DESC LIMIT 1) e ON true " +
+        "LEFT JOIN classes c ON c.id = e.class_id " +
+        "WHERE %s ORDER BY fv.id, d.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hands every line of non-cancelled vouchers to {@code consumer}. Must run
+     * inside a transaction so the driver can use a cursor.
+     */
+    public void streamLines(Consumer<CubeLine> consumer) {
+        RowMapper<CubeLine> mapper = lineMapper();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LINES_SQL.formatted("fv.status <> 'CANCELLED'"));
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, 0)));
+    }
+
+    /**
+     * Lines of the given vouchers whatever their status, so cancellations can
+     * be subtracted.
+     */
+    public List<CubeLine> findLines(Collection<Long> voucherIds) {
+        return findLines(voucherIds, "");
+    }
+
+    /**
+     * Lines of the given vouchers that are not cancelled, i.e. what
+     * {@link #streamLines} would hand over for them.
+     */
+    public List<CubeLine> findLiveLines(Collection<Long> voucherIds) {
+        return findLines(voucherIds, "fv.status <> 'CANCELLED' AND ");
+    }
+
+    private List<CubeLine> findLines(Collection<Long> voucherIds, String condition) {
+        if (voucherIds.isEmpty()) {
+            return List.of();
+        }
+        String filter = condition + "fv.id IN (" + String.join(", ", Collections.nCopies(voucherIds.size(), "?")) + ")";
+        return jdbcTemplate.query(LINES_SQL.formatted(filter), lineMapper(), voucherIds.toArray());
+    }
+
+    private static RowMapper<CubeLine> lineMapper() {
+        return (rs, rowNum) -> new CubeLine(
+            rs.getLong("voucher_id"),
+            rs.getObject("issue_date", LocalDate.class),
+            rs.getBigDecimal("paid_amount"),
+            rs.getLong("class_id"),
+            rs.getString("class_name") != null ? rs.getString("class_name") + " - " + rs.getString("section") : null,
+            rs.getLong("fee_category_id"),
+            rs.getString("category_name"),
+            rs.getBigDecimal("original_amount"),
+            rs.getBigDecimal("discount_amount"),
+            rs.getBigDecimal("final_amount"));
+    }
+
+    public record CubeLine(long voucherId,
+                           LocalDate issueDate,
+                           BigDecimal paidAmount,
+                           long classId,
+                           String classLabel,
+                           long categoryId,
+                           String categoryName,
+                           BigDecimal originalAmount,
+                           BigDecimal discountAmount,
+                           BigDecimal finalAmount) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeeCollectionRollup;
+import com.saqib.school.fee.entity.FeePayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface FeeCollectionRollupRepository extends JpaRepository<FeeCollectionRollup, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.amount), 0) FROM FeeCollectionRollup r " +
+           "WHERE r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumAmountBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT EXTRACT(MONTH FROM r.rollupDate) AS month, SUM(r.amount) AS amount, " +
+           "SUM(r.paymentCount) AS payments FROM FeeCollectionRollup r " +
+           "WHERE r.rollupDate BETWEEN :startDate AND :endDate GROUP BY EXTRACT(MONTH FROM r.rollupDate)")
+    List<MonthlyCollectionView> sumByMonth(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.paymentMethod AS paymentMethod, SUM(r.amount) AS amount, SUM(r.paymentCount) AS payments " +
+           "FROM FeeCollectionRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate GROUP BY r.paymentMethod")
+    List<MethodCollectionView> sumByPaymentMethod(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+
+    interface MonthlyCollectionView {
+        Integer getMonth();
+        BigDecimal getAmount();
+        Long getPayments();
+    }
+
+    interface MethodCollectionView {
+        FeePayment.PaymentMethod getPaymentMethod();
+        BigDecimal getAmount();
+        Long getPayments();
+    }
+}
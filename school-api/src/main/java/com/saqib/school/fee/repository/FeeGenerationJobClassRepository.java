@@ -0,0 +1,26 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeeGenerationJobClass;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FeeGenerationJobClassRepository extends JpaRepository<FeeGenerationJobClass, Long> {
+
+    @Query("SELECT jc FROM FeeGenerationJobClass jc WHERE jc.job.id = :jobId ORDER BY jc.className")
+    List<FeeGenerationJobClass> findByJobId(@Param("jobId") Long jobId);
+
+    @Query("SELECT jc FROM FeeGenerationJobClass jc WHERE jc.job.id = :jobId " +
+           "AND jc.status IN ('PENDING', 'FAILED') ORDER BY jc.id")
+    List<FeeGenerationJobClass> findUnfinishedByJobId(@Param("jobId") Long jobId);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJobClass jc SET jc.status = 'PENDING', jc.errorMessage = null " +
+           "WHERE jc.job.id = :jobId AND jc.status = 'FAILED'")
+    int resetFailedClasses(@Param("jobId") Long jobId);
+}
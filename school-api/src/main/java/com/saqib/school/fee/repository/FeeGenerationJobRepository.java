@@ -0,0 +1,81 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeeGenerationJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FeeGenerationJobRepository extends JpaRepository<FeeGenerationJob, Long> {
+
+    @Query("SELECT j FROM FeeGenerationJob j WHERE j.monthYear = :monthYear")
+    Page<FeeGenerationJob> findByMonthYear(@Param("monthYear") String monthYear, Pageable pageable);
+
+    @Query("SELECT j.id FROM FeeGenerationJob j WHERE j.status IN :statuses ORDER BY j.id")
+    List<Long> findIdsByStatusIn(@Param("statuses") Collection<FeeGenerationJob.JobStatus> statuses);
+
+    @Query("SELECT COUNT(j) > 0 FROM FeeGenerationJob j WHERE j.monthYear = :monthYear AND j.status IN :statuses")
+    boolean existsByMonthYearAndStatusIn(@Param("monthYear") String monthYear,
+                                         @Param("statuses") Collection<FeeGenerationJob.JobStatus> statuses);
+
+    /**
+     * Takes the job for {@code owner} if it is waiting, failed, or running on a
+     * node whose heartbeat is older than {@code staleBefore}. Returns 0 when
+     * another node holds it or it is already completed.
+     */
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.status = 'RUNNING', j.owner = :owner, j.heartbeatAt = :now, " +
+           "j.failedClasses = 0, j.lastError = null, j.finishedAt = null " +
+           "WHERE j.id = :jobId AND (j.status IN ('QUEUED', 'FAILED') " +
+           "OR (j.status = 'RUNNING' AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)))")
+    int claim(@Param("jobId") Long jobId,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.heartbeatAt = :now " +
+           "WHERE j.id IN :jobIds AND j.owner = :owner AND j.status = 'RUNNING'")
+    void heartbeat(@Param("jobIds") Collection<Long> jobIds,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now);
+
+    // The updates below only apply while :owner still holds the job; 0 rows means its lease was taken over
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.startedAt = COALESCE(j.startedAt, :now) " +
+           "WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING'")
+    int markStarted(@Param("jobId") Long jobId, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.vouchersWritten = j.vouchersWritten + :vouchers " +
+           "WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING'")
+    int addVouchersWritten(@Param("jobId") Long jobId, @Param("owner") String owner, @Param("vouchers") int vouchers);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.completedClasses = j.completedClasses + 1 " +
+           "WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING'")
+    int incrementCompletedClasses(@Param("jobId") Long jobId, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.failedClasses = j.failedClasses + 1 " +
+           "WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING'")
+    int incrementFailedClasses(@Param("jobId") Long jobId, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE FeeGenerationJob j SET j.status = :status, j.finishedAt = :finishedAt, j.lastError = :lastError " +
+           "WHERE j.id = :jobId AND j.owner = :owner AND j.status = 'RUNNING'")
+    int markFinished(@Param("jobId") Long jobId,
+                     @Param("owner") String owner,
+                     @Param("status") FeeGenerationJob.JobStatus status,
+                     @Param("finishedAt") LocalDateTime finishedAt,
+                     @Param("lastError") String lastError);
+}
@@ -0,0 +1,38 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeeIssueRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface FeeIssueRollupRepository extends JpaRepository<FeeIssueRollup, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.voucherCount), 0) AS vouchers, COALESCE(SUM(r.issuedAmount), 0) AS issuedAmount, " +
+           "COALESCE(SUM(r.cancelledCount), 0) AS cancelledVouchers, " +
+           "COALESCE(SUM(r.cancelledAmount), 0) AS cancelledAmount " +
+           "FROM FeeIssueRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate")
+    IssueTotalsView sumBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT EXTRACT(MONTH FROM r.rollupDate) AS month, SUM(r.voucherCount) AS vouchers, " +
+           "SUM(r.issuedAmount) AS issuedAmount, SUM(r.cancelledCount) AS cancelledVouchers, " +
+           "SUM(r.cancelledAmount) AS cancelledAmount FROM FeeIssueRollup r " +
+           "WHERE r.rollupDate BETWEEN :startDate AND :endDate GROUP BY EXTRACT(MONTH FROM r.rollupDate)")
+    List<MonthlyIssueView> sumByMonth(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    interface IssueTotalsView {
+        Long getVouchers();
+        BigDecimal getIssuedAmount();
+        Long getCancelledVouchers();
+        BigDecimal getCancelledAmount();
+    }
+
+    interface MonthlyIssueView extends IssueTotalsView {
+        Integer getMonth();
+    }
+}
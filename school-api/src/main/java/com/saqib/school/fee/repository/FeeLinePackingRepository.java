@@ -0,0 +1,112 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access for copying voucher detail rows into the packed
+ * {@code fee_lines} column and for comparing the two layouts' sizes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeeLinePackingRepository {
+
+    private static final String UNPACKED_IDS_SQL =
+        "SELECT id FROM fee_vouchers WHERE fee_lines IS NULL AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String DETAIL_LINES_SQL =
+        "SELECT d.voucher_id, d.fee_category_id, fc.category_name, d.original_amount, " +
+        "COALESCE(d.discount_amount, 0) AS discount_amount, d.final_amount " +
+        "FROM fee_voucher_details d JOIN fee_categories fc ON fc.id = d.fee_category_id " +
+        "WHERE d.voucher_id IN (%s) ORDER BY d.voucher_id, d.id";
+
+    // Never overwrites lines written by a concurrent create
+    private static final String PACK_SQL =
+        "UPDATE fee_vouchers SET fee_lines = ? WHERE id = ? AND fee_lines IS NULL";
+
+    private static final String STORAGE_SQL =
+        "SELECT COUNT(*) FILTER (WHERE fee_lines IS NOT NULL) AS packed, " +
+        "COUNT(*) FILTER (WHERE fee_lines IS NULL) AS unpacked, " +
+        "COALESCE(SUM(pg_column_size(fee_lines)), 0) AS packed_bytes, " +
+        "(SELECT COUNT(*) FROM fee_voucher_details) AS detail_rows, " +
+        "pg_total_relation_size('fee_voucher_details') AS detail_bytes " +
+        "FROM fee_vouchers";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> findUnpackedVoucherIds(long afterId, int limit) {
+        return jdbcTemplate.queryForList(UNPACKED_IDS_SQL, Long.class, afterId, limit);
+    }
+
+    /**
+     * Detail rows of the given vouchers as fee lines, keyed by voucher id in
+     * id order. Vouchers without detail rows get an empty list.
+     */
+    public Map<Long, List<FeeLine>> findLines(List<Long> voucherIds) {
+        Map<Long, List<FeeLine>> linesByVoucher = new LinkedHashMap<>();
+        if (voucherIds.isEmpty()) {
+            return linesByVoucher;
+        }
+        voucherIds.forEach(id -> linesByVoucher.put(id, new ArrayList<>()));
+
+        jdbcTemplate.query(DETAIL_LINES_SQL.formatted(placeholders(voucherIds.size())), (RowCallbackHandler) rs -> {
+            linesByVoucher.get(rs.getLong("voucher_id")).add(new FeeLine(
+                rs.getLong("fee_category_id"),
+                rs.getString("category_name"),
+                Money.of(rs.getBigDecimal("original_amount")),
+                Money.of(rs.getBigDecimal("discount_amount")),
+                Money.of(rs.getBigDecimal("final_amount"))));
+        }, voucherIds.toArray());
+        return linesByVoucher;
+    }
+
+    /**
+     * Writes packed lines to vouchers that are still unpacked. Returns the
+     * number of vouchers updated.
+     */
+    public int packLines(Map<Long, String> packedByVoucher) {
+        if (packedByVoucher.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(packedByVoucher.size());
+        packedByVoucher.forEach((voucherId, packed) -> args.add(new Object[]{packed, voucherId}));
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(PACK_SQL, args)) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+            updated += count > 0 ? count : count == PreparedStatement.SUCCESS_NO_INFO ? 1 : 0;
+        }
+        return updated;
+    }
+
+    public StorageSizes storageSizes() {
+        return jdbcTemplate.queryForObject(STORAGE_SQL, (rs, rowNum) -> new StorageSizes(
+            rs.getLong("packed"),
+            rs.getLong("unpacked"),
+            rs.getLong("detail_rows"),
+            rs.getLong("detail_bytes"),
+            rs.getLong("packed_bytes")));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record StorageSizes(long packedVouchers,
+                               long unpackedVouchers,
+                               long detailRows,
+                               long detailTableBytes,
+                               long packedColumnBytes) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeePayment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC writer for bulk payment posting, used by statement imports and family
+ * payments. The voucher side is updated separately with
+ * {@link FeeVoucherRepository#applyPayment} or
+ * {@link FeeVoucherBatchRepository#applyPayments}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeePaymentBatchRepository {
+
+    private static final String INSERT_PAYMENT_SQL =
+        "INSERT INTO fee_payments (voucher_id, payment_method, amount, payment_date, reference_number, bank_name, " +
+        "notes, received_by, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Any fixed key works; only bank statement imports take this lock
+    private static final long BANK_IMPORT_LOCK_KEY = 0x62616E6B5F696D70L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes the transaction-scoped advisory lock that serialises bank
+     * statement batches, so a batch's reference-number check and its inserts
+     * cannot interleave with another import's. Released on commit or rollback.
+     */
+    public void lockBankImports() {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", (RowCallbackHandler) rs -> { }, BANK_IMPORT_LOCK_KEY);
+    }
+
+    /**
+     * Inserts the given payments in one batch. Must be called inside a transaction.
+     */
+    public void insertPayments(List<PaymentRow> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setLong(1, payment.voucherId());
+            ps.setString(2, payment.paymentMethod().name());
+            ps.setBigDecimal(3, payment.amount());
+            ps.setObject(4, payment.paymentDate());
+            ps.setString(5, payment.referenceNumber());
+            ps.setString(6, payment.bankName());
+            ps.setString(7, payment.notes());
+            ps.setLong(8, payment.receivedById());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    public record PaymentRow(Long voucherId,
+                             FeePayment.PaymentMethod paymentMethod,
+                             BigDecimal amount,
+                             LocalDate paymentDate,
+                             String referenceNumber,
+                             String bankName,
+                             String notes,
+                             Long receivedById) {
+    }
+}
@@ -1,16 +1,23 @@
 package com.saqib.school.fee.repository;
 
 import com.saqib.school.fee.entity.FeePayment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FeePaymentRepository extends JpaRepository<FeePayment, Long> {
@@ -18,20 +25,111 @@ public interface FeePaymentRepository extends JpaRepository<FeePayment, Long> {
     @Query("SELECT fp FROM FeePayment fp WHERE fp.voucher.id = :voucherId ORDER BY fp.paymentDate DESC")
     List<FeePayment> findByVoucherId(@Param("voucherId") Long voucherId);
 
-    @Query("SELECT fp FROM FeePayment fp WHERE fp.paymentDate BETWEEN :startDate AND :endDate")
-    Page<FeePayment> findByPaymentDateBetween(@Param("startDate") LocalDate startDate,
-                                             @Param("endDate") LocalDate endDate,
-                                             Pageable pageable);
+    String PAYMENT_LIST_SELECT =
+        "SELECT fp.id AS id, v.id AS voucherId, v.voucherNumber AS voucherNumber, " +
+        "CONCAT(s.firstName, ' ', s.lastName) AS studentName, s.registrationNumber AS studentRegistrationNumber, " +
+        "fp.paymentMethod AS paymentMethod, fp.amount AS amount, fp.paymentDate AS paymentDate, " +
+        "fp.referenceNumber AS referenceNumber, fp.bankName AS bankName, fp.notes AS notes, " +
+        "CONCAT(u.firstName, ' ', u.lastName) AS receivedByName, fp.createdAt AS createdAt " +
+        "FROM FeePayment fp JOIN fp.voucher v JOIN v.student s LEFT JOIN fp.receivedBy u ";
 
-    @Query("SELECT fp FROM FeePayment fp WHERE fp.paymentMethod = :method")
-    Page<FeePayment> findByPaymentMethod(@Param("method") FeePayment.PaymentMethod method, Pageable pageable);
+    @Query(value = PAYMENT_LIST_SELECT + "WHERE fp.paymentDate BETWEEN :startDate AND :endDate",
+           countQuery = "SELECT COUNT(fp) FROM FeePayment fp WHERE fp.paymentDate BETWEEN :startDate AND :endDate")
+    Page<PaymentListView> findByPaymentDateBetween(@Param("startDate") LocalDate startDate,
+                                                   @Param("endDate") LocalDate endDate,
+                                                   Pageable pageable);
+
+    @Query(value = PAYMENT_LIST_SELECT + "WHERE fp.paymentMethod = :method",
+           countQuery = "SELECT COUNT(fp) FROM FeePayment fp WHERE fp.paymentMethod = :method")
+    Page<PaymentListView> findByPaymentMethod(@Param("method") FeePayment.PaymentMethod method, Pageable pageable);
+
+    /**
+     * Keyset page ordered by payment date then id, newest first. Rows come
+     * after the ({@code afterDate}, {@code afterId}) seek key; null filters
+     * match all.
+     */
+    @Query(PAYMENT_LIST_SELECT +
+           "WHERE (:method IS NULL OR fp.paymentMethod = :method) AND (:userId IS NULL OR u.id = :userId) " +
+           "AND (:voucherId IS NULL OR v.id = :voucherId) " +
+           "AND fp.paymentDate <= :afterDate " +
+           "AND (fp.paymentDate < :afterDate OR (fp.paymentDate = :afterDate AND fp.id < :afterId)) " +
+           "ORDER BY fp.paymentDate DESC, fp.id DESC")
+    List<PaymentListView> seekList(@Param("method") FeePayment.PaymentMethod method,
+                                   @Param("userId") Long userId,
+                                   @Param("voucherId") Long voucherId,
+                                   @Param("afterDate") LocalDate afterDate,
+                                   @Param("afterId") Long afterId,
+                                   Limit limit);
+
+    @Query("SELECT COUNT(fp) FROM FeePayment fp " +
+           "WHERE (:method IS NULL OR fp.paymentMethod = :method) AND (:userId IS NULL OR fp.receivedBy.id = :userId) " +
+           "AND (:voucherId IS NULL OR fp.voucher.id = :voucherId)")
+    long countList(@Param("method") FeePayment.PaymentMethod method,
+                   @Param("userId") Long userId,
+                   @Param("voucherId") Long voucherId);
 
     @Query("SELECT SUM(fp.amount) FROM FeePayment fp WHERE fp.paymentDate BETWEEN :startDate AND :endDate")
     BigDecimal sumAmountBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT fp FROM FeePayment fp WHERE fp.receivedBy.id = :userId")
-    Page<FeePayment> findByReceivedBy(@Param("userId") Long userId, Pageable pageable);
+    @Query(value = PAYMENT_LIST_SELECT + "WHERE u.id = :userId",
+           countQuery = "SELECT COUNT(fp) FROM FeePayment fp WHERE fp.receivedBy.id = :userId")
+    Page<PaymentListView> findByReceivedBy(@Param("userId") Long userId, Pageable pageable);
 
     @Query("SELECT fp FROM FeePayment fp WHERE fp.referenceNumber = :referenceNumber")
     List<FeePayment> findByReferenceNumber(@Param("referenceNumber") String referenceNumber);
+
+    @Query("SELECT DISTINCT fp.referenceNumber FROM FeePayment fp WHERE fp.referenceNumber IN :referenceNumbers")
+    List<String> findExistingReferenceNumbers(@Param("referenceNumbers") Collection<String> referenceNumbers);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT fp.id AS id, v.id AS voucherId, v.voucherNumber AS voucherNumber, " +
+           "s.registrationNumber AS registrationNumber, CONCAT(s.firstName, ' ', s.lastName) AS studentName, " +
+           "fp.paymentMethod AS paymentMethod, fp.amount AS amount, fp.paymentDate AS paymentDate, " +
+           "fp.referenceNumber AS referenceNumber, fp.bankName AS bankName, u.username AS receivedBy " +
+           "FROM FeePayment fp JOIN fp.voucher v JOIN v.student s JOIN fp.receivedBy u " +
+           "WHERE (:startDate IS NULL OR fp.paymentDate >= :startDate) AND (:endDate IS NULL OR fp.paymentDate <= :endDate) " +
+           "AND (:method IS NULL OR fp.paymentMethod = :method) AND (:userId IS NULL OR u.id = :userId) " +
+           "AND (:voucherId IS NULL OR v.id = :voucherId) ORDER BY fp.id")
+    Stream<PaymentExportView> streamForExport(@Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate,
+                                              @Param("method") FeePayment.PaymentMethod method,
+                                              @Param("userId") Long userId,
+                                              @Param("voucherId") Long voucherId);
+
+    /**
+     * Flat payment row for list endpoints, with voucher, student and receiver
+     * names joined in.
+     */
+    interface PaymentListView {
+        Long getId();
+        Long getVoucherId();
+        String getVoucherNumber();
+        String getStudentName();
+        String getStudentRegistrationNumber();
+        FeePayment.PaymentMethod getPaymentMethod();
+        BigDecimal getAmount();
+        LocalDate getPaymentDate();
+        String getReferenceNumber();
+        String getBankName();
+        String getNotes();
+        String getReceivedByName();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface PaymentExportView {
+        Long getId();
+        Long getVoucherId();
+        String getVoucherNumber();
+        String getRegistrationNumber();
+        String getStudentName();
+        FeePayment.PaymentMethod getPaymentMethod();
+        BigDecimal getAmount();
+        LocalDate getPaymentDate();
+        String getReferenceNumber();
+        String getBankName();
+        String getReceivedBy();
+    }
 }
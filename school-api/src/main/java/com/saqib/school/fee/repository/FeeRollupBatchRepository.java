@@ -0,0 +1,155 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.event.FeePaymentsPostedEvent.PostedPayment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC upserts into the collection and issue rollup tables. Deltas are added
+ * with {@code INSERT ... ON CONFLICT DO UPDATE}, so concurrent writers to the
+ * same key serialize on that one row instead of losing increments.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeeRollupBatchRepository {
+
+    // The student's active class when the statement runs, or 0 when they have
+    // none. Vouchers do not record a class, so incremental deltas land in the
+    // class at write time while a rebuild files all history under today's.
+    private static final String CLASS_OF_VOUCHER =
+        "COALESCE((SELECT se.class_id FROM student_enrollments se " +
+        "WHERE se.student_id = fv.student_id AND se.status = 'ACTIVE' ORDER BY se.id DESC LIMIT 1), 0)";
+
+    private static final String UPSERT_COLLECTION_SQL =
+        "INSERT INTO fee_collection_rollups (rollup_date, payment_method, received_by, class_id, payment_count, " +
+        "amount, created_at, updated_at) " +
+        "SELECT ?, ?, ?, " + CLASS_OF_VOUCHER + ", 1, ?, ?, ? FROM fee_vouchers fv WHERE fv.id = ? " +
+        "ON CONFLICT (rollup_date, payment_method, received_by, class_id) DO UPDATE SET " +
+        "payment_count = fee_collection_rollups.payment_count + EXCLUDED.payment_count, " +
+        "amount = fee_collection_rollups.amount + EXCLUDED.amount, updated_at = EXCLUDED.updated_at";
+
+    private static final String ISSUE_CONFLICT_SQL =
+        " ON CONFLICT (rollup_date, class_id, voucher_type) DO UPDATE SET " +
+        "voucher_count = fee_issue_rollups.voucher_count + EXCLUDED.voucher_count, " +
+        "issued_amount = fee_issue_rollups.issued_amount + EXCLUDED.issued_amount, " +
+        "cancelled_count = fee_issue_rollups.cancelled_count + EXCLUDED.cancelled_count, " +
+        "cancelled_amount = fee_issue_rollups.cancelled_amount + EXCLUDED.cancelled_amount, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    private static final String INSERT_ISSUE_SQL =
+        "INSERT INTO fee_issue_rollups (rollup_date, class_id, voucher_type, voucher_count, issued_amount, " +
+        "cancelled_count, cancelled_amount, created_at, updated_at) ";
+
+    private static final String REBUILD_COLLECTIONS_SQL =
+        "INSERT INTO fee_collection_rollups (rollup_date, payment_method, received_by, class_id, payment_count, " +
+        "amount, created_at, updated_at) " +
+        "SELECT p.payment_date, p.payment_method, p.received_by, p.class_id, COUNT(*), SUM(p.amount), ?, ? FROM (" +
+        "SELECT fp.payment_date, fp.payment_method, fp.received_by, fp.amount, " + CLASS_OF_VOUCHER + " AS class_id " +
+        "FROM fee_payments fp JOIN fee_vouchers fv ON fv.id = fp.voucher_id " +
+        "WHERE fp.payment_date BETWEEN ? AND ?) p " +
+        "GROUP BY p.payment_date, p.payment_method, p.received_by, p.class_id";
+
+    private static final String REBUILD_ISSUES_SQL =
+        INSERT_ISSUE_SQL +
+        "SELECT v.issue_date, v.class_id, v.voucher_type, COUNT(*), SUM(v.total_amount), " +
+        "COUNT(*) FILTER (WHERE v.status = 'CANCELLED'), " +
+        "COALESCE(SUM(v.total_amount) FILTER (WHERE v.status = 'CANCELLED'), 0), ?, ? FROM (" +
+        "SELECT fv.issue_date, fv.voucher_type, fv.total_amount, fv.status, " + CLASS_OF_VOUCHER + " AS class_id " +
+        "FROM fee_vouchers fv WHERE fv.issue_date BETWEEN ? AND ?) v " +
+        "GROUP BY v.issue_date, v.class_id, v.voucher_type";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the given payments to the collection rollup. Must run in the
+     * transaction that posted them.
+     */
+    public void addPayments(List<PostedPayment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_COLLECTION_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setObject(1, payment.paymentDate());
+            ps.setString(2, payment.paymentMethod().name());
+            ps.setLong(3, payment.receivedById());
+            ps.setBigDecimal(4, payment.amount());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+            ps.setLong(7, payment.voucherId());
+        });
+    }
+
+    /**
+     * Adds the given vouchers to the issue rollup, one grouped upsert per call.
+     */
+    public void addIssued(Collection<Long> voucherIds) {
+        upsertIssue(voucherIds, "COUNT(*), SUM(v.total_amount), 0, 0");
+    }
+
+    /**
+     * Records the given vouchers as cancelled against their issue date.
+     */
+    public void addCancelled(Collection<Long> voucherIds) {
+        upsertIssue(voucherIds, "0, 0, COUNT(*), SUM(v.total_amount)");
+    }
+
+    /**
+     * Blocks rollup writers until the calling transaction ends, so a rebuild
+     * cannot interleave with incremental updates.
+     */
+    public void lockRollups() {
+        jdbcTemplate.execute("LOCK TABLE fee_collection_rollups, fee_issue_rollups IN SHARE ROW EXCLUSIVE MODE");
+    }
+
+    /**
+     * Recomputes the collection rollup for the range. Payments are grouped
+     * by the student's current class, not the class they were in when paid.
+     */
+    public int rebuildCollections(LocalDate startDate, LocalDate endDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM fee_collection_rollups WHERE rollup_date BETWEEN ? AND ?", startDate, endDate);
+        return jdbcTemplate.update(REBUILD_COLLECTIONS_SQL, now, now, startDate, endDate);
+    }
+
+    /**
+     * Recomputes the issue rollup for the range, grouped by the student's
+     * current class like {@link #rebuildCollections}.
+     */
+    public int rebuildIssues(LocalDate startDate, LocalDate endDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM fee_issue_rollups WHERE rollup_date BETWEEN ? AND ?", startDate, endDate);
+        return jdbcTemplate.update(REBUILD_ISSUES_SQL, now, now, startDate, endDate);
+    }
+
+    private void upsertIssue(Collection<Long> voucherIds, String aggregates) {
+        if (voucherIds.isEmpty()) {
+            return;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(voucherIds.size(), "?"));
+        String sql = INSERT_ISSUE_SQL +
+            "SELECT v.issue_date, v.class_id, v.voucher_type, " + aggregates + ", ?, ? FROM (" +
+            "SELECT fv.issue_date, fv.voucher_type, fv.total_amount, " + CLASS_OF_VOUCHER + " AS class_id " +
+            "FROM fee_vouchers fv WHERE fv.id IN (" + placeholders + ")) v " +
+            "GROUP BY v.issue_date, v.class_id, v.voucher_type" +
+            ISSUE_CONFLICT_SQL;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> args = new ArrayList<>(voucherIds.size() + 2);
+        args.add(now);
+        args.add(now);
+        args.addAll(voucherIds);
+        jdbcTemplate.update(sql, args.toArray());
+    }
+}
@@ -4,6 +4,7 @@ import com.saqib.school.fee.entity.FeeStructure;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -32,4 +33,18 @@ public interface FeeStructureRepository extends JpaRepository<FeeStructure, Long
     @Query("SELECT fs FROM FeeStructure fs JOIN FETCH fs.schoolClass JOIN FETCH fs.feeCategory " +
            "WHERE fs.isActive = true ORDER BY fs.schoolClass.className, fs.feeCategory.categoryName")
     List<FeeStructure> findAllActiveWithDetails();
+
+    /**
+     * Bumps the shared pricing version in the calling transaction, so every
+     * node sees the change together with the fee structures it describes.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO number_sequences (sequence_key, last_value, updated_at) " +
+                   "VALUES ('fee_pricing_version', 1, now()) ON CONFLICT (sequence_key) DO UPDATE SET " +
+                   "last_value = number_sequences.last_value + 1, updated_at = now()", nativeQuery = true)
+    void bumpPricingVersion();
+
+    @Query(value = "SELECT COALESCE((SELECT last_value FROM number_sequences " +
+                   "WHERE sequence_key = 'fee_pricing_version'), 0)", nativeQuery = true)
+    long findPricingVersion();
 }
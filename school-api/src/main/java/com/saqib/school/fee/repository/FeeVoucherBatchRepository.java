@@ -0,0 +1,238 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeLine;
+import com.saqib.school.fee.entity.FeeLinesConverter;
+import com.saqib.school.fee.entity.FeeVoucher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC writer for bulk voucher creation. Vouchers and their details are sent as
+ * batched inserts, bypassing the persistence context, so large generation runs
+ * don't pay for per-entity flushes and IDENTITY round trips.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeeVoucherBatchRepository {
+
+    // Conflicts on uk_fee_vouchers_student_month (schema.sql): one live monthly voucher per student and
+    // month. No conflict target, so the insert still works where old duplicates keep the index from existing
+    private static final String INSERT_VOUCHER_SQL =
+        "INSERT INTO fee_vouchers (voucher_number, student_id, voucher_type, month_year, issue_date, due_date, " +
+        "total_amount, paid_amount, fine_amount, status, created_by, fee_lines, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, 0, 0, 'PENDING', ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String DUPLICATE_MONTHLY_SQL =
+        "SELECT student_id, month_year, string_agg(voucher_number, ', ' ORDER BY id) AS voucher_numbers " +
+        "FROM fee_vouchers WHERE voucher_type = 'MONTHLY' AND status <> 'CANCELLED' " +
+        "GROUP BY student_id, month_year HAVING COUNT(*) > 1 ORDER BY month_year, student_id";
+
+    private static final String INSERT_DETAIL_SQL =
+        "INSERT INTO fee_voucher_details (voucher_id, fee_category_id, original_amount, discount_amount, " +
+        "final_amount, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_FINE_SQL =
+        "UPDATE fee_vouchers SET fine_amount = GREATEST(COALESCE(fine_amount, 0), ?), " +
+        "status = CASE WHEN status = 'PENDING' AND due_date < ? THEN 'OVERDUE' ELSE status END, updated_at = ? " +
+        "WHERE id = ? AND status IN ('PENDING', 'OVERDUE') AND fine_waived_at IS NULL";
+
+    // Same guard as FeeVoucherRepository#applyPayment: never overpays or touches a closed voucher
+    private static final String APPLY_PAYMENT_SQL =
+        "UPDATE fee_vouchers SET paid_amount = COALESCE(paid_amount, 0) + ?, " +
+        "status = CASE WHEN COALESCE(paid_amount, 0) + ? >= total_amount + COALESCE(fine_amount, 0) " +
+        "THEN 'PAID' ELSE status END, " +
+        "payment_date = CASE WHEN COALESCE(paid_amount, 0) + ? >= total_amount + COALESCE(fine_amount, 0) " +
+        "THEN ? ELSE payment_date END, updated_at = ? " +
+        "WHERE id = ? AND status IN ('PENDING', 'OVERDUE') " +
+        "AND COALESCE(paid_amount, 0) + ? <= total_amount + COALESCE(fine_amount, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given vouchers and their details in two batches. Must be called
+     * inside a transaction; returns the vouchers actually inserted, with their
+     * generated ids, in input order. A monthly voucher for a student who already
+     * holds a live one for the month is skipped, together with its details.
+     * Vouchers with fee lines also get them packed onto their own row.
+     */
+    public List<InsertedVoucher> insertVouchersWithDetails(List<VoucherRow> vouchers) {
+        if (vouchers.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_VOUCHER_SQL, new String[]{"id", "voucher_number"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    VoucherRow voucher = vouchers.get(i);
+                    ps.setString(1, voucher.voucherNumber());
+                    ps.setLong(2, voucher.studentId());
+                    ps.setString(3, voucher.voucherType().name());
+                    ps.setString(4, voucher.monthYear());
+                    ps.setObject(5, voucher.issueDate());
+                    ps.setObject(6, voucher.dueDate());
+                    ps.setBigDecimal(7, voucher.totalAmount().toBigDecimal());
+                    ps.setLong(8, voucher.createdById());
+                    ps.setString(9, FeeLinesConverter.pack(voucher.feeLines()));
+                    ps.setTimestamp(10, now);
+                    ps.setTimestamp(11, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return vouchers.size();
+                }
+            },
+            keyHolder);
+
+        // Skipped rows return no keys, so match the returned ones back by voucher number
+        Map<String, Long> idsByNumber = new HashMap<>();
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            idsByNumber.put((String) keys.get("voucher_number"), ((Number) keys.get("id")).longValue());
+        }
+
+        List<InsertedVoucher> inserted = new ArrayList<>(idsByNumber.size());
+        List<Object[]> detailArgs = new ArrayList<>();
+        for (VoucherRow voucher : vouchers) {
+            Long voucherId = idsByNumber.get(voucher.voucherNumber());
+            if (voucherId == null) {
+                continue;
+            }
+            inserted.add(new InsertedVoucher(voucherId, voucher));
+            for (DetailRow detail : voucher.details()) {
+                detailArgs.add(new Object[]{
+                    voucherId, detail.feeCategoryId(), detail.originalAmount().toBigDecimal(),
+                    detail.discountAmount().toBigDecimal(), detail.finalAmount().toBigDecimal(), now, now
+                });
+            }
+        }
+        if (!detailArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DETAIL_SQL, detailArgs);
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Writes the given fines in one batch, never lowering a fine already on
+     * the voucher, and moves pending vouchers due before
+     * {@code calculationDate} to overdue. Vouchers paid or cancelled in the
+     * meantime are left alone. Returns the number of rows changed.
+     */
+    public int updateFines(List<FineUpdate> updates, LocalDate calculationDate) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_FINE_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setBigDecimal(1, update.fineAmount());
+            ps.setObject(2, calculationDate);
+            ps.setTimestamp(3, now);
+            ps.setLong(4, update.voucherId());
+        });
+
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                updated += count > 0 ? count : count == PreparedStatement.SUCCESS_NO_INFO ? 1 : 0;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Adds the given amounts to the vouchers' paid amounts in one batch,
+     * marking vouchers paid once covered. Returns the number of vouchers
+     * updated; a posting that would overpay or hits a closed voucher is skipped.
+     */
+    public int applyPayments(List<VoucherPosting> postings, LocalDate today) {
+        if (postings.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(APPLY_PAYMENT_SQL, postings, postings.size(), (ps, posting) -> {
+            ps.setBigDecimal(1, posting.amount());
+            ps.setBigDecimal(2, posting.amount());
+            ps.setBigDecimal(3, posting.amount());
+            ps.setObject(4, today);
+            ps.setTimestamp(5, now);
+            ps.setLong(6, posting.voucherId());
+            ps.setBigDecimal(7, posting.amount());
+        });
+
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += count > 0 ? count : count == PreparedStatement.SUCCESS_NO_INFO ? 1 : 0;
+            }
+        }
+        return updated;
+    }
+
+    public boolean hasMonthlyVoucherIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT to_regclass('uk_fee_vouchers_student_month') IS NOT NULL", Boolean.class));
+    }
+
+    /**
+     * Students holding more than one live monthly voucher for a month, which
+     * keeps schema.sql from creating uk_fee_vouchers_student_month.
+     */
+    public List<DuplicateMonthlyVouchers> findDuplicateMonthlyVouchers() {
+        return jdbcTemplate.query(DUPLICATE_MONTHLY_SQL, (rs, rowNum) -> new DuplicateMonthlyVouchers(
+            rs.getLong("student_id"), rs.getString("month_year"), rs.getString("voucher_numbers")));
+    }
+
+    public record VoucherRow(String voucherNumber,
+                             Long studentId,
+                             FeeVoucher.VoucherType voucherType,
+                             String monthYear,
+                             LocalDate issueDate,
+                             LocalDate dueDate,
+                             Money totalAmount,
+                             Long createdById,
+                             List<DetailRow> details,
+                             List<FeeLine> feeLines) {
+    }
+
+    public record InsertedVoucher(Long id, VoucherRow voucher) {
+    }
+
+    public record DetailRow(Long feeCategoryId,
+                            Money originalAmount,
+                            Money discountAmount,
+                            Money finalAmount) {
+    }
+
+    public record DuplicateMonthlyVouchers(Long studentId, String monthYear, String voucherNumbers) {
+    }
+
+    public record FineUpdate(Long voucherId, BigDecimal fineAmount) {
+    }
+
+    public record VoucherPosting(Long voucherId, BigDecimal amount) {
+    }
+}
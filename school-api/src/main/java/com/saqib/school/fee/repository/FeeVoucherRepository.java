@@ -1,17 +1,27 @@
 package com.saqib.school.fee.repository;
 
+import com.saqib.school.fee.entity.FeeLine;
+import com.saqib.school.fee.entity.FeePayment;
 import com.saqib.school.fee.entity.FeeVoucher;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FeeVoucherRepository extends JpaRepository<FeeVoucher, Long> {
@@ -20,25 +30,190 @@ public interface FeeVoucherRepository extends JpaRepository<FeeVoucher, Long> {
 
     boolean existsByVoucherNumber(String voucherNumber);
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.student.id = :studentId ORDER BY fv.issueDate DESC")
-    Page<FeeVoucher> findByStudentId(@Param("studentId") Long studentId, Pageable pageable);
+    @Query(value = "SELECT MAX(CAST(SUBSTRING(voucher_number FROM :suffixStart) AS BIGINT)) " +
+                   "FROM fee_vouchers WHERE voucher_number LIKE :pattern", nativeQuery = true)
+    Long findHighestVoucherSequence(@Param("pattern") String pattern, @Param("suffixStart") int suffixStart);
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.status = :status")
-    Page<FeeVoucher> findByStatus(@Param("status") FeeVoucher.VoucherStatus status, Pageable pageable);
+    String VOUCHER_LIST_SELECT =
+        "SELECT fv.id AS id, fv.voucherNumber AS voucherNumber, s.id AS studentId, " +
+        "CONCAT(s.firstName, ' ', s.lastName) AS studentName, s.registrationNumber AS studentRegistrationNumber, " +
+        "fv.voucherType AS voucherType, fv.monthYear AS monthYear, fv.issueDate AS issueDate, fv.dueDate AS dueDate, " +
+        "fv.totalAmount AS totalAmount, fv.paidAmount AS paidAmount, fv.fineAmount AS fineAmount, " +
+        "fv.status AS status, fv.paymentDate AS paymentDate, fv.notes AS notes, " +
+        "CONCAT(u.firstName, ' ', u.lastName) AS createdByName, fv.createdAt AS createdAt, fv.updatedAt AS updatedAt " +
+        "FROM FeeVoucher fv JOIN fv.student s LEFT JOIN fv.createdBy u ";
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.voucherType = :type")
-    Page<FeeVoucher> findByVoucherType(@Param("type") FeeVoucher.VoucherType type, Pageable pageable);
+    @Query(value = VOUCHER_LIST_SELECT + "WHERE s.id = :studentId ORDER BY fv.issueDate DESC",
+           countQuery = "SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.student.id = :studentId")
+    Page<VoucherListView> findByStudentId(@Param("studentId") Long studentId, Pageable pageable);
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.dueDate < :date AND fv.status = 'PENDING'")
-    List<FeeVoucher> findOverdueVouchers(@Param("date") LocalDate date);
+    @Query(value = VOUCHER_LIST_SELECT + "WHERE fv.status = :status",
+           countQuery = "SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.status = :status")
+    Page<VoucherListView> findByStatus(@Param("status") FeeVoucher.VoucherStatus status, Pageable pageable);
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.monthYear = :monthYear")
-    Page<FeeVoucher> findByMonthYear(@Param("monthYear") String monthYear, Pageable pageable);
+    @Query(value = VOUCHER_LIST_SELECT + "WHERE fv.voucherType = :type",
+           countQuery = "SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.voucherType = :type")
+    Page<VoucherListView> findByVoucherType(@Param("type") FeeVoucher.VoucherType type, Pageable pageable);
 
-    @Query("SELECT fv FROM FeeVoucher fv WHERE fv.issueDate BETWEEN :startDate AND :endDate")
-    Page<FeeVoucher> findByIssueDateBetween(@Param("startDate") LocalDate startDate,
-                                           @Param("endDate") LocalDate endDate,
-                                           Pageable pageable);
+    @Query(value = VOUCHER_LIST_SELECT + "WHERE fv.monthYear = :monthYear",
+           countQuery = "SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.monthYear = :monthYear")
+    Page<VoucherListView> findByMonthYear(@Param("monthYear") String monthYear, Pageable pageable);
+
+    @Query(value = VOUCHER_LIST_SELECT + "WHERE fv.issueDate BETWEEN :startDate AND :endDate",
+           countQuery = "SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.issueDate BETWEEN :startDate AND :endDate")
+    Page<VoucherListView> findByIssueDateBetween(@Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate,
+                                                 Pageable pageable);
+
+    /**
+     * Keyset page ordered by issue date then id, newest first. Rows come after
+     * the ({@code afterDate}, {@code afterId}) seek key; null filters match all.
+     */
+    @Query(VOUCHER_LIST_SELECT +
+           "WHERE (:studentId IS NULL OR s.id = :studentId) AND (:status IS NULL OR fv.status = :status) " +
+           "AND (:voucherType IS NULL OR fv.voucherType = :voucherType) " +
+           "AND (:monthYear IS NULL OR fv.monthYear = :monthYear) " +
+           "AND fv.issueDate <= :afterDate " +
+           "AND (fv.issueDate < :afterDate OR (fv.issueDate = :afterDate AND fv.id < :afterId)) " +
+           "ORDER BY fv.issueDate DESC, fv.id DESC")
+    List<VoucherListView> seekList(@Param("studentId") Long studentId,
+                                   @Param("status") FeeVoucher.VoucherStatus status,
+                                   @Param("voucherType") FeeVoucher.VoucherType voucherType,
+                                   @Param("monthYear") String monthYear,
+                                   @Param("afterDate") LocalDate afterDate,
+                                   @Param("afterId") Long afterId,
+                                   Limit limit);
+
+    @Query("SELECT COUNT(fv) FROM FeeVoucher fv " +
+           "WHERE (:studentId IS NULL OR fv.student.id = :studentId) AND (:status IS NULL OR fv.status = :status) " +
+           "AND (:voucherType IS NULL OR fv.voucherType = :voucherType) " +
+           "AND (:monthYear IS NULL OR fv.monthYear = :monthYear)")
+    long countList(@Param("studentId") Long studentId,
+                   @Param("status") FeeVoucher.VoucherStatus status,
+                   @Param("voucherType") FeeVoucher.VoucherType voucherType,
+                   @Param("monthYear") String monthYear);
+
+    @Query("SELECT d.voucher.id AS voucherId, d.id AS id, fc.categoryName AS feeCategoryName, " +
+           "d.originalAmount AS originalAmount, d.discountAmount AS discountAmount, d.finalAmount AS finalAmount " +
+           "FROM FeeVoucherDetail d JOIN d.feeCategory fc WHERE d.voucher.id IN :voucherIds ORDER BY d.id")
+    List<VoucherDetailLineView> findDetailLinesByVoucherIds(@Param("voucherIds") Collection<Long> voucherIds);
+
+    @Query("SELECT fv.id AS voucherId, fv.feeLines AS feeLines FROM FeeVoucher fv " +
+           "WHERE fv.id IN :voucherIds AND fv.feeLines IS NOT NULL")
+    List<PackedFeeLinesView> findPackedFeeLinesByVoucherIds(@Param("voucherIds") Collection<Long> voucherIds);
+
+    @Query("SELECT fp.voucher.id AS voucherId, fp.id AS id, fp.amount AS amount, fp.paymentDate AS paymentDate, " +
+           "fp.paymentMethod AS paymentMethod, fp.referenceNumber AS referenceNumber, " +
+           "CONCAT(u.firstName, ' ', u.lastName) AS receivedByName " +
+           "FROM FeePayment fp LEFT JOIN fp.receivedBy u WHERE fp.voucher.id IN :voucherIds " +
+           "ORDER BY fp.paymentDate DESC, fp.id DESC")
+    List<VoucherPaymentLineView> findPaymentLinesByVoucherIds(@Param("voucherIds") Collection<Long> voucherIds);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT fv.id AS id, fv.voucherNumber AS voucherNumber, s.id AS studentId, " +
+           "s.registrationNumber AS registrationNumber, CONCAT(s.firstName, ' ', s.lastName) AS studentName, " +
+           "fv.voucherType AS voucherType, fv.monthYear AS monthYear, fv.issueDate AS issueDate, " +
+           "fv.dueDate AS dueDate, fv.totalAmount AS totalAmount, fv.fineAmount AS fineAmount, " +
+           "fv.paidAmount AS paidAmount, fv.status AS status, fv.paymentDate AS paymentDate " +
+           "FROM FeeVoucher fv JOIN fv.student s " +
+           "WHERE (:studentId IS NULL OR s.id = :studentId) AND (:status IS NULL OR fv.status = :status) " +
+           "AND (:voucherType IS NULL OR fv.voucherType = :voucherType) " +
+           "AND (:monthYear IS NULL OR fv.monthYear = :monthYear) " +
+           "AND (:startDate IS NULL OR fv.issueDate >= :startDate) AND (:endDate IS NULL OR fv.issueDate <= :endDate) " +
+           "ORDER BY fv.id")
+    Stream<VoucherExportView> streamForExport(@Param("studentId") Long studentId,
+                                              @Param("status") FeeVoucher.VoucherStatus status,
+                                              @Param("voucherType") FeeVoucher.VoucherType voucherType,
+                                              @Param("monthYear") String monthYear,
+                                              @Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT fv.student.id FROM FeeVoucher fv WHERE fv.student.id IN :studentIds AND fv.monthYear = :monthYear " +
+           "AND fv.voucherType = 'MONTHLY' AND fv.status <> 'CANCELLED'")
+    List<Long> findStudentIdsWithMonthlyVoucher(@Param("studentIds") Collection<Long> studentIds,
+                                                @Param("monthYear") String monthYear);
+
+    @Query("SELECT fv.id AS id, fv.status AS status, fv.dueDate AS dueDate, fv.totalAmount AS totalAmount, " +
+           "fv.fineAmount AS fineAmount, se.schoolClass.id AS classId " +
+           "FROM FeeVoucher fv LEFT JOIN StudentEnrollment se ON se.student = fv.student AND se.status = 'ACTIVE' " +
+           "WHERE fv.id IN :voucherIds AND fv.fineWaivedAt IS NULL")
+    List<FineCandidateView> findFineCandidates(@Param("voucherIds") Collection<Long> voucherIds);
+
+    @Query("SELECT fv.id FROM FeeVoucher fv JOIN StudentEnrollment se ON se.student = fv.student AND se.status = 'ACTIVE' " +
+           "WHERE se.schoolClass.id = :classId AND fv.status IN ('PENDING', 'OVERDUE') AND fv.fineWaivedAt IS NULL " +
+           "AND fv.dueDate > :dueAfter AND fv.dueDate <= :dueOnOrBefore")
+    List<Long> findUnpaidIdsByClassAndDueDateWindow(@Param("classId") Long classId,
+                                                    @Param("dueAfter") LocalDate dueAfter,
+                                                    @Param("dueOnOrBefore") LocalDate dueOnOrBefore);
+
+    /**
+     * Posts a payment in one statement: increments paid_amount only while the
+     * balance covers it and flips the voucher to PAID once settled. Returns 0
+     * when the voucher is not payable or the amount exceeds the balance.
+     * Clears the persistence context afterwards, so vouchers loaded earlier
+     * in the transaction are re-read with the posted amount.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE fee_vouchers SET paid_amount = COALESCE(paid_amount, 0) + :amount, " +
+                   "status = CASE WHEN COALESCE(paid_amount, 0) + :amount >= total_amount + COALESCE(fine_amount, 0) " +
+                   "THEN 'PAID' ELSE status END, " +
+                   "payment_date = CASE WHEN COALESCE(paid_amount, 0) + :amount >= total_amount + COALESCE(fine_amount, 0) " +
+                   "THEN :today ELSE payment_date END, " +
+                   "updated_at = :now " +
+                   "WHERE id = :voucherId AND status IN ('PENDING', 'OVERDUE') " +
+                   "AND COALESCE(paid_amount, 0) + :amount <= total_amount + COALESCE(fine_amount, 0)",
+           nativeQuery = true)
+    int applyPayment(@Param("voucherId") Long voucherId,
+                     @Param("amount") BigDecimal amount,
+                     @Param("today") LocalDate today,
+                     @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT status AS status, " +
+                   "total_amount + COALESCE(fine_amount, 0) - COALESCE(paid_amount, 0) AS remainingAmount " +
+                   "FROM fee_vouchers WHERE id = :voucherId", nativeQuery = true)
+    Optional<VoucherBalanceView> findBalanceById(@Param("voucherId") Long voucherId);
+
+    /**
+     * Locks the students' payable vouchers until commit. Rows are locked in id
+     * order, so concurrent postings over overlapping vouchers cannot deadlock.
+     */
+    @Query(value = "SELECT id AS id, voucher_number AS voucherNumber, student_id AS studentId, " +
+                   "issue_date AS issueDate, due_date AS dueDate, " +
+                   "total_amount + COALESCE(fine_amount, 0) - COALESCE(paid_amount, 0) AS remainingAmount " +
+                   "FROM fee_vouchers WHERE student_id IN (:studentIds) AND status IN ('PENDING', 'OVERDUE') " +
+                   "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<PayableVoucherView> lockPayableVouchersByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Locks the vouchers with the given numbers until commit, in id order, so
+     * the balances read here stay valid while a statement batch is posted.
+     */
+    @Query(value = "SELECT id AS id, voucher_number AS voucherNumber, status AS status, " +
+                   "total_amount + COALESCE(fine_amount, 0) - COALESCE(paid_amount, 0) AS remainingAmount " +
+                   "FROM fee_vouchers WHERE voucher_number IN (:voucherNumbers) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<PaymentTargetView> lockPaymentTargetsByVoucherNumbers(@Param("voucherNumbers") Collection<String> voucherNumbers);
+
+    @Query("SELECT EXTRACT(YEAR FROM fv.issueDate) AS year, EXTRACT(MONTH FROM fv.issueDate) AS month, " +
+           "fv.status AS status, fv.voucherType AS voucherType, COUNT(fv) AS vouchers, " +
+           "SUM(fv.totalAmount) AS totalAmount, SUM(COALESCE(fv.paidAmount, 0)) AS paidAmount, " +
+           "SUM(COALESCE(fv.fineAmount, 0)) AS fineAmount " +
+           "FROM FeeVoucher fv WHERE fv.issueDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY EXTRACT(YEAR FROM fv.issueDate), EXTRACT(MONTH FROM fv.issueDate), fv.status, fv.voucherType")
+    List<VoucherAggregateView> aggregateByMonthStatusAndType(@Param("startDate") LocalDate startDate,
+                                                              @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT COUNT(DISTINCT fv.student.id) AS defaulters, " +
+           "COALESCE(SUM(fv.totalAmount + COALESCE(fv.fineAmount, 0) - COALESCE(fv.paidAmount, 0)), 0) AS outstanding, " +
+           "COALESCE(SUM(fv.fineAmount), 0) AS fines " +
+           "FROM FeeVoucher fv WHERE fv.dueDate < :date AND fv.status IN ('PENDING', 'OVERDUE')")
+    DefaulterTotalsView sumDefaulterTotals(@Param("date") LocalDate date);
+
+    @Query("SELECT fv.id FROM FeeVoucher fv WHERE fv.monthYear = :monthYear AND fv.status = 'PENDING'")
+    List<Long> findPendingIdsByMonthYear(@Param("monthYear") String monthYear);
 
     @Query("SELECT COUNT(fv) FROM FeeVoucher fv WHERE fv.status = 'PENDING'")
     long countPendingVouchers();
@@ -47,7 +222,120 @@ public interface FeeVoucherRepository extends JpaRepository<FeeVoucher, Long> {
     BigDecimal sumAmountBetweenDatesByStatus(@Param("startDate") LocalDate startDate,
                                              @Param("endDate") LocalDate endDate, @Param("status") FeeVoucher.VoucherStatus status);
 
-    @Query("SELECT SUM(fv.totalAmount) FROM FeeVoucher fv WHERE fv.status <> 'CANCELLED' AND fv.paymentDate BETWEEN :startDate AND :endDate")
-    BigDecimal sumIssuedAmountBetweenDates(@Param("startDate") LocalDate startDate,
-                                             @Param("endDate") LocalDate endDate);
+    /**
+     * Flat voucher row for list endpoints; student and creator names come
+     * from the same query, so listing touches no lazy associations.
+     */
+    interface VoucherListView {
+        Long getId();
+        String getVoucherNumber();
+        Long getStudentId();
+        String getStudentName();
+        String getStudentRegistrationNumber();
+        FeeVoucher.VoucherType getVoucherType();
+        String getMonthYear();
+        LocalDate getIssueDate();
+        LocalDate getDueDate();
+        BigDecimal getTotalAmount();
+        BigDecimal getPaidAmount();
+        BigDecimal getFineAmount();
+        FeeVoucher.VoucherStatus getStatus();
+        LocalDate getPaymentDate();
+        String getNotes();
+        String getCreatedByName();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+
+        default BigDecimal getRemainingAmount() {
+            return getTotalAmount().add(getFineAmount()).subtract(getPaidAmount());
+        }
+    }
+
+    interface VoucherDetailLineView {
+        Long getVoucherId();
+        Long getId();
+        String getFeeCategoryName();
+        BigDecimal getOriginalAmount();
+        BigDecimal getDiscountAmount();
+        BigDecimal getFinalAmount();
+    }
+
+    interface PackedFeeLinesView {
+        Long getVoucherId();
+        List<FeeLine> getFeeLines();
+    }
+
+    interface VoucherPaymentLineView {
+        Long getVoucherId();
+        Long getId();
+        BigDecimal getAmount();
+        LocalDate getPaymentDate();
+        FeePayment.PaymentMethod getPaymentMethod();
+        String getReferenceNumber();
+        String getReceivedByName();
+    }
+
+    interface FineCandidateView {
+        Long getId();
+        FeeVoucher.VoucherStatus getStatus();
+        LocalDate getDueDate();
+        BigDecimal getTotalAmount();
+        BigDecimal getFineAmount();
+        Long getClassId();
+    }
+
+    interface PaymentTargetView {
+        Long getId();
+        String getVoucherNumber();
+        String getStatus();
+        BigDecimal getRemainingAmount();
+    }
+
+    interface PayableVoucherView {
+        Long getId();
+        String getVoucherNumber();
+        Long getStudentId();
+        LocalDate getIssueDate();
+        LocalDate getDueDate();
+        BigDecimal getRemainingAmount();
+    }
+
+    interface VoucherExportView {
+        Long getId();
+        String getVoucherNumber();
+        Long getStudentId();
+        String getRegistrationNumber();
+        String getStudentName();
+        FeeVoucher.VoucherType getVoucherType();
+        String getMonthYear();
+        LocalDate getIssueDate();
+        LocalDate getDueDate();
+        BigDecimal getTotalAmount();
+        BigDecimal getFineAmount();
+        BigDecimal getPaidAmount();
+        FeeVoucher.VoucherStatus getStatus();
+        LocalDate getPaymentDate();
+    }
+
+    interface VoucherAggregateView {
+        Integer getYear();
+        Integer getMonth();
+        FeeVoucher.VoucherStatus getStatus();
+        FeeVoucher.VoucherType getVoucherType();
+        Long getVouchers();
+        BigDecimal getTotalAmount();
+        BigDecimal getPaidAmount();
+        BigDecimal getFineAmount();
+    }
+
+    interface DefaulterTotalsView {
+        Long getDefaulters();
+        BigDecimal getOutstanding();
+        BigDecimal getFines();
+    }
+
+    interface VoucherBalanceView {
+        String getStatus();
+        BigDecimal getRemainingAmount();
+    }
 }
@@ -0,0 +1,95 @@
+package com.saqib.school.fee.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cluster-wide claim on a fine accrual run, backed by a session-level
+ * advisory lock. The lock lives on a connection held for the whole run, so
+ * it spans the run's separate transactions and is released by the database
+ * if the node dies mid-run.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class FineAccrualLock {
+
+    // Any fixed key works; only fine accrual takes this lock
+    private static final long FINE_ACCRUAL_LOCK_KEY = 0x66696E655F616363L;
+
+    private final DataSource dataSource;
+
+    /**
+     * Claims the run, or returns null when another node holds it. Close the
+     * claim when the run ends.
+     */
+    public Claim tryAcquire() {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            if (call(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return new Claim(connection);
+            }
+            connection.close();
+            return null;
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("Could not claim the fine accrual run", e);
+        }
+    }
+
+    private static boolean call(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, FINE_ACCRUAL_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Closing fine accrual lock connection failed", e);
+        }
+    }
+
+    public static final class Claim implements AutoCloseable {
+
+        private final Connection connection;
+
+        private Claim(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() {
+            try {
+                call(connection, "SELECT pg_advisory_unlock(?)");
+            } catch (SQLException e) {
+                // A pooled connection would keep the lock; drop the session so the database releases it
+                log.warn("Releasing the fine accrual lock failed; discarding its connection", e);
+                try {
+                    connection.abort(Runnable::run);
+                } catch (SQLException ignored) {
+                    // The session is gone either way
+                }
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+    }
+}
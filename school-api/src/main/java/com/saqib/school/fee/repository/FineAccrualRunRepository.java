@@ -0,0 +1,15 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FineAccrualRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface FineAccrualRunRepository extends JpaRepository<FineAccrualRun, Long> {
+
+    @Query("SELECT MAX(r.runDate) FROM FineAccrualRun r WHERE r.status = 'COMPLETED'")
+    LocalDate findLastCompletedRunDate();
+}
@@ -0,0 +1,111 @@
+package com.saqib.school.fee.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receivables aging in one SQL aggregation. Each unpaid voucher's balance is
+ * aged by days past its due date as of the given date and summed into
+ * buckets per student's current class, optionally split by fee category. A
+ * category's share of a balance is the voucher balance pro rata to the
+ * head's final amount, so fines are spread over the heads they accrued on.
+ * Shares are rounded so a voucher's category rows add up to its balance; a
+ * voucher whose heads are all fully discounted splits its fine evenly.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReceivablesAgingRepository {
+
+    private static final String VOUCHER_BALANCE_SQL =
+        "SELECT fv.student_id, fv.id AS voucher_id, CAST(? AS date) - fv.due_date AS age, NULL::bigint AS fee_category_id, " +
+        "fv.total_amount + COALESCE(fv.fine_amount, 0) - COALESCE(fv.paid_amount, 0) AS amount " +
+        "FROM fee_vouchers fv WHERE fv.status IN ('PENDING', 'OVERDUE') AND fv.issue_date <= ?";
+
+    // Every head but the last takes its share rounded down; the last takes the rest of the balance
+    private static final String CATEGORY_BALANCE_SQL =
+        "SELECT s.student_id, s.voucher_id, s.age, s.fee_category_id, " +
+        "CASE WHEN s.head = s.heads THEN s.balance - (SUM(s.share) OVER (PARTITION BY s.voucher_id) - s.share) " +
+        "ELSE s.share END AS amount FROM (" +
+        "SELECT b.student_id, b.voucher_id, b.age, b.fee_category_id, b.balance, b.head, b.heads, " +
+        "TRUNC(CASE WHEN b.total_amount = 0 THEN b.balance / b.heads " +
+        "ELSE b.balance * b.final_amount / b.total_amount END, 2) AS share FROM (" +
+        "SELECT fv.student_id, fv.id AS voucher_id, CAST(? AS date) - fv.due_date AS age, d.fee_category_id, " +
+        "fv.total_amount + COALESCE(fv.fine_amount, 0) - COALESCE(fv.paid_amount, 0) AS balance, " +
+        "fv.total_amount, d.final_amount, " +
+        "ROW_NUMBER() OVER (PARTITION BY fv.id ORDER BY d.id) AS head, COUNT(*) OVER (PARTITION BY fv.id) AS heads " +
+        "FROM fee_vouchers fv JOIN fee_voucher_details d ON d.voucher_id = fv.id " +
+        "WHERE fv.status IN ('PENDING', 'OVERDUE') AND fv.issue_date <= ?) b) s";
+
+    private static final String AGING_SQL =
+        "WITH balances AS (%s), " +
+        "current_class AS (SELECT DISTINCT ON (se.student_id) se.student_id, se.class_id " +
+        "FROM student_enrollments se WHERE se.status = 'ACTIVE' ORDER BY se.student_id, se.id DESC) " +
+        "SELECT COALESCE(cc.class_id, 0) AS class_id, c.class_name, c.section, b.fee_category_id, " +
+        "fc.category_name, COUNT(DISTINCT b.voucher_id) AS vouchers, COUNT(DISTINCT b.student_id) AS students, " +
+        "SUM(CASE WHEN b.age < 0 THEN b.amount ELSE 0 END) AS not_due, " +
+        "SUM(CASE WHEN b.age BETWEEN 0 AND 30 THEN b.amount ELSE 0 END) AS days_0_30, " +
+        "SUM(CASE WHEN b.age BETWEEN 31 AND 60 THEN b.amount ELSE 0 END) AS days_31_60, " +
+        "SUM(CASE WHEN b.age BETWEEN 61 AND 90 THEN b.amount ELSE 0 END) AS days_61_90, " +
+        "SUM(CASE WHEN b.age > 90 THEN b.amount ELSE 0 END) AS days_over_90, " +
+        "SUM(b.amount) AS total " +
+        "FROM balances b LEFT JOIN current_class cc ON cc.student_id = b.student_id " +
+        "LEFT JOIN classes c ON c.id = cc.class_id " +
+        "LEFT JOIN fee_categories fc ON fc.id = b.fee_category_id " +
+        "WHERE b.amount > 0 %s " +
+        "GROUP BY COALESCE(cc.class_id, 0), c.class_name, c.section, b.fee_category_id, fc.category_name " +
+        "ORDER BY c.class_name NULLS LAST, c.section, class_id, fc.category_name NULLS FIRST";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aging rows per class, and per fee category within each class when
+     * {@code byCategory}. {@code classId} null covers every class; class id 0
+     * holds students without an active enrollment.
+     */
+    public List<AgingRow> findAging(LocalDate asOfDate, Long classId, boolean byCategory) {
+        List<Object> args = new ArrayList<>(3);
+        args.add(asOfDate);
+        args.add(asOfDate);
+        String classFilter = "";
+        if (classId != null) {
+            classFilter = "AND COALESCE(cc.class_id, 0) = ?";
+            args.add(classId);
+        }
+
+        String sql = AGING_SQL.formatted(byCategory ? CATEGORY_BALANCE_SQL : VOUCHER_BALANCE_SQL, classFilter);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new AgingRow(
+            rs.getLong("class_id"),
+            rs.getString("class_name") != null ? rs.getString("class_name") + " - " + rs.getString("section") : null,
+            rs.getObject("fee_category_id", Long.class),
+            rs.getString("category_name"),
+            rs.getLong("vouchers"),
+            rs.getLong("students"),
+            rs.getBigDecimal("not_due"),
+            rs.getBigDecimal("days_0_30"),
+            rs.getBigDecimal("days_31_60"),
+            rs.getBigDecimal("days_61_90"),
+            rs.getBigDecimal("days_over_90"),
+            rs.getBigDecimal("total")
+        ), args.toArray());
+    }
+
+    public record AgingRow(long classId,
+                           String className,
+                           Long feeCategoryId,
+                           String feeCategoryName,
+                           long vouchers,
+                           long students,
+                           BigDecimal notDue,
+                           BigDecimal days0To30,
+                           BigDecimal days31To60,
+                           BigDecimal days61To90,
+                           BigDecimal daysOver90,
+                           BigDecimal total) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.StudentDiscount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC checks and writer for applying one discount to many students. Lookups
+ * take the whole id set at once, chunked to stay under the driver's bind
+ * parameter limit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentDiscountBatchRepository {
+
+    private static final int STUDENT_ID_CHUNK = 1000;
+
+    private static final String EXISTING_STUDENTS_SQL = "SELECT id FROM students WHERE id IN (%s)";
+
+    // An open-ended period (valid_to NULL) on either side overlaps everything after its start
+    private static final String OVERLAPPING_SQL =
+        "SELECT DISTINCT student_id FROM student_discounts " +
+        "WHERE fee_category_id = ? AND is_active = true " +
+        "AND (valid_to IS NULL OR valid_to >= ?) AND (CAST(? AS date) IS NULL OR valid_from <= ?) " +
+        "AND student_id IN (%s)";
+
+    private static final String INSERT_DISCOUNT_SQL =
+        "INSERT INTO student_discounts (student_id, fee_category_id, discount_type, discount_value, reason, " +
+        "valid_from, valid_to, is_active, created_by, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, true, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Set<Long> findExistingStudentIds(List<Long> studentIds) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(studentIds)) {
+            jdbcTemplate.query(EXISTING_STUDENTS_SQL.formatted(placeholders(chunk.size())),
+                               (RowCallbackHandler) rs -> existing.add(rs.getLong("id")), chunk.toArray());
+        }
+        return existing;
+    }
+
+    /**
+     * Students that already have an active discount in the category whose
+     * period overlaps {@code [validFrom, validTo]}; a null {@code validTo} is
+     * open-ended.
+     */
+    public Set<Long> findStudentsWithOverlappingDiscount(List<Long> studentIds, Long categoryId,
+                                                        LocalDate validFrom, LocalDate validTo) {
+        Set<Long> overlapping = new HashSet<>();
+        for (List<Long> chunk : chunks(studentIds)) {
+            List<Object> args = new ArrayList<>(chunk.size() + 4);
+            args.add(categoryId);
+            args.add(validFrom);
+            args.add(validTo);
+            args.add(validTo);
+            args.addAll(chunk);
+            jdbcTemplate.query(OVERLAPPING_SQL.formatted(placeholders(chunk.size())),
+                               (RowCallbackHandler) rs -> overlapping.add(rs.getLong("student_id")), args.toArray());
+        }
+        return overlapping;
+    }
+
+    /**
+     * Inserts one discount per student with the same terms, in one batch. Must
+     * be called inside a transaction.
+     */
+    public void insertDiscounts(Collection<Long> studentIds, DiscountTerms terms) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_DISCOUNT_SQL, studentIds, studentIds.size(), (ps, studentId) -> {
+            ps.setLong(1, studentId);
+            ps.setLong(2, terms.categoryId());
+            ps.setString(3, terms.discountType().name());
+            ps.setBigDecimal(4, terms.discountValue());
+            ps.setString(5, terms.reason());
+            ps.setObject(6, terms.validFrom());
+            ps.setObject(7, terms.validTo());
+            ps.setLong(8, terms.createdById());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += STUDENT_ID_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + STUDENT_ID_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record DiscountTerms(Long categoryId,
+                                StudentDiscount.DiscountType discountType,
+                                BigDecimal discountValue,
+                                String reason,
+                                LocalDate validFrom,
+                                LocalDate validTo,
+                                Long createdById) {
+    }
+}
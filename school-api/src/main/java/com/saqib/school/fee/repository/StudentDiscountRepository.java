@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,12 @@ public interface StudentDiscountRepository extends JpaRepository<StudentDiscount
                                                                    @Param("categoryId") Long categoryId,
                                                                    @Param("date") LocalDate date);
 
+    @Query("SELECT sd FROM StudentDiscount sd WHERE sd.student.id IN :studentIds " +
+           "AND sd.isActive = true AND sd.validFrom <= :date AND (sd.validTo IS NULL OR sd.validTo >= :date) " +
+           "ORDER BY sd.id")
+    List<StudentDiscount> findValidDiscountsByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                                         @Param("date") LocalDate date);
+
     @Query("SELECT sd FROM StudentDiscount sd WHERE sd.feeCategory.id = :categoryId AND sd.isActive = true")
     Page<StudentDiscount> findByFeeCategoryIdAndActive(@Param("categoryId") Long categoryId, Pageable pageable);
 
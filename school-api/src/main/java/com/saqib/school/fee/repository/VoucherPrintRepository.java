@@ -0,0 +1,165 @@
+package com.saqib.school.fee.repository;
+
+import com.saqib.school.fee.entity.FeeLine;
+import com.saqib.school.fee.entity.FeeLinesConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only JDBC queries for voucher printing. Vouchers come back ordered by
+ * the student's current class so each class is a contiguous run; fee lines
+ * are fetched separately for one window of vouchers at a time.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VoucherPrintRepository {
+
+    private static final String VOUCHERS_SQL =
+        "SELECT fv.id, fv.voucher_number, fv.voucher_type, fv.month_year, fv.issue_date, fv.due_date, " +
+        "fv.total_amount, COALESCE(fv.fine_amount, 0) AS fine_amount, COALESCE(fv.paid_amount, 0) AS paid_amount, " +
+        "s.first_name, s.last_name, s.registration_number, COALESCE(e.class_id, 0) AS class_id, " +
+        "c.class_name, c.section " +
+        "FROM fee_vouchers fv JOIN students s ON s.id = fv.student_id " +
+        "LEFT JOIN LATERAL (SELECT se.class_id FROM student_enrollments se " +
+        "WHERE se.student_id = fv.student_id AND se.status = 'ACTIVE' ORDER BY se.id DESC LIMIT 1) e ON true " +
+        "LEFT JOIN classes c ON c.id = e.class_id " +
+        "WHERE fv.status <> 'CANCELLED' %s " +
+        "ORDER BY c.class_name NULLS LAST, c.section, class_id, s.first_name, s.last_name, fv.id";
+
+    private static final String FEE_HEADS_SQL =
+        "SELECT fs.class_id, fc.category_name FROM fee_structures fs " +
+        "JOIN fee_categories fc ON fc.id = fs.fee_category_id " +
+        "WHERE fs.is_active = true AND fs.class_id IN (%s) ORDER BY fs.class_id, fc.category_name";
+
+    private static final String LINES_SQL =
+        "SELECT d.voucher_id, fc.category_name, d.original_amount, COALESCE(d.discount_amount, 0) AS discount_amount, " +
+        "d.final_amount FROM fee_voucher_details d JOIN fee_categories fc ON fc.id = d.fee_category_id " +
+        "WHERE d.voucher_id IN (%s) ORDER BY d.voucher_id, fc.category_name";
+
+    private static final String PACKED_LINES_SQL =
+        "SELECT id, fee_lines FROM fee_vouchers WHERE id IN (%s) AND fee_lines IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Non-cancelled vouchers for the month and/or class; either filter may be null.
+     */
+    public List<PrintableVoucher> findPrintableVouchers(String monthYear, Long classId) {
+        StringBuilder filter = new StringBuilder();
+        List<Object> args = new ArrayList<>(2);
+        if (monthYear != null) {
+            filter.append("AND fv.month_year = ? ");
+            args.add(monthYear);
+        }
+        if (classId != null) {
+            filter.append("AND e.class_id = ? ");
+            args.add(classId);
+        }
+
+        return jdbcTemplate.query(VOUCHERS_SQL.formatted(filter), (rs, rowNum) -> new PrintableVoucher(
+            rs.getLong("id"),
+            rs.getString("voucher_number"),
+            rs.getString("voucher_type"),
+            rs.getString("month_year"),
+            rs.getObject("issue_date", LocalDate.class),
+            rs.getObject("due_date", LocalDate.class),
+            rs.getBigDecimal("total_amount"),
+            rs.getBigDecimal("fine_amount"),
+            rs.getBigDecimal("paid_amount"),
+            rs.getString("first_name") + " " + rs.getString("last_name"),
+            rs.getString("registration_number"),
+            rs.getLong("class_id"),
+            rs.getString("class_name") != null ? rs.getString("class_name") + " - " + rs.getString("section") : null
+        ), args.toArray());
+    }
+
+    /**
+     * Active fee heads of each class's fee structure, ordered by name.
+     */
+    public Map<Long, List<String>> findFeeHeadsByClass(Collection<Long> classIds) {
+        Map<Long, List<String>> headsByClass = new HashMap<>();
+        if (classIds.isEmpty()) {
+            return headsByClass;
+        }
+
+        jdbcTemplate.query(FEE_HEADS_SQL.formatted(placeholders(classIds.size())), (RowCallbackHandler) rs -> {
+            headsByClass.computeIfAbsent(rs.getLong("class_id"), id -> new ArrayList<>())
+                .add(rs.getString("category_name"));
+        }, classIds.toArray());
+        return headsByClass;
+    }
+
+    /**
+     * Fee lines of the given vouchers, keyed by voucher id. Packed vouchers are
+     * read from their own row; the detail table is only queried for the rest.
+     */
+    public Map<Long, List<PrintLine>> findLines(Collection<Long> voucherIds) {
+        Map<Long, List<PrintLine>> linesByVoucher = new HashMap<>();
+        if (voucherIds.isEmpty()) {
+            return linesByVoucher;
+        }
+
+        jdbcTemplate.query(PACKED_LINES_SQL.formatted(placeholders(voucherIds.size())), (RowCallbackHandler) rs -> {
+            linesByVoucher.put(rs.getLong("id"), FeeLinesConverter.unpack(rs.getString("fee_lines")).stream()
+                .sorted(Comparator.comparing(FeeLine::feeCategoryName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(line -> new PrintLine(line.feeCategoryName(), line.originalAmount().toBigDecimal(),
+                                           line.discountAmount().toBigDecimal(), line.finalAmount().toBigDecimal()))
+                .collect(Collectors.toCollection(ArrayList::new)));
+        }, voucherIds.toArray());
+
+        List<Long> unpackedIds = voucherIds.stream().filter(id -> !linesByVoucher.containsKey(id)).toList();
+        if (unpackedIds.isEmpty()) {
+            return linesByVoucher;
+        }
+        jdbcTemplate.query(LINES_SQL.formatted(placeholders(unpackedIds.size())), (RowCallbackHandler) rs -> {
+            linesByVoucher.computeIfAbsent(rs.getLong("voucher_id"), id -> new ArrayList<>()).add(new PrintLine(
+                rs.getString("category_name"),
+                rs.getBigDecimal("original_amount"),
+                rs.getBigDecimal("discount_amount"),
+                rs.getBigDecimal("final_amount")));
+        }, unpackedIds.toArray());
+        return linesByVoucher;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Voucher header fields printed on each page. {@code classId} is 0 and
+     * {@code classLabel} null for students without an active enrollment.
+     */
+    public record PrintableVoucher(Long id,
+                                   String voucherNumber,
+                                   String voucherType,
+                                   String monthYear,
+                                   LocalDate issueDate,
+                                   LocalDate dueDate,
+                                   BigDecimal totalAmount,
+                                   BigDecimal fineAmount,
+                                   BigDecimal paidAmount,
+                                   String studentName,
+                                   String registrationNumber,
+                                   long classId,
+                                   String classLabel) {
+    }
+
+    public record PrintLine(String feeHead,
+                            BigDecimal originalAmount,
+                            BigDecimal discountAmount,
+                            BigDecimal finalAmount) {
+    }
+}
@@ -0,0 +1,554 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.audit.Auditable;
+import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.fee.entity.BankStatementException;
+import com.saqib.school.fee.entity.BankStatementImport;
+import com.saqib.school.fee.entity.FeePayment;
+import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent.PostedPayment;
+import com.saqib.school.fee.model.BankStatementExceptionResponse;
+import com.saqib.school.fee.model.BankStatementImportResponse;
+import com.saqib.school.fee.repository.BankStatementExceptionRepository;
+import com.saqib.school.fee.repository.BankStatementImportRepository;
+import com.saqib.school.fee.repository.FeePaymentBatchRepository;
+import com.saqib.school.fee.repository.FeePaymentBatchRepository.PaymentRow;
+import com.saqib.school.fee.repository.FeePaymentRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.VoucherPosting;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.FeeVoucherRepository.PaymentTargetView;
+import com.saqib.school.user.entity.User;
+import com.saqib.school.user.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports bank statement CSVs. The file is read line by line and handled in
+ * fixed-size batches: each batch resolves its voucher numbers and reference
+ * numbers with one query each, posts the matched rows and records its
+ * exceptions in one transaction, and is then dropped, so memory is bounded by
+ * the batch size rather than the file size.
+ *
+ * <p>The header row names the columns, in any order: {@code voucher_number},
+ * {@code amount}, {@code payment_date} and {@code reference_number} are
+ * required; {@code bank_name} and {@code narration} are optional. A failed
+ * import keeps the batches committed before the failure, and re-uploading the
+ * file is safe because already-posted references are reported as duplicates.
+ * Batches from all imports are serialised on an advisory lock, so two uploads
+ * of the same file cannot both pass the reference check.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BankStatementImportService {
+
+    // Column lengths of the payment and exception tables the row values end up in
+    private static final int VOUCHER_NUMBER_LENGTH = 50;
+    private static final int REFERENCE_NUMBER_LENGTH = 100;
+    private static final int BANK_NAME_LENGTH = 100;
+
+    private final BankStatementImportRepository bankStatementImportRepository;
+    private final BankStatementExceptionRepository bankStatementExceptionRepository;
+    private final FeeVoucherRepository feeVoucherRepository;
+    private final FeePaymentRepository feePaymentRepository;
+    private final FeePaymentBatchRepository feePaymentBatchRepository;
+    private final FeeVoucherBatchRepository feeVoucherBatchRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.fee.bank-import.batch-size:500}")
+    private int batchSize;
+
+    @Auditable(action = "IMPORT_BANK_STATEMENT", entityType = "BankStatementImport", logParameters = false)
+    public BankStatementImportResponse importStatement(MultipartFile file, String bankName) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("Statement file is empty");
+        }
+        if (bankName != null && bankName.length() > BANK_NAME_LENGTH) {
+            throw new BadRequestException("Bank name must not exceed " + BANK_NAME_LENGTH + " characters");
+        }
+
+        User currentUser = userService.getCurrentUser();
+        long startedAt = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BadRequestException("Statement file has no header row");
+            }
+            ColumnLayout layout = ColumnLayout.parse(header);
+
+            BankStatementImport statementImport = bankStatementImportRepository.save(BankStatementImport.builder()
+                .fileName(file.getOriginalFilename())
+                .bankName(bankName)
+                .status(BankStatementImport.ImportStatus.RUNNING)
+                .totalRows(0)
+                .postedRows(0)
+                .postedAmount(BigDecimal.ZERO)
+                .duplicateRows(0)
+                .exceptionRows(0)
+                .importedBy(currentUser)
+                .build());
+
+            ImportTotals totals = new ImportTotals();
+            ImportContext context = new ImportContext(statementImport.getId(), bankName, currentUser.getId());
+            try {
+                List<StatementRow> batch = new ArrayList<>(batchSize);
+                long lineNumber = 1;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    batch.add(layout.toRow(lineNumber, line));
+                    if (batch.size() == batchSize) {
+                        totals.add(processBatch(batch, context));
+                        batch.clear();
+                    }
+                }
+                totals.add(processBatch(batch, context));
+                statementImport.setStatus(BankStatementImport.ImportStatus.COMPLETED);
+            } catch (IOException | RuntimeException e) {
+                log.error("Bank statement import {} failed after {} rows", statementImport.getId(), totals.rows, e);
+                statementImport.setStatus(BankStatementImport.ImportStatus.FAILED);
+                statementImport.setErrorMessage(e.getMessage());
+            }
+
+            statementImport.setTotalRows(totals.rows);
+            statementImport.setPostedRows(totals.posted);
+            statementImport.setPostedAmount(totals.postedAmount);
+            statementImport.setDuplicateRows(totals.duplicates);
+            statementImport.setExceptionRows(totals.exceptions);
+            statementImport.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+            bankStatementImportRepository.save(statementImport);
+
+            log.info("Bank statement import {}: {} rows, {} posted ({}), {} duplicates, {} exceptions in {} ms",
+                     statementImport.getId(), totals.rows, totals.posted, totals.postedAmount,
+                     totals.duplicates, totals.exceptions, statementImport.getElapsedMillis());
+
+            return toResponse(statementImport, currentUser.getUsername());
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read statement file: " + e.getMessage());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public BankStatementImportResponse getImport(Long id) {
+        BankStatementImport statementImport = bankStatementImportRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Bank Statement Import", "id", id));
+        return toResponse(statementImport, statementImport.getImportedBy().getUsername());
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<BankStatementImportResponse> getImports(Pageable pageable) {
+        var page = bankStatementImportRepository.findAll(pageable)
+            .map(statementImport -> toResponse(statementImport, statementImport.getImportedBy().getUsername()));
+        return PageResponse.from(page);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<BankStatementExceptionResponse> getExceptions(Long importId,
+                                                                      BankStatementException.Reason reason,
+                                                                      Pageable pageable) {
+        if (!bankStatementImportRepository.existsById(importId)) {
+            throw new ResourceNotFoundException("Bank Statement Import", "id", importId);
+        }
+        Page<BankStatementException> exceptions = reason != null
+            ? bankStatementExceptionRepository.findByImportIdAndReason(importId, reason, pageable)
+            : bankStatementExceptionRepository.findByImportId(importId, pageable);
+        return PageResponse.from(exceptions.map(this::toResponse));
+    }
+
+    /**
+     * Resolves and posts one batch in a single transaction. Voucher numbers are
+     * hash-joined against one IN query that locks the vouchers in id order;
+     * matched rows are then checked against those balances in memory and
+     * written as one payment batch and one voucher update batch.
+     */
+    private BatchOutcome processBatch(List<StatementRow> rows, ImportContext context) {
+        if (rows.isEmpty()) {
+            return new BatchOutcome(0, 0, BigDecimal.ZERO, 0, 0);
+        }
+
+        return transactionTemplate.execute(status -> {
+            // Held until commit, so the reference check below sees every batch posted before this one
+            feePaymentBatchRepository.lockBankImports();
+
+            Set<String> voucherNumbers = new HashSet<>();
+            Set<String> references = new HashSet<>();
+            for (StatementRow row : rows) {
+                if (row.error() == null) {
+                    voucherNumbers.add(row.voucherNumber());
+                    references.add(row.referenceNumber());
+                }
+            }
+
+            Map<String, PaymentTargetView> targets = new HashMap<>();
+            if (!voucherNumbers.isEmpty()) {
+                for (PaymentTargetView target : feeVoucherRepository.lockPaymentTargetsByVoucherNumbers(voucherNumbers)) {
+                    targets.put(target.getVoucherNumber(), target);
+                }
+            }
+            Set<String> postedReferences = references.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(feePaymentRepository.findExistingReferenceNumbers(references));
+
+            BankStatementImport statementImport = bankStatementImportRepository.getReferenceById(context.importId());
+            List<BankStatementException> exceptions = new ArrayList<>();
+            List<Match> matches = new ArrayList<>();
+            int duplicates = 0;
+
+            for (StatementRow row : rows) {
+                if (row.error() != null) {
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.INVALID_ROW, false, row.error()));
+                    continue;
+                }
+                if (postedReferences.contains(row.referenceNumber())) {
+                    duplicates++;
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.DUPLICATE_REFERENCE, false,
+                                             "Reference number has already been posted"));
+                    continue;
+                }
+                PaymentTargetView target = targets.get(row.voucherNumber());
+                if (target == null) {
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.UNMATCHED_VOUCHER, false,
+                                             "No voucher with this number"));
+                    continue;
+                }
+                if (!FeeVoucher.VoucherStatus.PENDING.name().equals(target.getStatus())
+                    && !FeeVoucher.VoucherStatus.OVERDUE.name().equals(target.getStatus())) {
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.VOUCHER_NOT_PAYABLE, false,
+                                             "Voucher is " + target.getStatus()));
+                    continue;
+                }
+                matches.add(new Match(row, target.getId()));
+            }
+
+            Map<Long, BigDecimal> remaining = new HashMap<>();
+            for (PaymentTargetView target : targets.values()) {
+                remaining.put(target.getId(), target.getRemainingAmount());
+            }
+
+            matches.sort(Comparator.comparing(Match::voucherId));
+            List<VoucherPosting> postings = new ArrayList<>(matches.size());
+            List<PaymentRow> payments = new ArrayList<>(matches.size());
+            BigDecimal postedAmount = BigDecimal.ZERO;
+
+            // The vouchers are locked, so the balances read above decide every posting
+            for (Match match : matches) {
+                StatementRow row = match.row();
+                // A reference repeated within the batch; only rows that were actually posted claim one
+                if (postedReferences.contains(row.referenceNumber())) {
+                    duplicates++;
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.DUPLICATE_REFERENCE, false,
+                                             "Reference number has already been posted"));
+                    continue;
+                }
+                BigDecimal balance = remaining.get(match.voucherId()).subtract(row.amount());
+                if (balance.signum() < 0) {
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.EXCEEDS_BALANCE, false,
+                                             "Amount exceeds remaining balance " + remaining.get(match.voucherId())));
+                    continue;
+                }
+
+                postings.add(new VoucherPosting(match.voucherId(), row.amount()));
+                payments.add(new PaymentRow(
+                    match.voucherId(),
+                    FeePayment.PaymentMethod.BANK_TRANSFER,
+                    row.amount(),
+                    row.paymentDate(),
+                    row.referenceNumber(),
+                    row.bankName() != null ? row.bankName() : context.bankName(),
+                    row.narration(),
+                    context.receivedById()
+                ));
+                postedAmount = postedAmount.add(row.amount());
+                postedReferences.add(row.referenceNumber());
+                remaining.put(match.voucherId(), balance);
+                if (balance.signum() > 0) {
+                    exceptions.add(exception(statementImport, row, BankStatementException.Reason.PARTIAL_PAYMENT, true,
+                                             "Posted; remaining balance " + balance));
+                }
+            }
+
+            feePaymentBatchRepository.insertPayments(payments);
+            int updated = feeVoucherBatchRepository.applyPayments(postings, LocalDate.now());
+            if (updated != postings.size()) {
+                throw new IllegalStateException("Posted " + updated + " of " + postings.size() + " locked vouchers");
+            }
+            if (!payments.isEmpty()) {
+                eventPublisher.publishEvent(new FeePaymentsPostedEvent(payments.stream()
+                    .map(payment -> new PostedPayment(payment.voucherId(), payment.paymentDate(),
+                                                      payment.paymentMethod(), payment.receivedById(), payment.amount()))
+                    .toList()));
+            }
+            bankStatementExceptionRepository.saveAll(exceptions);
+
+            return new BatchOutcome(rows.size(), payments.size(), postedAmount, duplicates, exceptions.size());
+        });
+    }
+
+    private BankStatementException exception(BankStatementImport statementImport, StatementRow row,
+                                             BankStatementException.Reason reason, boolean posted, String detail) {
+        return BankStatementException.builder()
+            .statementImport(statementImport)
+            .lineNumber(row.lineNumber())
+            .voucherNumber(fit(row.voucherNumber(), VOUCHER_NUMBER_LENGTH))
+            .referenceNumber(fit(row.referenceNumber(), REFERENCE_NUMBER_LENGTH))
+            .amount(row.amount() != null && fitsAmountColumn(row.amount()) ? row.amount() : null)
+            .paymentDate(row.paymentDate())
+            .reason(reason)
+            .posted(posted)
+            .detail(detail)
+            .rawLine(row.rawLine())
+            .build();
+    }
+
+    // An invalid row may carry values too long for the exception's columns; the raw line keeps them whole
+    private static String fit(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+
+    // numeric(10,2), as in the payment and exception amount columns
+    private static boolean fitsAmountColumn(BigDecimal amount) {
+        return amount.scale() <= 2 && amount.precision() - amount.scale() <= 8;
+    }
+
+    private BankStatementImportResponse toResponse(BankStatementImport statementImport, String importedBy) {
+        return BankStatementImportResponse.builder()
+            .id(statementImport.getId())
+            .fileName(statementImport.getFileName())
+            .bankName(statementImport.getBankName())
+            .status(statementImport.getStatus())
+            .totalRows(statementImport.getTotalRows())
+            .postedRows(statementImport.getPostedRows())
+            .postedAmount(statementImport.getPostedAmount())
+            .duplicateRows(statementImport.getDuplicateRows())
+            .exceptionRows(statementImport.getExceptionRows())
+            .elapsedMillis(statementImport.getElapsedMillis())
+            .errorMessage(statementImport.getErrorMessage())
+            .importedBy(importedBy)
+            .importedAt(statementImport.getCreatedAt())
+            .build();
+    }
+
+    private BankStatementExceptionResponse toResponse(BankStatementException exception) {
+        return BankStatementExceptionResponse.builder()
+            .id(exception.getId())
+            .lineNumber(exception.getLineNumber())
+            .voucherNumber(exception.getVoucherNumber())
+            .referenceNumber(exception.getReferenceNumber())
+            .amount(exception.getAmount())
+            .paymentDate(exception.getPaymentDate())
+            .reason(exception.getReason())
+            .posted(exception.getPosted())
+            .detail(exception.getDetail())
+            .rawLine(exception.getRawLine())
+            .build();
+    }
+
+    /**
+     * Column positions taken from the header row. Header names are matched
+     * case-insensitively, ignoring spaces and punctuation.
+     */
+    private record ColumnLayout(int voucherNumber, int amount, int paymentDate, int referenceNumber,
+                                int bankName, int narration) {
+
+        private static final DateTimeFormatter SLASHED_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        static ColumnLayout parse(String header) {
+            List<String> columns = splitLine(header.replace("\uFEFF", ""));
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                positions.putIfAbsent(columns.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", ""), i);
+            }
+
+            return new ColumnLayout(
+                required(positions, "voucher_number", "vouchernumber", "voucherno", "voucher"),
+                required(positions, "amount", "amount", "credit", "deposit"),
+                required(positions, "payment_date", "paymentdate", "valuedate", "transactiondate", "date"),
+                required(positions, "reference_number", "referencenumber", "referenceno", "reference", "transactionid"),
+                optional(positions, "bankname", "bank"),
+                optional(positions, "narration", "description", "notes")
+            );
+        }
+
+        StatementRow toRow(long lineNumber, String line) {
+            List<String> values = splitLine(line);
+            String voucherNumber = value(values, voucherNumber());
+            String referenceNumber = value(values, referenceNumber());
+            String amountText = value(values, amount());
+            String dateText = value(values, paymentDate());
+            String bankName = value(values, bankName());
+            String narration = value(values, narration());
+
+            BigDecimal amount = null;
+            LocalDate paymentDate = null;
+            String error = null;
+            try {
+                amount = amountText != null ? new BigDecimal(amountText.replace(",", "")) : null;
+            } catch (NumberFormatException e) {
+                error = "Invalid amount: " + amountText;
+            }
+            try {
+                paymentDate = dateText != null ? parseDate(dateText) : null;
+            } catch (DateTimeParseException e) {
+                error = "Invalid payment date: " + dateText;
+            }
+
+            if (error == null) {
+                if (voucherNumber == null) {
+                    error = "Voucher number is required";
+                } else if (referenceNumber == null) {
+                    error = "Reference number is required";
+                } else if (voucherNumber.length() > VOUCHER_NUMBER_LENGTH) {
+                    error = "Voucher number must not exceed " + VOUCHER_NUMBER_LENGTH + " characters";
+                } else if (referenceNumber.length() > REFERENCE_NUMBER_LENGTH) {
+                    error = "Reference number must not exceed " + REFERENCE_NUMBER_LENGTH + " characters";
+                } else if (bankName != null && bankName.length() > BANK_NAME_LENGTH) {
+                    error = "Bank name must not exceed " + BANK_NAME_LENGTH + " characters";
+                } else if (amount == null || amount.signum() <= 0 || amount.scale() > 2) {
+                    error = "Amount must be a positive value with at most two decimals";
+                } else if (!fitsAmountColumn(amount)) {
+                    error = "Amount must not exceed 99,999,999.99";
+                } else if (paymentDate == null) {
+                    error = "Payment date is required";
+                } else if (paymentDate.isAfter(LocalDate.now())) {
+                    error = "Payment date cannot be in the future";
+                }
+            }
+
+            return new StatementRow(lineNumber, line, voucherNumber, referenceNumber, amount, paymentDate,
+                                    bankName, narration, error);
+        }
+
+        private static LocalDate parseDate(String text) {
+            return text.indexOf('/') >= 0 ? LocalDate.parse(text, SLASHED_DATE) : LocalDate.parse(text);
+        }
+
+        private static String value(List<String> values, int position) {
+            if (position < 0 || position >= values.size()) {
+                return null;
+            }
+            String value = values.get(position).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static int required(Map<String, Integer> positions, String column, String... aliases) {
+            int position = optional(positions, aliases);
+            if (position < 0) {
+                throw new BadRequestException("Statement file is missing the " + column + " column");
+            }
+            return position;
+        }
+
+        private static int optional(Map<String, Integer> positions, String... aliases) {
+            for (String alias : aliases) {
+                Integer position = positions.get(alias);
+                if (position != null) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Splits one CSV line, honouring double-quoted fields and {@code ""} escapes.
+         */
+        private static List<String> splitLine(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+
+    private record StatementRow(long lineNumber,
+                                String rawLine,
+                                String voucherNumber,
+                                String referenceNumber,
+                                BigDecimal amount,
+                                LocalDate paymentDate,
+                                String bankName,
+                                String narration,
+                                String error) {
+    }
+
+    private record Match(StatementRow row, Long voucherId) {
+    }
+
+    private record ImportContext(Long importId, String bankName, Long receivedById) {
+    }
+
+    private record BatchOutcome(int rows, int posted, BigDecimal postedAmount, int duplicates, int exceptions) {
+    }
+
+    private static final class ImportTotals {
+        private int rows;
+        private int posted;
+        private BigDecimal postedAmount = BigDecimal.ZERO;
+        private int duplicates;
+        private int exceptions;
+
+        void add(BatchOutcome outcome) {
+            rows += outcome.rows();
+            posted += outcome.posted();
+            postedAmount = postedAmount.add(outcome.postedAmount());
+            duplicates += outcome.duplicates();
+            exceptions += outcome.exceptions();
+        }
+    }
+}
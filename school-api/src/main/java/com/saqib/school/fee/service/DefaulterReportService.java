@@ -1,116 +1,192 @@
 package com.saqib.school.fee.service;
 
-import com.saqib.school.fee.entity.FeeVoucher;
-import com.saqib.school.fee.mapper.DefaulterReportMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.model.DefaulterPageResponse;
 import com.saqib.school.fee.model.DefaulterReportRequest;
 import com.saqib.school.fee.model.DefaulterReportResponse;
+import com.saqib.school.fee.model.DefaulterReportResponse.DefaulterInfo;
+import com.saqib.school.fee.model.DefaulterReportResponse.OverdueVoucherInfo;
+import com.saqib.school.fee.model.MonthlyFinancialSummaryResponse;
+import com.saqib.school.fee.repository.DefaulterReportRepository;
+import com.saqib.school.fee.repository.DefaulterReportRepository.DefaulterQuery;
+import com.saqib.school.fee.repository.DefaulterReportRepository.VoucherLine;
 import com.saqib.school.fee.repository.FeeVoucherRepository;
-import com.saqib.school.student.entity.Student;
-import com.saqib.school.student.entity.StudentEnrollment;
-import com.saqib.school.student.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Defaulter reports built from {@link DefaulterReportRepository}'s SQL-side
+ * aggregation. Full reports, keyset pages and NDJSON streams share the same
+ * query; per-voucher lines are fetched in bulk for the students returned.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DefaulterReportService {
 
+    private static final int VOUCHER_LOOKUP_CHUNK = 1000;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final FeeVoucherRepository feeVoucherRepository;
-    private final DefaulterReportMapper defaulterReportMapper;
+    private final DefaulterReportRepository defaulterReportRepository;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Defaulter totals as of the given date from a single aggregate query,
+     * without loading any vouchers.
+     */
     @Transactional(readOnly = true)
-    public DefaulterReportResponse generateDefaulterReport(DefaulterReportRequest request) {
-        LocalDate asOfDate = request.getAsOfDate() != null ? request.getAsOfDate() : LocalDate.now();
+    public MonthlyFinancialSummaryResponse.DefaulterSummary getDefaulterSummary(LocalDate asOfDate) {
+        var totals = feeVoucherRepository.sumDefaulterTotals(asOfDate);
+        return MonthlyFinancialSummaryResponse.DefaulterSummary.builder()
+            .asOfDate(asOfDate)
+            .totalDefaulters(totals.getDefaulters())
+            .totalOutstanding(totals.getOutstanding())
+            .totalFines(totals.getFines())
+            .build();
+    }
 
-        // Get overdue vouchers
-        List<FeeVoucher> overdueVouchers = feeVoucherRepository.findOverdueVouchers(asOfDate);
+    @Transactional(readOnly = true)
+    public DefaulterReportResponse generateDefaulterReport(DefaulterReportRequest request) {
+        DefaulterQuery query = toQuery(request, null);
+        List<DefaulterInfo> defaulters = defaulterReportRepository.findDefaulters(query, null);
+        attachVouchers(defaulters, query);
+
+        long totalOutstanding = defaulters.stream()
+            .mapToLong(defaulter -> Money.toPaisa(defaulter.getTotalOutstandingAmount()))
+            .sum();
+
+        return DefaulterReportResponse.builder()
+            .reportDate(query.asOfDate())
+            .totalDefaulters(defaulters.size())
+            .totalOutstandingAmount(Money.ofPaisa(totalOutstanding).toBigDecimal())
+            .defaulters(defaulters)
+            .build();
+    }
 
-        // Filter by minimum days overdue if specified
-        if (request.getMinimumDaysOverdue() != null) {
-            overdueVouchers = overdueVouchers.stream()
-                .filter(voucher -> ChronoUnit.DAYS.between(voucher.getDueDate(), asOfDate) >= request.getMinimumDaysOverdue())
-                .toList();
+    /**
+     * One page of defaulters ordered by days overdue. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public DefaulterPageResponse getDefaulterPage(DefaulterReportRequest request, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
         }
 
-        // Group by student
-        Map<Student, List<FeeVoucher>> defaulterMap = overdueVouchers.stream()
-            .collect(Collectors.groupingBy(FeeVoucher::getStudent));
-
-        // Filter by class if specified
-        if (request.getClassIds() != null && !request.getClassIds().isEmpty()) {
-            defaulterMap = defaulterMap.entrySet().stream()
-                .filter(entry -> {
-                    Student student = entry.getKey();
-                    return student.getEnrollments().stream()
-                        .filter(enrollment -> enrollment.getStatus() ==
-                            StudentEnrollment.EnrollmentStatus.ACTIVE)
-                        .anyMatch(enrollment -> request.getClassIds().contains(enrollment.getSchoolClass().getId()));
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        DefaulterQuery query = toQuery(request, cursor);
+        List<DefaulterInfo> rows = defaulterReportRepository.findDefaulters(query, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DefaulterInfo> defaulters = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        if (Boolean.TRUE.equals(request.getIncludeVouchers())) {
+            attachVouchers(defaulters, query);
         }
 
-        // Create defaulter info list
-      List<DefaulterReportResponse.DefaulterInfo> defaulters = defaulterMap.entrySet().stream()
-        .map(entry -> createDefaulterInfo(entry.getKey(), entry.getValue(), asOfDate))
-        .sorted((d1, d2) -> d2.getDaysSinceOldestDue().compareTo(d1.getDaysSinceOldestDue()))
-        .toList();
-
-      // Calculate totals
-      BigDecimal totalOutstanding = defaulters.stream()
-        .map(DefaulterReportResponse.DefaulterInfo::getTotalOutstandingAmount)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-      return DefaulterReportResponse.builder()
-        .reportDate(asOfDate)
-        .totalDefaulters(defaulters.size())
-        .totalOutstandingAmount(totalOutstanding)
-        .defaulters(defaulters)
-        .build();
+        return DefaulterPageResponse.builder()
+            .reportDate(query.asOfDate())
+            .defaulters(defaulters)
+            .size(defaulters.size())
+            .hasNext(hasNext)
+            .nextCursor(hasNext ? encodeCursor(defaulters.get(defaulters.size() - 1)) : null)
+            .build();
     }
 
-  private DefaulterReportResponse.DefaulterInfo createDefaulterInfo(Student student, List<FeeVoucher> overdueVouchers, LocalDate asOfDate) {
-    DefaulterReportResponse.DefaulterInfo defaulterInfo = defaulterReportMapper.toDefaulterInfo(student);
-
-    // Calculate overdue voucher details
-    List<DefaulterReportResponse.OverdueVoucherInfo> overdueVoucherInfos = overdueVouchers.stream()
-      .map(defaulterReportMapper::toOverdueVoucherInfo)
-      .toList();
-
-    // Calculate aggregated values
-    BigDecimal totalOutstanding = overdueVouchers.stream()
-      .map(FeeVoucher::getRemainingAmount)
-      .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Writes every defaulter to {@code out} as newline-delimited JSON while the
+     * rows are read, so the full list is never held in memory. With vouchers
+     * requested, defaulters are buffered and written in chunks.
+     */
+    @Transactional(readOnly = true)
+    public void streamDefaulters(DefaulterReportRequest request, OutputStream out) {
+        DefaulterQuery query = toQuery(request, null);
+        boolean includeVouchers = Boolean.TRUE.equals(request.getIncludeVouchers());
+        List<DefaulterInfo> pending = new ArrayList<>();
+
+        defaulterReportRepository.streamDefaulters(query, defaulter -> {
+            if (!includeVouchers) {
+                writeLine(out, defaulter);
+                return;
+            }
+            pending.add(defaulter);
+            if (pending.size() == VOUCHER_LOOKUP_CHUNK) {
+                attachVouchers(pending, query);
+                pending.forEach(buffered -> writeLine(out, buffered));
+                pending.clear();
+            }
+        });
+
+        attachVouchers(pending, query);
+        pending.forEach(buffered -> writeLine(out, buffered));
+    }
 
-    BigDecimal totalFines = overdueVouchers.stream()
-      .map(FeeVoucher::getFineAmount)
-      .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void writeLine(OutputStream out, DefaulterInfo defaulter) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(defaulter));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-    LocalDate oldestDueDate = overdueVouchers.stream()
-      .map(FeeVoucher::getDueDate)
-      .min(LocalDate::compareTo)
-      .orElse(asOfDate);
+    private void attachVouchers(List<DefaulterInfo> defaulters, DefaulterQuery query) {
+        for (int from = 0; from < defaulters.size(); from += VOUCHER_LOOKUP_CHUNK) {
+            List<DefaulterInfo> chunk = defaulters.subList(from, Math.min(from + VOUCHER_LOOKUP_CHUNK, defaulters.size()));
+            Map<Long, List<OverdueVoucherInfo>> vouchersByStudent = new HashMap<>();
+            List<Long> studentIds = chunk.stream().map(DefaulterInfo::getStudentId).toList();
+
+            for (VoucherLine line : defaulterReportRepository.findOverdueVouchers(
+                    studentIds, query.asOfDate(), query.dueOnOrBefore())) {
+                vouchersByStudent.computeIfAbsent(line.studentId(), id -> new ArrayList<>()).add(line.voucher());
+            }
+            for (DefaulterInfo defaulter : chunk) {
+                defaulter.setOverdueVouchers(vouchersByStudent.getOrDefault(defaulter.getStudentId(), List.of()));
+            }
+        }
+    }
 
-    int daysSinceOldest = (int) ChronoUnit.DAYS.between(oldestDueDate, asOfDate);
+    private DefaulterQuery toQuery(DefaulterReportRequest request, String cursor) {
+        LocalDate asOfDate = request.getAsOfDate() != null ? request.getAsOfDate() : LocalDate.now();
+        LocalDate dueOnOrBefore = request.getMinimumDaysOverdue() != null
+            ? asOfDate.minusDays(request.getMinimumDaysOverdue())
+            : asOfDate;
+        boolean mostOverdueFirst = request.getSortDirection() != Sort.Direction.ASC;
+
+        LocalDate afterDueDate = null;
+        Long afterStudentId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+                afterDueDate = LocalDate.parse(parts[0]);
+                afterStudentId = Long.parseLong(parts[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
 
-    // Set calculated fields
-    defaulterInfo.setTotalOverdueVouchers(overdueVouchers.size());
-    defaulterInfo.setTotalOutstandingAmount(totalOutstanding);
-    defaulterInfo.setTotalFineAmount(totalFines);
-    defaulterInfo.setOldestDueDate(oldestDueDate);
-    defaulterInfo.setDaysSinceOldestDue(daysSinceOldest);
-    defaulterInfo.setOverdueVouchers(overdueVoucherInfos);
+        return new DefaulterQuery(asOfDate, dueOnOrBefore, request.getClassIds(), mostOverdueFirst,
+                                  afterDueDate, afterStudentId);
+    }
 
-    return defaulterInfo;
-  }
+    private static String encodeCursor(DefaulterInfo last) {
+        String key = last.getOldestDueDate() + "_" + last.getStudentId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,63 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.StudentDiscount;
+import com.saqib.school.fee.repository.StudentDiscountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves student discounts in bulk. Billing paths load every valid discount
+ * for their students once and look pairs up in memory instead of querying per
+ * (student, category).
+ */
+@Service
+@RequiredArgsConstructor
+public class DiscountResolutionService {
+
+    // Keeps the IN list well under the driver's bind parameter limit
+    private static final int STUDENT_ID_CHUNK = 1000;
+
+    private final StudentDiscountRepository studentDiscountRepository;
+
+    @Transactional(readOnly = true)
+    public DiscountResolutionTable load(Collection<Long> studentIds, LocalDate date) {
+        List<Long> ids = studentIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return DiscountResolutionTable.empty();
+        }
+
+        List<StudentDiscount> discounts = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += STUDENT_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + STUDENT_ID_CHUNK, ids.size()));
+            discounts.addAll(studentDiscountRepository.findValidDiscountsByStudentIds(chunk, date));
+        }
+        return DiscountResolutionTable.of(discounts);
+    }
+
+    /**
+     * Discount amounts for the given lookups, in the same order, using one
+     * query for all students involved.
+     */
+    @Transactional(readOnly = true)
+    public List<BigDecimal> resolve(LocalDate date, List<DiscountLookup> lookups) {
+        DiscountResolutionTable table = load(lookups.stream().map(DiscountLookup::studentId).toList(), date);
+        return lookups.stream()
+            .map(lookup -> table.discountFor(lookup.studentId(), lookup.categoryId(), lookup.originalAmount()))
+            .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public StudentDiscountIntervals loadIntervals(Long studentId) {
+        return StudentDiscountIntervals.of(studentDiscountRepository.findByStudentIdAndActive(studentId));
+    }
+
+    public record DiscountLookup(Long studentId, Long categoryId, BigDecimal originalAmount) {
+    }
+}
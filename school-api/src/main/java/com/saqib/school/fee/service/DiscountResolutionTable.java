@@ -0,0 +1,107 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.StudentDiscount;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Immutable lookup of valid discounts keyed by (studentId, categoryId). Both ids
+ * are packed into one {@code long} and stored in an open-addressing table, so a
+ * lookup is a few array reads with no boxing or per-entry objects. When several
+ * discounts match the same pair the first one added wins.
+ */
+public final class DiscountResolutionTable {
+
+    private static final DiscountResolutionTable EMPTY = new DiscountResolutionTable(new long[1], new StudentDiscount[1], 0);
+    private static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private final long[] keys;
+    private final StudentDiscount[] values;
+    private final int mask;
+    private final int size;
+
+    private DiscountResolutionTable(long[] keys, StudentDiscount[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    public static DiscountResolutionTable empty() {
+        return EMPTY;
+    }
+
+    public static DiscountResolutionTable of(Collection<StudentDiscount> discounts) {
+        if (discounts.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Load factor <= 0.5 keeps probe chains short
+        int capacity = Integer.highestOneBit(Math.max(2, discounts.size()) * 2 - 1) << 1;
+        long[] keys = new long[capacity];
+        StudentDiscount[] values = new StudentDiscount[capacity];
+        int mask = capacity - 1;
+        int size = 0;
+
+        for (StudentDiscount discount : discounts) {
+            long key = pack(discount.getStudent().getId(), discount.getFeeCategory().getId());
+            int slot = slot(key, mask);
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == null) {
+                keys[slot] = key;
+                values[slot] = discount;
+                size++;
+            }
+        }
+        return new DiscountResolutionTable(keys, values, size);
+    }
+
+    /**
+     * The discount for the pair, or {@code null} if the student has none for
+     * the category.
+     */
+    public StudentDiscount get(long studentId, long categoryId) {
+        if (size == 0) {
+            return null;
+        }
+        long key = pack(studentId, categoryId);
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public BigDecimal discountFor(long studentId, long categoryId, BigDecimal originalAmount) {
+        StudentDiscount discount = get(studentId, categoryId);
+        return discount != null ? discount.calculateDiscount(originalAmount) : BigDecimal.ZERO;
+    }
+
+    public Money discountFor(long studentId, long categoryId, Money originalAmount) {
+        StudentDiscount discount = get(studentId, categoryId);
+        return discount != null ? discount.calculateDiscount(originalAmount) : Money.ZERO;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static long pack(long studentId, long categoryId) {
+        if (studentId < 0 || studentId > MAX_ID || categoryId < 0 || categoryId > MAX_ID) {
+            throw new IllegalArgumentException("Id out of range for discount key: " + studentId + "/" + categoryId);
+        }
+        return studentId << 32 | categoryId;
+    }
+
+    private static int slot(long key, int mask) {
+        // Fibonacci hashing spreads the packed ids across the table
+        return (int) ((key * 0x9E37_79B9_7F4A_7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,309 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.model.FeeCubeCell;
+import com.saqib.school.fee.model.FeeCubeDimension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar in-memory cube of fee amounts by class, fee category and issue
+ * month. Each measure is a dense {@code long[]} of paisa indexed by the
+ * (class, category, month) position, with months innermost so a slice over
+ * months is a contiguous run. Axes map ids to positions and double their
+ * capacity when full, re-laying out the columns. Reads and incremental
+ * updates share a read/write lock.
+ */
+public final class FeeAnalyticsCube {
+
+    private static final int MEASURES = 4;
+    private static final int ISSUED = 0;
+    private static final int DISCOUNTED = 1;
+    private static final int NET = 2;
+    private static final int COLLECTED = 3;
+
+    // Rough per-entry cost of a boxed key in the position map
+    private static final int MAP_ENTRY_BYTES = 48;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LocalDateTime builtAt;
+    private final Axis classes = new Axis(16);
+    private final Axis categories = new Axis(16);
+    private final Axis months = new Axis(32);
+    private long[][] columns;
+
+    public FeeAnalyticsCube(LocalDateTime builtAt) {
+        this.builtAt = builtAt;
+        this.columns = new long[MEASURES][cellCapacity()];
+    }
+
+    public LocalDateTime builtAt() {
+        return builtAt;
+    }
+
+    /**
+     * Adds signed amounts in paisa to one cell, creating axis positions as
+     * needed. Class id 0 stands for students without an active enrollment.
+     */
+    public void add(long classId, String classLabel, long categoryId, String categoryLabel, YearMonth month,
+                    long issued, long discounted, long net, long collected) {
+        lock.writeLock().lock();
+        try {
+            int c = position(classes, classId, classLabel);
+            int k = position(categories, categoryId, categoryLabel);
+            int m = position(months, monthKey(month), month.toString());
+            int cell = cell(c, k, m);
+            columns[ISSUED][cell] += issued;
+            columns[DISCOUNTED][cell] += discounted;
+            columns[NET][cell] += net;
+            columns[COLLECTED][cell] += collected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates the cells matching the filters by the row dimension and, when
+     * given, the column dimension. Any filter may be null.
+     */
+    public PivotResult pivot(FeeCubeDimension rowDimension, FeeCubeDimension columnDimension,
+                             Long classId, Long categoryId, YearMonth fromMonth, YearMonth toMonth) {
+        lock.readLock().lock();
+        try {
+            int[] classRange = range(classes, classId);
+            int[] categoryRange = range(categories, categoryId);
+            boolean[] monthIncluded = new boolean[months.size];
+            long fromKey = fromMonth != null ? monthKey(fromMonth) : Long.MIN_VALUE;
+            long toKey = toMonth != null ? monthKey(toMonth) : Long.MAX_VALUE;
+            for (int m = 0; m < months.size; m++) {
+                monthIncluded[m] = months.keys[m] >= fromKey && months.keys[m] <= toKey;
+            }
+
+            Axis rowAxis = axis(rowDimension);
+            Axis columnAxis = columnDimension != null ? axis(columnDimension) : null;
+            int columnCount = columnAxis != null ? columnAxis.size : 1;
+            long[] sums = new long[rowAxis.size * columnCount * MEASURES];
+            long[] totals = new long[MEASURES];
+
+            int[] positions = new int[3];
+            for (int c = classRange[0]; c < classRange[1]; c++) {
+                positions[0] = c;
+                for (int k = categoryRange[0]; k < categoryRange[1]; k++) {
+                    positions[1] = k;
+                    int base = cell(c, k, 0);
+                    for (int m = 0; m < months.size; m++) {
+                        if (!monthIncluded[m]) {
+                            continue;
+                        }
+                        positions[2] = m;
+                        int row = positions[rowDimension.ordinal()];
+                        int column = columnDimension != null ? positions[columnDimension.ordinal()] : 0;
+                        int slot = (row * columnCount + column) * MEASURES;
+                        for (int measure = 0; measure < MEASURES; measure++) {
+                            long value = columns[measure][base + m];
+                            sums[slot + measure] += value;
+                            totals[measure] += value;
+                        }
+                    }
+                }
+            }
+
+            List<FeeCubeCell> cells = new ArrayList<>();
+            int[] columnOrder = columnAxis != null ? columnAxis.sortedPositions(columnDimension) : new int[]{0};
+            for (int row : rowAxis.sortedPositions(rowDimension)) {
+                for (int column : columnOrder) {
+                    int slot = (row * columnCount + column) * MEASURES;
+                    if (isZero(sums, slot)) {
+                        continue;
+                    }
+                    FeeCubeCell cell = toCell(sums, slot);
+                    cell.setRowKey(rowAxis.key(rowDimension, row));
+                    cell.setRowLabel(rowAxis.labels[row]);
+                    if (columnAxis != null) {
+                        cell.setColumnKey(columnAxis.key(columnDimension, column));
+                        cell.setColumnLabel(columnAxis.labels[column]);
+                    }
+                    cells.add(cell);
+                }
+            }
+            return new PivotResult(cells, toCell(totals, 0));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Footprint footprint() {
+        lock.readLock().lock();
+        try {
+            int populated = 0;
+            for (int c = 0; c < classes.size; c++) {
+                for (int k = 0; k < categories.size; k++) {
+                    int base = cell(c, k, 0);
+                    for (int m = 0; m < months.size; m++) {
+                        for (int measure = 0; measure < MEASURES; measure++) {
+                            if (columns[measure][base + m] != 0) {
+                                populated++;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            long measureBytes = (long) MEASURES * cellCapacity() * Long.BYTES;
+            long dictionaryBytes = classes.bytes() + categories.bytes() + months.bytes();
+            return new Footprint(classes.size, categories.size, months.size, cellCapacity(), populated,
+                                 measureBytes, dictionaryBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int position(Axis axis, long key, String label) {
+        int position = axis.positionOf(key);
+        if (position >= 0) {
+            return position;
+        }
+        if (axis.size == axis.capacity()) {
+            int classCapacity = classes.capacity();
+            int categoryCapacity = categories.capacity();
+            int monthCapacity = months.capacity();
+            axis.grow();
+            relayout(classCapacity, categoryCapacity, monthCapacity);
+        }
+        return axis.append(key, label);
+    }
+
+    // Copies each (class, category) run of months into the layout for the new capacities
+    private void relayout(int classCapacity, int categoryCapacity, int monthCapacity) {
+        long[][] grown = new long[MEASURES][cellCapacity()];
+        for (int c = 0; c < classes.size; c++) {
+            for (int k = 0; k < categories.size; k++) {
+                int from = (c * categoryCapacity + k) * monthCapacity;
+                int to = cell(c, k, 0);
+                for (int measure = 0; measure < MEASURES; measure++) {
+                    System.arraycopy(columns[measure], from, grown[measure], to, months.size);
+                }
+            }
+        }
+        columns = grown;
+    }
+
+    private int cellCapacity() {
+        return Math.multiplyExact(Math.multiplyExact(classes.capacity(), categories.capacity()), months.capacity());
+    }
+
+    private int cell(int c, int k, int m) {
+        return (c * categories.capacity() + k) * months.capacity() + m;
+    }
+
+    private Axis axis(FeeCubeDimension dimension) {
+        return switch (dimension) {
+            case CLASS -> classes;
+            case CATEGORY -> categories;
+            case MONTH -> months;
+        };
+    }
+
+    private static int[] range(Axis axis, Long key) {
+        if (key == null) {
+            return new int[]{0, axis.size};
+        }
+        int position = axis.positionOf(key);
+        return position >= 0 ? new int[]{position, position + 1} : new int[]{0, 0};
+    }
+
+    private static long monthKey(YearMonth month) {
+        return month.getYear() * 12L + month.getMonthValue() - 1;
+    }
+
+    private static boolean isZero(long[] values, int offset) {
+        for (int measure = 0; measure < MEASURES; measure++) {
+            if (values[offset + measure] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FeeCubeCell toCell(long[] values, int offset) {
+        return FeeCubeCell.builder()
+            .issued(BigDecimal.valueOf(values[offset + ISSUED], 2))
+            .discounted(BigDecimal.valueOf(values[offset + DISCOUNTED], 2))
+            .net(BigDecimal.valueOf(values[offset + NET], 2))
+            .collected(BigDecimal.valueOf(values[offset + COLLECTED], 2))
+            .outstanding(BigDecimal.valueOf(values[offset + NET] - values[offset + COLLECTED], 2))
+            .build();
+    }
+
+    public record PivotResult(List<FeeCubeCell> cells, FeeCubeCell totals) {
+    }
+
+    public record Footprint(int classes, int categories, int months, int allocatedCells, int populatedCells,
+                            long measureBytes, long dictionaryBytes) {
+    }
+
+    private static final class Axis {
+
+        private final Map<Long, Integer> positions = new HashMap<>();
+        private long[] keys;
+        private String[] labels;
+        private int size;
+
+        Axis(int capacity) {
+            this.keys = new long[capacity];
+            this.labels = new String[capacity];
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        int positionOf(long key) {
+            Integer position = positions.get(key);
+            return position != null ? position : -1;
+        }
+
+        int append(long key, String label) {
+            keys[size] = key;
+            labels[size] = label;
+            positions.put(key, size);
+            return size++;
+        }
+
+        void grow() {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            labels = Arrays.copyOf(labels, labels.length * 2);
+        }
+
+        String key(FeeCubeDimension dimension, int position) {
+            return dimension == FeeCubeDimension.MONTH ? labels[position] : String.valueOf(keys[position]);
+        }
+
+        // Months in calendar order, classes and categories by label
+        int[] sortedPositions(FeeCubeDimension dimension) {
+            Comparator<Integer> order = dimension == FeeCubeDimension.MONTH
+                ? Comparator.comparingLong(position -> keys[position])
+                : Comparator.comparing((Integer position) -> labels[position],
+                                       Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingLong(position -> keys[position]);
+            return IntStream.range(0, size).boxed().sorted(order).mapToInt(Integer::intValue).toArray();
+        }
+
+        long bytes() {
+            long labelBytes = 0;
+            for (int i = 0; i < size; i++) {
+                labelBytes += labels[i] != null ? labels[i].length() : 0;
+            }
+            return (long) capacity() * (Long.BYTES + Integer.BYTES) + labelBytes + (long) size * MAP_ENTRY_BYTES;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.audit.Auditable;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent;
+import com.saqib.school.fee.event.FeeVoucherCancelledEvent;
+import com.saqib.school.fee.event.FeeVouchersIssuedEvent;
+import com.saqib.school.fee.model.FeeCubeDimension;
+import com.saqib.school.fee.model.FeeCubePivotResponse;
+import com.saqib.school.fee.model.FeeCubeStats;
+import com.saqib.school.fee.repository.FeeAnalyticsRepository;
+import com.saqib.school.fee.repository.FeeAnalyticsRepository.CubeLine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves class x category x month pivots of issued, discounted, collected and
+ * outstanding amounts from a {@link FeeAnalyticsCube} without touching the
+ * database. The cube is built by one streaming scan at startup and kept
+ * current from the fee events once their transactions commit. A rebuild scans
+ * without blocking those events; vouchers they touch while it runs are re-read
+ * before the new cube is published instead of replaying the deltas. Collections
+ * are spread over a voucher's lines in proportion to their net amounts and
+ * counted in the voucher's issue month.
+ * <p>
+ * Deltas come only from this node's events and are applied on
+ * {@code feeAnalyticsExecutor}, so the committing request never waits on the
+ * cube. Changes made through other nodes appear after the next rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeAnalyticsService {
+
+    private static final int VOUCHER_ID_CHUNK = 1000;
+
+    private static final String FRESHNESS =
+        "Built at builtAt, plus changes committed through this node since; " +
+        "other nodes' changes appear after the next rebuild";
+
+    private final FeeAnalyticsRepository feeAnalyticsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor feeAnalyticsExecutor;
+
+    private final AtomicReference<FeeAnalyticsCube> current =
+        new AtomicReference<>(new FeeAnalyticsCube(LocalDateTime.now()));
+    // Serialises deltas with each other and with publishing a rebuilt cube
+    private final Object updateLock = new Object();
+    private final Object rebuildLock = new Object();
+    // Deltas seen while a rebuild runs, whose vouchers it re-reads before publishing; null otherwise
+    private volatile Queue<PendingDelta> rebuildBuffer;
+    private final AtomicLong deltasApplied = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long vouchersLoaded;
+    private volatile long lastRebuildMillis;
+
+    public FeeCubePivotResponse pivot(FeeCubeDimension rows, FeeCubeDimension columns, Long classId,
+                                      Long categoryId, YearMonth fromMonth, YearMonth toMonth) {
+        if (rows == columns) {
+            throw new BadRequestException("Rows and columns must be different dimensions");
+        }
+        if (fromMonth != null && toMonth != null && fromMonth.isAfter(toMonth)) {
+            throw new BadRequestException("From month must not be after to month");
+        }
+
+        long startedAt = System.nanoTime();
+        FeeAnalyticsCube cube = current.get();
+        FeeAnalyticsCube.PivotResult result = cube.pivot(rows, columns, classId, categoryId, fromMonth, toMonth);
+
+        return FeeCubePivotResponse.builder()
+            .rows(rows)
+            .columns(columns)
+            .classId(classId)
+            .categoryId(categoryId)
+            .fromMonth(fromMonth)
+            .toMonth(toMonth)
+            .cells(result.cells())
+            .totals(result.totals())
+            .builtAt(cube.builtAt())
+            .elapsedMicros((System.nanoTime() - startedAt) / 1_000)
+            .freshness(FRESHNESS)
+            .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onVouchersIssued(FeeVouchersIssuedEvent event) {
+        applyLines(event.voucherIds(), Map.of(), 1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onVoucherCancelled(FeeVoucherCancelledEvent event) {
+        applyLines(List.of(event.voucherId()), Map.of(), -1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentsPosted(FeePaymentsPostedEvent event) {
+        Map<Long, BigDecimal> paidByVoucher = new LinkedHashMap<>();
+        for (FeePaymentsPostedEvent.PostedPayment payment : event.payments()) {
+            paidByVoucher.merge(payment.voucherId(), payment.amount(), BigDecimal::add);
+        }
+        applyLines(paidByVoucher.keySet(), paidByVoucher, 0);
+    }
+
+    /**
+     * Replaces the cube with one built from the transaction tables. Readers
+     * keep using the old cube, and deltas keep landing on it, until the new
+     * one is published.
+     */
+    @Auditable(action = "REBUILD_FEE_ANALYTICS_CUBE", entityType = "FeeVoucher")
+    public FeeCubeStats rebuild() {
+        synchronized (rebuildLock) {
+            long startedAt = System.nanoTime();
+            Queue<PendingDelta> buffer = new ConcurrentLinkedQueue<>();
+            rebuildBuffer = buffer;
+            try {
+                CubeRebuild build = new CubeRebuild(new FeeAnalyticsCube(LocalDateTime.now()));
+                // One snapshot for the scan and for reading what it counted for vouchers changed since
+                TransactionTemplate snapshot = new TransactionTemplate(transactionTemplate.getTransactionManager());
+                snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+                snapshot.setReadOnly(true);
+                Long loaded = snapshot.execute(status -> {
+                    VoucherAccumulator accumulator = new VoucherAccumulator(build.cube);
+                    feeAnalyticsRepository.streamLines(accumulator::accept);
+                    accumulator.flush();
+
+                    build.settle(drain(buffer));
+                    synchronized (updateLock) {
+                        // Deltas still waiting on the lock are in the buffer and will skip this cube
+                        build.settle(drain(buffer));
+                        current.set(build.cube);
+                        rebuildBuffer = null;
+                    }
+                    return accumulator.vouchers;
+                });
+                vouchersLoaded = loaded;
+            } finally {
+                rebuildBuffer = null;
+            }
+            rebuilds.incrementAndGet();
+            lastRebuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        }
+
+        FeeCubeStats stats = stats();
+        log.info("Fee analytics cube built: {} vouchers, {} populated cells, {} bytes in {} ms",
+                 stats.getVouchersLoaded(), stats.getPopulatedCells(),
+                 stats.getMeasureBytes() + stats.getDictionaryBytes(), stats.getLastRebuildMillis());
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Corrects drift from students changing class
+    @Scheduled(cron = "${app.fee.analytics.rebuild-cron:0 0 2 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public FeeCubeStats stats() {
+        FeeAnalyticsCube cube = current.get();
+        FeeAnalyticsCube.Footprint footprint = cube.footprint();
+        return FeeCubeStats.builder()
+            .builtAt(cube.builtAt())
+            .classes(footprint.classes())
+            .categories(footprint.categories())
+            .months(footprint.months())
+            .allocatedCells(footprint.allocatedCells())
+            .populatedCells(footprint.populatedCells())
+            .measureBytes(footprint.measureBytes())
+            .dictionaryBytes(footprint.dictionaryBytes())
+            .vouchersLoaded(vouchersLoaded)
+            .deltasApplied(deltasApplied.get())
+            .rebuilds(rebuilds.get())
+            .lastRebuildMillis(lastRebuildMillis)
+            .freshness(FRESHNESS)
+            .build();
+    }
+
+    /**
+     * Queues adding (sign 1) or removing (sign -1) the vouchers' lines, or with
+     * sign 0 only spreading the given payment amounts over them. The delta is
+     * registered with a running rebuild here, before the listener returns.
+     */
+    private void applyLines(Collection<Long> voucherIds, Map<Long, BigDecimal> payments, int sign) {
+        List<Long> ids = new ArrayList<>(voucherIds);
+        PendingDelta delta = new PendingDelta(ids);
+        Queue<PendingDelta> buffer = rebuildBuffer;
+        if (buffer != null) {
+            buffer.add(delta);
+        }
+        try {
+            feeAnalyticsExecutor.execute(() -> apply(delta, payments, sign));
+        } catch (TaskRejectedException e) {
+            // Shutting down; the cube is rebuilt from the database on the next start
+            log.warn("Dropped fee analytics delta for vouchers {}", ids, e);
+        }
+    }
+
+    private void apply(PendingDelta delta, Map<Long, BigDecimal> payments, int sign) {
+        List<Long> ids = delta.voucherIds;
+        try {
+            synchronized (updateLock) {
+                FeeAnalyticsCube cube = current.get();
+                if (delta.settledInto == cube) {
+                    // Rebuilt from the vouchers as they were after this change
+                    return;
+                }
+                for (int from = 0; from < ids.size(); from += VOUCHER_ID_CHUNK) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + VOUCHER_ID_CHUNK, ids.size()));
+                    VoucherAccumulator accumulator = new VoucherAccumulator(cube, payments, sign);
+                    feeAnalyticsRepository.findLines(chunk).forEach(accumulator::accept);
+                    accumulator.flush();
+                }
+            }
+            deltasApplied.incrementAndGet();
+        } catch (RuntimeException e) {
+            // The change itself has committed; the cube catches up on the next rebuild
+            log.error("Failed to apply fee analytics delta for vouchers {}", ids, e);
+        }
+    }
+
+    private static List<PendingDelta> drain(Queue<PendingDelta> buffer) {
+        List<PendingDelta> deltas = new ArrayList<>();
+        PendingDelta delta;
+        while ((delta = buffer.poll()) != null) {
+            deltas.add(delta);
+        }
+        return deltas;
+    }
+
+    private List<CubeLine> findLiveLines(List<Long> voucherIds) {
+        List<CubeLine> lines = new ArrayList<>();
+        for (int from = 0; from < voucherIds.size(); from += VOUCHER_ID_CHUNK) {
+            lines.addAll(feeAnalyticsRepository.findLiveLines(
+                voucherIds.subList(from, Math.min(from + VOUCHER_ID_CHUNK, voucherIds.size()))));
+        }
+        return lines;
+    }
+
+    /**
+     * A delta reported while a rebuild runs. Once the rebuild has re-read its
+     * vouchers, {@code settledInto} names the cube that already reflects it.
+     */
+    private static final class PendingDelta {
+
+        private final List<Long> voucherIds;
+        private volatile FeeAnalyticsCube settledInto;
+
+        PendingDelta(List<Long> voucherIds) {
+            this.voucherIds = voucherIds;
+        }
+    }
+
+    /**
+     * A cube being rebuilt. Settling a voucher swaps what the cube counts for
+     * it, the scan's snapshot the first time, for its committed state now.
+     * Must be called inside the rebuild's snapshot transaction.
+     */
+    private final class CubeRebuild {
+
+        private final FeeAnalyticsCube cube;
+        // Lines counted for each voucher settled so far, empty when it is cancelled
+        private final Map<Long, List<CubeLine>> settled = new HashMap<>();
+        private final TransactionTemplate latest;
+
+        CubeRebuild(FeeAnalyticsCube cube) {
+            this.cube = cube;
+            this.latest = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            this.latest.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.latest.setReadOnly(true);
+        }
+
+        void settle(List<PendingDelta> deltas) {
+            Set<Long> voucherIds = new LinkedHashSet<>();
+            deltas.forEach(delta -> voucherIds.addAll(delta.voucherIds));
+            if (voucherIds.isEmpty()) {
+                return;
+            }
+
+            List<Long> ids = new ArrayList<>(voucherIds);
+            List<CubeLine> counted = new ArrayList<>(
+                findLiveLines(ids.stream().filter(id -> !settled.containsKey(id)).toList()));
+            ids.stream().filter(settled::containsKey).forEach(id -> counted.addAll(settled.get(id)));
+            List<CubeLine> now = latest.execute(status -> findLiveLines(ids));
+
+            write(counted, -1);
+            write(now, 1);
+            ids.forEach(id -> settled.put(id, new ArrayList<>()));
+            now.forEach(line -> settled.get(line.voucherId()).add(line));
+            deltas.forEach(delta -> delta.settledInto = cube);
+        }
+
+        private void write(List<CubeLine> lines, int sign) {
+            VoucherAccumulator accumulator = new VoucherAccumulator(cube, null, sign);
+            lines.forEach(accumulator::accept);
+            accumulator.flush();
+        }
+    }
+
+    /**
+     * Collects one voucher's lines at a time and writes them to the cube once
+     * the voucher is complete, spreading its collected amount over the lines.
+     */
+    private static final class VoucherAccumulator {
+
+        private final FeeAnalyticsCube cube;
+        private final Map<Long, BigDecimal> payments;
+        private final int sign;
+        private final List<CubeLine> lines = new ArrayList<>();
+        private long vouchers;
+
+        // Full build: every line counts once and collections come from the voucher's paid amount
+        VoucherAccumulator(FeeAnalyticsCube cube) {
+            this(cube, null, 1);
+        }
+
+        VoucherAccumulator(FeeAnalyticsCube cube, Map<Long, BigDecimal> payments, int sign) {
+            this.cube = cube;
+            this.payments = payments;
+            this.sign = sign;
+        }
+
+        void accept(CubeLine line) {
+            if (!lines.isEmpty() && lines.get(0).voucherId() != line.voucherId()) {
+                flush();
+            }
+            lines.add(line);
+        }
+
+        void flush() {
+            if (lines.isEmpty()) {
+                return;
+            }
+
+            CubeLine first = lines.get(0);
+            long collected = Money.toPaisa(payments != null && sign == 0 ? payments.get(first.voucherId()) : first.paidAmount());
+            long[] weights = new long[lines.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = Money.toPaisa(lines.get(i).finalAmount());
+            }
+            long[] shares = allocate(collected, weights);
+
+            // Payments only move the collected measure; issues and cancellations move everything
+            int collectedSign = sign == 0 ? 1 : sign;
+            YearMonth month = YearMonth.from(first.issueDate());
+            for (int i = 0; i < lines.size(); i++) {
+                CubeLine line = lines.get(i);
+                cube.add(line.classId(), line.classLabel(), line.categoryId(), line.categoryName(), month,
+                         sign * Money.toPaisa(line.originalAmount()), sign * Money.toPaisa(line.discountAmount()),
+                         sign * weights[i], collectedSign * shares[i]);
+            }
+            lines.clear();
+            vouchers++;
+        }
+
+        // Proportional to the weights; the rounding remainder goes to the last line
+        private static long[] allocate(long amount, long[] weights) {
+            long[] shares = new long[weights.length];
+            long total = 0;
+            for (long weight : weights) {
+                total += weight;
+            }
+            if (total == 0) {
+                shares[shares.length - 1] = amount;
+                return shares;
+            }
+            long allocated = 0;
+            for (int i = 0; i < weights.length - 1; i++) {
+                shares[i] = BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(weights[i]))
+                    .divide(BigDecimal.valueOf(total), 0, RoundingMode.DOWN).longValueExact();
+                allocated += shares[i];
+            }
+            shares[shares.length - 1] = amount - allocated;
+            return shares;
+        }
+    }
+}
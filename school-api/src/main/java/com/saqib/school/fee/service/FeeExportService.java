@@ -0,0 +1,148 @@
+package com.saqib.school.fee.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saqib.school.fee.model.ExportFormat;
+import com.saqib.school.fee.model.PaymentExportFilter;
+import com.saqib.school.fee.model.VoucherExportFilter;
+import com.saqib.school.fee.repository.FeePaymentRepository;
+import com.saqib.school.fee.repository.FeePaymentRepository.PaymentExportView;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.FeeVoucherRepository.VoucherExportView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Voucher and payment exports. Rows are read through read-only projection
+ * streams with a JDBC fetch size and written to the output as they arrive,
+ * so heap use does not grow with the number of rows exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeExportService {
+
+    private static final List<ExportColumn<VoucherExportView>> VOUCHER_COLUMNS = List.of(
+        new ExportColumn<>("id", VoucherExportView::getId),
+        new ExportColumn<>("voucherNumber", VoucherExportView::getVoucherNumber),
+        new ExportColumn<>("studentId", VoucherExportView::getStudentId),
+        new ExportColumn<>("registrationNumber", VoucherExportView::getRegistrationNumber),
+        new ExportColumn<>("studentName", VoucherExportView::getStudentName),
+        new ExportColumn<>("voucherType", VoucherExportView::getVoucherType),
+        new ExportColumn<>("monthYear", VoucherExportView::getMonthYear),
+        new ExportColumn<>("issueDate", VoucherExportView::getIssueDate),
+        new ExportColumn<>("dueDate", VoucherExportView::getDueDate),
+        new ExportColumn<>("totalAmount", VoucherExportView::getTotalAmount),
+        new ExportColumn<>("fineAmount", VoucherExportView::getFineAmount),
+        new ExportColumn<>("paidAmount", VoucherExportView::getPaidAmount),
+        new ExportColumn<>("status", VoucherExportView::getStatus),
+        new ExportColumn<>("paymentDate", VoucherExportView::getPaymentDate)
+    );
+
+    private static final List<ExportColumn<PaymentExportView>> PAYMENT_COLUMNS = List.of(
+        new ExportColumn<>("id", PaymentExportView::getId),
+        new ExportColumn<>("voucherId", PaymentExportView::getVoucherId),
+        new ExportColumn<>("voucherNumber", PaymentExportView::getVoucherNumber),
+        new ExportColumn<>("registrationNumber", PaymentExportView::getRegistrationNumber),
+        new ExportColumn<>("studentName", PaymentExportView::getStudentName),
+        new ExportColumn<>("paymentMethod", PaymentExportView::getPaymentMethod),
+        new ExportColumn<>("amount", PaymentExportView::getAmount),
+        new ExportColumn<>("paymentDate", PaymentExportView::getPaymentDate),
+        new ExportColumn<>("referenceNumber", PaymentExportView::getReferenceNumber),
+        new ExportColumn<>("bankName", PaymentExportView::getBankName),
+        new ExportColumn<>("receivedBy", PaymentExportView::getReceivedBy)
+    );
+
+    private final FeeVoucherRepository feeVoucherRepository;
+    private final FeePaymentRepository feePaymentRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long exportVouchers(VoucherExportFilter filter, ExportFormat format, OutputStream out) {
+        try (Stream<VoucherExportView> rows = feeVoucherRepository.streamForExport(
+                filter.getStudentId(), filter.getStatus(), filter.getVoucherType(), filter.getMonthYear(),
+                filter.getStartDate(), filter.getEndDate())) {
+            long written = write(rows, VOUCHER_COLUMNS, format, out);
+            log.info("Exported {} vouchers as {}", written, format);
+            return written;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportPayments(PaymentExportFilter filter, ExportFormat format, OutputStream out) {
+        try (Stream<PaymentExportView> rows = feePaymentRepository.streamForExport(
+                filter.getStartDate(), filter.getEndDate(), filter.getPaymentMethod(), filter.getReceivedBy(),
+                filter.getVoucherId())) {
+            long written = write(rows, PAYMENT_COLUMNS, format, out);
+            log.info("Exported {} payments as {}", written, format);
+            return written;
+        }
+    }
+
+    private <T> long write(Stream<T> rows, List<ExportColumn<T>> columns, ExportFormat format, OutputStream out) {
+        // Not closed here: the caller owns the response stream
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long[] written = {0};
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, columns.stream().map(ExportColumn::name).toList());
+            }
+            rows.forEach(row -> {
+                try {
+                    if (format == ExportFormat.CSV) {
+                        writeCsvLine(writer, columns.stream().map(column -> column.value().apply(row)).toList());
+                    } else {
+                        Map<String, Object> record = new LinkedHashMap<>();
+                        columns.forEach(column -> record.put(column.name(), column.value().apply(row)));
+                        writer.write(objectMapper.writeValueAsString(record));
+                        writer.write('\n');
+                    }
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written[0];
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(escapeCsv(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record ExportColumn<T>(String name, Function<T, Object> value) {
+    }
+}
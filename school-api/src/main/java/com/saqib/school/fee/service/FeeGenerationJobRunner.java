@@ -0,0 +1,319 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeGenerationJob;
+import com.saqib.school.fee.entity.FeeGenerationJobClass;
+import com.saqib.school.fee.model.FineCalculationRequest;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse.ClassGenerationResult;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse.GenerationStatus;
+import com.saqib.school.fee.repository.FeeGenerationJobClassRepository;
+import com.saqib.school.fee.repository.FeeGenerationJobRepository;
+import com.saqib.school.fee.service.MonthlyVoucherGenerationService.ClassCohort;
+import com.saqib.school.fee.service.MonthlyVoucherGenerationService.GenerationRun;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes persisted {@link FeeGenerationJob}s in the background. A job is
+ * claimed in the database before it runs and its lease kept alive by a
+ * heartbeat, so with several nodes each job runs on exactly one. Each class is
+ * checkpointed in its own transaction once generated, and every voucher chunk
+ * bumps the job's written counter in the chunk's transaction, so progress stays
+ * exact across crashes. Re-running a job only touches unfinished classes, and
+ * the engine skips students already issued a voucher for the month. Every
+ * write after the claim checks the lease is still this node's; once another
+ * node has taken the job over, the stale run rolls back and stops.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeGenerationJobRunner {
+
+    private final FeeGenerationJobRepository feeGenerationJobRepository;
+    private final FeeGenerationJobClassRepository feeGenerationJobClassRepository;
+    private final MonthlyVoucherGenerationService monthlyVoucherGenerationService;
+    private final FeeVoucherService feeVoucherService;
+    private final FineCalculationService fineCalculationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor feeJobExecutor;
+    private final ThreadPoolTaskExecutor feeGenerationExecutor;
+
+    // Host and process; a restarted node gets a new id and waits out the lease like any other
+    private final String nodeId = nodeId();
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.fee.generation.job-lease-seconds:120}")
+    private long leaseSeconds;
+
+    /**
+     * Claims the job in the database and queues it for execution. Returns false
+     * if it is running here or on another live node, or is already completed.
+     * Inside a transaction the claim joins it and the job starts after commit.
+     */
+    public boolean dispatch(Long jobId) {
+        if (!activeJobs.add(jobId)) {
+            return false;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Integer claimed = transactionTemplate.execute(status ->
+                feeGenerationJobRepository.claim(jobId, nodeId, now, now.minusSeconds(leaseSeconds)));
+            if (claimed == null || claimed == 0) {
+                activeJobs.remove(jobId);
+                return false;
+            }
+        } catch (RuntimeException e) {
+            activeJobs.remove(jobId);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        execute(jobId);
+                    } else {
+                        activeJobs.remove(jobId);
+                    }
+                }
+            });
+        } else {
+            execute(jobId);
+        }
+        return true;
+    }
+
+    public boolean isActive(Long jobId) {
+        return activeJobs.contains(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        // Jobs held by live nodes fail the claim; only waiting and abandoned ones are taken
+        List<Long> jobIds = feeGenerationJobRepository.findIdsByStatusIn(
+            List.of(FeeGenerationJob.JobStatus.QUEUED, FeeGenerationJob.JobStatus.RUNNING)).stream()
+            .filter(this::dispatch)
+            .toList();
+        if (!jobIds.isEmpty()) {
+            log.info("Resumed {} interrupted fee generation jobs: {}", jobIds.size(), jobIds);
+        }
+    }
+
+    /**
+     * Keeps the lease on every job this node holds, including ones still
+     * waiting for an executor thread, so no other node takes them over.
+     */
+    @Scheduled(fixedDelayString = "${app.fee.generation.job-heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (activeJobs.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            feeGenerationJobRepository.heartbeat(List.copyOf(activeJobs), nodeId, LocalDateTime.now()));
+    }
+
+    private void execute(Long jobId) {
+        try {
+            feeJobExecutor.execute(() -> run(jobId));
+        } catch (RuntimeException e) {
+            // The claim lapses with the missing heartbeat and the job is picked up again later
+            activeJobs.remove(jobId);
+            throw e;
+        }
+    }
+
+    private void run(Long jobId) {
+        try {
+            JobContext context = transactionTemplate.execute(status -> startJob(jobId));
+            GenerationRun run = monthlyVoucherGenerationService.prepareRun(context.request(), context.createdById());
+            Map<Long, ClassCohort> cohorts = monthlyVoucherGenerationService.loadCohorts(context.request()).stream()
+                .collect(Collectors.toMap(ClassCohort::classId, Function.identity()));
+
+            List<CompletableFuture<ClassGenerationResult>> futures = context.pendingClasses().stream()
+                .map(checkpoint -> CompletableFuture.supplyAsync(
+                    () -> runClass(jobId, checkpoint, cohorts.get(checkpoint.classId()), run), feeGenerationExecutor))
+                .toList();
+            long failedClasses = futures.stream()
+                .map(CompletableFuture::join)
+                .filter(result -> result.getStatus() == GenerationStatus.FAILED)
+                .count();
+
+            if (failedClasses > 0) {
+                finish(jobId, FeeGenerationJob.JobStatus.FAILED, failedClasses + " class(es) failed; resume the job to retry them");
+                return;
+            }
+
+            applyFinesIfOverdue(context.request());
+            finish(jobId, FeeGenerationJob.JobStatus.COMPLETED, null);
+            log.info("Fee generation job {} completed for {}", jobId, context.request().getMonthYear());
+        } catch (RuntimeException e) {
+            if (leaseLost(e)) {
+                log.warn("Fee generation job {} was taken over by another node; stopping here", jobId);
+                return;
+            }
+            log.error("Fee generation job {} failed", jobId, e);
+            finish(jobId, FeeGenerationJob.JobStatus.FAILED, e.getMessage());
+        } finally {
+            activeJobs.remove(jobId);
+        }
+    }
+
+    private JobContext startJob(Long jobId) {
+        FeeGenerationJob job = feeGenerationJobRepository.findById(jobId)
+            .orElseThrow(() -> new IllegalStateException("Fee generation job " + jobId + " no longer exists"));
+
+        requireLease(jobId, feeGenerationJobRepository.markStarted(jobId, nodeId, LocalDateTime.now()));
+        feeGenerationJobClassRepository.resetFailedClasses(jobId);
+
+        List<PendingClass> pendingClasses = feeGenerationJobClassRepository.findUnfinishedByJobId(jobId).stream()
+            .map(checkpoint -> new PendingClass(checkpoint.getId(), checkpoint.getClassId(), checkpoint.getClassName()))
+            .toList();
+
+        MonthlyVoucherGenerationRequest request = MonthlyVoucherGenerationRequest.builder()
+            .monthYear(job.getMonthYear())
+            .dueDate(job.getDueDate())
+            .classIds(FeeGenerationJobService.parseIds(job.getClassIds()))
+            .studentIds(FeeGenerationJobService.parseIds(job.getStudentIds()))
+            .build();
+        return new JobContext(request, job.getCreatedBy().getId(), pendingClasses);
+    }
+
+    private ClassGenerationResult runClass(Long jobId, PendingClass checkpoint, ClassCohort cohort, GenerationRun run) {
+        // Students may have left the class since submission; an empty cohort finishes trivially
+        ClassCohort effectiveCohort = cohort != null
+            ? cohort
+            : new ClassCohort(checkpoint.classId(), checkpoint.className(), List.of());
+
+        ClassGenerationResult result = effectiveCohort.studentIds().isEmpty()
+            ? ClassGenerationResult.builder()
+                .classId(checkpoint.classId())
+                .className(checkpoint.className())
+                .status(GenerationStatus.COMPLETED)
+                .students(0)
+                .generatedVouchers(0)
+                .skippedStudents(0)
+                .failedStudents(0)
+                .totalAmount(Money.ZERO)
+                .elapsedMillis(0L)
+                .build()
+            : monthlyVoucherGenerationService.generateForClass(effectiveCohort, run,
+                written -> requireLease(jobId, feeGenerationJobRepository.addVouchersWritten(jobId, nodeId, written)));
+
+        transactionTemplate.executeWithoutResult(status -> checkpoint(jobId, checkpoint.checkpointId(), result));
+        return result;
+    }
+
+    private void checkpoint(Long jobId, Long checkpointId, ClassGenerationResult result) {
+        FeeGenerationJobClass checkpoint = feeGenerationJobClassRepository.findById(checkpointId)
+            .orElseThrow(() -> new IllegalStateException("Checkpoint " + checkpointId + " no longer exists"));
+
+        checkpoint.setStatus(switch (result.getStatus()) {
+            case COMPLETED -> FeeGenerationJobClass.ClassStatus.COMPLETED;
+            case NO_FEE_STRUCTURE -> FeeGenerationJobClass.ClassStatus.NO_FEE_STRUCTURE;
+            case FAILED -> FeeGenerationJobClass.ClassStatus.FAILED;
+        });
+        checkpoint.setStudents(result.getStudents());
+        checkpoint.setVouchersWritten(checkpoint.getVouchersWritten() + result.getGeneratedVouchers());
+        checkpoint.setSkippedStudents(result.getSkippedStudents());
+        checkpoint.setFailedStudents(result.getFailedStudents());
+        checkpoint.setTotalAmount(checkpoint.getTotalAmount().plus(result.getTotalAmount()));
+        checkpoint.setElapsedMillis(result.getElapsedMillis());
+        checkpoint.setErrorMessage(result.getErrorMessage());
+        checkpoint.setCompletedAt(checkpoint.isDone() ? LocalDateTime.now() : null);
+        feeGenerationJobClassRepository.save(checkpoint);
+
+        requireLease(jobId, checkpoint.isDone()
+            ? feeGenerationJobRepository.incrementCompletedClasses(jobId, nodeId)
+            : feeGenerationJobRepository.incrementFailedClasses(jobId, nodeId));
+    }
+
+    private void applyFinesIfOverdue(MonthlyVoucherGenerationRequest request) {
+        // Fines only apply when the vouchers are issued with a due date already behind us
+        if (!request.getDueDate().isBefore(LocalDate.now())) {
+            return;
+        }
+        List<Long> voucherIds = feeVoucherService.getPendingVoucherIdsByMonthYear(request.getMonthYear());
+        if (!voucherIds.isEmpty()) {
+            fineCalculationService.applyCalculatedFines(FineCalculationRequest.builder()
+                .calculationDate(LocalDate.now())
+                .voucherIds(voucherIds)
+                .build());
+        }
+    }
+
+    private void finish(Long jobId, FeeGenerationJob.JobStatus status, String lastError) {
+        try {
+            Integer updated = transactionTemplate.execute(tx ->
+                feeGenerationJobRepository.markFinished(jobId, nodeId, status, LocalDateTime.now(), lastError));
+            if (updated == null || updated == 0) {
+                log.warn("Fee generation job {} was taken over by another node; not recording {}", jobId, status);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not record final status {} for fee generation job {}", status, jobId, e);
+        }
+    }
+
+    // Throwing rolls back the write's transaction, so a stale run leaves nothing behind
+    private static void requireLease(Long jobId, int updated) {
+        if (updated == 0) {
+            throw new LeaseLostException(jobId);
+        }
+    }
+
+    private static boolean leaseLost(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LeaseLostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+
+    private static final class LeaseLostException extends RuntimeException {
+
+        LeaseLostException(Long jobId) {
+            super("Fee generation job " + jobId + " is no longer held by this node");
+        }
+    }
+
+    private record PendingClass(Long checkpointId, Long classId, String className) {
+    }
+
+    private record JobContext(MonthlyVoucherGenerationRequest request,
+                              Long createdById,
+                              List<PendingClass> pendingClasses) {
+    }
+}
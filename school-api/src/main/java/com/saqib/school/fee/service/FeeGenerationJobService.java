@@ -0,0 +1,187 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.fee.entity.FeeGenerationJob;
+import com.saqib.school.fee.entity.FeeGenerationJobClass;
+import com.saqib.school.fee.model.FeeGenerationJobResponse;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.repository.FeeGenerationJobClassRepository;
+import com.saqib.school.fee.repository.FeeGenerationJobRepository;
+import com.saqib.school.fee.service.MonthlyVoucherGenerationService.ClassCohort;
+import com.saqib.school.user.entity.User;
+import com.saqib.school.user.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeGenerationJobService {
+
+    private static final List<FeeGenerationJob.JobStatus> ACTIVE_STATUSES =
+        List.of(FeeGenerationJob.JobStatus.QUEUED, FeeGenerationJob.JobStatus.RUNNING);
+
+    private final FeeGenerationJobRepository feeGenerationJobRepository;
+    private final FeeGenerationJobClassRepository feeGenerationJobClassRepository;
+    private final MonthlyVoucherGenerationService monthlyVoucherGenerationService;
+    private final FeeGenerationJobRunner feeGenerationJobRunner;
+    private final UserService userService;
+
+    /**
+     * Persists a generation job with one checkpoint per class and hands it to
+     * the runner once the transaction commits. Only one job per month may be
+     * queued or running at a time.
+     */
+    @Transactional
+    public FeeGenerationJobResponse submit(MonthlyVoucherGenerationRequest request) {
+        if (feeGenerationJobRepository.existsByMonthYearAndStatusIn(request.getMonthYear(), ACTIVE_STATUSES)) {
+            throw new BadRequestException("A fee generation job for " + request.getMonthYear() + " is already in progress");
+        }
+
+        List<ClassCohort> cohorts = monthlyVoucherGenerationService.loadCohorts(request);
+        if (cohorts.isEmpty()) {
+            throw new BadRequestException("No active students found for voucher generation");
+        }
+
+        User currentUser = userService.getCurrentUser();
+        FeeGenerationJob job = feeGenerationJobRepository.save(FeeGenerationJob.builder()
+            .monthYear(request.getMonthYear())
+            .dueDate(request.getDueDate())
+            .classIds(joinIds(request.getClassIds()))
+            .studentIds(joinIds(request.getStudentIds()))
+            .totalClasses(cohorts.size())
+            .totalStudents(cohorts.stream().mapToInt(cohort -> cohort.studentIds().size()).sum())
+            .createdBy(currentUser)
+            .build());
+
+        feeGenerationJobClassRepository.saveAll(cohorts.stream()
+            .map(cohort -> FeeGenerationJobClass.builder()
+                .job(job)
+                .classId(cohort.classId())
+                .className(cohort.className())
+                .students(cohort.studentIds().size())
+                .build())
+            .toList());
+
+        feeGenerationJobRunner.dispatch(job.getId());
+        log.info("Queued fee generation job {} for {} ({} classes)", job.getId(), job.getMonthYear(), cohorts.size());
+        return toResponse(job, null);
+    }
+
+    @Transactional(readOnly = true)
+    public FeeGenerationJobResponse getJob(Long id) {
+        FeeGenerationJob job = findJobById(id);
+        return toResponse(job, feeGenerationJobClassRepository.findByJobId(id));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<FeeGenerationJobResponse> getJobs(String monthYear, Pageable pageable) {
+        Page<FeeGenerationJob> jobs = monthYear != null
+            ? feeGenerationJobRepository.findByMonthYear(monthYear, pageable)
+            : feeGenerationJobRepository.findAll(pageable);
+        return PageResponse.from(jobs.map(job -> toResponse(job, null)));
+    }
+
+    /**
+     * Re-runs the unfinished classes of a failed or interrupted job.
+     */
+    @Transactional
+    public FeeGenerationJobResponse resume(Long id) {
+        FeeGenerationJob job = findJobById(id);
+        if (job.getStatus() == FeeGenerationJob.JobStatus.COMPLETED) {
+            throw new BadRequestException("Fee generation job is already completed");
+        }
+        if (job.getStatus() == FeeGenerationJob.JobStatus.FAILED
+                && feeGenerationJobRepository.existsByMonthYearAndStatusIn(job.getMonthYear(), ACTIVE_STATUSES)) {
+            throw new BadRequestException("Another fee generation job for " + job.getMonthYear() + " is in progress");
+        }
+        if (!feeGenerationJobRunner.dispatch(id)) {
+            throw new BadRequestException("Fee generation job is already running");
+        }
+        log.info("Resumed fee generation job {}", id);
+        return toResponse(job, null);
+    }
+
+    static List<Long> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(ids.split(","))
+            .map(String::trim)
+            .map(Long::valueOf)
+            .toList();
+    }
+
+    private static String joinIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private FeeGenerationJob findJobById(Long id) {
+        return feeGenerationJobRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Fee Generation Job", "id", id));
+    }
+
+    private FeeGenerationJobResponse toResponse(FeeGenerationJob job, List<FeeGenerationJobClass> classes) {
+        int finishedClasses = job.getCompletedClasses() + job.getFailedClasses();
+        Double percentComplete = job.getTotalClasses() > 0
+            ? Math.round(finishedClasses * 1000d / job.getTotalClasses()) / 10d
+            : 0d;
+
+        Double vouchersPerSecond = null;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMillis = Duration.between(job.getStartedAt(), end).toMillis();
+            vouchersPerSecond = elapsedMillis > 0 ? job.getVouchersWritten() * 1000d / elapsedMillis : 0d;
+        }
+
+        return FeeGenerationJobResponse.builder()
+            .id(job.getId())
+            .monthYear(job.getMonthYear())
+            .dueDate(job.getDueDate())
+            .status(job.getStatus())
+            .totalClasses(job.getTotalClasses())
+            .completedClasses(job.getCompletedClasses())
+            .failedClasses(job.getFailedClasses())
+            .totalStudents(job.getTotalStudents())
+            .vouchersWritten(job.getVouchersWritten())
+            .percentComplete(percentComplete)
+            .vouchersPerSecond(vouchersPerSecond)
+            .submittedAt(job.getCreatedAt())
+            .startedAt(job.getStartedAt())
+            .finishedAt(job.getFinishedAt())
+            .lastError(job.getLastError())
+            .submittedBy(job.getCreatedBy().getUsername())
+            .resultUrl("/api/fee-vouchers/month/" + job.getMonthYear())
+            .classes(classes == null ? null : classes.stream()
+                .map(checkpoint -> FeeGenerationJobResponse.ClassProgress.builder()
+                    .classId(checkpoint.getClassId())
+                    .className(checkpoint.getClassName())
+                    .status(checkpoint.getStatus())
+                    .students(checkpoint.getStudents())
+                    .vouchersWritten(checkpoint.getVouchersWritten())
+                    .skippedStudents(checkpoint.getSkippedStudents())
+                    .failedStudents(checkpoint.getFailedStudents())
+                    .totalAmount(checkpoint.getTotalAmount())
+                    .elapsedMillis(checkpoint.getElapsedMillis())
+                    .completedAt(checkpoint.getCompletedAt())
+                    .errorMessage(checkpoint.getErrorMessage())
+                    .build())
+                .toList())
+            .build();
+    }
+}
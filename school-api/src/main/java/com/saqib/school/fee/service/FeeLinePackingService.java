@@ -0,0 +1,89 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.audit.Auditable;
+import com.saqib.school.fee.entity.FeeLine;
+import com.saqib.school.fee.entity.FeeLinesConverter;
+import com.saqib.school.fee.model.FeeLinePackingResponse;
+import com.saqib.school.fee.model.FeeLineStorageStats;
+import com.saqib.school.fee.repository.FeeLinePackingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies existing voucher detail rows into the packed {@code fee_lines}
+ * column so voucher reads can skip the detail table. The detail rows stay in
+ * place as the source for SQL reports; packing only adds a second copy. Runs
+ * in short transactions of {@code batch-size} vouchers keyed by id, so it can
+ * be stopped and resumed, and vouchers packed meanwhile are left alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeLinePackingService {
+
+    private final FeeLinePackingRepository feeLinePackingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.fee.packed-details.batch-size:1000}")
+    private int batchSize;
+
+    @Auditable(action = "PACK_FEE_LINES", entityType = "FeeVoucher", logResult = true)
+    public FeeLinePackingResponse packExistingVouchers() {
+        long startedAt = System.nanoTime();
+        long packed = 0;
+        int batches = 0;
+        long afterId = 0;
+
+        while (true) {
+            long from = afterId;
+            List<Long> voucherIds = feeLinePackingRepository.findUnpackedVoucherIds(from, batchSize);
+            if (voucherIds.isEmpty()) {
+                break;
+            }
+            Integer updated = transactionTemplate.execute(status -> packBatch(voucherIds));
+            packed += updated != null ? updated : 0;
+            batches++;
+            afterId = voucherIds.get(voucherIds.size() - 1);
+        }
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        FeeLineStorageStats stats = storageStats();
+        log.info("Packed fee lines of {} vouchers in {} batches in {} ms", packed, batches, elapsedMillis);
+        return FeeLinePackingResponse.builder()
+            .vouchersPacked(packed)
+            .batches(batches)
+            .remainingUnpacked(stats.getUnpackedVouchers())
+            .elapsedMillis(elapsedMillis)
+            .build();
+    }
+
+    public FeeLineStorageStats storageStats() {
+        FeeLinePackingRepository.StorageSizes sizes = feeLinePackingRepository.storageSizes();
+        long vouchers = sizes.packedVouchers() + sizes.unpackedVouchers();
+        return FeeLineStorageStats.builder()
+            .packedVouchers(sizes.packedVouchers())
+            .unpackedVouchers(sizes.unpackedVouchers())
+            .detailRows(sizes.detailRows())
+            .detailTableBytes(sizes.detailTableBytes())
+            .packedColumnBytes(sizes.packedColumnBytes())
+            .averageDetailBytesPerVoucher(vouchers > 0 ? sizes.detailTableBytes() / vouchers : 0L)
+            .averagePackedBytesPerVoucher(sizes.packedVouchers() > 0
+                ? sizes.packedColumnBytes() / sizes.packedVouchers() : 0L)
+            .build();
+    }
+
+    private int packBatch(List<Long> voucherIds) {
+        Map<Long, String> packedByVoucher = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<FeeLine>> entry : feeLinePackingRepository.findLines(voucherIds).entrySet()) {
+            packedByVoucher.put(entry.getKey(), FeeLinesConverter.pack(entry.getValue()));
+        }
+        return feeLinePackingRepository.packLines(packedByVoucher);
+    }
+}
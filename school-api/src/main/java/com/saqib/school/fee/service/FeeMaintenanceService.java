@@ -0,0 +1,139 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.MaintenanceWatermark;
+import com.saqib.school.fee.model.DailyMaintenanceResponse;
+import com.saqib.school.fee.model.DailyMaintenanceResponse.MaintenanceStepResult;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.MaintenanceWatermarkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based nightly maintenance. Each step runs chunked UPDATE statements in
+ * short transactions and is watermarked, so a run only touches rows that
+ * crossed the date boundary since the previous run (or were written after it
+ * started) instead of rescanning everything. A failed run leaves its
+ * watermark untouched and the next run simply covers the same window again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeMaintenanceService {
+
+    static final String OVERDUE_VOUCHERS = "OVERDUE_VOUCHERS";
+    static final String EXPIRED_DISCOUNTS = "EXPIRED_DISCOUNTS";
+
+    // Stand-ins for "no previous run": every row qualifies
+    private static final LocalDate BEGINNING_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDateTime BEGINNING_TIME = BEGINNING_DATE.atStartOfDay();
+
+    private static final String MARK_OVERDUE_SQL =
+        "UPDATE fee_vouchers SET status = 'OVERDUE', updated_at = ? WHERE id IN (" +
+        "SELECT id FROM fee_vouchers WHERE status = 'PENDING' AND due_date < ? " +
+        "AND (due_date >= ? OR updated_at >= ?) ORDER BY id LIMIT ?)";
+
+    private static final String EXPIRE_DISCOUNTS_SQL =
+        "UPDATE student_discounts SET is_active = false, updated_at = ? WHERE id IN (" +
+        "SELECT id FROM student_discounts WHERE is_active = true AND valid_to < ? " +
+        "AND (valid_to >= ? OR updated_at >= ?) ORDER BY id LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MaintenanceWatermarkRepository maintenanceWatermarkRepository;
+    private final FeeVoucherRepository feeVoucherRepository;
+
+    @Value("${app.fee.maintenance.chunk-size:1000}")
+    private int chunkSize;
+
+    public DailyMaintenanceResponse runDailyMaintenance(LocalDate today) {
+        long startedAt = System.nanoTime();
+
+        List<MaintenanceStepResult> steps = List.of(
+            markOverdueVouchers(today),
+            expireDiscounts(today)
+        );
+        long pendingVouchers = feeVoucherRepository.countPendingVouchers();
+
+        return DailyMaintenanceResponse.builder()
+            .processedDate(today)
+            .steps(steps)
+            .currentPendingVouchers(pendingVouchers)
+            .elapsedMillis(elapsedMillis(startedAt))
+            .build();
+    }
+
+    /**
+     * Marks pending vouchers whose due date is before {@code today} as overdue.
+     */
+    public MaintenanceStepResult markOverdueVouchers(LocalDate today) {
+        return runStep(OVERDUE_VOUCHERS, MARK_OVERDUE_SQL, today);
+    }
+
+    /**
+     * Deactivates discounts whose validity ended before {@code today}.
+     */
+    public MaintenanceStepResult expireDiscounts(LocalDate today) {
+        return runStep(EXPIRED_DISCOUNTS, EXPIRE_DISCOUNTS_SQL, today);
+    }
+
+    private MaintenanceStepResult runStep(String stepKey, String sql, LocalDate today) {
+        long startedAt = System.nanoTime();
+        LocalDateTime runStartedAt = LocalDateTime.now();
+
+        MaintenanceWatermark watermark = maintenanceWatermarkRepository.findById(stepKey).orElse(null);
+        boolean fullScan = watermark == null;
+        LocalDate windowStart = fullScan ? BEGINNING_DATE : watermark.getBoundaryDate();
+        LocalDateTime touchedSince = fullScan ? BEGINNING_TIME : watermark.getLastRunAt();
+
+        long rowsUpdated = 0;
+        int chunks = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> jdbcTemplate.update(sql,
+                Timestamp.valueOf(LocalDateTime.now()),
+                Date.valueOf(today),
+                Date.valueOf(windowStart),
+                Timestamp.valueOf(touchedSince),
+                chunkSize));
+            rowsUpdated += updated;
+            chunks++;
+        } while (updated == chunkSize);
+
+        long updatedRows = rowsUpdated;
+        transactionTemplate.executeWithoutResult(status -> maintenanceWatermarkRepository.save(
+            MaintenanceWatermark.builder()
+                .stepKey(stepKey)
+                .boundaryDate(today)
+                .lastRunAt(runStartedAt)
+                .rowsUpdated(updatedRows)
+                .build()));
+
+        long elapsedMillis = elapsedMillis(startedAt);
+        log.info("Maintenance step {} updated {} rows in {} chunks ({} ms, window from {})",
+                 stepKey, rowsUpdated, chunks, elapsedMillis, fullScan ? "beginning" : windowStart);
+
+        return MaintenanceStepResult.builder()
+            .step(stepKey)
+            .rowsUpdated(rowsUpdated)
+            .chunks(chunks)
+            .fullScan(fullScan)
+            .windowStart(fullScan ? null : windowStart)
+            .windowEnd(today)
+            .elapsedMillis(elapsedMillis)
+            .build();
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+}
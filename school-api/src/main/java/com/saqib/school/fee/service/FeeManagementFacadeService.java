@@ -5,6 +5,7 @@ import com.saqib.school.fee.entity.FeeVoucher;
 import com.saqib.school.fee.model.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +14,7 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -25,44 +27,41 @@ public class FeeManagementFacadeService {
     private final DefaulterReportService defaulterReportService;
     private final FeeReportService feeReportService;
     private final StudentDiscountService studentDiscountService;
+    private final FeeGenerationJobService feeGenerationJobService;
+    private final FeeMaintenanceService feeMaintenanceService;
+    private final ThreadPoolTaskExecutor feeReportExecutor;
 
     @Transactional
     @Auditable(action = "PROCESS_ADMISSION_FEE", entityType = "FeeVoucher")
     public FeeVoucherResponse processAdmissionFee(Long studentId, List<FeeVoucherRequest.VoucherDetailRequest> feeDetails, LocalDate dueDate) {
+        // Without explicit lines, charge the one-time heads configured for the student's class
+        List<FeeVoucherRequest.VoucherDetailRequest> details = feeDetails == null || feeDetails.isEmpty()
+            ? feeVoucherService.getAdmissionFeeDetails(studentId)
+            : feeDetails;
+
         FeeVoucherRequest request = FeeVoucherRequest.builder()
             .studentId(studentId)
             .voucherType(FeeVoucher.VoucherType.ADMISSION)
             .dueDate(dueDate)
-            .voucherDetails(feeDetails)
+            .voucherDetails(details)
             .notes("Admission fee voucher")
             .build();
 
         return feeVoucherService.createFeeVoucher(request);
     }
 
-    @Transactional
+    /**
+     * Queues monthly generation as a background job; fines for an already
+     * passed due date are applied by the job once every class is written.
+     */
     @Auditable(action = "PROCESS_MONTHLY_FEE_COLLECTION", entityType = "FeeVoucher")
-    public Map<String, Object> processMonthlyFeeCollection(MonthlyVoucherGenerationRequest request) {
-        // Generate monthly vouchers
-        List<FeeVoucherResponse> vouchers = feeVoucherService.generateMonthlyVouchers(request);
-
-        // Calculate fines for overdue vouchers
-        fineCalculationService.applyCalculatedFines(FineCalculationRequest.builder()
-            .calculationDate(LocalDate.now())
-            .voucherIds(vouchers.stream().map(FeeVoucherResponse::getId).toList())
-            .build());
-
-        Map<String, Object> result = Map.of(
-            "generatedVouchers", vouchers.size(),
-            "monthYear", request.getMonthYear(),
-            "dueDate", request.getDueDate(),
-            "vouchers", vouchers
-        );
+    public FeeGenerationJobResponse processMonthlyFeeCollection(MonthlyVoucherGenerationRequest request) {
+        FeeGenerationJobResponse job = feeGenerationJobService.submit(request);
 
-        log.info("Monthly fee collection processed for {} - Generated {} vouchers",
-                 request.getMonthYear(), vouchers.size());
+        log.info("Monthly fee collection queued for {} as job {} - {} students in {} classes",
+                 request.getMonthYear(), job.getId(), job.getTotalStudents(), job.getTotalClasses());
 
-        return result;
+        return job;
     }
 
     @Transactional
@@ -116,90 +115,37 @@ public class FeeManagementFacadeService {
         return comprehensiveReport;
     }
 
-    @Transactional(readOnly = true)
-    public Map<String, Object> generateMonthlyFinancialSummary(YearMonth month) {
-        Map<String, Object> collectionReport = feeReportService.generateMonthlyCollectionReport(month);
-
-        LocalDate startDate = month.atDay(1);
+    // Parts run concurrently, each in its own read-only transaction
+    public MonthlyFinancialSummaryResponse generateMonthlyFinancialSummary(YearMonth month) {
         LocalDate endDate = month.atEndOfMonth();
 
-        // Get defaulter statistics
-        DefaulterReportResponse defaulterReport = defaulterReportService.generateDefaulterReport(
-            DefaulterReportRequest.builder()
-                .asOfDate(endDate)
-                .build()
-        );
+        // The collection report fans out on the report executor itself, so keep it on this thread
+        CompletableFuture<MonthlyFinancialSummaryResponse.DefaulterSummary> defaulterSummary = CompletableFuture.supplyAsync(
+            () -> defaulterReportService.getDefaulterSummary(endDate), feeReportExecutor);
+        MonthlyCollectionReportResponse collectionReport = feeReportService.generateMonthlyCollectionReport(month);
 
-        return Map.of(
-            "month", month.toString(),
-            "collection", collectionReport,
-            "defaulterSummary", Map.of(
-                "totalDefaulters", defaulterReport.getTotalDefaulters(),
-                "totalOutstanding", defaulterReport.getTotalOutstandingAmount()
-            ),
-            "generatedOn", LocalDate.now()
-        );
+        return MonthlyFinancialSummaryResponse.builder()
+            .month(month.toString())
+            .collection(collectionReport)
+            .defaulterSummary(defaulterSummary.join())
+            .generatedOn(LocalDate.now())
+            .build();
     }
 
-    @Transactional
-    @Auditable(action = "APPLY_BULK_DISCOUNT", entityType = "StudentDiscount")
-    public Map<String, Object> applyBulkDiscount(List<Long> studentIds, Long categoryId,
-                                                 StudentDiscountRequest discountTemplate) {
-        int successCount = 0;
-        int failureCount = 0;
-
-        for (Long studentId : studentIds) {
-            try {
-                StudentDiscountRequest request = StudentDiscountRequest.builder()
-                    .studentId(studentId)
-                    .feeCategoryId(categoryId)
-                    .discountType(discountTemplate.getDiscountType())
-                    .discountValue(discountTemplate.getDiscountValue())
-                    .reason(discountTemplate.getReason())
-                    .validFrom(discountTemplate.getValidFrom())
-                    .validTo(discountTemplate.getValidTo())
-                    .build();
-
-                studentDiscountService.createStudentDiscount(request);
-                successCount++;
-            } catch (Exception e) {
-                log.warn("Failed to apply discount to student {}: {}", studentId, e.getMessage());
-                failureCount++;
-            }
-        }
-
-        Map<String, Object> result = Map.of(
-            "totalProcessed", studentIds.size(),
-            "successful", successCount,
-            "failed", failureCount,
-            "discountType", discountTemplate.getDiscountType(),
-            "discountValue", discountTemplate.getDiscountValue()
-        );
-
-        log.info("Bulk discount applied - Success: {}, Failed: {}", successCount, failureCount);
-        return result;
+    // One audit entry for the whole batch, with per-student failure reasons in the result
+    @Auditable(action = "APPLY_BULK_DISCOUNT", entityType = "StudentDiscount", logResult = true)
+    public BulkDiscountResponse applyBulkDiscount(List<Long> studentIds, Long categoryId,
+                                                  StudentDiscountRequest discountTemplate) {
+        return studentDiscountService.applyBulkDiscount(studentIds, categoryId, discountTemplate);
     }
 
-    @Transactional
+    // Each maintenance step commits its own chunks, so no surrounding transaction here
     @Auditable(action = "PROCESS_DAILY_FEE_MAINTENANCE", entityType = "FeeVoucher")
-    public Map<String, Object> processDailyFeeMaintenance() {
-        // Process overdue vouchers
-        feeVoucherService.processOverdueVouchers();
-
-        // Expire old discounts
-        studentDiscountService.expireOldDiscounts();
-
-        // Get statistics
-        long pendingVouchers = feeVoucherService.getPendingVouchersCount();
-
-        Map<String, Object> result = Map.of(
-            "processedDate", LocalDate.now(),
-            "overdueVouchersProcessed", true,
-            "expiredDiscountsProcessed", true,
-            "currentPendingVouchers", pendingVouchers
-        );
+    public DailyMaintenanceResponse processDailyFeeMaintenance() {
+        DailyMaintenanceResponse result = feeMaintenanceService.runDailyMaintenance(LocalDate.now());
 
-        log.info("Daily fee maintenance completed - Pending vouchers: {}", pendingVouchers);
+        log.info("Daily fee maintenance completed in {} ms - Pending vouchers: {}",
+                 result.getElapsedMillis(), result.getCurrentPendingVouchers());
         return result;
     }
 }
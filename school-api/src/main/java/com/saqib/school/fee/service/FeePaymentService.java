@@ -2,20 +2,37 @@ package com.saqib.school.fee.service;
 
 import com.saqib.school.common.audit.Auditable;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SeekCursor;
+import com.saqib.school.common.dto.SlicePage;
 import com.saqib.school.common.exception.BadRequestException;
 import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.common.paging.RowCounter;
 import com.saqib.school.fee.entity.FeePayment;
 import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent.PostedPayment;
 import com.saqib.school.fee.mapper.FeePaymentMapper;
+import com.saqib.school.fee.model.FamilyPaymentRequest;
+import com.saqib.school.fee.model.FamilyPaymentResponse;
 import com.saqib.school.fee.model.FeePaymentRequest;
 import com.saqib.school.fee.model.FeePaymentResponse;
+import com.saqib.school.fee.repository.FeeCollectionRollupRepository;
+import com.saqib.school.fee.repository.FeePaymentBatchRepository;
+import com.saqib.school.fee.repository.FeePaymentBatchRepository.PaymentRow;
 import com.saqib.school.fee.repository.FeePaymentRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.VoucherPosting;
 import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.FeeVoucherRepository.PayableVoucherView;
+import com.saqib.school.student.repository.StudentGuardianRepository;
 import com.saqib.school.user.entity.User;
 import com.saqib.school.user.repository.UserRepository;
 import com.saqib.school.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -23,17 +40,36 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FeePaymentService {
 
+    // Seek key before the newest possible payment, used for the first keyset page
+    private static final LocalDate SEEK_START_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final Comparator<PayableVoucherView> OLDEST_DUE_FIRST =
+        Comparator.comparing(PayableVoucherView::getDueDate)
+            .thenComparing(PayableVoucherView::getIssueDate)
+            .thenComparing(PayableVoucherView::getId);
+
     private final FeePaymentRepository feePaymentRepository;
     private final FeeVoucherRepository feeVoucherRepository;
+    private final FeeVoucherBatchRepository feeVoucherBatchRepository;
+    private final FeePaymentBatchRepository feePaymentBatchRepository;
+    private final StudentGuardianRepository studentGuardianRepository;
+    private final FeeCollectionRollupRepository feeCollectionRollupRepository;
     private final UserService userService;
     private final FeePaymentMapper feePaymentMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RowCounter rowCounter;
 
     @Transactional
     @Auditable(action = "PROCESS_FEE_PAYMENT", entityType = "FeePayment")
@@ -48,14 +84,106 @@ public class FeePaymentService {
         payment.setReceivedBy(currentUser);
 
         FeePayment savedPayment = feePaymentRepository.save(payment);
+        // Mapped before posting: the posting clears the persistence context and detaches the voucher's student
+        FeePaymentResponse response = feePaymentMapper.toResponse(savedPayment);
 
-        // Update voucher payment status
-        updateVoucherPaymentStatus(voucher, request.getAmount());
+        // Post last so the voucher row is only locked from here until commit
+        postToVoucher(voucher.getId(), request.getAmount());
+        eventPublisher.publishEvent(FeePaymentsPostedEvent.of(new FeePaymentsPostedEvent.PostedPayment(
+            voucher.getId(), request.getPaymentDate(), request.getPaymentMethod(), currentUser.getId(), request.getAmount())));
 
         log.info("Payment processed: {} for voucher {} - Amount: {}",
                  savedPayment.getId(), voucher.getVoucherNumber(), request.getAmount());
 
-        return feePaymentMapper.toResponse(savedPayment);
+        return response;
+    }
+
+    /**
+     * Posts one counter payment across a family's payable vouchers, oldest due
+     * date first. The vouchers are locked up front, the split is worked out in
+     * memory, and all payment rows and voucher updates go out as two batches
+     * in this transaction, audited once. The amount may not exceed what the
+     * family owes in total.
+     */
+    @Transactional
+    @Auditable(action = "PROCESS_FAMILY_PAYMENT", entityType = "FeePayment", logResult = true)
+    public FamilyPaymentResponse processFamilyPayment(FamilyPaymentRequest request) {
+        if (request.getPaymentDate().isAfter(LocalDate.now())) {
+            throw new BadRequestException("Payment date cannot be in the future");
+        }
+        Set<Long> studentIds = resolveFamily(request);
+        User currentUser = userService.getCurrentUser();
+
+        List<PayableVoucherView> vouchers = new ArrayList<>(feeVoucherRepository.lockPayableVouchersByStudentIds(studentIds));
+        if (vouchers.isEmpty()) {
+            throw new BadRequestException("No pending vouchers found for the family");
+        }
+        vouchers.sort(OLDEST_DUE_FIRST);
+
+        long outstanding = 0;
+        for (PayableVoucherView voucher : vouchers) {
+            outstanding += Math.max(Money.toPaisa(voucher.getRemainingAmount()), 0);
+        }
+        long amount = Money.toPaisa(request.getAmount());
+        if (amount > outstanding) {
+            throw new BadRequestException("Payment amount cannot exceed outstanding amount: " + Money.ofPaisa(outstanding));
+        }
+
+        List<VoucherPosting> postings = new ArrayList<>();
+        List<PaymentRow> payments = new ArrayList<>();
+        List<PostedPayment> posted = new ArrayList<>();
+        List<FamilyPaymentResponse.Allocation> allocations = new ArrayList<>();
+        int vouchersPaid = 0;
+        long unallocated = amount;
+        for (PayableVoucherView voucher : vouchers) {
+            long remaining = Money.toPaisa(voucher.getRemainingAmount());
+            if (unallocated == 0) {
+                break;
+            }
+            if (remaining <= 0) {
+                continue;
+            }
+
+            long share = Math.min(unallocated, remaining);
+            unallocated -= share;
+            BigDecimal shareAmount = Money.ofPaisa(share).toBigDecimal();
+            postings.add(new VoucherPosting(voucher.getId(), shareAmount));
+            payments.add(new PaymentRow(voucher.getId(), request.getPaymentMethod(), shareAmount, request.getPaymentDate(),
+                                        request.getReferenceNumber(), request.getBankName(), request.getNotes(),
+                                        currentUser.getId()));
+            posted.add(new PostedPayment(voucher.getId(), request.getPaymentDate(), request.getPaymentMethod(),
+                                         currentUser.getId(), shareAmount));
+            allocations.add(FamilyPaymentResponse.Allocation.builder()
+                .voucherId(voucher.getId())
+                .voucherNumber(voucher.getVoucherNumber())
+                .studentId(voucher.getStudentId())
+                .dueDate(voucher.getDueDate())
+                .amount(shareAmount)
+                .remainingAmount(Money.ofPaisa(remaining - share).toBigDecimal())
+                .build());
+            if (share == remaining) {
+                vouchersPaid++;
+            }
+        }
+
+        // The rows are locked, so every guarded update applies unless the data changed underneath
+        if (feeVoucherBatchRepository.applyPayments(postings, LocalDate.now()) != postings.size()) {
+            throw new BadRequestException("Vouchers changed while the payment was being posted; please retry");
+        }
+        feePaymentBatchRepository.insertPayments(payments);
+        eventPublisher.publishEvent(new FeePaymentsPostedEvent(posted));
+
+        log.info("Family payment of {} posted to {} vouchers for students {}",
+                 request.getAmount(), postings.size(), studentIds);
+
+        return FamilyPaymentResponse.builder()
+            .amount(Money.ofPaisa(amount).toBigDecimal())
+            .vouchersPaid(vouchersPaid)
+            .vouchersPartiallyPaid(postings.size() - vouchersPaid)
+            .outstandingBefore(Money.ofPaisa(outstanding).toBigDecimal())
+            .outstandingAfter(Money.ofPaisa(outstanding - amount).toBigDecimal())
+            .allocations(allocations)
+            .build();
     }
 
     @Transactional(readOnly = true)
@@ -75,28 +203,56 @@ public class FeePaymentService {
     @Transactional(readOnly = true)
     public PageResponse<FeePaymentResponse> getPaymentsByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
         var page = feePaymentRepository.findByPaymentDateBetween(startDate, endDate, pageable)
-            .map(feePaymentMapper::toResponse);
+            .map(feePaymentMapper::toListResponse);
         return PageResponse.from(page);
     }
 
     @Transactional(readOnly = true)
     public PageResponse<FeePaymentResponse> getPaymentsByMethod(FeePayment.PaymentMethod method, Pageable pageable) {
         var page = feePaymentRepository.findByPaymentMethod(method, pageable)
-            .map(feePaymentMapper::toResponse);
+            .map(feePaymentMapper::toListResponse);
         return PageResponse.from(page);
     }
 
     @Transactional(readOnly = true)
     public PageResponse<FeePaymentResponse> getPaymentsByUser(Long userId, Pageable pageable) {
         var page = feePaymentRepository.findByReceivedBy(userId, pageable)
-            .map(feePaymentMapper::toResponse);
+            .map(feePaymentMapper::toListResponse);
         return PageResponse.from(page);
     }
 
+    /**
+     * Keyset page of payments, newest payment date first. {@code cursor} is
+     * the previous page's {@code nextCursor}; the total is only computed when
+     * asked for.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<FeePaymentResponse> getPaymentSlice(FeePayment.PaymentMethod method, Long userId, Long voucherId,
+                                                         String cursor, int size, boolean withTotal) {
+        SlicePage.checkSize(size);
+        SeekCursor after = SeekCursor.decode(cursor);
+        var rows = feePaymentRepository.seekList(method, userId, voucherId,
+                                                 after != null ? after.dateKey() : SEEK_START_DATE,
+                                                 after != null ? after.id() : Long.MAX_VALUE,
+                                                 Limit.of(size + 1));
+
+        SlicePage<FeePaymentResponse> slice = SlicePage.from(rows, size,
+                row -> new SeekCursor(row.getPaymentDate().toString(), row.getId()))
+            .map(feePaymentMapper::toListResponse);
+
+        if (withTotal) {
+            boolean unfiltered = method == null && userId == null && voucherId == null;
+            slice.withTotal(unfiltered
+                ? rowCounter.estimate("fee_payments", feePaymentRepository::count)
+                : rowCounter.cached("fee_payments:" + method + ":" + userId + ":" + voucherId,
+                                    () -> feePaymentRepository.countList(method, userId, voucherId)));
+        }
+        return slice;
+    }
+
     @Transactional(readOnly = true)
     public BigDecimal getTotalCollectionForPeriod(LocalDate startDate, LocalDate endDate) {
-        BigDecimal total = feePaymentRepository.sumAmountBetweenDates(startDate, endDate);
-        return total != null ? total : BigDecimal.ZERO;
+        return feeCollectionRollupRepository.sumAmountBetweenDates(startDate, endDate);
     }
 
     @Transactional(readOnly = true)
@@ -126,16 +282,44 @@ public class FeePaymentService {
         }
     }
 
-    private void updateVoucherPaymentStatus(FeeVoucher voucher, BigDecimal paymentAmount) {
-        BigDecimal newPaidAmount = voucher.getPaidAmount().add(paymentAmount);
-        voucher.setPaidAmount(newPaidAmount);
+    /**
+     * Applies the amount with a single conditional UPDATE, so concurrent
+     * postings against the same voucher can neither overpay it nor lose an
+     * increment. A rejected posting rolls back the payment row with it.
+     */
+    private void postToVoucher(Long voucherId, BigDecimal amount) {
+        int updated = feeVoucherRepository.applyPayment(voucherId, amount, LocalDate.now(), LocalDateTime.now());
+        if (updated == 1) {
+            return;
+        }
 
-        BigDecimal totalAmountWithFine = voucher.getTotalAmount().add(voucher.getFineAmount());
-        if (newPaidAmount.compareTo(totalAmountWithFine) >= 0) {
-            voucher.markAsPaid();
+        // Another posting got there first; report against the current balance
+        var balance = feeVoucherRepository.findBalanceById(voucherId)
+            .orElseThrow(() -> new ResourceNotFoundException("Fee Voucher", "id", voucherId));
+        if (FeeVoucher.VoucherStatus.PAID.name().equals(balance.getStatus())) {
+            throw new BadRequestException("Voucher is already fully paid");
         }
+        if (FeeVoucher.VoucherStatus.CANCELLED.name().equals(balance.getStatus())) {
+            throw new BadRequestException("Cannot process payment for cancelled voucher");
+        }
+        throw new BadRequestException("Payment amount cannot exceed remaining amount: " + balance.getRemainingAmount());
+    }
 
-        feeVoucherRepository.save(voucher);
+    private Set<Long> resolveFamily(FamilyPaymentRequest request) {
+        boolean byStudents = request.getStudentIds() != null && !request.getStudentIds().isEmpty();
+        boolean byGuardian = request.getGuardianCnic() != null && !request.getGuardianCnic().isBlank();
+        if (byStudents == byGuardian) {
+            throw new BadRequestException("Provide either student IDs or a guardian CNIC");
+        }
+        if (byStudents) {
+            return request.getStudentIds();
+        }
+
+        List<Long> studentIds = studentGuardianRepository.findStudentIdsByCnic(request.getGuardianCnic());
+        if (studentIds.isEmpty()) {
+            throw new ResourceNotFoundException("Guardian", "cnic", request.getGuardianCnic());
+        }
+        return new HashSet<>(studentIds);
     }
 
     private FeePayment findFeePaymentById(Long id) {
@@ -0,0 +1,125 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.model.FeePricingCacheStats;
+import com.saqib.school.fee.repository.FeeStructureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link FeePricingSnapshot}. {@link FeeStructureService}
+ * writes bump a pricing version row in their own transaction and trigger a
+ * full rebuild once it commits; the new snapshot replaces the old one in a
+ * single reference swap. Readers compare the published snapshot with that
+ * version, one primary key lookup, so a change made on another node is
+ * picked up by the next voucher priced here.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeePricingCache {
+
+    private final FeeStructureRepository feeStructureRepository;
+
+    private final AtomicReference<Published> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long lastRebuildMillis;
+
+    public FeePricingSnapshot snapshot() {
+        long dataVersion = feeStructureRepository.findPricingVersion();
+        Published published = current.get();
+        if (published != null && published.dataVersion() >= dataVersion) {
+            hits.incrementAndGet();
+            return published.snapshot();
+        }
+        misses.incrementAndGet();
+        return load(dataVersion);
+    }
+
+    /**
+     * Marks pricing as changed for every node and rebuilds the snapshot here
+     * after the surrounding transaction commits, or immediately when called
+     * outside one.
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        feeStructureRepository.bumpPricingVersion();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    // Drop the stale snapshot so the next reader reloads it
+                    current.set(null);
+                    log.error("Fee pricing snapshot rebuild failed; it will be reloaded on next use", e);
+                }
+            }
+        });
+    }
+
+    // Concurrent readers that saw the same new version rebuild once between them
+    private synchronized FeePricingSnapshot load(long dataVersion) {
+        Published published = current.get();
+        if (published != null && published.dataVersion() >= dataVersion) {
+            return published.snapshot();
+        }
+        return rebuild();
+    }
+
+    public synchronized FeePricingSnapshot rebuild() {
+        long startedAt = System.nanoTime();
+        // Read before the structures: a write committing in between only costs another rebuild
+        long dataVersion = feeStructureRepository.findPricingVersion();
+        FeePricingSnapshot snapshot = FeePricingSnapshot.of(
+            versions.incrementAndGet(), feeStructureRepository.findAllActiveWithDetails());
+        current.set(new Published(dataVersion, snapshot));
+        rebuilds.incrementAndGet();
+        lastRebuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        log.info("Fee pricing snapshot v{} built: {} classes, {} fee heads in {} ms",
+                 snapshot.version(), snapshot.classCount(), snapshot.headCount(), lastRebuildMillis);
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    public FeePricingCacheStats stats() {
+        Published published = current.get();
+        FeePricingSnapshot snapshot = published != null ? published.snapshot() : null;
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        return FeePricingCacheStats.builder()
+            .version(snapshot != null ? snapshot.version() : null)
+            .dataVersion(published != null ? published.dataVersion() : null)
+            .builtAt(snapshot != null ? snapshot.builtAt() : null)
+            .classes(snapshot != null ? snapshot.classCount() : 0)
+            .feeHeads(snapshot != null ? snapshot.headCount() : 0)
+            .hits(hitCount)
+            .misses(missCount)
+            .hitRatio(lookups > 0 ? (double) hitCount / lookups : 0d)
+            .rebuilds(rebuilds.get())
+            .lastRebuildMillis(lastRebuildMillis)
+            .build();
+    }
+
+    private record Published(long dataVersion, FeePricingSnapshot snapshot) {
+    }
+}
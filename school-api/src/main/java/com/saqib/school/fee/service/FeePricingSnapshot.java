@@ -0,0 +1,116 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeStructure;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of all active fee structures, grouped per class into monthly
+ * and one-time fee heads. Built once per fee structure change and shared by
+ * all readers until the next change replaces it.
+ */
+public final class FeePricingSnapshot {
+
+    private static final ClassPricing NO_PRICING = new ClassPricing(null, List.of(), List.of());
+
+    private final long version;
+    private final LocalDateTime builtAt;
+    private final Map<Long, ClassPricing> byClass;
+    private final Set<Long> categoryIds;
+    private final int headCount;
+
+    private FeePricingSnapshot(long version, LocalDateTime builtAt, Map<Long, ClassPricing> byClass) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.byClass = byClass;
+        this.categoryIds = byClass.values().stream()
+            .flatMap(pricing -> pricing.allHeads().stream())
+            .map(FeeHead::categoryId)
+            .collect(Collectors.toUnmodifiableSet());
+        this.headCount = byClass.values().stream().mapToInt(pricing -> pricing.allHeads().size()).sum();
+    }
+
+    /**
+     * Builds a snapshot from active structures whose class and category are
+     * already initialized.
+     */
+    static FeePricingSnapshot of(long version, Collection<FeeStructure> structures) {
+        Map<Long, List<FeeHead>> monthly = new HashMap<>();
+        Map<Long, List<FeeHead>> oneTime = new HashMap<>();
+        for (FeeStructure structure : structures) {
+            FeeHead head = new FeeHead(
+                structure.getId(),
+                structure.getFeeCategory().getId(),
+                structure.getFeeCategory().getCategoryName(),
+                Money.of(structure.getAmount()));
+            Long classId = structure.getSchoolClass().getId();
+            (Boolean.TRUE.equals(structure.getIsMonthly()) ? monthly : oneTime)
+                .computeIfAbsent(classId, id -> new ArrayList<>())
+                .add(head);
+        }
+
+        Map<Long, ClassPricing> byClass = new HashMap<>();
+        for (Long classId : union(monthly.keySet(), oneTime.keySet())) {
+            byClass.put(classId, new ClassPricing(
+                classId,
+                List.copyOf(monthly.getOrDefault(classId, List.of())),
+                List.copyOf(oneTime.getOrDefault(classId, List.of()))));
+        }
+        return new FeePricingSnapshot(version, LocalDateTime.now(), Map.copyOf(byClass));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public LocalDateTime builtAt() {
+        return builtAt;
+    }
+
+    public ClassPricing forClass(Long classId) {
+        return byClass.getOrDefault(classId, NO_PRICING);
+    }
+
+    public boolean hasCategory(Long categoryId) {
+        return categoryIds.contains(categoryId);
+    }
+
+    public int classCount() {
+        return byClass.size();
+    }
+
+    public int headCount() {
+        return headCount;
+    }
+
+    private static Set<Long> union(Set<Long> first, Set<Long> second) {
+        Set<Long> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    public record ClassPricing(Long classId, List<FeeHead> monthlyHeads, List<FeeHead> oneTimeHeads) {
+
+        public boolean hasMonthlyHeads() {
+            return !monthlyHeads.isEmpty();
+        }
+
+        List<FeeHead> allHeads() {
+            List<FeeHead> heads = new ArrayList<>(monthlyHeads);
+            heads.addAll(oneTimeHeads);
+            return heads;
+        }
+    }
+
+    public record FeeHead(Long structureId, Long categoryId, String categoryName, Money amount) {
+    }
+}
@@ -1,83 +1,200 @@
 package com.saqib.school.fee.service;
 
-import com.saqib.school.fee.repository.FeePaymentRepository;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeePayment;
+import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.model.AnnualCollectionSummaryResponse;
+import com.saqib.school.fee.model.CollectionSummaryResponse;
+import com.saqib.school.fee.model.MonthlyCollectionReportResponse;
+import com.saqib.school.fee.repository.FeeCollectionRollupRepository;
+import com.saqib.school.fee.repository.FeeCollectionRollupRepository.MethodCollectionView;
+import com.saqib.school.fee.repository.FeeCollectionRollupRepository.MonthlyCollectionView;
+import com.saqib.school.fee.repository.FeeIssueRollupRepository;
+import com.saqib.school.fee.repository.FeeIssueRollupRepository.IssueTotalsView;
+import com.saqib.school.fee.repository.FeeIssueRollupRepository.MonthlyIssueView;
 import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.FeeVoucherRepository.VoucherAggregateView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+/**
+ * Collection reports. Money totals come from the rollup tables maintained by
+ * {@link FeeRollupService}; voucher counts come from one grouped aggregate.
+ * Independent parts of a report are queried concurrently on
+ * {@code feeReportExecutor}, each in its own read-only repository transaction,
+ * so these methods deliberately run without a surrounding transaction.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FeeReportService {
 
     private final FeeVoucherRepository feeVoucherRepository;
-    private final FeePaymentRepository feePaymentRepository;
+    private final FeeCollectionRollupRepository feeCollectionRollupRepository;
+    private final FeeIssueRollupRepository feeIssueRollupRepository;
+    private final ThreadPoolTaskExecutor feeReportExecutor;
 
-    @Transactional(readOnly = true)
-    public Map<String, Object> generateMonthlyCollectionReport(YearMonth month) {
+    public MonthlyCollectionReportResponse generateMonthlyCollectionReport(YearMonth month) {
         LocalDate startDate = month.atDay(1);
         LocalDate endDate = month.atEndOfMonth();
 
-        BigDecimal totalCollection = feePaymentRepository.sumAmountBetweenDates(startDate, endDate);
-        BigDecimal totalIssued = feeVoucherRepository.sumIssuedAmountBetweenDates(startDate, endDate);
+        CompletableFuture<BigDecimal> collected = async(
+            () -> feeCollectionRollupRepository.sumAmountBetweenDates(startDate, endDate));
+        CompletableFuture<IssueTotalsView> issued = async(
+            () -> feeIssueRollupRepository.sumBetweenDates(startDate, endDate));
+        CompletableFuture<List<MethodCollectionView>> byMethod = async(
+            () -> feeCollectionRollupRepository.sumByPaymentMethod(startDate, endDate));
         long pendingVouchers = feeVoucherRepository.countPendingVouchers();
 
-        Map<String, Object> report = new HashMap<>();
-        report.put("month", month.toString());
-        report.put("totalCollection", totalCollection != null ? totalCollection : BigDecimal.ZERO);
-        report.put("totalIssued", totalIssued != null ? totalIssued : BigDecimal.ZERO);
-        report.put("pendingVouchers", pendingVouchers);
-        report.put("collectionPercentage", calculateCollectionPercentage(totalCollection, totalIssued));
+        Map<FeePayment.PaymentMethod, BigDecimal> byPaymentMethod = new EnumMap<>(FeePayment.PaymentMethod.class);
+        for (MethodCollectionView row : byMethod.join()) {
+            byPaymentMethod.put(row.getPaymentMethod(), row.getAmount());
+        }
 
+        MonthlyCollectionReportResponse report =
+            monthlyReport(month, collected.join(), netIssued(issued.join()), pendingVouchers);
+        report.setByPaymentMethod(byPaymentMethod);
         return report;
     }
 
-    @Transactional(readOnly = true)
-    public Map<String, Object> generateAnnualCollectionSummary(int year) {
-        Map<String, Object> summary = new HashMap<>();
+    public AnnualCollectionSummaryResponse generateAnnualCollectionSummary(int year) {
+        LocalDate startDate = LocalDate.of(year, 1, 1);
+        LocalDate endDate = LocalDate.of(year, 12, 31);
+
+        CompletableFuture<List<MonthlyCollectionView>> collectedRows = async(
+            () -> feeCollectionRollupRepository.sumByMonth(startDate, endDate));
+        CompletableFuture<List<MonthlyIssueView>> issuedRows = async(
+            () -> feeIssueRollupRepository.sumByMonth(startDate, endDate));
+        long pendingVouchers = feeVoucherRepository.countPendingVouchers();
 
+        Map<Integer, BigDecimal> collectedByMonth = new HashMap<>();
+        for (MonthlyCollectionView row : collectedRows.join()) {
+            collectedByMonth.put(row.getMonth(), row.getAmount());
+        }
+        Map<Integer, BigDecimal> issuedByMonth = new HashMap<>();
+        for (MonthlyIssueView row : issuedRows.join()) {
+            issuedByMonth.put(row.getMonth(), netIssued(row));
+        }
+
+        List<MonthlyCollectionReportResponse> months = new ArrayList<>(12);
+        long collectionPaisa = 0;
+        long issuedPaisa = 0;
         for (int month = 1; month <= 12; month++) {
-            YearMonth yearMonth = YearMonth.of(year, month);
-            Map<String, Object> monthlyReport = generateMonthlyCollectionReport(yearMonth);
-            summary.put(yearMonth.toString(), monthlyReport);
+            BigDecimal collected = collectedByMonth.getOrDefault(month, BigDecimal.ZERO);
+            BigDecimal issued = issuedByMonth.getOrDefault(month, BigDecimal.ZERO);
+            months.add(monthlyReport(YearMonth.of(year, month), collected, issued, pendingVouchers));
+            collectionPaisa += Money.toPaisa(collected);
+            issuedPaisa += Money.toPaisa(issued);
         }
+        BigDecimal totalCollection = Money.ofPaisa(collectionPaisa).toBigDecimal();
+        BigDecimal totalIssued = Money.ofPaisa(issuedPaisa).toBigDecimal();
 
-        return summary;
+        return AnnualCollectionSummaryResponse.builder()
+            .year(year)
+            .totalCollection(totalCollection)
+            .totalIssued(totalIssued)
+            .collectionPercentage(calculateCollectionPercentage(totalCollection, totalIssued))
+            .pendingVouchers(pendingVouchers)
+            .months(months)
+            .build();
     }
 
-    @Transactional(readOnly = true)
-    public Map<String, Object> generateCollectionSummary(LocalDate startDate, LocalDate endDate) {
-        BigDecimal totalCollection = feePaymentRepository.sumAmountBetweenDates(startDate, endDate);
-        long totalVouchers = feeVoucherRepository.findByIssueDateBetween(startDate, endDate,
-            org.springframework.data.domain.Pageable.unpaged()).getTotalElements();
-        long pendingVouchers = feeVoucherRepository.countPendingVouchers();
+    /**
+     * Collection and voucher position for vouchers issued in the range. Counts
+     * by status and type are derived from a single grouped query.
+     */
+    public CollectionSummaryResponse generateCollectionSummary(LocalDate startDate, LocalDate endDate) {
+        CompletableFuture<BigDecimal> collected = async(
+            () -> feeCollectionRollupRepository.sumAmountBetweenDates(startDate, endDate));
+        List<VoucherAggregateView> rows = feeVoucherRepository.aggregateByMonthStatusAndType(startDate, endDate);
+
+        Map<FeeVoucher.VoucherStatus, Long> byStatus = new EnumMap<>(FeeVoucher.VoucherStatus.class);
+        Map<FeeVoucher.VoucherType, Long> byType = new EnumMap<>(FeeVoucher.VoucherType.class);
+        List<CollectionSummaryResponse.VoucherGroup> breakdown = new ArrayList<>(rows.size());
+        long totalVouchers = 0;
+        long issuedPaisa = 0;
+        long outstandingPaisa = 0;
+
+        for (VoucherAggregateView row : rows) {
+            byStatus.merge(row.getStatus(), row.getVouchers(), Long::sum);
+            byType.merge(row.getVoucherType(), row.getVouchers(), Long::sum);
+            totalVouchers += row.getVouchers();
 
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("startDate", startDate);
-        summary.put("endDate", endDate);
-        summary.put("totalCollection", totalCollection != null ? totalCollection : BigDecimal.ZERO);
-        summary.put("totalVouchers", totalVouchers);
-        summary.put("pendingVouchers", pendingVouchers);
-        summary.put("paidVouchers", totalVouchers - pendingVouchers);
+            if (row.getStatus() != FeeVoucher.VoucherStatus.CANCELLED) {
+                issuedPaisa += Money.toPaisa(row.getTotalAmount());
+            }
+            if (row.getStatus() == FeeVoucher.VoucherStatus.PENDING || row.getStatus() == FeeVoucher.VoucherStatus.OVERDUE) {
+                outstandingPaisa += Money.toPaisa(row.getTotalAmount()) + Money.toPaisa(row.getFineAmount())
+                    - Money.toPaisa(row.getPaidAmount());
+            }
+
+            breakdown.add(CollectionSummaryResponse.VoucherGroup.builder()
+                .month(YearMonth.of(row.getYear(), row.getMonth()).toString())
+                .status(row.getStatus())
+                .voucherType(row.getVoucherType())
+                .vouchers(row.getVouchers())
+                .totalAmount(row.getTotalAmount())
+                .paidAmount(row.getPaidAmount())
+                .fineAmount(row.getFineAmount())
+                .build());
+        }
+
+        return CollectionSummaryResponse.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .totalCollection(collected.join())
+            .totalVouchers(totalVouchers)
+            .pendingVouchers(byStatus.getOrDefault(FeeVoucher.VoucherStatus.PENDING, 0L)
+                + byStatus.getOrDefault(FeeVoucher.VoucherStatus.OVERDUE, 0L))
+            .paidVouchers(byStatus.getOrDefault(FeeVoucher.VoucherStatus.PAID, 0L))
+            .totalIssued(Money.ofPaisa(issuedPaisa).toBigDecimal())
+            .totalOutstanding(Money.ofPaisa(outstandingPaisa).toBigDecimal())
+            .vouchersByStatus(byStatus)
+            .vouchersByType(byType)
+            .breakdown(breakdown)
+            .build();
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> part) {
+        return CompletableFuture.supplyAsync(part, feeReportExecutor);
+    }
+
+    private MonthlyCollectionReportResponse monthlyReport(YearMonth month, BigDecimal totalCollection,
+                                                          BigDecimal totalIssued, long pendingVouchers) {
+        return MonthlyCollectionReportResponse.builder()
+            .month(month.toString())
+            .totalCollection(totalCollection)
+            .totalIssued(totalIssued)
+            .pendingVouchers(pendingVouchers)
+            .collectionPercentage(calculateCollectionPercentage(totalCollection, totalIssued))
+            .build();
+    }
 
-        return summary;
+    private static BigDecimal netIssued(IssueTotalsView issued) {
+        return issued.getIssuedAmount().subtract(issued.getCancelledAmount());
     }
 
     private BigDecimal calculateCollectionPercentage(BigDecimal collected, BigDecimal issued) {
-        if (issued == null || issued.equals(BigDecimal.ZERO)) {
+        if (issued == null || issued.signum() == 0) {
             return BigDecimal.ZERO;
         }
         if (collected == null) {
             return BigDecimal.ZERO;
         }
-        return collected.divide(issued, 2, java.math.RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+        return collected.divide(issued, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
     }
 }
@@ -0,0 +1,82 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.audit.Auditable;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent;
+import com.saqib.school.fee.event.FeeVoucherCancelledEvent;
+import com.saqib.school.fee.event.FeeVouchersIssuedEvent;
+import com.saqib.school.fee.model.FeeRollupRebuildResponse;
+import com.saqib.school.fee.repository.FeeRollupBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the collection and issue rollups in step with payments and vouchers.
+ * Listeners run synchronously inside the publishing transaction, so a rollup
+ * delta commits or rolls back together with the change it describes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeRollupService {
+
+    private static final LocalDate FULL_RANGE_START = LocalDate.of(1900, 1, 1);
+    private static final LocalDate FULL_RANGE_END = LocalDate.of(9999, 12, 31);
+
+    private final FeeRollupBatchRepository feeRollupBatchRepository;
+
+    @EventListener
+    public void onPaymentsPosted(FeePaymentsPostedEvent event) {
+        feeRollupBatchRepository.addPayments(event.payments());
+    }
+
+    @EventListener
+    public void onVouchersIssued(FeeVouchersIssuedEvent event) {
+        feeRollupBatchRepository.addIssued(event.voucherIds());
+    }
+
+    @EventListener
+    public void onVoucherCancelled(FeeVoucherCancelledEvent event) {
+        feeRollupBatchRepository.addCancelled(List.of(event.voucherId()));
+    }
+
+    /**
+     * Recomputes the rollups for the given range from the transaction tables.
+     * Either bound may be null to rebuild from the beginning or to the end.
+     * Rebuilt rows are keyed by each student's current class, so history of
+     * students who have since changed class moves to their new class; rows
+     * written incrementally keep the class the student had at the time.
+     */
+    @Transactional
+    @Auditable(action = "REBUILD_FEE_ROLLUPS", entityType = "FeeCollectionRollup")
+    public FeeRollupRebuildResponse rebuild(LocalDate startDate, LocalDate endDate) {
+        LocalDate from = startDate != null ? startDate : FULL_RANGE_START;
+        LocalDate to = endDate != null ? endDate : FULL_RANGE_END;
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Start date must not be after end date");
+        }
+
+        long startedAt = System.nanoTime();
+        feeRollupBatchRepository.lockRollups();
+        int collectionRows = feeRollupBatchRepository.rebuildCollections(from, to);
+        int issueRows = feeRollupBatchRepository.rebuildIssues(from, to);
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        log.info("Rebuilt fee rollups {} to {}: {} collection rows, {} issue rows in {} ms",
+                 from, to, collectionRows, issueRows, elapsedMillis);
+
+        return FeeRollupRebuildResponse.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .collectionRows(collectionRows)
+            .issueRows(issueRows)
+            .elapsedMillis(elapsedMillis)
+            .build();
+    }
+}
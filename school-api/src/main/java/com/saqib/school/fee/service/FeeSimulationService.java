@@ -0,0 +1,248 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeCategory;
+import com.saqib.school.fee.entity.StudentDiscount;
+import com.saqib.school.fee.model.FeeSimulationRequest;
+import com.saqib.school.fee.model.FeeSimulationRequest.FeeChange;
+import com.saqib.school.fee.model.FeeSimulationResponse;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.repository.FeeCategoryRepository;
+import com.saqib.school.fee.service.FeePricingSnapshot.FeeHead;
+import com.saqib.school.fee.service.MonthlyVoucherGenerationService.ClassCohort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * What-if pricing of one month's billing. Proposed changes are applied to the
+ * monthly fee heads of the cached pricing snapshot and the result is priced
+ * against every active enrollment and the discounts valid on the given date,
+ * entirely in memory. Classes are priced in parallel on
+ * {@code feeSimulationPool}; nothing is written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeSimulationService {
+
+    private final FeePricingCache feePricingCache;
+    private final DiscountResolutionService discountResolutionService;
+    private final MonthlyVoucherGenerationService monthlyVoucherGenerationService;
+    private final FeeCategoryRepository feeCategoryRepository;
+    private final ForkJoinPool feeSimulationPool;
+
+    public FeeSimulationResponse simulate(FeeSimulationRequest request) {
+        long startedAt = System.nanoTime();
+        request.getChanges().forEach(FeeSimulationService::validateChange);
+        LocalDate asOf = request.getAsOf() != null ? request.getAsOf() : LocalDate.now();
+        Map<Long, String> categoryNames = loadCategoryNames(request.getChanges());
+
+        FeePricingSnapshot pricing = feePricingCache.snapshot();
+        List<ClassCohort> cohorts = monthlyVoucherGenerationService.loadCohorts(new MonthlyVoucherGenerationRequest());
+        List<Long> studentIds = cohorts.stream().flatMap(cohort -> cohort.studentIds().stream()).toList();
+        DiscountResolutionTable discounts = discountResolutionService.load(studentIds, asOf);
+
+        List<ClassPlan> plans = cohorts.stream()
+            .map(cohort -> plan(cohort, pricing.forClass(cohort.classId()).monthlyHeads(), request.getChanges(),
+                                categoryNames))
+            .toList();
+        List<long[]> results = feeSimulationPool.invoke(new PriceClassesTask(plans, 0, plans.size(), discounts));
+
+        long[] current = new long[2];
+        long[] projected = new long[2];
+        List<FeeSimulationResponse.Line> lines = new ArrayList<>();
+        for (int c = 0; c < plans.size(); c++) {
+            ClassPlan plan = plans.get(c);
+            long[] sums = results.get(c);
+            int students = plan.cohort().studentIds().size();
+            for (int h = 0; h < plan.categoryIds().length; h++) {
+                long currentIssued = plan.currentAmounts()[h] * students;
+                long projectedIssued = plan.proposedAmounts()[h] * students;
+                current[0] += currentIssued;
+                current[1] += sums[h * 2];
+                projected[0] += projectedIssued;
+                projected[1] += sums[h * 2 + 1];
+                lines.add(FeeSimulationResponse.Line.builder()
+                    .classId(plan.cohort().classId())
+                    .className(plan.cohort().className())
+                    .feeCategoryId(plan.categoryIds()[h])
+                    .feeCategoryName(plan.categoryNames()[h])
+                    .students(students)
+                    .currentAmount(Money.ofPaisa(plan.currentAmounts()[h]).toBigDecimal())
+                    .proposedAmount(Money.ofPaisa(plan.proposedAmounts()[h]).toBigDecimal())
+                    .current(totals(currentIssued, sums[h * 2]))
+                    .projected(totals(projectedIssued, sums[h * 2 + 1]))
+                    .build());
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        log.info("Simulated {} fee changes over {} students in {} classes in {} ms",
+                 request.getChanges().size(), studentIds.size(), cohorts.size(), elapsedMillis);
+
+        return FeeSimulationResponse.builder()
+            .asOf(asOf)
+            .pricingVersion(pricing.version())
+            .classes(cohorts.size())
+            .students(studentIds.size())
+            .current(totals(current[0], current[1]))
+            .projected(totals(projected[0], projected[1]))
+            .netChange(Money.ofPaisa((projected[0] - projected[1]) - (current[0] - current[1])).toBigDecimal())
+            .elapsedMillis(elapsedMillis)
+            .lines(lines)
+            .build();
+    }
+
+    private static void validateChange(FeeChange change) {
+        if ((change.getPercentChange() == null) == (change.getNewAmount() == null)) {
+            throw new BadRequestException("Each fee change needs either a percent change or a new amount");
+        }
+    }
+
+    private Map<Long, String> loadCategoryNames(List<FeeChange> changes) {
+        List<Long> categoryIds = changes.stream().map(FeeChange::getFeeCategoryId).distinct().toList();
+        Map<Long, String> names = new HashMap<>();
+        for (FeeCategory category : feeCategoryRepository.findAllById(categoryIds)) {
+            names.put(category.getId(), category.getCategoryName());
+        }
+        for (Long categoryId : categoryIds) {
+            if (!names.containsKey(categoryId)) {
+                throw new ResourceNotFoundException("Fee Category", "id", categoryId);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The class's current monthly heads with the changes applied in request
+     * order. A new amount for a class named explicitly adds the head if the
+     * class does not charge it yet.
+     */
+    private static ClassPlan plan(ClassCohort cohort, List<FeeHead> heads, List<FeeChange> changes,
+                                  Map<Long, String> categoryNames) {
+        Map<Long, long[]> amounts = new LinkedHashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (FeeHead head : heads) {
+            amounts.put(head.categoryId(), new long[]{head.amount().paisa(), head.amount().paisa()});
+            names.put(head.categoryId(), head.categoryName());
+        }
+
+        for (FeeChange change : changes) {
+            boolean explicit = change.getClassIds() != null && !change.getClassIds().isEmpty();
+            if (explicit && !change.getClassIds().contains(cohort.classId())) {
+                continue;
+            }
+            long[] amount = amounts.get(change.getFeeCategoryId());
+            if (amount == null) {
+                if (!explicit || change.getNewAmount() == null) {
+                    continue;
+                }
+                amount = new long[]{0, 0};
+                amounts.put(change.getFeeCategoryId(), amount);
+                names.put(change.getFeeCategoryId(), categoryNames.get(change.getFeeCategoryId()));
+            }
+            amount[1] = change.getNewAmount() != null
+                ? Money.toPaisa(change.getNewAmount())
+                : Money.ofPaisa(amount[1]).plus(Money.ofPaisa(amount[1]).percentage(change.getPercentChange())).paisa();
+        }
+
+        int size = amounts.size();
+        long[] categoryIds = new long[size];
+        String[] headNames = new String[size];
+        long[] currentAmounts = new long[size];
+        long[] proposedAmounts = new long[size];
+        int h = 0;
+        for (Map.Entry<Long, long[]> entry : amounts.entrySet()) {
+            categoryIds[h] = entry.getKey();
+            headNames[h] = names.get(entry.getKey());
+            currentAmounts[h] = entry.getValue()[0];
+            proposedAmounts[h] = entry.getValue()[1];
+            h++;
+        }
+        return new ClassPlan(cohort, categoryIds, headNames, currentAmounts, proposedAmounts);
+    }
+
+    private static FeeSimulationResponse.Totals totals(long issued, long discounted) {
+        return FeeSimulationResponse.Totals.builder()
+            .issued(Money.ofPaisa(issued).toBigDecimal())
+            .discounted(Money.ofPaisa(discounted).toBigDecimal())
+            .net(Money.ofPaisa(issued - discounted).toBigDecimal())
+            .build();
+    }
+
+    private record ClassPlan(ClassCohort cohort,
+                             long[] categoryIds,
+                             String[] categoryNames,
+                             long[] currentAmounts,
+                             long[] proposedAmounts) {
+    }
+
+    /**
+     * Prices a range of classes, splitting it in half until one class is
+     * left. Each class yields its discount totals in paisa, current and
+     * projected side by side per head; issued totals are simply amount times
+     * students and need no per-student work.
+     */
+    private static final class PriceClassesTask extends RecursiveTask<List<long[]>> {
+
+        private final List<ClassPlan> plans;
+        private final int from;
+        private final int to;
+        private final DiscountResolutionTable discounts;
+
+        PriceClassesTask(List<ClassPlan> plans, int from, int to, DiscountResolutionTable discounts) {
+            this.plans = plans;
+            this.from = from;
+            this.to = to;
+            this.discounts = discounts;
+        }
+
+        @Override
+        protected List<long[]> compute() {
+            if (to - from <= 1) {
+                return from < to ? List.of(price(plans.get(from))) : List.of();
+            }
+            int middle = (from + to) >>> 1;
+            PriceClassesTask left = new PriceClassesTask(plans, from, middle, discounts);
+            left.fork();
+            List<long[]> right = new PriceClassesTask(plans, middle, to, discounts).compute();
+            List<long[]> results = new ArrayList<>(left.join());
+            results.addAll(right);
+            return results;
+        }
+
+        private long[] price(ClassPlan plan) {
+            int heads = plan.categoryIds().length;
+            Money[] current = new Money[heads];
+            Money[] proposed = new Money[heads];
+            for (int h = 0; h < heads; h++) {
+                current[h] = Money.ofPaisa(plan.currentAmounts()[h]);
+                proposed[h] = Money.ofPaisa(plan.proposedAmounts()[h]);
+            }
+
+            long[] sums = new long[heads * 2];
+            for (Long studentId : plan.cohort().studentIds()) {
+                for (int h = 0; h < heads; h++) {
+                    StudentDiscount discount = discounts.get(studentId, plan.categoryIds()[h]);
+                    if (discount != null) {
+                        sums[h * 2] += discount.calculateDiscount(current[h]).paisa();
+                        sums[h * 2 + 1] += discount.calculateDiscount(proposed[h]).paisa();
+                    }
+                }
+            }
+            return sums;
+        }
+    }
+}
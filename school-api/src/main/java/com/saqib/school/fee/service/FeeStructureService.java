@@ -30,6 +30,7 @@ public class FeeStructureService {
     private final FeeCategoryRepository feeCategoryRepository;
     private final SchoolClassRepository schoolClassRepository;
     private final FeeStructureMapper feeStructureMapper;
+    private final FeePricingCache feePricingCache;
 
     @Transactional
     @Auditable(action = "CREATE_FEE_STRUCTURE", entityType = "FeeStructure")
@@ -45,6 +46,7 @@ public class FeeStructureService {
         feeStructure.setIsActive(true);
 
         var savedStructure = feeStructureRepository.save(feeStructure);
+        feePricingCache.refreshAfterCommit();
         log.info("Fee structure created for class {} and category {}",
                 schoolClass.getDisplayName(), feeCategory.getCategoryName());
 
@@ -95,6 +97,7 @@ public class FeeStructureService {
         feeStructureMapper.updateEntity(request, feeStructure);
 
         var updatedStructure = feeStructureRepository.save(feeStructure);
+        feePricingCache.refreshAfterCommit();
         log.info("Fee structure updated for class {} and category {}",
                 feeStructure.getSchoolClass().getDisplayName(),
                 feeStructure.getFeeCategory().getCategoryName());
@@ -118,6 +121,7 @@ public class FeeStructureService {
             updatedStructures.add(feeStructureRepository.save(feeStructure));
         }
 
+        feePricingCache.refreshAfterCommit();
         log.info("Bulk fee structure update completed for {} items", updatedStructures.size());
         return updatedStructures.stream()
                 .map(feeStructureMapper::toResponse)
@@ -130,6 +134,7 @@ public class FeeStructureService {
         var feeStructure = findFeeStructureById(id);
         feeStructure.setIsActive(!feeStructure.getIsActive());
         feeStructureRepository.save(feeStructure);
+        feePricingCache.refreshAfterCommit();
 
         log.info("Fee structure status toggled to {} for class {} and category {}",
                 feeStructure.getIsActive(),
@@ -142,12 +147,17 @@ public class FeeStructureService {
     public void deleteFeeStructure(Long id) {
         var feeStructure = findFeeStructureById(id);
         feeStructureRepository.delete(feeStructure);
+        feePricingCache.refreshAfterCommit();
 
         log.info("Fee structure deleted for class {} and category {}",
                 feeStructure.getSchoolClass().getDisplayName(),
                 feeStructure.getFeeCategory().getCategoryName());
     }
 
+    public FeePricingCacheStats getPricingCacheStats() {
+        return feePricingCache.stats();
+    }
+
     private FeeStructure findFeeStructureById(Long id) {
         return feeStructureRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Fee Structure", "id", id));
@@ -2,26 +2,37 @@ package com.saqib.school.fee.service;
 
 import com.saqib.school.common.audit.Auditable;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SeekCursor;
+import com.saqib.school.common.dto.SlicePage;
 import com.saqib.school.common.exception.BadRequestException;
 import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.common.money.Money;
+import com.saqib.school.common.paging.RowCounter;
 import com.saqib.school.fee.entity.*;
+import com.saqib.school.fee.event.FeeVoucherCancelledEvent;
+import com.saqib.school.fee.event.FeeVouchersIssuedEvent;
 import com.saqib.school.fee.mapper.FeeVoucherMapper;
 import com.saqib.school.fee.model.*;
 import com.saqib.school.fee.repository.*;
 import com.saqib.school.student.entity.Student;
-import com.saqib.school.student.entity.StudentEnrollment;
+import com.saqib.school.student.repository.StudentEnrollmentRepository;
 import com.saqib.school.student.repository.StudentRepository;
 import com.saqib.school.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,13 +41,25 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FeeVoucherService {
 
+    // Seek key before the newest possible voucher, used for the first keyset page
+    private static final LocalDate SEEK_START_DATE = LocalDate.of(9999, 12, 31);
+
     private final FeeVoucherRepository feeVoucherRepository;
     private final StudentRepository studentRepository;
     private final FeeCategoryRepository feeCategoryRepository;
-    private final FeeStructureRepository feeStructureRepository;
     private final UserService userService;
     private final FeeVoucherMapper feeVoucherMapper;
-    private final StudentDiscountService studentDiscountService;
+    private final DiscountResolutionService discountResolutionService;
+    private final MonthlyVoucherGenerationService monthlyVoucherGenerationService;
+    private final VoucherNumberService voucherNumberService;
+    private final FeePricingCache feePricingCache;
+    private final FeeMaintenanceService feeMaintenanceService;
+    private final StudentEnrollmentRepository studentEnrollmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RowCounter rowCounter;
+
+    @Value("${app.fee.packed-details.enabled:false}")
+    private boolean packDetails;
 
     @Transactional
     @Auditable(action = "CREATE_FEE_VOUCHER", entityType = "FeeVoucher")
@@ -44,23 +67,33 @@ public class FeeVoucherService {
         var student = findStudentById(request.getStudentId());
         var currentUser = userService.getCurrentUser();
 
+        if (request.getVoucherType() == FeeVoucher.VoucherType.MONTHLY && request.getMonthYear() != null
+                && !feeVoucherRepository.findStudentIdsWithMonthlyVoucher(
+                        List.of(student.getId()), request.getMonthYear()).isEmpty()) {
+            throw new BadRequestException("Student already has a monthly voucher for " + request.getMonthYear());
+        }
+
         var feeVoucher = feeVoucherMapper.toEntity(request);
         feeVoucher.setStudent(student);
         feeVoucher.setCreatedBy(currentUser);
-        feeVoucher.setVoucherNumber(generateVoucherNumber(request.getVoucherType()));
+        feeVoucher.setVoucherNumber(voucherNumberService.nextVoucherNumber(request.getVoucherType(), LocalDate.now()));
         feeVoucher.setStatus(FeeVoucher.VoucherStatus.PENDING);
 
-        // Calculate total amount and create voucher details
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Create voucher details, then total them
+        FeePricingSnapshot pricing = feePricingCache.snapshot();
+        DiscountResolutionTable discounts = discountResolutionService.load(List.of(student.getId()), LocalDate.now());
         Set<FeeVoucherDetail> voucherDetails = request.getVoucherDetails().stream()
                 .map(detailRequest -> {
-                    var feeCategory = findFeeCategoryById(detailRequest.getFeeCategoryId());
+                    // Categories priced in the snapshot are known to exist; skip the lookup for them
+                    var feeCategory = pricing.hasCategory(detailRequest.getFeeCategoryId())
+                            ? feeCategoryRepository.getReferenceById(detailRequest.getFeeCategoryId())
+                            : findFeeCategoryById(detailRequest.getFeeCategoryId());
 
                     BigDecimal discountAmount = detailRequest.getDiscountAmount();
                     if (discountAmount.equals(BigDecimal.ZERO)) {
                         // Auto-calculate discount if not provided
-                        discountAmount = studentDiscountService.calculateDiscountAmount(
-                                student.getId(), feeCategory.getId(), detailRequest.getOriginalAmount(), LocalDate.now());
+                        discountAmount = discounts.discountFor(
+                                student.getId(), feeCategory.getId(), detailRequest.getOriginalAmount());
                     }
 
                     FeeVoucherDetail detail = new FeeVoucherDetail();
@@ -74,32 +107,52 @@ public class FeeVoucherService {
                 })
                 .collect(Collectors.toSet());
 
-        totalAmount = voucherDetails.stream()
-                .map(FeeVoucherDetail::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalAmount = Money.ofPaisa(voucherDetails.stream()
+                .mapToLong(detail -> Money.toPaisa(detail.getFinalAmount()))
+                .sum()).toBigDecimal();
 
         feeVoucher.setTotalAmount(totalAmount);
         feeVoucher.setVoucherDetails(voucherDetails);
+        if (packDetails) {
+            feeVoucher.setFeeLines(voucherDetails.stream().map(this::toFeeLine).toList());
+        }
 
         FeeVoucher savedVoucher = feeVoucherRepository.save(feeVoucher);
+        eventPublisher.publishEvent(new FeeVouchersIssuedEvent(List.of(savedVoucher.getId())));
         log.info("Fee voucher created: {} for student {}",
                 savedVoucher.getVoucherNumber(), student.getRegistrationNumber());
 
         return feeVoucherMapper.toResponse(savedVoucher);
     }
 
-    @Transactional
-    @Auditable(action = "GENERATE_MONTHLY_VOUCHERS", entityType = "FeeVoucher")
-    public List<FeeVoucherResponse> generateMonthlyVouchers(MonthlyVoucherGenerationRequest request) {
-        List<Student> students = getStudentsForVoucherGeneration(request);
-        List<FeeVoucher> generatedVouchers = students.stream()
-                .map(student -> createMonthlyVoucherForStudent(student, request))
+    /**
+     * Voucher lines for the one-time fee heads configured for the student's
+     * current class, priced from the pricing snapshot.
+     */
+    @Transactional(readOnly = true)
+    public List<FeeVoucherRequest.VoucherDetailRequest> getAdmissionFeeDetails(Long studentId) {
+        var enrollment = studentEnrollmentRepository.findActiveEnrollmentByStudentId(studentId)
+                .orElseThrow(() -> new BadRequestException("Student has no active enrollment"));
+
+        List<FeeVoucherRequest.VoucherDetailRequest> details = feePricingCache.snapshot()
+                .forClass(enrollment.getSchoolClass().getId())
+                .oneTimeHeads().stream()
+                .map(head -> FeeVoucherRequest.VoucherDetailRequest.builder()
+                        .feeCategoryId(head.categoryId())
+                        .originalAmount(head.amount().toBigDecimal())
+                        .build())
                 .toList();
 
-        log.info("Generated {} monthly vouchers for {}", generatedVouchers.size(), request.getMonthYear());
-        return generatedVouchers.stream()
-                .map(feeVoucherMapper::toResponse)
-                .toList();
+        if (details.isEmpty()) {
+            throw new BadRequestException("No one-time fee structure configured for the student's class");
+        }
+        return details;
+    }
+
+    // Runs its own chunked transactions per class, so no surrounding transaction here
+    @Auditable(action = "GENERATE_MONTHLY_VOUCHERS", entityType = "FeeVoucher")
+    public MonthlyVoucherGenerationResponse generateMonthlyVouchers(MonthlyVoucherGenerationRequest request) {
+        return monthlyVoucherGenerationService.generate(request);
     }
 
     @Transactional(readOnly = true)
@@ -116,40 +169,108 @@ public class FeeVoucherService {
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<FeeVoucherResponse> getStudentVouchers(Long studentId, Pageable pageable) {
-        var page = feeVoucherRepository.findByStudentId(studentId, pageable)
-                .map(feeVoucherMapper::toResponse);
-        return PageResponse.from(page);
+    public PageResponse<FeeVoucherResponse> getStudentVouchers(Long studentId, Set<VoucherExpand> expand,
+                                                               Pageable pageable) {
+        return toListPage(feeVoucherRepository.findByStudentId(studentId, pageable), expand);
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<FeeVoucherResponse> getVouchersByStatus(FeeVoucher.VoucherStatus status, Pageable pageable) {
-        var page = feeVoucherRepository.findByStatus(status, pageable)
-                .map(feeVoucherMapper::toResponse);
-        return PageResponse.from(page);
+    public PageResponse<FeeVoucherResponse> getVouchersByStatus(FeeVoucher.VoucherStatus status, Set<VoucherExpand> expand,
+                                                                Pageable pageable) {
+        return toListPage(feeVoucherRepository.findByStatus(status, pageable), expand);
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<FeeVoucherResponse> getVouchersByType(FeeVoucher.VoucherType type, Pageable pageable) {
-        var page = feeVoucherRepository.findByVoucherType(type, pageable)
-                .map(feeVoucherMapper::toResponse);
-        return PageResponse.from(page);
+    public PageResponse<FeeVoucherResponse> getVouchersByType(FeeVoucher.VoucherType type, Set<VoucherExpand> expand,
+                                                              Pageable pageable) {
+        return toListPage(feeVoucherRepository.findByVoucherType(type, pageable), expand);
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<FeeVoucherResponse> getVouchersByMonthYear(String monthYear, Pageable pageable) {
-        var page = feeVoucherRepository.findByMonthYear(monthYear, pageable)
-                .map(feeVoucherMapper::toResponse);
-        return PageResponse.from(page);
+    public PageResponse<FeeVoucherResponse> getVouchersByMonthYear(String monthYear, Set<VoucherExpand> expand,
+                                                                   Pageable pageable) {
+        return toListPage(feeVoucherRepository.findByMonthYear(monthYear, pageable), expand);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<FeeVoucherResponse> getVouchersByDateRange(LocalDate startDate, LocalDate endDate,
+                                                                   Set<VoucherExpand> expand, Pageable pageable) {
+        return toListPage(feeVoucherRepository.findByIssueDateBetween(startDate, endDate, pageable), expand);
     }
 
+    /**
+     * Keyset page of vouchers, newest issue date first. {@code cursor} is the
+     * previous page's {@code nextCursor}; the total is only computed when
+     * asked for.
+     */
     @Transactional(readOnly = true)
-    public PageResponse<FeeVoucherResponse> getVouchersByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        var page = feeVoucherRepository.findByIssueDateBetween(startDate, endDate, pageable)
-                .map(feeVoucherMapper::toResponse);
+    public SlicePage<FeeVoucherResponse> getVoucherSlice(Long studentId, FeeVoucher.VoucherStatus status,
+                                                         FeeVoucher.VoucherType type, String monthYear,
+                                                         String cursor, int size, boolean withTotal,
+                                                         Set<VoucherExpand> expand) {
+        SlicePage.checkSize(size);
+        SeekCursor after = SeekCursor.decode(cursor);
+        var rows = feeVoucherRepository.seekList(studentId, status, type, monthYear,
+                                                 after != null ? after.dateKey() : SEEK_START_DATE,
+                                                 after != null ? after.id() : Long.MAX_VALUE,
+                                                 Limit.of(size + 1));
+
+        SlicePage<FeeVoucherResponse> slice = SlicePage.from(rows, size,
+                row -> new SeekCursor(row.getIssueDate().toString(), row.getId()))
+            .map(feeVoucherMapper::toListResponse);
+        attachExpansions(slice.getContent(), expand);
+
+        if (withTotal) {
+            boolean unfiltered = studentId == null && status == null && type == null && monthYear == null;
+            slice.withTotal(unfiltered
+                ? rowCounter.estimate("fee_vouchers", feeVoucherRepository::count)
+                : rowCounter.cached("fee_vouchers:" + studentId + ":" + status + ":" + type + ":" + monthYear,
+                                    () -> feeVoucherRepository.countList(studentId, status, type, monthYear)));
+        }
+        return slice;
+    }
+
+    private PageResponse<FeeVoucherResponse> toListPage(Page<FeeVoucherRepository.VoucherListView> rows,
+                                                        Set<VoucherExpand> expand) {
+        Page<FeeVoucherResponse> page = rows.map(feeVoucherMapper::toListResponse);
+        attachExpansions(page.getContent(), expand);
         return PageResponse.from(page);
     }
 
+    /**
+     * Attaches details and payments to list rows when asked, with one batch
+     * query each, so the query count does not depend on the page size.
+     */
+    private void attachExpansions(List<FeeVoucherResponse> vouchers, Set<VoucherExpand> expand) {
+        List<Long> voucherIds = vouchers.stream().map(FeeVoucherResponse::getId).toList();
+        if (voucherIds.isEmpty()) {
+            return;
+        }
+
+        if (expand.contains(VoucherExpand.DETAILS)) {
+            // Packed vouchers carry their heads on the row; only the rest need the detail table
+            Map<Long, List<FeeVoucherResponse.VoucherDetailResponse>> details = new HashMap<>();
+            for (FeeVoucherRepository.PackedFeeLinesView packed : feeVoucherRepository.findPackedFeeLinesByVoucherIds(voucherIds)) {
+                details.put(packed.getVoucherId(),
+                            packed.getFeeLines().stream().map(feeVoucherMapper::toVoucherDetailLine).toList());
+            }
+            List<Long> unpackedIds = voucherIds.stream().filter(id -> !details.containsKey(id)).toList();
+            if (!unpackedIds.isEmpty()) {
+                details.putAll(feeVoucherRepository.findDetailLinesByVoucherIds(unpackedIds).stream()
+                    .collect(Collectors.groupingBy(FeeVoucherRepository.VoucherDetailLineView::getVoucherId,
+                             Collectors.mapping(feeVoucherMapper::toVoucherDetailLine, Collectors.toList()))));
+            }
+            vouchers.forEach(voucher -> voucher.setVoucherDetails(details.getOrDefault(voucher.getId(), List.of())));
+        }
+        if (expand.contains(VoucherExpand.PAYMENTS)) {
+            Map<Long, List<FeeVoucherResponse.PaymentResponse>> payments =
+                feeVoucherRepository.findPaymentLinesByVoucherIds(voucherIds).stream()
+                    .collect(Collectors.groupingBy(FeeVoucherRepository.VoucherPaymentLineView::getVoucherId,
+                             Collectors.mapping(feeVoucherMapper::toPaymentLine, Collectors.toList())));
+            vouchers.forEach(voucher -> voucher.setPayments(payments.getOrDefault(voucher.getId(), List.of())));
+        }
+    }
+
     @Transactional
     @Auditable(action = "CANCEL_FEE_VOUCHER", entityType = "FeeVoucher")
     public void cancelFeeVoucher(Long id, String reason) {
@@ -159,27 +280,23 @@ public class FeeVoucherService {
             throw new BadRequestException("Cannot cancel a paid voucher");
         }
 
+        if (feeVoucher.getStatus() == FeeVoucher.VoucherStatus.CANCELLED) {
+            throw new BadRequestException("Voucher is already cancelled");
+        }
+
         feeVoucher.setStatus(FeeVoucher.VoucherStatus.CANCELLED);
         feeVoucher.setNotes((feeVoucher.getNotes() != null ? feeVoucher.getNotes() + "; " : "") +
                 "Cancelled: " + reason);
 
         feeVoucherRepository.save(feeVoucher);
+        eventPublisher.publishEvent(new FeeVoucherCancelledEvent(feeVoucher.getId()));
         log.info("Fee voucher cancelled: {} - Reason: {}", feeVoucher.getVoucherNumber(), reason);
     }
 
-    @Transactional
+    // Chunked set-based update with its own short transactions
     @Auditable(action = "PROCESS_OVERDUE_VOUCHERS", entityType = "FeeVoucher")
-    public void processOverdueVouchers() {
-        List<FeeVoucher> overdueVouchers = feeVoucherRepository.findOverdueVouchers(LocalDate.now());
-
-        for (FeeVoucher voucher : overdueVouchers) {
-            if(voucher.isPending()){
-                voucher.markAsOverdue();
-                feeVoucherRepository.save(voucher);
-            }
-        }
-
-        log.info("Processed {} overdue vouchers", overdueVouchers.size());
+    public long processOverdueVouchers() {
+        return feeMaintenanceService.markOverdueVouchers(LocalDate.now()).getRowsUpdated();
     }
 
     @Transactional(readOnly = true)
@@ -187,93 +304,24 @@ public class FeeVoucherService {
         return feeVoucherRepository.countPendingVouchers();
     }
 
+    @Transactional(readOnly = true)
+    public List<Long> getPendingVoucherIdsByMonthYear(String monthYear) {
+        return feeVoucherRepository.findPendingIdsByMonthYear(monthYear);
+    }
+
     @Transactional(readOnly = true)
     public BigDecimal getTotalCollectionForPeriod(LocalDate startDate, LocalDate endDate) {
         BigDecimal total = feeVoucherRepository.sumAmountBetweenDatesByStatus(startDate, endDate, FeeVoucher.VoucherStatus.PAID);
         return total != null ? total : BigDecimal.ZERO;
     }
 
-    private FeeVoucher createMonthlyVoucherForStudent(Student student, MonthlyVoucherGenerationRequest request) {
-        // Get current active enrollment
-        StudentEnrollment activeEnrollment = student.getEnrollments().stream()
-                .filter(enrollment -> enrollment.getStatus() == StudentEnrollment.EnrollmentStatus.ACTIVE)
-                .findFirst()
-                .orElseThrow(() -> new BadRequestException("Student " + student.getRegistrationNumber() + " has no active enrollment"));
-
-        // Get fee structures for the student's class
-        List<FeeStructure> feeStructures = feeStructureRepository.findByClassIdAndActive(activeEnrollment.getSchoolClass().getId());
-
-        if (feeStructures.isEmpty()) {
-            log.warn("No fee structures found for class {}", activeEnrollment.getSchoolClass().getDisplayName());
-            return null;
-        }
-
-        // Create voucher
-        FeeVoucher voucher = FeeVoucher.builder()
-                .voucherNumber(generateVoucherNumber(FeeVoucher.VoucherType.MONTHLY))
-                .student(student)
-                .voucherType(FeeVoucher.VoucherType.MONTHLY)
-                .monthYear(request.getMonthYear())
-                .issueDate(LocalDate.now())
-                .dueDate(request.getDueDate())
-                .status(FeeVoucher.VoucherStatus.PENDING)
-                .createdBy(userService.getCurrentUser())
-                .build();
-
-        // Create voucher details
-        Set<FeeVoucherDetail> details = feeStructures.stream()
-                .filter(FeeStructure::getIsMonthly)
-                .map(feeStructure -> {
-                    BigDecimal discountAmount = studentDiscountService.calculateDiscountAmount(
-                            student.getId(), feeStructure.getFeeCategory().getId(), feeStructure.getAmount(), LocalDate.now());
-
-                    return FeeVoucherDetail.builder()
-                            .voucher(voucher)
-                            .feeCategory(feeStructure.getFeeCategory())
-                            .originalAmount(feeStructure.getAmount())
-                            .discountAmount(discountAmount)
-                            .finalAmount(feeStructure.getAmount().subtract(discountAmount))
-                            .build();
-                })
-                .collect(Collectors.toSet());
-
-        BigDecimal totalAmount = details.stream()
-                .map(FeeVoucherDetail::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        voucher.setTotalAmount(totalAmount);
-        voucher.setVoucherDetails(details);
-
-        return feeVoucherRepository.save(voucher);
-    }
-
-    private List<Student> getStudentsForVoucherGeneration(MonthlyVoucherGenerationRequest request) {
-        if (request.getStudentIds() != null && !request.getStudentIds().isEmpty()) {
-            return studentRepository.findAllById(request.getStudentIds());
-        }
-
-        if (request.getClassIds() != null && !request.getClassIds().isEmpty()) {
-            return request.getClassIds().stream()
-                    .flatMap(classId -> studentRepository.findByActiveEnrollmentInClass(classId, Pageable.unpaged()).getContent().stream())
-                    .distinct()
-                    .toList();
-        }
-
-        // Get all active students
-        return studentRepository.findByStatus(Student.StudentStatus.ACTIVE, Pageable.unpaged()).getContent();
-    }
-
-    private String generateVoucherNumber(FeeVoucher.VoucherType voucherType) {
-        String prefix = switch (voucherType) {
-            case ADMISSION -> "ADM";
-            case MONTHLY -> "MON";
-            case INSTALLMENT -> "INS";
-        };
-
-        String yearMonth = LocalDate.now().format(DateTimeFormatter.ofPattern("yyMM"));
-        long count = feeVoucherRepository.count() + 1;
-
-        return String.format("%s-%s-%05d", prefix, yearMonth, count);
+    private FeeLine toFeeLine(FeeVoucherDetail detail) {
+        return new FeeLine(
+                detail.getFeeCategory().getId(),
+                detail.getFeeCategory().getCategoryName(),
+                Money.of(detail.getOriginalAmount()),
+                Money.of(detail.getDiscountAmount()),
+                Money.of(detail.getFinalAmount()));
     }
 
     private FeeVoucher findFeeVoucherById(Long id) {
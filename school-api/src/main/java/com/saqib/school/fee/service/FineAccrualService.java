@@ -0,0 +1,180 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.fee.entity.FineAccrualRun;
+import com.saqib.school.fee.model.FineAccrualRunResponse;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.repository.FineAccrualLock;
+import com.saqib.school.fee.repository.FineAccrualRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly fine accrual. A voucher's fine only changes when its days overdue
+ * reach a new {@code daysAfterDue} threshold of its class schedule, i.e. when
+ * {@code runDate - dueDate} crosses {@code t}. So for every class and
+ * threshold {@code t}, only the due-date cohort in
+ * {@code (lastRunDate - t, runDate - t]} is re-priced, and a night's work
+ * scales with the vouchers changing tier rather than with everything overdue.
+ * <p>
+ * The cron fires on every node; {@link FineAccrualLock} lets one of them run
+ * and the others skip. A node that starts after the winner finished only
+ * finds an empty window, since the completed run moved the last run date.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FineAccrualService {
+
+    // Lower bound for "every due date" on full scans
+    private static final LocalDate FULL_SCAN_START = LocalDate.of(1900, 1, 1);
+
+    private final FineAccrualRunRepository fineAccrualRunRepository;
+    private final FeeVoucherRepository feeVoucherRepository;
+    private final FineScheduleCache fineScheduleCache;
+    private final FineCalculationService fineCalculationService;
+    private final FineAccrualLock fineAccrualLock;
+
+    // Saves a database round trip when this node is already running
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${app.fee.fine-accrual.cron:0 30 1 * * *}")
+    public void runScheduledAccrual() {
+        if (running.get()) {
+            log.warn("Skipping scheduled fine accrual; a run is already in progress");
+            return;
+        }
+        if (accrue(LocalDate.now(), false, FineAccrualRun.RunTrigger.SCHEDULED) == null) {
+            log.info("Skipping scheduled fine accrual; another node is running it");
+        }
+    }
+
+    /**
+     * Runs accrual now. {@code fullScan} re-prices every overdue voucher, e.g.
+     * after fine structures were changed retroactively.
+     */
+    public FineAccrualRunResponse runNow(boolean fullScan) {
+        if (running.get()) {
+            throw new BadRequestException("Fine accrual is already running");
+        }
+        FineAccrualRunResponse response = accrue(LocalDate.now(), fullScan, FineAccrualRun.RunTrigger.MANUAL);
+        if (response == null) {
+            throw new BadRequestException("Fine accrual is already running on another node");
+        }
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<FineAccrualRunResponse> getRuns(Pageable pageable) {
+        return PageResponse.from(fineAccrualRunRepository.findAll(pageable).map(this::toResponse));
+    }
+
+    /**
+     * Runs accrual under the cluster-wide claim; returns null without
+     * recording a run when another node holds it.
+     */
+    private FineAccrualRunResponse accrue(LocalDate runDate, boolean forceFullScan, FineAccrualRun.RunTrigger trigger) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Fine accrual is already running");
+        }
+        try (FineAccrualLock.Claim claim = fineAccrualLock.tryAcquire()) {
+            return claim != null ? accrueClaimed(runDate, forceFullScan, trigger) : null;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private FineAccrualRunResponse accrueClaimed(LocalDate runDate, boolean forceFullScan,
+                                                 FineAccrualRun.RunTrigger trigger) {
+        long startedAt = System.nanoTime();
+
+        LocalDate lastRunDate = forceFullScan ? null : fineAccrualRunRepository.findLastCompletedRunDate();
+        boolean fullScan = lastRunDate == null;
+        FineAccrualRun run = fineAccrualRunRepository.save(FineAccrualRun.builder()
+            .runDate(runDate)
+            .windowStart(lastRunDate)
+            .status(FineAccrualRun.RunStatus.RUNNING)
+            .trigger(trigger)
+            .fullScan(fullScan)
+            .build());
+
+        int classes = 0;
+        int cohorts = 0;
+        int evaluated = 0;
+        int updated = 0;
+        try {
+            for (Map.Entry<Long, FineSchedule> entry : fineScheduleCache.schedules().entrySet()) {
+                FineSchedule schedule = entry.getValue();
+                if (schedule.isEmpty()) {
+                    continue;
+                }
+
+                Set<Long> voucherIds = new LinkedHashSet<>();
+                if (fullScan) {
+                    cohorts++;
+                    voucherIds.addAll(feeVoucherRepository.findUnpaidIdsByClassAndDueDateWindow(
+                        entry.getKey(), FULL_SCAN_START, runDate.minusDays(1)));
+                } else {
+                    for (int threshold : schedule.thresholds()) {
+                        // Fines start the day after the due date, so a 0-day tier is first reached at 1 day
+                        int days = Math.max(threshold, 1);
+                        cohorts++;
+                        voucherIds.addAll(feeVoucherRepository.findUnpaidIdsByClassAndDueDateWindow(
+                            entry.getKey(), lastRunDate.minusDays(days), runDate.minusDays(days)));
+                    }
+                }
+
+                classes++;
+                evaluated += voucherIds.size();
+                if (!voucherIds.isEmpty()) {
+                    updated += fineCalculationService.applyFines(voucherIds, runDate);
+                }
+            }
+
+            run.setStatus(FineAccrualRun.RunStatus.COMPLETED);
+            log.info("Fine accrual for {} ({}): {} vouchers evaluated in {} cohorts, {} updated",
+                     runDate, fullScan ? "full scan" : "since " + lastRunDate, evaluated, cohorts, updated);
+        } catch (RuntimeException e) {
+            log.error("Fine accrual for {} failed", runDate, e);
+            run.setStatus(FineAccrualRun.RunStatus.FAILED);
+            run.setErrorMessage(e.getMessage());
+        } finally {
+            run.setClassesScanned(classes);
+            run.setCohortsScanned(cohorts);
+            run.setVouchersEvaluated(evaluated);
+            run.setVouchersUpdated(updated);
+            run.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+            run = fineAccrualRunRepository.save(run);
+        }
+        return toResponse(run);
+    }
+
+    private FineAccrualRunResponse toResponse(FineAccrualRun run) {
+        return FineAccrualRunResponse.builder()
+            .id(run.getId())
+            .runDate(run.getRunDate())
+            .windowStart(run.getWindowStart())
+            .status(run.getStatus())
+            .trigger(run.getTrigger())
+            .fullScan(run.getFullScan())
+            .classesScanned(run.getClassesScanned())
+            .cohortsScanned(run.getCohortsScanned())
+            .vouchersEvaluated(run.getVouchersEvaluated())
+            .vouchersUpdated(run.getVouchersUpdated())
+            .elapsedMillis(run.getElapsedMillis())
+            .errorMessage(run.getErrorMessage())
+            .startedAt(run.getCreatedAt())
+            .build();
+    }
+}
@@ -2,10 +2,12 @@ package com.saqib.school.fee.service;
 
 import com.saqib.school.common.audit.Auditable;
 import com.saqib.school.fee.entity.FeeVoucher;
-import com.saqib.school.fee.entity.FineStructure;
 import com.saqib.school.fee.model.FineCalculationRequest;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.FineUpdate;
 import com.saqib.school.fee.repository.FeeVoucherRepository;
-import com.saqib.school.fee.repository.FineStructureRepository;
+import com.saqib.school.fee.repository.FeeVoucherRepository.FineCandidateView;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,49 +15,74 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FineCalculationService {
 
+    // Keeps the IN list well under the driver's bind parameter limit
+    private static final int VOUCHER_ID_CHUNK = 1000;
+
     private final FeeVoucherRepository feeVoucherRepository;
-    private final FineStructureRepository fineStructureRepository;
+    private final FeeVoucherBatchRepository feeVoucherBatchRepository;
+    private final FineScheduleCache fineScheduleCache;
+    private final ReceivablesAgingService receivablesAgingService;
+    private final EntityManager entityManager;
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Auditable(action = "CALCULATE_FINES", entityType = "FeeVoucher")
     public Map<Long, BigDecimal> calculateFines(FineCalculationRequest request) {
-        return request.getVoucherIds().stream()
-            .collect(Collectors.toMap(
-                voucherId -> voucherId,
-                voucherId -> calculateFineForVoucher(voucherId, request.getCalculationDate())
-            ));
+        Map<Long, FineResult> results = computeFines(request.getVoucherIds(), request.getCalculationDate());
+
+        Map<Long, BigDecimal> fines = new LinkedHashMap<>();
+        for (Long voucherId : request.getVoucherIds()) {
+            FineResult result = results.get(voucherId);
+            fines.put(voucherId, result != null ? result.fine() : BigDecimal.ZERO);
+        }
+        return fines;
     }
 
     @Transactional
     @Auditable(action = "APPLY_CALCULATED_FINES", entityType = "FeeVoucher")
     public void applyCalculatedFines(FineCalculationRequest request) {
-        for (Long voucherId : request.getVoucherIds()) {
-            FeeVoucher voucher = feeVoucherRepository.findById(voucherId).orElse(null);
-            if (voucher == null || voucher.getStatus() != FeeVoucher.VoucherStatus.PENDING) {
-                continue;
-            }
+        int updated = applyFines(request.getVoucherIds(), request.getCalculationDate());
 
-            BigDecimal calculatedFine = calculateFineForVoucher(voucherId, request.getCalculationDate());
-            if (calculatedFine.compareTo(BigDecimal.ZERO) > 0) {
-                voucher.setFineAmount(calculatedFine);
-                if (voucher.getDueDate().isBefore(request.getCalculationDate())) {
-                    voucher.markAsOverdue();
-                }
-                feeVoucherRepository.save(voucher);
-            }
+        log.info("Applied calculated fines to {} of {} vouchers", updated, request.getVoucherIds().size());
+    }
+
+    /**
+     * Recalculates and writes fines for the given vouchers; returns how many
+     * vouchers changed. Vouchers the caller already loaded in this transaction
+     * are detached, so the next read sees the new fine.
+     */
+    @Transactional
+    public int applyFines(Collection<Long> voucherIds, LocalDate calculationDate) {
+        List<FineUpdate> updates = computeFines(voucherIds, calculationDate).values().stream()
+            .filter(FineResult::changed)
+            .map(result -> new FineUpdate(result.voucherId(), result.fine()))
+            .toList();
+        if (updates.isEmpty()) {
+            return 0;
         }
 
-        log.info("Applied calculated fines to {} vouchers", request.getVoucherIds().size());
+        // The batch write bypasses the persistence context: flush pending changes first, then drop stale copies
+        entityManager.flush();
+        int updated = feeVoucherBatchRepository.updateFines(updates, calculationDate);
+        for (FineUpdate update : updates) {
+            entityManager.detach(entityManager.getReference(FeeVoucher.class, update.voucherId()));
+        }
+        if (updated > 0) {
+            receivablesAgingService.invalidateAfterCommit();
+        }
+        return updated;
     }
 
     @Transactional
@@ -66,48 +93,54 @@ public class FineCalculationService {
 
         BigDecimal originalFine = voucher.getFineAmount();
         voucher.setFineAmount(BigDecimal.ZERO);
+        voucher.setFineWaivedAt(LocalDateTime.now());
         voucher.setNotes((voucher.getNotes() != null ? voucher.getNotes() + "; " : "") +
                         "Fine waived: " + reason + " (Original: " + originalFine + ")");
 
         feeVoucherRepository.save(voucher);
+        receivablesAgingService.invalidateAfterCommit();
         log.info("Fine waived for voucher {} - Original amount: {}, Reason: {}",
                  voucher.getVoucherNumber(), originalFine, reason);
     }
 
-    private BigDecimal calculateFineForVoucher(Long voucherId, LocalDate calculationDate) {
-        FeeVoucher voucher = feeVoucherRepository.findById(voucherId).orElse(null);
-        if (voucher == null || voucher.getStatus() != FeeVoucher.VoucherStatus.PENDING) {
-            return BigDecimal.ZERO;
-        }
-
-        if (!voucher.getDueDate().isBefore(calculationDate)) {
-            return BigDecimal.ZERO; // Not overdue yet
-        }
+    /**
+     * Loads the requested vouchers with their class in one query per chunk and
+     * prices fines from the compiled schedules. Only unpaid vouchers past
+     * their due date whose fine was never waived get a result.
+     */
+    private Map<Long, FineResult> computeFines(Collection<Long> voucherIds, LocalDate calculationDate) {
+        List<Long> ids = voucherIds.stream().distinct().toList();
+        Map<Long, FineResult> results = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += VOUCHER_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + VOUCHER_ID_CHUNK, ids.size()));
+            for (FineCandidateView voucher : feeVoucherRepository.findFineCandidates(chunk)) {
+                if (results.containsKey(voucher.getId()) || !isFineable(voucher, calculationDate)) {
+                    continue;
+                }
 
-        // Get current enrollment to find class
-        Long classId = voucher.getStudent().getEnrollments().stream()
-            .filter(enrollment -> enrollment.getStatus() ==
-                com.saqib.school.student.entity.StudentEnrollment.EnrollmentStatus.ACTIVE)
-            .findFirst()
-            .map(enrollment -> enrollment.getSchoolClass().getId())
-            .orElse(null);
+                int daysOverdue = (int) ChronoUnit.DAYS.between(voucher.getDueDate(), calculationDate);
+                BigDecimal fine = fineScheduleCache.scheduleFor(voucher.getClassId())
+                    .fineFor(daysOverdue, voucher.getTotalAmount());
 
-        if (classId == null) {
-            return BigDecimal.ZERO;
+                // Existing fines are never lowered; only a higher fine or a status flip is written,
+                // and the UPDATE keeps the larger amount should the voucher change in between
+                boolean changed = fine.signum() > 0 &&
+                    (voucher.getFineAmount() == null || fine.compareTo(voucher.getFineAmount()) > 0 ||
+                     voucher.getStatus() == FeeVoucher.VoucherStatus.PENDING);
+                results.put(voucher.getId(), new FineResult(voucher.getId(), fine, changed));
+            }
         }
+        return results;
+    }
 
-        int daysOverdue = (int) ChronoUnit.DAYS.between(voucher.getDueDate(), calculationDate);
-
-        // Get applicable fine structures
-        List<FineStructure> applicableFines = fineStructureRepository
-            .findApplicableFines(classId, daysOverdue);
-
-        if (applicableFines.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
+    private static boolean isFineable(FineCandidateView voucher, LocalDate calculationDate) {
+        // Daily maintenance moves unpaid vouchers to OVERDUE, so both statuses still accrue fines
+        boolean unpaid = voucher.getStatus() == FeeVoucher.VoucherStatus.PENDING ||
+                         voucher.getStatus() == FeeVoucher.VoucherStatus.OVERDUE;
+        return unpaid && voucher.getClassId() != null && voucher.getDueDate().isBefore(calculationDate);
+    }
 
-        // Apply the highest applicable fine
-        FineStructure applicableFine = applicableFines.getFirst(); // Already ordered DESC
-        return applicableFine.calculateFine(voucher.getTotalAmount());
+    private record FineResult(Long voucherId, BigDecimal fine, boolean changed) {
     }
 }
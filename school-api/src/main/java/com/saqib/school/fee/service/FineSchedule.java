@@ -0,0 +1,71 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.FineStructure;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A class's active fine structures compiled into a threshold array sorted by
+ * {@code daysAfterDue}. The applicable tier for a number of overdue days is the
+ * highest threshold not above it, found by binary search.
+ */
+public final class FineSchedule {
+
+    private static final FineSchedule EMPTY = new FineSchedule(new int[0], new FineStructure[0]);
+
+    private final int[] thresholds;
+    private final FineStructure[] tiers;
+
+    private FineSchedule(int[] thresholds, FineStructure[] tiers) {
+        this.thresholds = thresholds;
+        this.tiers = tiers;
+    }
+
+    public static FineSchedule empty() {
+        return EMPTY;
+    }
+
+    public static FineSchedule of(List<FineStructure> structures) {
+        if (structures.isEmpty()) {
+            return EMPTY;
+        }
+        FineStructure[] tiers = structures.stream()
+            .sorted(Comparator.comparing(FineStructure::getDaysAfterDue))
+            .toArray(FineStructure[]::new);
+        int[] thresholds = Arrays.stream(tiers).mapToInt(FineStructure::getDaysAfterDue).toArray();
+        return new FineSchedule(thresholds, tiers);
+    }
+
+    /**
+     * The tier in force after {@code daysOverdue} days, or {@code null} if no
+     * threshold has been reached yet.
+     */
+    public FineStructure applicable(int daysOverdue) {
+        int index = tierIndex(daysOverdue);
+        return index >= 0 ? tiers[index] : null;
+    }
+
+    /**
+     * Index of the tier in force after {@code daysOverdue} days, or -1.
+     */
+    public int tierIndex(int daysOverdue) {
+        int index = Arrays.binarySearch(thresholds, daysOverdue);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public BigDecimal fineFor(int daysOverdue, BigDecimal voucherAmount) {
+        FineStructure tier = applicable(daysOverdue);
+        return tier != null ? tier.calculateFine(voucherAmount) : BigDecimal.ZERO;
+    }
+
+    public int[] thresholds() {
+        return thresholds.clone();
+    }
+
+    public boolean isEmpty() {
+        return thresholds.length == 0;
+    }
+}
@@ -0,0 +1,85 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.FineStructure;
+import com.saqib.school.fee.repository.FineStructureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled {@link FineSchedule}s for every class, loaded with one query and
+ * reused until a {@link FineStructureService} write invalidates them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FineScheduleCache {
+
+    private final FineStructureRepository fineStructureRepository;
+
+    private final AtomicReference<Compiled> schedules = new AtomicReference<>();
+    // Bumped on every invalidation; schedules compiled under an older generation are never served
+    private final AtomicLong generation = new AtomicLong();
+
+    public FineSchedule scheduleFor(Long classId) {
+        return classId != null ? schedules().getOrDefault(classId, FineSchedule.empty()) : FineSchedule.empty();
+    }
+
+    public Map<Long, FineSchedule> schedules() {
+        Compiled current = schedules.get();
+        return current != null && current.generation() == generation.get() ? current.byClass() : load();
+    }
+
+    /**
+     * Drops the compiled schedules once the surrounding transaction commits,
+     * or immediately when called outside one.
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        schedules.set(null);
+    }
+
+    private synchronized Map<Long, FineSchedule> load() {
+        long observed = generation.get();
+        Compiled current = schedules.get();
+        if (current != null && current.generation() == observed) {
+            return current.byClass();
+        }
+
+        Map<Long, List<FineStructure>> byClass = fineStructureRepository.findAllActiveWithClass().stream()
+            .collect(Collectors.groupingBy(structure -> structure.getSchoolClass().getId()));
+        Map<Long, FineSchedule> compiled = new HashMap<>();
+        byClass.forEach((classId, structures) -> compiled.put(classId, FineSchedule.of(structures)));
+
+        // Tagged with the generation seen before the query, so an invalidation racing it makes it stale
+        Map<Long, FineSchedule> loaded = Map.copyOf(compiled);
+        schedules.set(new Compiled(observed, loaded));
+        log.info("Compiled fine schedules for {} classes", loaded.size());
+        return loaded;
+    }
+
+    private record Compiled(long generation, Map<Long, FineSchedule> byClass) {
+    }
+}
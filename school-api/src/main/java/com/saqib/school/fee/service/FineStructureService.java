@@ -27,6 +27,7 @@ public class FineStructureService {
     private final FineStructureRepository fineStructureRepository;
     private final SchoolClassRepository schoolClassRepository;
     private final FineStructureMapper fineStructureMapper;
+    private final FineScheduleCache fineScheduleCache;
 
     @Transactional
     @Auditable(action = "CREATE_FINE_STRUCTURE", entityType = "FineStructure")
@@ -40,6 +41,7 @@ public class FineStructureService {
         fineStructure.setIsActive(true);
 
         FineStructure savedStructure = fineStructureRepository.save(fineStructure);
+        fineScheduleCache.invalidateAfterCommit();
         log.info("Fine structure created for class {} - {} days after due",
                  schoolClass.getDisplayName(), request.getDaysAfterDue());
 
@@ -93,6 +95,7 @@ public class FineStructureService {
 
         fineStructureMapper.updateEntity(request, fineStructure);
         FineStructure updatedStructure = fineStructureRepository.save(fineStructure);
+        fineScheduleCache.invalidateAfterCommit();
 
         log.info("Fine structure updated for class {} - {} days after due",
                  fineStructure.getSchoolClass().getDisplayName(), request.getDaysAfterDue());
@@ -106,6 +109,7 @@ public class FineStructureService {
         FineStructure fineStructure = findFineStructureById(id);
         fineStructure.setIsActive(!fineStructure.getIsActive());
         fineStructureRepository.save(fineStructure);
+        fineScheduleCache.invalidateAfterCommit();
 
         log.info("Fine structure status toggled to {} for class {} - {} days after due",
                  fineStructure.getIsActive(),
@@ -118,6 +122,7 @@ public class FineStructureService {
     public void deleteFineStructure(Long id) {
         FineStructure fineStructure = findFineStructureById(id);
         fineStructureRepository.delete(fineStructure);
+        fineScheduleCache.invalidateAfterCommit();
 
         log.info("Fine structure deleted for class {} - {} days after due",
                  fineStructure.getSchoolClass().getDisplayName(),
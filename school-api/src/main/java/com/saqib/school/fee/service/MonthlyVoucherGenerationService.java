@@ -0,0 +1,314 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeLine;
+import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.event.FeeVouchersIssuedEvent;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationRequest;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse.ClassGenerationResult;
+import com.saqib.school.fee.model.MonthlyVoucherGenerationResponse.GenerationStatus;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.DetailRow;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.DuplicateMonthlyVouchers;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.InsertedVoucher;
+import com.saqib.school.fee.repository.FeeVoucherBatchRepository.VoucherRow;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import com.saqib.school.fee.service.FeePricingSnapshot.FeeHead;
+import com.saqib.school.student.repository.StudentEnrollmentRepository;
+import com.saqib.school.student.repository.StudentEnrollmentRepository.ActiveEnrollmentView;
+import com.saqib.school.user.entity.User;
+import com.saqib.school.user.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * Bulk monthly voucher generation. Students are grouped into per-class cohorts;
+ * each cohort is priced in memory from the fee pricing snapshot and preloaded discounts
+ * and written with batched inserts in chunked transactions. Cohorts run in
+ * parallel on {@code feeGenerationExecutor}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlyVoucherGenerationService {
+
+    private final StudentEnrollmentRepository studentEnrollmentRepository;
+    private final FeePricingCache feePricingCache;
+    private final DiscountResolutionService discountResolutionService;
+    private final FeeVoucherRepository feeVoucherRepository;
+    private final VoucherNumberService voucherNumberService;
+    private final FeeVoucherBatchRepository feeVoucherBatchRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor feeGenerationExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.fee.generation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.fee.packed-details.enabled:false}")
+    private boolean packDetails;
+
+    /**
+     * schema.sql leaves uk_fee_vouchers_student_month out while older data
+     * holds duplicate monthly vouchers; list them so they can be cancelled by
+     * hand. Until then only the issued check keeps generation from adding more.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportDuplicateVouchers() {
+        if (feeVoucherBatchRepository.hasMonthlyVoucherIndex()) {
+            return;
+        }
+        List<DuplicateMonthlyVouchers> duplicates = feeVoucherBatchRepository.findDuplicateMonthlyVouchers();
+        for (DuplicateMonthlyVouchers duplicate : duplicates) {
+            log.error("Student {} holds several live monthly vouchers for {}: {}",
+                      duplicate.studentId(), duplicate.monthYear(), duplicate.voucherNumbers());
+        }
+        if (!duplicates.isEmpty()) {
+            log.error("uk_fee_vouchers_student_month is not created until these {} duplicates are cancelled; " +
+                      "it is added on the next start after that", duplicates.size());
+        }
+    }
+
+    public MonthlyVoucherGenerationResponse generate(MonthlyVoucherGenerationRequest request) {
+        long startedAt = System.nanoTime();
+
+        User currentUser = userService.getCurrentUser();
+        GenerationRun run = prepareRun(request, currentUser.getId());
+
+        List<ClassCohort> cohorts = loadCohorts(request);
+        List<CompletableFuture<ClassGenerationResult>> futures = cohorts.stream()
+            .map(cohort -> CompletableFuture.supplyAsync(() -> generateForClass(cohort, run), feeGenerationExecutor))
+            .toList();
+
+        List<ClassGenerationResult> classResults = futures.stream()
+            .map(CompletableFuture::join)
+            .toList();
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        int generated = classResults.stream().mapToInt(ClassGenerationResult::getGeneratedVouchers).sum();
+
+        log.info("Generated {} monthly vouchers for {} across {} classes in {} ms",
+                 generated, request.getMonthYear(), classResults.size(), elapsedMillis);
+
+        return MonthlyVoucherGenerationResponse.builder()
+            .monthYear(request.getMonthYear())
+            .dueDate(request.getDueDate())
+            .totalStudents(classResults.stream().mapToInt(ClassGenerationResult::getStudents).sum())
+            .generatedVouchers(generated)
+            .skippedStudents(classResults.stream().mapToInt(ClassGenerationResult::getSkippedStudents).sum())
+            .failedStudents(classResults.stream().mapToInt(ClassGenerationResult::getFailedStudents).sum())
+            .failedClasses((int) classResults.stream().filter(r -> r.getStatus() == GenerationStatus.FAILED).count())
+            .totalAmount(Money.ofPaisa(classResults.stream().mapToLong(r -> r.getTotalAmount().paisa()).sum()))
+            .elapsedMillis(elapsedMillis)
+            .vouchersPerSecond(rate(generated, elapsedMillis))
+            .classResults(classResults)
+            .build();
+    }
+
+    /**
+     * Pricing context shared by every class of one generation run.
+     */
+    public GenerationRun prepareRun(MonthlyVoucherGenerationRequest request, Long createdById) {
+        return new GenerationRun(
+            request.getMonthYear(),
+            request.getDueDate(),
+            LocalDate.now(),
+            createdById,
+            feePricingCache.snapshot()
+        );
+    }
+
+    public ClassGenerationResult generateForClass(ClassCohort cohort, GenerationRun run) {
+        return generateForClass(cohort, run, written -> { });
+    }
+
+    /**
+     * Generates vouchers for one class. Students that already hold a monthly
+     * voucher for the run's month are skipped, so a class can safely be re-run
+     * after a partial failure; the unique index on live monthly vouchers also
+     * skips any issued concurrently by another run. {@code onChunkWritten} is
+     * called inside each chunk's transaction with the number of vouchers inserted.
+     */
+    public ClassGenerationResult generateForClass(ClassCohort cohort, GenerationRun run, IntConsumer onChunkWritten) {
+        long startedAt = System.nanoTime();
+        ClassGenerationResult.ClassGenerationResultBuilder result = ClassGenerationResult.builder()
+            .classId(cohort.classId())
+            .className(cohort.className())
+            .students(cohort.studentIds().size())
+            .generatedVouchers(0)
+            .skippedStudents(0)
+            .failedStudents(0)
+            .totalAmount(Money.ZERO);
+
+        List<FeeHead> heads = run.pricing().forClass(cohort.classId()).monthlyHeads();
+        if (heads.isEmpty()) {
+            log.warn("No fee structures found for class {}", cohort.className());
+            return result
+                .status(GenerationStatus.NO_FEE_STRUCTURE)
+                .skippedStudents(cohort.studentIds().size())
+                .elapsedMillis(elapsedMillis(startedAt))
+                .vouchersPerSecond(0d)
+                .build();
+        }
+
+        int generated = 0;
+        int skipped = 0;
+        long classTotal = 0;
+        try {
+            Set<Long> alreadyIssued = new HashSet<>(
+                feeVoucherRepository.findStudentIdsWithMonthlyVoucher(cohort.studentIds(), run.monthYear()));
+            List<Long> studentIds = cohort.studentIds().stream()
+                .filter(studentId -> !alreadyIssued.contains(studentId))
+                .toList();
+            skipped = alreadyIssued.size();
+
+            if (studentIds.isEmpty()) {
+                return result
+                    .status(GenerationStatus.COMPLETED)
+                    .skippedStudents(skipped)
+                    .elapsedMillis(elapsedMillis(startedAt))
+                    .vouchersPerSecond(0d)
+                    .build();
+            }
+
+            DiscountResolutionTable discounts = discountResolutionService.load(studentIds, run.issueDate());
+            List<String> voucherNumbers = voucherNumberService.reserveVoucherNumbers(
+                FeeVoucher.VoucherType.MONTHLY, run.issueDate(), studentIds.size());
+
+            List<VoucherRow> vouchers = new ArrayList<>(studentIds.size());
+            for (int i = 0; i < studentIds.size(); i++) {
+                vouchers.add(buildVoucher(studentIds.get(i), voucherNumbers.get(i), heads, discounts, run));
+            }
+
+            for (int from = 0; from < vouchers.size(); from += chunkSize) {
+                List<VoucherRow> chunk = vouchers.subList(from, Math.min(from + chunkSize, vouchers.size()));
+                List<InsertedVoucher> inserted = transactionTemplate.execute(status -> {
+                    List<InsertedVoucher> rows = feeVoucherBatchRepository.insertVouchersWithDetails(chunk);
+                    if (!rows.isEmpty()) {
+                        eventPublisher.publishEvent(new FeeVouchersIssuedEvent(
+                            rows.stream().map(InsertedVoucher::id).toList()));
+                    }
+                    onChunkWritten.accept(rows.size());
+                    return rows;
+                });
+                generated += inserted.size();
+                skipped += chunk.size() - inserted.size();
+                for (InsertedVoucher voucher : inserted) {
+                    classTotal += voucher.voucher().totalAmount().paisa();
+                }
+            }
+
+            long elapsedMillis = elapsedMillis(startedAt);
+            log.debug("Class {}: {} vouchers in {} ms", cohort.className(), generated, elapsedMillis);
+            return result
+                .status(GenerationStatus.COMPLETED)
+                .generatedVouchers(generated)
+                .skippedStudents(skipped)
+                .totalAmount(Money.ofPaisa(classTotal))
+                .elapsedMillis(elapsedMillis)
+                .vouchersPerSecond(rate(generated, elapsedMillis))
+                .build();
+        } catch (RuntimeException e) {
+            log.error("Voucher generation failed for class {} after {} vouchers", cohort.className(), generated, e);
+            long elapsedMillis = elapsedMillis(startedAt);
+            // Chunks committed before the failure stay; everyone else is left for a re-run
+            return result
+                .status(GenerationStatus.FAILED)
+                .generatedVouchers(generated)
+                .skippedStudents(skipped)
+                .failedStudents(cohort.studentIds().size() - skipped - generated)
+                .totalAmount(Money.ofPaisa(classTotal))
+                .elapsedMillis(elapsedMillis)
+                .vouchersPerSecond(rate(generated, elapsedMillis))
+                .errorMessage(e.getMessage())
+                .build();
+        }
+    }
+
+    private VoucherRow buildVoucher(Long studentId, String voucherNumber, List<FeeHead> heads,
+                                    DiscountResolutionTable discounts, GenerationRun run) {
+        List<DetailRow> details = new ArrayList<>(heads.size());
+        List<FeeLine> feeLines = packDetails ? new ArrayList<>(heads.size()) : null;
+        long totalAmount = 0;
+
+        for (FeeHead head : heads) {
+            Money discountAmount = discounts.discountFor(studentId, head.categoryId(), head.amount());
+            Money finalAmount = head.amount().minus(discountAmount);
+
+            details.add(new DetailRow(head.categoryId(), head.amount(), discountAmount, finalAmount));
+            if (feeLines != null) {
+                feeLines.add(new FeeLine(head.categoryId(), head.categoryName(), head.amount(), discountAmount, finalAmount));
+            }
+            totalAmount += finalAmount.paisa();
+        }
+
+        return new VoucherRow(
+            voucherNumber,
+            studentId,
+            FeeVoucher.VoucherType.MONTHLY,
+            run.monthYear(),
+            run.issueDate(),
+            run.dueDate(),
+            Money.ofPaisa(totalAmount),
+            run.createdById(),
+            details,
+            feeLines
+        );
+    }
+
+    public List<ClassCohort> loadCohorts(MonthlyVoucherGenerationRequest request) {
+        List<ActiveEnrollmentView> enrollments;
+        if (request.getStudentIds() != null && !request.getStudentIds().isEmpty()) {
+            enrollments = studentEnrollmentRepository.findActiveEnrollmentViewsByStudentIds(request.getStudentIds());
+        } else if (request.getClassIds() != null && !request.getClassIds().isEmpty()) {
+            enrollments = studentEnrollmentRepository.findActiveEnrollmentViewsByClassIds(request.getClassIds());
+        } else {
+            enrollments = studentEnrollmentRepository.findActiveEnrollmentViews();
+        }
+
+        Map<Long, ClassCohort> cohorts = new LinkedHashMap<>();
+        for (ActiveEnrollmentView enrollment : enrollments) {
+            cohorts.computeIfAbsent(enrollment.getClassId(), classId -> new ClassCohort(
+                    classId, enrollment.getClassName() + " - " + enrollment.getSection(), new ArrayList<>()))
+                .studentIds().add(enrollment.getStudentId());
+        }
+        return new ArrayList<>(cohorts.values());
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    private static double rate(int count, long elapsedMillis) {
+        return elapsedMillis > 0 ? count * 1000d / elapsedMillis : count;
+    }
+
+    public record ClassCohort(Long classId, String className, List<Long> studentIds) {
+    }
+
+    public record GenerationRun(String monthYear,
+                                 LocalDate dueDate,
+                                 LocalDate issueDate,
+                                 Long createdById,
+                                 FeePricingSnapshot pricing) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.event.FeePaymentsPostedEvent;
+import com.saqib.school.fee.event.FeeVoucherCancelledEvent;
+import com.saqib.school.fee.event.FeeVouchersIssuedEvent;
+import com.saqib.school.fee.model.ReceivablesAgingResponse;
+import com.saqib.school.fee.repository.ReceivablesAgingRepository;
+import com.saqib.school.fee.repository.ReceivablesAgingRepository.AgingRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receivables aging reports, cached per as-of date, class filter and split.
+ * Balances are the vouchers' current ones; the as-of date only sets their
+ * age and which vouchers had been issued. The cache is dropped whenever a
+ * committed change moves a balance: payments, issued or cancelled vouchers,
+ * and fine updates. Those events only reach the node that made the change,
+ * so cached reports also expire after {@code app.fee.aging.cache-seconds}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReceivablesAgingService {
+
+    // Reports differ only by date and filter; past this many the cache starts over
+    private static final int MAX_CACHED_REPORTS = 64;
+
+    private final ReceivablesAgingRepository receivablesAgingRepository;
+
+    private final Map<ReportKey, CachedReport> reports = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a report computed across one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    // Bounds how stale a report can be after a change made through another node
+    @Value("${app.fee.aging.cache-seconds:30}")
+    private long cacheSeconds;
+
+    @Transactional(readOnly = true)
+    public ReceivablesAgingResponse getAgingReport(LocalDate asOfDate, Long classId, boolean byCategory) {
+        ReportKey key = new ReportKey(asOfDate != null ? asOfDate : LocalDate.now(), classId, byCategory);
+        CachedReport cached = reports.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.report();
+        }
+
+        long startedAt = System.nanoTime();
+        long observed = generation.get();
+        long expiresAt = System.currentTimeMillis() + cacheSeconds * 1000;
+        ReceivablesAgingResponse report = buildReport(key);
+        if (generation.get() == observed) {
+            if (reports.size() >= MAX_CACHED_REPORTS) {
+                reports.clear();
+            }
+            reports.put(key, new CachedReport(report, expiresAt));
+        }
+
+        log.info("Receivables aging as of {} built with {} rows in {} ms",
+                 key.asOfDate(), report.getRows().size(), (System.nanoTime() - startedAt) / 1_000_000);
+        return report;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPaymentsPosted(FeePaymentsPostedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onVouchersIssued(FeeVouchersIssuedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onVoucherCancelled(FeeVoucherCancelledEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Drops cached reports once the surrounding transaction commits, or
+     * immediately when called outside one. For balance changes that publish
+     * no event, such as fines.
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        reports.clear();
+    }
+
+    private ReceivablesAgingResponse buildReport(ReportKey key) {
+        List<AgingRow> rows = receivablesAgingRepository.findAging(key.asOfDate(), key.classId(), key.byCategory());
+
+        long[] totals = new long[6];
+        List<ReceivablesAgingResponse.AgingRow> agingRows = new ArrayList<>(rows.size());
+        for (AgingRow row : rows) {
+            totals[0] += Money.toPaisa(row.notDue());
+            totals[1] += Money.toPaisa(row.days0To30());
+            totals[2] += Money.toPaisa(row.days31To60());
+            totals[3] += Money.toPaisa(row.days61To90());
+            totals[4] += Money.toPaisa(row.daysOver90());
+            totals[5] += Money.toPaisa(row.total());
+            agingRows.add(ReceivablesAgingResponse.AgingRow.builder()
+                .classId(row.classId())
+                .className(row.className())
+                .feeCategoryId(row.feeCategoryId())
+                .feeCategoryName(row.feeCategoryName())
+                .vouchers(row.vouchers())
+                .students(row.students())
+                .buckets(ReceivablesAgingResponse.Buckets.builder()
+                    .notDue(row.notDue())
+                    .days0To30(row.days0To30())
+                    .days31To60(row.days31To60())
+                    .days61To90(row.days61To90())
+                    .daysOver90(row.daysOver90())
+                    .total(row.total())
+                    .build())
+                .build());
+        }
+
+        return ReceivablesAgingResponse.builder()
+            .asOfDate(key.asOfDate())
+            .classId(key.classId())
+            .byCategory(key.byCategory())
+            .generatedAt(LocalDateTime.now())
+            .totals(ReceivablesAgingResponse.Buckets.builder()
+                .notDue(amount(totals[0]))
+                .days0To30(amount(totals[1]))
+                .days31To60(amount(totals[2]))
+                .days61To90(amount(totals[3]))
+                .daysOver90(amount(totals[4]))
+                .total(amount(totals[5]))
+                .build())
+            .rows(agingRows)
+            .build();
+    }
+
+    private static BigDecimal amount(long paisa) {
+        return Money.ofPaisa(paisa).toBigDecimal();
+    }
+
+    private record ReportKey(LocalDate asOfDate, Long classId, boolean byCategory) {
+    }
+
+    // Expiry is counted from when the report started reading, not when it was stored
+    private record CachedReport(ReceivablesAgingResponse report, long expiresAt) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.StudentDiscount;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Validity periods of one student's active discounts, per fee category. Each
+ * category keeps its intervals sorted by start day together with a running
+ * maximum of end days, so an overlap test is a single binary search even when
+ * legacy data already contains overlapping periods.
+ */
+public final class StudentDiscountIntervals {
+
+    private static final long OPEN_END = Long.MAX_VALUE;
+
+    private final Map<Long, Intervals> byCategory;
+
+    private StudentDiscountIntervals(Map<Long, Intervals> byCategory) {
+        this.byCategory = byCategory;
+    }
+
+    public static StudentDiscountIntervals of(Collection<StudentDiscount> discounts) {
+        Map<Long, List<StudentDiscount>> grouped = discounts.stream()
+            .filter(StudentDiscount::getIsActive)
+            .collect(Collectors.groupingBy(discount -> discount.getFeeCategory().getId()));
+
+        Map<Long, Intervals> byCategory = new HashMap<>();
+        grouped.forEach((categoryId, categoryDiscounts) -> byCategory.put(categoryId, Intervals.of(categoryDiscounts)));
+        return new StudentDiscountIntervals(byCategory);
+    }
+
+    /**
+     * Whether any discount in the category is valid on at least one day of
+     * {@code [from, to]}; a null {@code to} means open-ended.
+     */
+    public boolean overlaps(Long categoryId, LocalDate from, LocalDate to) {
+        Intervals intervals = byCategory.get(categoryId);
+        return intervals != null && intervals.overlaps(from.toEpochDay(), to != null ? to.toEpochDay() : OPEN_END);
+    }
+
+    private record Intervals(long[] starts, long[] maxEnds) {
+
+        static Intervals of(List<StudentDiscount> discounts) {
+            List<StudentDiscount> sorted = discounts.stream()
+                .sorted(Comparator.comparing(StudentDiscount::getValidFrom))
+                .toList();
+
+            long[] starts = new long[sorted.size()];
+            long[] maxEnds = new long[sorted.size()];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < sorted.size(); i++) {
+                StudentDiscount discount = sorted.get(i);
+                starts[i] = discount.getValidFrom().toEpochDay();
+                long end = discount.getValidTo() != null ? discount.getValidTo().toEpochDay() : OPEN_END;
+                maxEnd = Math.max(maxEnd, end);
+                maxEnds[i] = maxEnd;
+            }
+            return new Intervals(starts, maxEnds);
+        }
+
+        boolean overlaps(long from, long to) {
+            // Last interval starting on or before 'to'; any earlier one ending on or after 'from' overlaps
+            int index = Arrays.binarySearch(starts, to);
+            if (index < 0) {
+                index = -index - 2;
+            } else {
+                while (index + 1 < starts.length && starts[index + 1] == to) {
+                    index++;
+                }
+            }
+            return index >= 0 && maxEnds[index] >= from;
+        }
+    }
+}
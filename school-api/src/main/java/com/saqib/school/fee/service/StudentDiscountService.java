@@ -7,10 +7,12 @@ import com.saqib.school.common.exception.ResourceNotFoundException;
 import com.saqib.school.fee.entity.FeeCategory;
 import com.saqib.school.fee.entity.StudentDiscount;
 import com.saqib.school.fee.mapper.StudentDiscountMapper;
+import com.saqib.school.fee.model.BulkDiscountResponse;
 import com.saqib.school.fee.model.StudentDiscountRequest;
 import com.saqib.school.fee.model.StudentDiscountResponse;
 import com.saqib.school.fee.model.StudentDiscountUpdateRequest;
 import com.saqib.school.fee.repository.FeeCategoryRepository;
+import com.saqib.school.fee.repository.StudentDiscountBatchRepository;
 import com.saqib.school.fee.repository.StudentDiscountRepository;
 import com.saqib.school.student.entity.Student;
 import com.saqib.school.student.repository.StudentRepository;
@@ -26,7 +28,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -34,10 +38,13 @@ import java.util.List;
 public class StudentDiscountService {
 
     private final StudentDiscountRepository studentDiscountRepository;
+    private final StudentDiscountBatchRepository studentDiscountBatchRepository;
     private final StudentRepository studentRepository;
     private final FeeCategoryRepository feeCategoryRepository;
     private final UserService userService;
     private final StudentDiscountMapper studentDiscountMapper;
+    private final DiscountResolutionService discountResolutionService;
+    private final FeeMaintenanceService feeMaintenanceService;
 
     @Transactional
     @Auditable(action = "CREATE_STUDENT_DISCOUNT", entityType = "StudentDiscount")
@@ -61,6 +68,60 @@ public class StudentDiscountService {
         return studentDiscountMapper.toResponse(savedDiscount);
     }
 
+    /**
+     * Applies the template discount to every student in one pass: existence
+     * and overlaps are checked for the whole id set up front, and the
+     * remaining students are inserted in a single JDBC batch. Students that
+     * cannot take the discount are reported with a reason instead of failing
+     * the request.
+     */
+    @Transactional
+    public BulkDiscountResponse applyBulkDiscount(List<Long> studentIds, Long categoryId,
+                                                  StudentDiscountRequest template) {
+        validateDiscountValue(template.getDiscountType(), template.getDiscountValue());
+        if (template.getValidTo() != null && template.getValidFrom().isAfter(template.getValidTo())) {
+            throw new BadRequestException("Valid from date cannot be after valid to date");
+        }
+
+        FeeCategory feeCategory = findFeeCategoryById(categoryId);
+        var currentUser = userService.getCurrentUser();
+
+        List<Long> ids = studentIds.stream().distinct().toList();
+        Set<Long> existing = studentDiscountBatchRepository.findExistingStudentIds(ids);
+        Set<Long> overlapping = studentDiscountBatchRepository.findStudentsWithOverlappingDiscount(
+            ids, categoryId, template.getValidFrom(), template.getValidTo());
+
+        List<Long> accepted = new ArrayList<>(ids.size());
+        List<BulkDiscountResponse.Failure> failures = new ArrayList<>();
+        for (Long studentId : ids) {
+            if (!existing.contains(studentId)) {
+                failures.add(new BulkDiscountResponse.Failure(studentId, "Student not found"));
+            } else if (overlapping.contains(studentId)) {
+                failures.add(new BulkDiscountResponse.Failure(studentId,
+                    "Student already has an active discount for this category during the specified period"));
+            } else {
+                accepted.add(studentId);
+            }
+        }
+
+        studentDiscountBatchRepository.insertDiscounts(accepted, new StudentDiscountBatchRepository.DiscountTerms(
+            categoryId, template.getDiscountType(), template.getDiscountValue(), template.getReason(),
+            template.getValidFrom(), template.getValidTo(), currentUser.getId()));
+
+        log.info("Bulk discount in category {} - Success: {}, Failed: {}",
+                 feeCategory.getCategoryName(), accepted.size(), failures.size());
+
+        return BulkDiscountResponse.builder()
+            .feeCategoryId(categoryId)
+            .discountType(template.getDiscountType())
+            .discountValue(template.getDiscountValue())
+            .totalProcessed(ids.size())
+            .successful(accepted.size())
+            .failed(failures.size())
+            .failures(failures)
+            .build();
+    }
+
     @Transactional(readOnly = true)
     public StudentDiscountResponse getStudentDiscountById(Long id) {
         var studentDiscount = findStudentDiscountById(id);
@@ -142,17 +203,10 @@ public class StudentDiscountService {
                  studentDiscount.getFeeCategory().getCategoryName());
     }
 
-    @Transactional
+    // Chunked set-based update with its own short transactions
     @Auditable(action = "EXPIRE_OLD_DISCOUNTS", entityType = "StudentDiscount")
-    public void expireOldDiscounts() {
-        List<StudentDiscount> expiredDiscounts = studentDiscountRepository.findExpiredDiscounts(LocalDate.now());
-
-        for (StudentDiscount discount : expiredDiscounts) {
-            discount.setIsActive(false);
-            studentDiscountRepository.save(discount);
-        }
-
-        log.info("Expired {} old discounts", expiredDiscounts.size());
+    public long expireOldDiscounts() {
+        return feeMaintenanceService.expireDiscounts(LocalDate.now()).getRowsUpdated();
     }
 
     private StudentDiscount findStudentDiscountById(Long id) {
@@ -179,9 +233,9 @@ public class StudentDiscountService {
             throw new BadRequestException("Valid from date cannot be after valid to date");
         }
 
-        // Check for overlapping discounts
-        boolean hasOverlapping = studentDiscountRepository.findValidDiscountByStudentAndCategory(
-            request.getStudentId(), request.getFeeCategoryId(), request.getValidFrom()).isPresent();
+        // Check for overlapping discounts across the whole requested period
+        boolean hasOverlapping = discountResolutionService.loadIntervals(request.getStudentId())
+            .overlaps(request.getFeeCategoryId(), request.getValidFrom(), request.getValidTo());
 
         if (hasOverlapping) {
             throw new BadRequestException("Student already has an active discount for this category during the specified period");
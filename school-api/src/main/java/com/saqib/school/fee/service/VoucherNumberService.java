@@ -0,0 +1,61 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.sequence.NumberAllocator;
+import com.saqib.school.fee.entity.FeeVoucher;
+import com.saqib.school.fee.repository.FeeVoucherRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Voucher numbers in the form {@code PREFIX-yyMM-nnnnn}, numbered per prefix and
+ * issue month through {@link NumberAllocator}.
+ */
+@Service
+@RequiredArgsConstructor
+public class VoucherNumberService {
+
+    private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyMM");
+
+    private final NumberAllocator numberAllocator;
+    private final FeeVoucherRepository feeVoucherRepository;
+
+    public String nextVoucherNumber(FeeVoucher.VoucherType voucherType, LocalDate issueDate) {
+        String series = series(voucherType, issueDate);
+        return format(series, numberAllocator.next(series, () -> highestIssued(series)));
+    }
+
+    public List<String> reserveVoucherNumbers(FeeVoucher.VoucherType voucherType, LocalDate issueDate, int count) {
+        String series = series(voucherType, issueDate);
+        long first = numberAllocator.reserve(series, count, () -> highestIssued(series));
+
+        List<String> numbers = new ArrayList<>(count);
+        for (long value = first; value < first + count; value++) {
+            numbers.add(format(series, value));
+        }
+        return numbers;
+    }
+
+    private long highestIssued(String series) {
+        String numberPrefix = series + "-";
+        Long highest = feeVoucherRepository.findHighestVoucherSequence(numberPrefix + "%", numberPrefix.length() + 1);
+        return highest != null ? highest : 0L;
+    }
+
+    private static String series(FeeVoucher.VoucherType voucherType, LocalDate issueDate) {
+        String prefix = switch (voucherType) {
+            case ADMISSION -> "ADM";
+            case MONTHLY -> "MON";
+            case INSTALLMENT -> "INS";
+        };
+        return prefix + "-" + issueDate.format(PERIOD_FORMAT);
+    }
+
+    private static String format(String series, long value) {
+        return String.format("%s-%05d", series, value);
+    }
+}
@@ -0,0 +1,158 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.fee.model.VoucherPrintFormat;
+import com.saqib.school.fee.print.PdfDocumentWriter;
+import com.saqib.school.fee.print.VoucherPageTemplate;
+import com.saqib.school.fee.repository.VoucherPrintRepository;
+import com.saqib.school.fee.repository.VoucherPrintRepository.PrintLine;
+import com.saqib.school.fee.repository.VoucherPrintRepository.PrintableVoucher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders printable vouchers as PDF. Each class's page template is compiled
+ * once; pages are then rendered in windows on {@code feePrintExecutor} and
+ * written in order as each window completes, so only one window of pages is
+ * held in memory at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoucherPrintService {
+
+    private static final int RENDER_WINDOW = 256;
+
+    private final VoucherPrintRepository voucherPrintRepository;
+    private final ThreadPoolTaskExecutor feePrintExecutor;
+
+    /**
+     * Vouchers to print for the month and/or class, ordered by class.
+     */
+    @Transactional(readOnly = true)
+    public List<PrintableVoucher> findVouchersToPrint(String monthYear, Long classId) {
+        if ((monthYear == null || monthYear.isBlank()) && classId == null) {
+            throw new BadRequestException("Either monthYear or classId is required");
+        }
+
+        List<PrintableVoucher> vouchers = voucherPrintRepository.findPrintableVouchers(
+            monthYear == null || monthYear.isBlank() ? null : monthYear, classId);
+        if (vouchers.isEmpty()) {
+            throw new ResourceNotFoundException("No fee vouchers found to print");
+        }
+        return vouchers;
+    }
+
+    @Transactional(readOnly = true)
+    public void render(List<PrintableVoucher> vouchers, VoucherPrintFormat format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Map<Long, VoucherPageTemplate> templates = compileTemplates(vouchers);
+
+        try {
+            if (format == VoucherPrintFormat.ZIP) {
+                renderZip(vouchers, templates, out);
+            } else {
+                PdfDocumentWriter writer = new PdfDocumentWriter(out);
+                renderPages(vouchers, templates, writer);
+                writer.finish();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Rendered {} vouchers in {} classes as {} in {} ms", vouchers.size(), templates.size(), format,
+                 System.currentTimeMillis() - start);
+    }
+
+    private void renderZip(List<PrintableVoucher> vouchers, Map<Long, VoucherPageTemplate> templates,
+                           OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Each class document writes into the current entry; the ZIP stays open between them
+        OutputStream entryStream = new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                zip.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        int from = 0;
+        while (from < vouchers.size()) {
+            long classId = vouchers.get(from).classId();
+            int to = from;
+            while (to < vouchers.size() && vouchers.get(to).classId() == classId) {
+                to++;
+            }
+
+            zip.putNextEntry(new ZipEntry(entryName(vouchers.get(from))));
+            PdfDocumentWriter writer = new PdfDocumentWriter(entryStream);
+            renderPages(vouchers.subList(from, to), templates, writer);
+            writer.finish();
+            zip.closeEntry();
+            from = to;
+        }
+        zip.finish();
+    }
+
+    private void renderPages(List<PrintableVoucher> vouchers, Map<Long, VoucherPageTemplate> templates,
+                             PdfDocumentWriter writer) throws IOException {
+        for (int from = 0; from < vouchers.size(); from += RENDER_WINDOW) {
+            List<PrintableVoucher> window = vouchers.subList(from, Math.min(from + RENDER_WINDOW, vouchers.size()));
+            Map<Long, List<PrintLine>> lines = voucherPrintRepository.findLines(
+                window.stream().map(PrintableVoucher::id).toList());
+
+            List<CompletableFuture<byte[]>> pages = new ArrayList<>(window.size());
+            for (PrintableVoucher voucher : window) {
+                VoucherPageTemplate template = templates.get(voucher.classId());
+                List<PrintLine> voucherLines = lines.getOrDefault(voucher.id(), List.of());
+                pages.add(CompletableFuture.supplyAsync(() -> template.render(voucher, voucherLines), feePrintExecutor));
+            }
+            for (CompletableFuture<byte[]> page : pages) {
+                writer.addPage(page.join());
+            }
+        }
+    }
+
+    private Map<Long, VoucherPageTemplate> compileTemplates(List<PrintableVoucher> vouchers) {
+        Map<Long, String> labels = new HashMap<>();
+        Set<Long> classIds = new LinkedHashSet<>();
+        for (PrintableVoucher voucher : vouchers) {
+            classIds.add(voucher.classId());
+            labels.putIfAbsent(voucher.classId(), voucher.classLabel());
+        }
+
+        Map<Long, List<String>> feeHeads = voucherPrintRepository.findFeeHeadsByClass(classIds);
+        Map<Long, VoucherPageTemplate> templates = new HashMap<>();
+        for (Long classId : classIds) {
+            templates.put(classId, VoucherPageTemplate.compile(labels.get(classId),
+                                                               feeHeads.getOrDefault(classId, List.of())));
+        }
+        return templates;
+    }
+
+    private static String entryName(PrintableVoucher voucher) {
+        String label = voucher.classLabel() != null ? voucher.classLabel() : "unassigned";
+        return "vouchers-" + label.replaceAll("[^A-Za-z0-9]+", "-") + "-" + voucher.classId() + ".pdf";
+    }
+}
@@ -2,6 +2,7 @@ package com.saqib.school.student.controller;
 
 import com.saqib.school.common.dto.ApiResponse;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SlicePage;
 import com.saqib.school.student.entity.Student;
 import com.saqib.school.student.model.StudentRequest;
 import com.saqib.school.student.model.StudentResponse;
@@ -75,6 +76,19 @@ public class StudentController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/seek")
+    @Operation(summary = "Get students by cursor", description = "Retrieve students ordered by first name, one keyset page at a time")
+    @PreAuthorize("hasAnyRole('PRINCIPAL', 'ADMIN_OFFICER')")
+    public ResponseEntity<ApiResponse<SlicePage<StudentResponse>>> getStudentSlice(
+            @RequestParam(required = false) Student.StudentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        SlicePage<StudentResponse> response = studentService.getStudentSlice(status, cursor, size, withTotal);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/status/{status}")
     @Operation(summary = "Get students by status", description = "Retrieve students filtered by status")
     @PreAuthorize("hasAnyRole('PRINCIPAL', 'ADMIN_OFFICER')")
@@ -9,7 +9,9 @@ import java.time.LocalDate;
 import java.util.Set;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students", indexes = {
+    @Index(name = "idx_students_first_name_id", columnList = "first_name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +42,26 @@ public interface StudentEnrollmentRepository extends JpaRepository<StudentEnroll
     Page<StudentEnrollment> findActiveEnrollmentsBySessionId(@Param("sessionId") Long sessionId, Pageable pageable);
 
     boolean existsByStudentIdAndSchoolClassIdAndStatus(Long studentId, Long classId, StudentEnrollment.EnrollmentStatus status);
+
+    @Query("SELECT se.student.id AS studentId, se.schoolClass.id AS classId, se.schoolClass.className AS className, " +
+           "se.schoolClass.section AS section FROM StudentEnrollment se " +
+           "WHERE se.status = 'ACTIVE' AND se.student.status = 'ACTIVE'")
+    List<ActiveEnrollmentView> findActiveEnrollmentViews();
+
+    @Query("SELECT se.student.id AS studentId, se.schoolClass.id AS classId, se.schoolClass.className AS className, " +
+           "se.schoolClass.section AS section FROM StudentEnrollment se " +
+           "WHERE se.status = 'ACTIVE' AND se.student.status = 'ACTIVE' AND se.schoolClass.id IN :classIds")
+    List<ActiveEnrollmentView> findActiveEnrollmentViewsByClassIds(@Param("classIds") Collection<Long> classIds);
+
+    @Query("SELECT se.student.id AS studentId, se.schoolClass.id AS classId, se.schoolClass.className AS className, " +
+           "se.schoolClass.section AS section FROM StudentEnrollment se " +
+           "WHERE se.status = 'ACTIVE' AND se.student.id IN :studentIds")
+    List<ActiveEnrollmentView> findActiveEnrollmentViewsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    interface ActiveEnrollmentView {
+        Long getStudentId();
+        Long getClassId();
+        String getClassName();
+        String getSection();
+    }
 }
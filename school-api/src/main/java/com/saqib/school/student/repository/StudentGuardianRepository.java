@@ -28,5 +28,8 @@ public interface StudentGuardianRepository extends JpaRepository<StudentGuardian
     @Query("SELECT sg FROM StudentGuardian sg WHERE sg.cnic = :cnic")
     List<StudentGuardian> findByCnic(@Param("cnic") String cnic);
 
+    @Query("SELECT DISTINCT sg.student.id FROM StudentGuardian sg WHERE sg.cnic = :cnic")
+    List<Long> findStudentIdsByCnic(@Param("cnic") String cnic);
+
     void deleteByStudentId(Long studentId);
 }
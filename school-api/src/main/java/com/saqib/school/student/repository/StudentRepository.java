@@ -1,6 +1,7 @@
 package com.saqib.school.student.repository;
 
 import com.saqib.school.student.entity.Student;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,6 +20,26 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
 
     boolean existsByRegistrationNumber(String registrationNumber);
 
+    @Query(value = "SELECT MAX(CAST(SUBSTRING(registration_number FROM :suffixStart) AS BIGINT)) " +
+                   "FROM students WHERE registration_number LIKE :pattern", nativeQuery = true)
+    Long findHighestRegistrationSequence(@Param("pattern") String pattern, @Param("suffixStart") int suffixStart);
+
+    /**
+     * Keyset page ordered by first name then id. Rows come after the
+     * ({@code afterName}, {@code afterId}) seek key; a null status matches all.
+     */
+    @Query("SELECT s FROM Student s WHERE (:status IS NULL OR s.status = :status) " +
+           "AND s.firstName >= :afterName " +
+           "AND (s.firstName > :afterName OR (s.firstName = :afterName AND s.id > :afterId)) " +
+           "ORDER BY s.firstName, s.id")
+    List<Student> seekList(@Param("status") Student.StudentStatus status,
+                           @Param("afterName") String afterName,
+                           @Param("afterId") Long afterId,
+                           Limit limit);
+
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.status = :status")
+    long countByStatus(@Param("status") Student.StudentStatus status);
+
     @Query("SELECT s FROM Student s WHERE s.status = :status")
     Page<Student> findByStatus(@Param("status") Student.StudentStatus status, Pageable pageable);
 
@@ -4,8 +4,12 @@ import com.saqib.school.academic.entity.SchoolClass;
 import com.saqib.school.academic.repository.SchoolClassRepository;
 import com.saqib.school.common.audit.Auditable;
 import com.saqib.school.common.dto.PageResponse;
+import com.saqib.school.common.dto.SeekCursor;
+import com.saqib.school.common.dto.SlicePage;
 import com.saqib.school.common.exception.BadRequestException;
 import com.saqib.school.common.exception.ResourceNotFoundException;
+import com.saqib.school.common.paging.RowCounter;
+import com.saqib.school.common.sequence.NumberAllocator;
 import com.saqib.school.fee.service.StudentDiscountService;
 import com.saqib.school.student.entity.Student;
 import com.saqib.school.student.entity.StudentEnrollment;
@@ -20,6 +24,7 @@ import com.saqib.school.student.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,6 +46,8 @@ public class StudentService {
     private final StudentMapper studentMapper;
     private final StudentEnrollmentService enrollmentService;
     private final StudentDiscountService studentDiscountService;
+    private final NumberAllocator numberAllocator;
+    private final RowCounter rowCounter;
 
     @Value("${app.student.registration-number.prefix:STD}")
     private String registrationPrefix;
@@ -104,6 +111,33 @@ public class StudentService {
         return PageResponse.from(studentPage);
     }
 
+    /**
+     * Keyset page of students ordered by first name. {@code cursor} is the
+     * previous page's {@code nextCursor}; the total is only computed when
+     * asked for.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<StudentResponse> getStudentSlice(Student.StudentStatus status, String cursor, int size,
+                                                      boolean withTotal) {
+        SlicePage.checkSize(size);
+        SeekCursor after = SeekCursor.decode(cursor);
+        List<Student> rows = studentRepository.seekList(status,
+                                                        after != null ? after.sortKey() : "",
+                                                        after != null ? after.id() : 0L,
+                                                        Limit.of(size + 1));
+
+        SlicePage<StudentResponse> slice = SlicePage.from(rows, size,
+                student -> new SeekCursor(student.getFirstName(), student.getId()))
+            .map(studentMapper::toResponse);
+
+        if (withTotal) {
+            slice.withTotal(status == null
+                ? rowCounter.estimate("students", studentRepository::count)
+                : rowCounter.cached("students:" + status, () -> studentRepository.countByStatus(status)));
+        }
+        return slice;
+    }
+
     @Transactional(readOnly = true)
     public PageResponse<StudentResponse> getStudentsByStatus(Student.StudentStatus status, Pageable pageable) {
         var studentPage = studentRepository.findByStatus(status, pageable)
@@ -293,7 +327,14 @@ public class StudentService {
 
     private String generateRegistrationNumber() {
         String year = LocalDate.now().format(DateTimeFormatter.ofPattern(yearFormat));
-        long count = studentRepository.count() + 1;
-        return String.format("%s%s%04d", registrationPrefix, year, count);
+        String numberPrefix = registrationPrefix + year;
+        long sequence = numberAllocator.next(registrationPrefix + "-" + year,
+            () -> highestRegistrationSequence(numberPrefix));
+        return String.format("%s%04d", numberPrefix, sequence);
+    }
+
+    private long highestRegistrationSequence(String numberPrefix) {
+        Long highest = studentRepository.findHighestRegistrationSequence(numberPrefix + "%", numberPrefix.length() + 1);
+        return highest != null ? highest : 0L;
     }
 }
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+  @Index(name = "idx_audit_logs_created_at_id", columnList = "created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,10 +33,10 @@ public class AuditLog {
   @Column(name = "entity_id")
   private Long entityId;
 
-  @Column(name = "old_values", length = 1000)
+  @Column(name = "old_values", columnDefinition = "TEXT")
   private String oldValues;
 
-  @Column(name = "new_values", length = 1000)
+  @Column(name = "new_values", columnDefinition = "TEXT")
   private String newValues;
 
   @Column(name = "ip_address")
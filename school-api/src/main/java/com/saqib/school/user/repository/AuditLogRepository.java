@@ -1,6 +1,7 @@
 package com.saqib.school.user.repository;
 
 import com.saqib.school.user.entity.AuditLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
@@ -25,4 +27,27 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
   Page<AuditLog> findByDateRange(@Param("startDate") LocalDateTime startDate,
                                  @Param("endDate") LocalDateTime endDate,
                                  Pageable pageable);
+
+  /**
+   * Keyset page ordered by creation time then id, newest first. Rows come
+   * after the ({@code afterTime}, {@code afterId}) seek key; null filters
+   * match all.
+   */
+  @Query("SELECT al FROM AuditLog al WHERE (:userId IS NULL OR al.user.id = :userId) " +
+    "AND (:entityType IS NULL OR al.entityType = :entityType) AND (:entityId IS NULL OR al.entityId = :entityId) " +
+    "AND al.createdAt <= :afterTime " +
+    "AND (al.createdAt < :afterTime OR (al.createdAt = :afterTime AND al.id < :afterId)) " +
+    "ORDER BY al.createdAt DESC, al.id DESC")
+  List<AuditLog> seekList(@Param("userId") Long userId,
+                          @Param("entityType") String entityType,
+                          @Param("entityId") Long entityId,
+                          @Param("afterTime") LocalDateTime afterTime,
+                          @Param("afterId") Long afterId,
+                          Limit limit);
+
+  @Query("SELECT COUNT(al) FROM AuditLog al WHERE (:userId IS NULL OR al.user.id = :userId) " +
+    "AND (:entityType IS NULL OR al.entityType = :entityType) AND (:entityId IS NULL OR al.entityId = :entityId)")
+  long countList(@Param("userId") Long userId,
+                 @Param("entityType") String entityType,
+                 @Param("entityId") Long entityId);
 }
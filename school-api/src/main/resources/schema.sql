@@ -0,0 +1,40 @@
+-- Runs after Hibernate's ddl-auto update (defer-datasource-initialization), so
+-- every statement here must be safe to re-run on each start. Statements end
+-- with ^; (spring.sql.init.separator) so DO blocks can hold plain semicolons.
+
+-- At most one live monthly voucher per student and month; bulk generation
+-- inserts with ON CONFLICT DO NOTHING against it. Databases that already hold
+-- duplicates start without the index and log them (MonthlyVoucherGenerationService)
+-- until they are cancelled by hand.
+DO $$
+BEGIN
+    IF to_regclass('uk_fee_vouchers_student_month') IS NULL AND NOT EXISTS (
+        SELECT 1 FROM fee_vouchers WHERE voucher_type = 'MONTHLY' AND status <> 'CANCELLED'
+        GROUP BY student_id, month_year HAVING COUNT(*) > 1) THEN
+        CREATE UNIQUE INDEX uk_fee_vouchers_student_month
+            ON fee_vouchers (student_id, month_year)
+            WHERE voucher_type = 'MONTHLY' AND status <> 'CANCELLED';
+    END IF;
+END
+$$^;
+
+-- At most one queued or running generation job per month
+CREATE UNIQUE INDEX IF NOT EXISTS uk_fee_generation_jobs_active_month
+    ON fee_generation_jobs (month_year)
+    WHERE status IN ('QUEUED', 'RUNNING')^;
+
+-- ddl-auto update never widens columns; audit values used to be varchar(1000).
+-- varchar to text needs no rewrite, but ALTER TABLE still takes an ACCESS
+-- EXCLUSIVE lock, so it only runs while a column is not text yet
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = 'audit_logs'
+          AND column_name IN ('old_values', 'new_values') AND data_type <> 'text') THEN
+        ALTER TABLE audit_logs
+            ALTER COLUMN old_values TYPE TEXT,
+            ALTER COLUMN new_values TYPE TEXT;
+    END IF;
+END
+$$^;
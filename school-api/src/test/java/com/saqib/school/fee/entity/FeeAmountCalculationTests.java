@@ -0,0 +1,148 @@
+package com.saqib.school.fee.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fines and discounts in paisa must match the BigDecimal formulas they
+ * replaced, as stored: rounded half up to two places by the amount columns.
+ */
+class FeeAmountCalculationTests {
+
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  private static final List<BigDecimal> AMOUNTS = List.of(
+      new BigDecimal("0.00"), new BigDecimal("0.01"), new BigDecimal("0.05"), new BigDecimal("1.00"),
+      new BigDecimal("3.33"), new BigDecimal("99.99"), new BigDecimal("1234.57"), new BigDecimal("2500.00"),
+      new BigDecimal("18750.45"), new BigDecimal("999999.99"));
+
+  @Test
+  void percentageFinesMatchCeilingFormulaForEveryScale() {
+    for (BigDecimal percent : percentages()) {
+      for (BigDecimal amount : AMOUNTS) {
+        assertThat(fine(percent).calculateFine(amount))
+            .as("%s%% fine on %s", percent, amount)
+            .isEqualByComparingTo(oldFine(amount, percent));
+      }
+    }
+  }
+
+  @Test
+  void percentageDiscountsMatchExactFormulaForEveryScale() {
+    for (BigDecimal percent : percentages()) {
+      for (BigDecimal amount : AMOUNTS) {
+        assertThat(discount(StudentDiscount.DiscountType.PERCENTAGE, percent).calculateDiscount(amount))
+            .as("%s%% discount on %s", percent, amount)
+            .isEqualByComparingTo(oldDiscount(amount, percent));
+      }
+    }
+  }
+
+  @Test
+  void halfPaisaResultsRoundTheSameWay() {
+    // 0.5% of 1.00 is exactly half a paisa; 1/3% of 3.33 leaves a remainder past the working scale
+    for (String percent : List.of("0.5", "0.50", "1.5", "0.333333", "2.25", "12.5")) {
+      for (BigDecimal amount : List.of(new BigDecimal("1.00"), new BigDecimal("3.33"), new BigDecimal("0.03"))) {
+        BigDecimal value = new BigDecimal(percent);
+        assertThat(fine(value).calculateFine(amount)).isEqualByComparingTo(oldFine(amount, value));
+        assertThat(discount(StudentDiscount.DiscountType.PERCENTAGE, value).calculateDiscount(amount))
+            .isEqualByComparingTo(oldDiscount(amount, value));
+      }
+    }
+  }
+
+  @Test
+  void percentagesOutsideTheFastPathFallBackToBigDecimal() {
+    List<BigDecimal> percents = List.of(
+        new BigDecimal("1E+1"), new BigDecimal("5E+1"), new BigDecimal("25E+1"), new BigDecimal("1E+2"),
+        new BigDecimal("12.3456789"), new BigDecimal("0.00000015"), new BigDecimal("33.333333333"),
+        new BigDecimal("7.0000000000"));
+    for (BigDecimal percent : percents) {
+      assertThat(percent.scale() < 0 || percent.scale() >= 7).isTrue();
+      for (BigDecimal amount : AMOUNTS) {
+        assertThat(fine(percent).calculateFine(amount))
+            .as("%s%% fine on %s", percent, amount)
+            .isEqualByComparingTo(oldFine(amount, percent));
+        assertThat(discount(StudentDiscount.DiscountType.PERCENTAGE, percent).calculateDiscount(amount))
+            .as("%s%% discount on %s", percent, amount)
+            .isEqualByComparingTo(oldDiscount(amount, percent));
+      }
+    }
+  }
+
+  @Test
+  void fixedDiscountIsCappedAtTheOriginalAmount() {
+    StudentDiscount discount = discount(StudentDiscount.DiscountType.FIXED_AMOUNT, new BigDecimal("500.00"));
+
+    assertThat(discount.calculateDiscount(new BigDecimal("300.00"))).isEqualByComparingTo("300.00");
+    assertThat(discount.calculateDiscount(new BigDecimal("500.00"))).isEqualByComparingTo("500.00");
+    assertThat(discount.calculateDiscount(new BigDecimal("750.25"))).isEqualByComparingTo("500.00");
+    assertThat(discount.calculateDiscount(new BigDecimal("0.00"))).isEqualByComparingTo("0.00");
+  }
+
+  @Test
+  void fixedFineIgnoresTheVoucherAmount() {
+    FineStructure fine = FineStructure.builder()
+        .fineType(FineStructure.FineType.FIXED_AMOUNT)
+        .fineValue(new BigDecimal("150.00"))
+        .build();
+
+    assertThat(fine.calculateFine(new BigDecimal("20.00"))).isEqualByComparingTo("150.00");
+    assertThat(fine.calculateFine(new BigDecimal("9000.00"))).isEqualByComparingTo("150.00");
+  }
+
+  @Test
+  void inactiveDiscountIsZero() {
+    StudentDiscount discount = discount(StudentDiscount.DiscountType.PERCENTAGE, new BigDecimal("50"));
+    discount.setIsActive(false);
+
+    assertThat(discount.calculateDiscount(new BigDecimal("1000.00"))).isEqualByComparingTo("0.00");
+  }
+
+  // Fixed edge values plus seeded random ones at every scale the paisa fast path handles
+  private static List<BigDecimal> percentages() {
+    Random random = new Random(20240601L);
+    List<BigDecimal> percents = new ArrayList<>();
+    for (int scale = 0; scale <= 6; scale++) {
+      long limit = 150 * BigInteger.TEN.pow(scale).longValueExact();
+      percents.add(BigDecimal.valueOf(0, scale));
+      percents.add(BigDecimal.valueOf(1, scale));
+      percents.add(BigDecimal.valueOf(limit - 1, scale));
+      for (int i = 0; i < 40; i++) {
+        percents.add(BigDecimal.valueOf(random.nextLong(limit), scale));
+      }
+    }
+    return percents;
+  }
+
+  private static BigDecimal oldFine(BigDecimal amount, BigDecimal percent) {
+    return amount.multiply(percent).divide(HUNDRED, RoundingMode.CEILING).setScale(2, RoundingMode.HALF_UP);
+  }
+
+  private static BigDecimal oldDiscount(BigDecimal amount, BigDecimal percent) {
+    return amount.multiply(percent).divide(HUNDRED).setScale(2, RoundingMode.HALF_UP);
+  }
+
+  private static FineStructure fine(BigDecimal percent) {
+    return FineStructure.builder()
+        .fineType(FineStructure.FineType.PERCENTAGE)
+        .fineValue(percent)
+        .build();
+  }
+
+  private static StudentDiscount discount(StudentDiscount.DiscountType type, BigDecimal value) {
+    return StudentDiscount.builder()
+        .discountType(type)
+        .discountValue(value)
+        .isActive(true)
+        .build();
+  }
+}
@@ -0,0 +1,88 @@
+package com.saqib.school.fee.entity;
+
+import com.saqib.school.common.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeeLinesConverterTests {
+
+  @Test
+  void linesSurviveARoundTrip() {
+    List<FeeLine> lines = List.of(
+        line(3L, "Tuition Fee", 250_000, 25_000, 225_000),
+        line(7L, "Transport", 80_050, 0, 80_050),
+        line(12L, "Lab Charges (Science)", 1, 1, 0));
+
+    String packed = FeeLinesConverter.pack(lines);
+
+    assertThat(packed).isEqualTo(
+        "3\t250000\t25000\t225000\tTuition Fee\n" +
+        "7\t80050\t0\t80050\tTransport\n" +
+        "12\t1\t1\t0\tLab Charges (Science)");
+    assertThat(FeeLinesConverter.unpack(packed)).isEqualTo(lines);
+  }
+
+  @Test
+  void emptyListAndNullStayDistinct() {
+    // Empty is a voucher with no heads; null is one that has not been packed yet
+    assertThat(FeeLinesConverter.pack(List.of())).isEmpty();
+    assertThat(FeeLinesConverter.unpack("")).isEmpty();
+    assertThat(FeeLinesConverter.pack(null)).isNull();
+    assertThat(FeeLinesConverter.unpack(null)).isNull();
+  }
+
+  @Test
+  void missingAndEmptyNamesComeBackAsNull() {
+    List<FeeLine> lines = List.of(
+        line(1L, null, 100, 0, 100),
+        line(2L, "", 200, 0, 200),
+        line(3L, "Books", 300, 0, 300));
+
+    List<FeeLine> unpacked = FeeLinesConverter.unpack(FeeLinesConverter.pack(lines));
+
+    assertThat(unpacked).containsExactly(
+        line(1L, null, 100, 0, 100),
+        line(2L, null, 200, 0, 200),
+        line(3L, "Books", 300, 0, 300));
+  }
+
+  @Test
+  void separatorsInNamesBecomeSpaces() {
+    List<FeeLine> lines = List.of(
+        line(1L, "Sports\tKit", 100, 0, 100),
+        line(2L, "Annual\nFunction", 200, 0, 200),
+        line(3L, "Exam\r\nFee\t", 300, 0, 300));
+
+    List<FeeLine> unpacked = FeeLinesConverter.unpack(FeeLinesConverter.pack(lines));
+
+    assertThat(unpacked).extracting(FeeLine::feeCategoryName)
+        .containsExactly("Sports Kit", "Annual Function", "Exam  Fee ");
+    assertThat(unpacked).extracting(FeeLine::finalAmount)
+        .containsExactly(Money.ofPaisa(100), Money.ofPaisa(200), Money.ofPaisa(300));
+  }
+
+  @Test
+  void malformedValuesAreRejected() {
+    assertThatThrownBy(() -> FeeLinesConverter.unpack("Tuition Fee"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Malformed packed fee line");
+    // Too few fields on the first line, even though the next line has tabs to spare
+    assertThatThrownBy(() -> FeeLinesConverter.unpack("1\t100\t0\n2\t200\t0\t200\tBooks"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Malformed packed fee line");
+    assertThatThrownBy(() -> FeeLinesConverter.unpack("1\t100\t0\t100\tBooks\n\n2\t200\t0\t200\tFee"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FeeLinesConverter.unpack("x\t100\t0\t100\tBooks"))
+        .isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> FeeLinesConverter.unpack("1\t1.00\t0\t1.00\tBooks"))
+        .isInstanceOf(NumberFormatException.class);
+  }
+
+  private static FeeLine line(long categoryId, String name, long original, long discount, long finalAmount) {
+    return new FeeLine(categoryId, name, Money.ofPaisa(original), Money.ofPaisa(discount), Money.ofPaisa(finalAmount));
+  }
+}
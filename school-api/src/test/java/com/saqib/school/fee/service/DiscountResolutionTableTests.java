@@ -0,0 +1,120 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.money.Money;
+import com.saqib.school.fee.entity.FeeCategory;
+import com.saqib.school.fee.entity.StudentDiscount;
+import com.saqib.school.student.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiscountResolutionTableTests {
+
+  private static final long MAX_ID = 0xFFFF_FFFFL;
+
+  @Test
+  void emptyTableResolvesNothing() {
+    DiscountResolutionTable table = DiscountResolutionTable.of(List.of());
+
+    assertThat(table).isSameAs(DiscountResolutionTable.empty());
+    assertThat(table.size()).isZero();
+    assertThat(table.get(1, 1)).isNull();
+    assertThat(table.discountFor(1, 1, Money.of(new BigDecimal("100.00")))).isEqualTo(Money.ZERO);
+  }
+
+  @Test
+  void everyEntryIsFoundAtEachTableSize() {
+    // Covers the capacity steps, so probe chains wrap around tables of every size
+    for (int entries = 1; entries <= 130; entries++) {
+      List<StudentDiscount> discounts = new ArrayList<>();
+      for (int i = 0; i < entries; i++) {
+        discounts.add(discount(i / 3 + 1, i % 3 + 1, "5.00"));
+      }
+
+      DiscountResolutionTable table = DiscountResolutionTable.of(discounts);
+
+      assertThat(table.size()).isEqualTo(entries);
+      for (StudentDiscount discount : discounts) {
+        assertThat(table.get(discount.getStudent().getId(), discount.getFeeCategory().getId())).isSameAs(discount);
+      }
+      assertThat(table.get(entries + 1L, 1)).isNull();
+      assertThat(table.get(1, 4)).isNull();
+    }
+  }
+
+  @Test
+  void collidingKeysAreResolvedByProbing() {
+    // Same category, students far apart: the low bits of the packed keys are identical
+    List<StudentDiscount> discounts = new ArrayList<>();
+    for (long student = 1; student <= 2_000; student++) {
+      discounts.add(discount(student * 65_536, 7, "1.00"));
+    }
+
+    DiscountResolutionTable table = DiscountResolutionTable.of(discounts);
+
+    assertThat(table.size()).isEqualTo(2_000);
+    for (StudentDiscount discount : discounts) {
+      assertThat(table.get(discount.getStudent().getId(), 7)).isSameAs(discount);
+    }
+    assertThat(table.get(65_536 * 2_001L, 7)).isNull();
+    assertThat(table.get(65_536, 8)).isNull();
+  }
+
+  @Test
+  void firstDiscountForAPairWins() {
+    StudentDiscount first = discount(10, 20, "50.00");
+    StudentDiscount second = discount(10, 20, "75.00");
+
+    DiscountResolutionTable table = DiscountResolutionTable.of(List.of(first, second));
+
+    assertThat(table.size()).isEqualTo(1);
+    assertThat(table.get(10, 20)).isSameAs(first);
+    assertThat(table.discountFor(10, 20, Money.of(new BigDecimal("100.00"))))
+        .isEqualTo(Money.of(new BigDecimal("50.00")));
+  }
+
+  @Test
+  void studentAndCategoryAreNotInterchangeable() {
+    DiscountResolutionTable table = DiscountResolutionTable.of(List.of(discount(3, 5, "10.00")));
+
+    assertThat(table.get(3, 5)).isNotNull();
+    assertThat(table.get(5, 3)).isNull();
+  }
+
+  @Test
+  void idsUpToThirtyTwoBitsArePacked() {
+    StudentDiscount largest = discount(MAX_ID, MAX_ID, "10.00");
+    StudentDiscount zero = discount(0, 0, "20.00");
+
+    DiscountResolutionTable table = DiscountResolutionTable.of(List.of(largest, zero));
+
+    assertThat(table.get(MAX_ID, MAX_ID)).isSameAs(largest);
+    assertThat(table.get(0, 0)).isSameAs(zero);
+    assertThat(table.get(MAX_ID, 0)).isNull();
+  }
+
+  @Test
+  void idsOutOfRangeAreRejected() {
+    DiscountResolutionTable table = DiscountResolutionTable.of(List.of(discount(1, 1, "10.00")));
+
+    assertThatThrownBy(() -> table.get(MAX_ID + 1, 1)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> table.get(1, MAX_ID + 1)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> table.get(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> DiscountResolutionTable.of(List.of(discount(MAX_ID + 1, 1, "10.00"))))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static StudentDiscount discount(long studentId, long categoryId, String amount) {
+    return StudentDiscount.builder()
+        .student(Student.builder().id(studentId).build())
+        .feeCategory(FeeCategory.builder().id(categoryId).build())
+        .discountType(StudentDiscount.DiscountType.FIXED_AMOUNT)
+        .discountValue(new BigDecimal(amount))
+        .build();
+  }
+}
@@ -0,0 +1,119 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.common.exception.BadRequestException;
+import com.saqib.school.fee.entity.FeePayment;
+import com.saqib.school.fee.model.FeePaymentRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races counter payments against one voucher through
+ * {@link FeePaymentService#processFeePayment} on a throwaway PostgreSQL
+ * container. Every accepted payment must be posted exactly once, the balance
+ * never exceeded, and a posting rejected by the conditional UPDATE must take
+ * its payment row down with it.
+ */
+@SpringBootTest
+@Testcontainers
+@Sql("/sql/payment-concurrency-fixture.sql")
+@Sql(scripts = "/sql/payment-concurrency-cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class FeePaymentConcurrencyTests {
+
+  private static final int THREADS = 16;
+  private static final int ATTEMPTS = 60;
+  private static final BigDecimal TOTAL = new BigDecimal("2000.00");
+  private static final BigDecimal INSTALMENT = new BigDecimal("50.00");
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+  @Autowired
+  private FeePaymentService feePaymentService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void concurrentPaymentsNeverOverpayOrLeaveOrphanedRows() throws Exception {
+    Long voucherId = jdbcTemplate.queryForObject(
+        "SELECT id FROM fee_vouchers WHERE voucher_number = 'TEST-CONC-VOUCHER'", Long.class);
+    FeePaymentRequest request = FeePaymentRequest.builder()
+        .voucherId(voucherId)
+        .paymentMethod(FeePayment.PaymentMethod.CASH)
+        .amount(INSTALMENT)
+        .paymentDate(LocalDate.now())
+        .build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> results = IntStream.range(0, ATTEMPTS)
+          .<Future<?>>mapToObj(i -> executor.submit(() -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+            try {
+              start.await();
+              return feePaymentService.processFeePayment(request);
+            } finally {
+              SecurityContextHolder.clearContext();
+            }
+          }))
+          .toList();
+      start.countDown();
+
+      int accepted = 0;
+      int rejected = 0;
+      for (Future<?> result : results) {
+        try {
+          result.get(60, TimeUnit.SECONDS);
+          accepted++;
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(BadRequestException.class);
+          rejected++;
+        }
+      }
+
+      int expected = TOTAL.divide(INSTALMENT).intValueExact();
+      assertThat(accepted).isEqualTo(expected);
+      assertThat(rejected).isEqualTo(ATTEMPTS - expected);
+
+      var voucher = jdbcTemplate.queryForMap(
+          "SELECT paid_amount, status, payment_date FROM fee_vouchers WHERE id = ?", voucherId);
+      assertThat((BigDecimal) voucher.get("paid_amount")).isEqualByComparingTo(TOTAL);
+      assertThat(voucher.get("status")).isEqualTo("PAID");
+      assertThat(voucher.get("payment_date")).isNotNull();
+
+      // Rejected postings roll back their payment row: one row per accepted payment, summing to the total
+      var payments = jdbcTemplate.queryForMap(
+          "SELECT COUNT(*) AS payment_count, COALESCE(SUM(amount), 0) AS total FROM fee_payments WHERE voucher_id = ?",
+          voucherId);
+      assertThat(((Number) payments.get("payment_count")).intValue()).isEqualTo(expected);
+      assertThat((BigDecimal) payments.get("total")).isEqualByComparingTo(TOTAL);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
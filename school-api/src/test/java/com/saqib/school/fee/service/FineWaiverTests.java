@@ -0,0 +1,87 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.FineAccrualRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A waived fine must survive every later fine run, including a full scan
+ * that re-prices the overdue voucher it was waived on.
+ */
+@SpringBootTest
+@Testcontainers
+@Sql("/sql/fine-waiver-fixture.sql")
+@Sql(scripts = "/sql/fine-waiver-cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class FineWaiverTests {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+  @Autowired
+  private FineAccrualService fineAccrualService;
+
+  @Autowired
+  private FineCalculationService fineCalculationService;
+
+  @Autowired
+  private FineScheduleCache fineScheduleCache;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    // The fixture's fine structure was written behind the cache's back
+    fineScheduleCache.invalidateAfterCommit();
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void waivedFineIsNotReappliedByAccrual() {
+    Long voucherId = jdbcTemplate.queryForObject(
+        "SELECT id FROM fee_vouchers WHERE voucher_number = 'TEST-WAIVE-VOUCHER'", Long.class);
+
+    assertThat(fineAccrualService.runNow(true).getStatus()).isEqualTo(FineAccrualRun.RunStatus.COMPLETED);
+    assertThat(fineAmount(voucherId)).isEqualByComparingTo("100.00");
+
+    fineCalculationService.waiveFine(voucherId, "Hardship");
+    assertThat(fineAmount(voucherId)).isEqualByComparingTo("0.00");
+
+    assertThat(fineAccrualService.runNow(true).getStatus()).isEqualTo(FineAccrualRun.RunStatus.COMPLETED);
+    assertThat(fineAccrualService.runNow(false).getStatus()).isEqualTo(FineAccrualRun.RunStatus.COMPLETED);
+    assertThat(fineCalculationService.applyFines(List.of(voucherId), LocalDate.now())).isZero();
+
+    assertThat(fineAmount(voucherId)).isEqualByComparingTo("0.00");
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT fine_waived_at IS NOT NULL FROM fee_vouchers WHERE id = ?", Boolean.class, voucherId)).isTrue();
+  }
+
+  private BigDecimal fineAmount(Long voucherId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT fine_amount FROM fee_vouchers WHERE id = ?", BigDecimal.class, voucherId);
+  }
+}
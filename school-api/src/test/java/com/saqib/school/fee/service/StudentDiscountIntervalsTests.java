@@ -0,0 +1,115 @@
+package com.saqib.school.fee.service;
+
+import com.saqib.school.fee.entity.FeeCategory;
+import com.saqib.school.fee.entity.StudentDiscount;
+import com.saqib.school.student.entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentDiscountIntervalsTests {
+
+  private static final long CATEGORY = 1L;
+
+  @Test
+  void noDiscountsNeverOverlap() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of());
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-01-01"), null)).isFalse();
+  }
+
+  @Test
+  void boundaryDaysAreInclusive() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-03-01", "2024-03-31", true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-02-01"), date("2024-02-29"))).isFalse();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-02-01"), date("2024-03-01"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-03-31"), date("2024-04-30"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-04-01"), date("2024-04-30"))).isFalse();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-03-10"), date("2024-03-10"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-01-01"), date("2024-12-31"))).isTrue();
+  }
+
+  @Test
+  void openEndedPeriodsOverlapEverythingAfterTheirStart() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-03-01", null, true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2030-01-01"), date("2030-01-31"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-01-01"), null)).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-01-01"), date("2024-02-29"))).isFalse();
+  }
+
+  @Test
+  void requestedOpenEndOverlapsLaterPeriods() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2025-01-01", "2025-06-30", true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-01-01"), null)).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2025-07-01"), null)).isFalse();
+  }
+
+  @Test
+  void gapsBetweenPeriodsAreFree() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-07-01", "2024-09-30", true),
+        discount(CATEGORY, "2024-01-01", "2024-03-31", true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-04-01"), date("2024-06-30"))).isFalse();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-04-01"), date("2024-07-01"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-10-01"), null)).isFalse();
+  }
+
+  @Test
+  void longEarlierPeriodCoversLaterShortOnes() {
+    // Legacy data may already overlap; the running maximum end still finds the long period
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-01-01", "2024-12-31", true),
+        discount(CATEGORY, "2024-02-01", "2024-02-10", true),
+        discount(CATEGORY, "2024-05-01", "2024-05-10", true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-08-01"), date("2024-08-31"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2025-01-01"), date("2025-01-31"))).isFalse();
+  }
+
+  @Test
+  void periodsStartingOnTheSameDayAreAllConsidered() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-06-01", "2024-06-05", true),
+        discount(CATEGORY, "2024-06-01", "2024-08-31", true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-08-01"), date("2024-08-31"))).isTrue();
+    assertThat(intervals.overlaps(CATEGORY, date("2024-05-01"), date("2024-06-01"))).isTrue();
+  }
+
+  @Test
+  void inactiveDiscountsAndOtherCategoriesAreIgnored() {
+    StudentDiscountIntervals intervals = StudentDiscountIntervals.of(List.of(
+        discount(CATEGORY, "2024-01-01", null, false),
+        discount(2L, "2024-01-01", null, true)));
+
+    assertThat(intervals.overlaps(CATEGORY, date("2024-06-01"), date("2024-06-30"))).isFalse();
+    assertThat(intervals.overlaps(2L, date("2024-06-01"), date("2024-06-30"))).isTrue();
+  }
+
+  private static StudentDiscount discount(long categoryId, String from, String to, boolean active) {
+    return StudentDiscount.builder()
+        .student(Student.builder().id(1L).build())
+        .feeCategory(FeeCategory.builder().id(categoryId).build())
+        .discountType(StudentDiscount.DiscountType.PERCENTAGE)
+        .discountValue(new BigDecimal("10.00"))
+        .validFrom(date(from))
+        .validTo(to != null ? date(to) : null)
+        .isActive(active)
+        .build();
+  }
+
+  private static LocalDate date(String value) {
+    return LocalDate.parse(value);
+  }
+}
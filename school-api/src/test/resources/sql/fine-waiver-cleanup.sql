@@ -0,0 +1,8 @@
+DELETE FROM fee_vouchers WHERE voucher_number = 'TEST-WAIVE-VOUCHER';
+DELETE FROM fine_structures WHERE class_id IN (SELECT id FROM classes WHERE class_name = 'TEST-WAIVE-CLASS');
+DELETE FROM student_enrollments WHERE student_id IN (
+    SELECT id FROM students WHERE registration_number = 'TEST-WAIVE-STUDENT');
+DELETE FROM students WHERE registration_number = 'TEST-WAIVE-STUDENT';
+DELETE FROM classes WHERE class_name = 'TEST-WAIVE-CLASS';
+DELETE FROM academic_sessions WHERE session_name = 'TEST-WAIVE-SESSION';
+DELETE FROM fine_accrual_runs WHERE run_trigger = 'MANUAL' AND run_date = CURRENT_DATE;
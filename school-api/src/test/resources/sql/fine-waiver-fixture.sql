@@ -0,0 +1,27 @@
+-- One enrolled student with a 1000.00 voucher 20 days overdue; the class fines 100.00 from the first day
+INSERT INTO academic_sessions (session_name, start_date, end_date, status, created_at, updated_at)
+VALUES ('TEST-WAIVE-SESSION', CURRENT_DATE - 200, CURRENT_DATE + 165, 'ACTIVE', now(), now());
+
+INSERT INTO classes (session_id, class_name, section, capacity, is_active, created_at, updated_at)
+SELECT id, 'TEST-WAIVE-CLASS', 'A', 30, true, now(), now()
+FROM academic_sessions WHERE session_name = 'TEST-WAIVE-SESSION';
+
+INSERT INTO students (registration_number, first_name, last_name, date_of_birth, gender, admission_date, status,
+                      created_at, updated_at)
+VALUES ('TEST-WAIVE-STUDENT', 'Waiver', 'Student', DATE '2015-01-01', 'MALE', CURRENT_DATE - 100, 'ACTIVE', now(), now());
+
+INSERT INTO student_enrollments (student_id, class_id, enrollment_date, status, created_at, updated_at)
+SELECT s.id, c.id, CURRENT_DATE - 100, 'ACTIVE', now(), now()
+FROM students s, classes c
+WHERE s.registration_number = 'TEST-WAIVE-STUDENT' AND c.class_name = 'TEST-WAIVE-CLASS';
+
+INSERT INTO fine_structures (class_id, days_after_due, fine_type, fine_value, is_active, created_at, updated_at)
+SELECT id, 1, 'FIXED_AMOUNT', 100.00, true, now(), now()
+FROM classes WHERE class_name = 'TEST-WAIVE-CLASS';
+
+INSERT INTO fee_vouchers (voucher_number, student_id, voucher_type, issue_date, due_date, total_amount, paid_amount,
+                          fine_amount, status, created_by, created_at, updated_at)
+SELECT 'TEST-WAIVE-VOUCHER', s.id, 'INSTALLMENT', CURRENT_DATE - 30, CURRENT_DATE - 20, 1000.00, 0, 0, 'OVERDUE',
+       u.id, now(), now()
+FROM students s, users u
+WHERE s.registration_number = 'TEST-WAIVE-STUDENT' AND u.username = 'admin';
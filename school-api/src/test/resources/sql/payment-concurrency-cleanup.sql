@@ -0,0 +1,3 @@
+DELETE FROM fee_payments WHERE voucher_id IN (SELECT id FROM fee_vouchers WHERE voucher_number = 'TEST-CONC-VOUCHER');
+DELETE FROM fee_vouchers WHERE voucher_number = 'TEST-CONC-VOUCHER';
+DELETE FROM students WHERE registration_number = 'TEST-CONC-STUDENT';
@@ -0,0 +1,11 @@
+-- One student with one 2000.00 voucher, created by the admin user seeded at startup
+INSERT INTO students (registration_number, first_name, last_name, date_of_birth, gender, admission_date, status,
+                      created_at, updated_at)
+VALUES ('TEST-CONC-STUDENT', 'Concurrency', 'Student', DATE '2015-01-01', 'MALE', CURRENT_DATE, 'ACTIVE', now(), now());
+
+INSERT INTO fee_vouchers (voucher_number, student_id, voucher_type, issue_date, due_date, total_amount, paid_amount,
+                          fine_amount, status, created_by, created_at, updated_at)
+SELECT 'TEST-CONC-VOUCHER', s.id, 'INSTALLMENT', CURRENT_DATE, CURRENT_DATE + 10, 2000.00, 0, 0, 'PENDING', u.id,
+       now(), now()
+FROM students s, users u
+WHERE s.registration_number = 'TEST-CONC-STUDENT' AND u.username = 'admin';